@@ -18,9 +18,17 @@ package net.javacrumbs.shedlock.provider.cassandra;
 import com.datastax.oss.driver.api.core.ConsistencyLevel;
 import com.datastax.oss.driver.api.core.CqlIdentifier;
 import com.datastax.oss.driver.api.core.CqlSession;
+import net.javacrumbs.shedlock.core.AbstractAsyncSimpleLock;
+import net.javacrumbs.shedlock.core.AsyncLockProvider;
+import net.javacrumbs.shedlock.core.AsyncSimpleLock;
+import net.javacrumbs.shedlock.core.LockConfiguration;
 import net.javacrumbs.shedlock.support.StorageBasedLockProvider;
 import net.javacrumbs.shedlock.support.annotation.NonNull;
 
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -31,10 +39,15 @@ import static java.util.Objects.requireNonNull;
  * CREATE KEYSPACE shedlock with replication={'class':'SimpleStrategy', 'replication_factor':1} and durable_writes=true;
  * CREATE TABLE shedlock.lock (name text PRIMARY KEY, lockUntil timestamp, lockedAt timestamp, lockedBy text);
  * </pre>
+ * Statements are prepared once, locking and extension use a single lightweight transaction (INSERT ... IF NOT EXISTS,
+ * UPDATE ... IF lockUntil &lt;= now). Implements {@link AsyncLockProvider}, {@link #lockAsync(LockConfiguration)}
+ * and the returned lock use executeAsync and do not block.
  */
-public class CassandraLockProvider extends StorageBasedLockProvider {
+public class CassandraLockProvider extends StorageBasedLockProvider implements AsyncLockProvider {
     static final String DEFAULT_TABLE = "lock";
 
+    private final CassandraStorageAccessor storageAccessor;
+
     public CassandraLockProvider(@NonNull CqlSession cqlSession) {
         this(cqlSession, DEFAULT_TABLE, ConsistencyLevel.QUORUM);
     }
@@ -44,7 +57,40 @@ public class CassandraLockProvider extends StorageBasedLockProvider {
     }
 
     public CassandraLockProvider(@NonNull Configuration configuration) {
-        super(new CassandraStorageAccessor(configuration));
+        this(new CassandraStorageAccessor(configuration));
+    }
+
+    private CassandraLockProvider(CassandraStorageAccessor storageAccessor) {
+        super(storageAccessor);
+        this.storageAccessor = storageAccessor;
+    }
+
+    @Override
+    @NonNull
+    public CompletionStage<Optional<AsyncSimpleLock>> lockAsync(@NonNull LockConfiguration lockConfiguration) {
+        return doLockAsync(lockConfiguration)
+            .thenApply(locked -> locked ? Optional.of(new CassandraAsyncLock(lockConfiguration, storageAccessor)) : Optional.empty());
+    }
+
+    /**
+     * Same steps as {@link #doLock(LockConfiguration)}, composed without blocking.
+     */
+    private CompletionStage<Boolean> doLockAsync(LockConfiguration lockConfiguration) {
+        String name = lockConfiguration.getName();
+        if (lockRecordRecentlyCreated(name)) {
+            return storageAccessor.updateRecordAsync(lockConfiguration);
+        }
+        return storageAccessor.insertRecordAsync(lockConfiguration).thenCompose(inserted -> {
+            addLockRecord(name);
+            if (inserted) {
+                return CompletableFuture.completedFuture(true);
+            }
+            return storageAccessor.updateRecordAsync(lockConfiguration).whenComplete((updated, error) -> {
+                if (error != null) {
+                    removeLockRecord(name);
+                }
+            });
+        });
     }
 
     /**
@@ -194,4 +240,24 @@ public class CassandraLockProvider extends StorageBasedLockProvider {
             return lockedBy;
         }
     }
+
+    private static final class CassandraAsyncLock extends AbstractAsyncSimpleLock {
+        private final CassandraStorageAccessor storageAccessor;
+
+        private CassandraAsyncLock(LockConfiguration lockConfiguration, CassandraStorageAccessor storageAccessor) {
+            super(lockConfiguration);
+            this.storageAccessor = storageAccessor;
+        }
+
+        @Override
+        protected CompletionStage<Void> doUnlockAsync() {
+            return storageAccessor.unlockAsync(lockConfiguration);
+        }
+
+        @Override
+        protected CompletionStage<Optional<AsyncSimpleLock>> doExtendAsync(LockConfiguration newConfiguration) {
+            return storageAccessor.extendAsync(newConfiguration)
+                .thenApply(extended -> extended ? Optional.of(new CassandraAsyncLock(newConfiguration, storageAccessor)) : Optional.empty());
+        }
+    }
 }
@@ -18,7 +18,9 @@ package net.javacrumbs.shedlock.provider.cassandra;
 import com.datastax.oss.driver.api.core.ConsistencyLevel;
 import com.datastax.oss.driver.api.core.CqlIdentifier;
 import com.datastax.oss.driver.api.core.CqlSession;
-import com.datastax.oss.driver.api.core.cql.ResultSet;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
 import com.datastax.oss.driver.api.core.cql.Row;
 import com.datastax.oss.driver.api.core.cql.SimpleStatement;
 import com.datastax.oss.driver.api.core.servererrors.QueryExecutionException;
@@ -27,22 +29,28 @@ import net.javacrumbs.shedlock.core.ClockProvider;
 import net.javacrumbs.shedlock.core.LockConfiguration;
 import net.javacrumbs.shedlock.provider.cassandra.CassandraLockProvider.Configuration;
 import net.javacrumbs.shedlock.support.AbstractStorageAccessor;
+import net.javacrumbs.shedlock.support.LockException;
 import net.javacrumbs.shedlock.support.Utils;
 import net.javacrumbs.shedlock.support.annotation.NonNull;
+import net.javacrumbs.shedlock.support.annotation.Nullable;
 
 import java.time.Instant;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
 
-import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.literal;
+import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.bindMarker;
 import static java.util.Objects.requireNonNull;
 
 /**
  * StorageAccessor for cassandra.
+ * <p>
+ * Statements are prepared once per session, the values are bound. Each write is a single lightweight transaction
+ * without a read before it, there is a non-blocking variant of each operation.
  **/
-/*
- * In theory, all the reads (find() method calls) in update methods are not necessary,
- * but it's a performance optimization. Moreover, the fuzzTest sometimes fails without them.
- */
 class CassandraStorageAccessor extends AbstractStorageAccessor {
     private final String hostname;
     private final CqlIdentifier table;
@@ -55,6 +63,9 @@ class CassandraStorageAccessor extends AbstractStorageAccessor {
     private final ConsistencyLevel consistencyLevel;
     private final ConsistencyLevel serialConsistencyLevel;
 
+    @Nullable
+    private volatile CompletableFuture<PreparedStatements> preparedStatements;
+
     CassandraStorageAccessor(@NonNull Configuration configuration) {
         requireNonNull(configuration, "configuration can not be null");
         this.hostname = Utils.getHostname();
@@ -71,49 +82,57 @@ class CassandraStorageAccessor extends AbstractStorageAccessor {
 
     @Override
     public boolean insertRecord(@NonNull LockConfiguration lockConfiguration) {
-        if (find(lockConfiguration.getName()).isPresent()) {
-            return false;
-        }
-
-        try {
-            return insert(lockConfiguration.getName(), lockConfiguration.getLockAtMostUntil());
-        } catch (QueryExecutionException e) {
-            logger.warn("Error on insert", e);
-            return false;
-        }
+        return block(insertRecordAsync(lockConfiguration));
     }
 
     @Override
     public boolean updateRecord(@NonNull LockConfiguration lockConfiguration) {
-        Optional<Lock> lock = find(lockConfiguration.getName());
-        if (lock.isEmpty() || lock.get().getLockUntil().isAfter(ClockProvider.now())) {
-            return false;
-        }
-
-        try {
-            return update(lockConfiguration.getName(), lockConfiguration.getLockAtMostUntil());
-        } catch (QueryExecutionException e) {
-            logger.warn("Error on update", e);
-            return false;
-        }
+        return block(updateRecordAsync(lockConfiguration));
     }
 
     @Override
     public void unlock(@NonNull LockConfiguration lockConfiguration) {
-        updateUntil(lockConfiguration.getName(), lockConfiguration.getUnlockTime());
+        block(unlockAsync(lockConfiguration));
     }
 
     @Override
     public boolean extend(@NonNull LockConfiguration lockConfiguration) {
-        Optional<Lock> lock = find(lockConfiguration.getName());
-        if (lock.isEmpty() || lock.get().getLockUntil().isBefore(ClockProvider.now()) || !lock.get().getLockedBy().equals(hostname)) {
-            logger.trace("extend false");
-            return false;
-        }
+        return block(extendAsync(lockConfiguration));
+    }
 
+    /**
+     * INSERT ... IF NOT EXISTS
+     */
+    CompletionStage<Boolean> insertRecordAsync(@NonNull LockConfiguration lockConfiguration) {
+        return execute(statements -> statements.insert.bind(
+            lockConfiguration.getName(),
+            lockConfiguration.getLockAtMostUntil(),
+            ClockProvider.now(),
+            hostname
+        )).exceptionally(e -> handleWriteException("Error on insert", e));
+    }
+
+    /**
+     * UPDATE ... IF lockUntil &lt;= now, not applied if the record does not exist
+     */
+    CompletionStage<Boolean> updateRecordAsync(@NonNull LockConfiguration lockConfiguration) {
+        return execute(statements -> statements.update.bind(
+            lockConfiguration.getLockAtMostUntil(),
+            ClockProvider.now(),
+            hostname,
+            lockConfiguration.getName(),
+            ClockProvider.now()
+        )).exceptionally(e -> handleWriteException("Error on update", e));
+    }
+
+    CompletionStage<Boolean> extendAsync(@NonNull LockConfiguration lockConfiguration) {
         return updateUntil(lockConfiguration.getName(), lockConfiguration.getLockAtMostUntil());
     }
 
+    CompletionStage<Void> unlockAsync(@NonNull LockConfiguration lockConfiguration) {
+        return updateUntil(lockConfiguration.getName(), lockConfiguration.getUnlockTime()).thenApply(ignored -> null);
+    }
+
     /**
      * Find existing row by primary key lock.name
      *
@@ -121,17 +140,7 @@ class CassandraStorageAccessor extends AbstractStorageAccessor {
      * @return optional lock row or empty
      */
     Optional<Lock> find(String name) {
-        SimpleStatement selectStatement = QueryBuilder.selectFrom(keyspace, table)
-            .column(lockUntil)
-            .column(lockedAt)
-            .column(lockedBy)
-            .whereColumn(lockName).isEqualTo(literal(name))
-            .build()
-            .setConsistencyLevel(consistencyLevel)
-            .setSerialConsistencyLevel(serialConsistencyLevel);
-
-        ResultSet resultSet = cqlSession.execute(selectStatement);
-        Row row = resultSet.one();
+        Row row = cqlSession.execute(withConsistency(block(statements()).select.bind(name))).one();
         if (row != null) {
             return Optional.of(new Lock(row.getInstant(lockUntil), row.getInstant(lockedAt), row.getString(lockedBy)));
         } else {
@@ -140,54 +149,139 @@ class CassandraStorageAccessor extends AbstractStorageAccessor {
     }
 
     /**
-     * Insert new lock row
+     * Updates lock.until field where lockConfiguration.name, if the lock is held by us
      *
      * @param name  lock name
      * @param until new until instant value
      */
-    private boolean insert(String name, Instant until) {
-        return execute(QueryBuilder.insertInto(keyspace, table)
-            .value(lockName, literal(name))
-            .value(lockUntil, literal(until))
-            .value(lockedAt, literal(ClockProvider.now()))
-            .value(lockedBy, literal(hostname))
-            .ifNotExists()
-            .build());
+    private CompletionStage<Boolean> updateUntil(String name, Instant until) {
+        return execute(statements -> statements.updateUntil.bind(until, name, ClockProvider.now(), hostname));
     }
 
-    /**
-     * Update existing lock row
-     *
-     * @param name  lock name
-     * @param until new until instant value
-     */
-    private boolean update(String name, Instant until) {
-        return execute(QueryBuilder.update(keyspace, table)
-            .setColumn(lockUntil, literal(until))
-            .setColumn(lockedAt, literal(ClockProvider.now()))
-            .setColumn(lockedBy, literal(hostname))
-            .whereColumn(lockName).isEqualTo(literal(name))
-            .ifColumn(lockUntil).isLessThan(literal(ClockProvider.now()))
-            .build());
+    private CompletableFuture<Boolean> execute(Function<PreparedStatements, BoundStatement> statementFactory) {
+        return statements()
+            .thenCompose(statements -> cqlSession.executeAsync(withConsistency(statementFactory.apply(statements))))
+            .thenApply(AsyncResultSet::wasApplied)
+            .toCompletableFuture();
+    }
+
+    private BoundStatement withConsistency(BoundStatement statement) {
+        return statement.setConsistencyLevel(consistencyLevel).setSerialConsistencyLevel(serialConsistencyLevel);
+    }
+
+    private boolean handleWriteException(String message, Throwable e) {
+        Throwable cause = unwrap(e);
+        if (cause instanceof QueryExecutionException) {
+            logger.warn(message, cause);
+            return false;
+        }
+        throw new CompletionException(cause);
     }
 
     /**
-     * Updates lock.until field where lockConfiguration.name
-     *
-     * @param name  lock name
-     * @param until new until instant value
+     * Statements are prepared on first use, preparation is retried if it fails (e.g. the table does not exist yet).
      */
-    private boolean updateUntil(String name, Instant until) {
-        return execute(QueryBuilder.update(keyspace, table)
-            .setColumn(lockUntil, literal(until))
-            .whereColumn(lockName).isEqualTo(literal(name))
-            .ifColumn(lockUntil).isGreaterThanOrEqualTo(literal(ClockProvider.now()))
-            .ifColumn(lockedBy).isEqualTo(literal(hostname))
-            .build());
+    private CompletableFuture<PreparedStatements> statements() {
+        CompletableFuture<PreparedStatements> result = preparedStatements;
+        if (result == null) {
+            synchronized (this) {
+                result = preparedStatements;
+                if (result == null) {
+                    result = prepare();
+                    preparedStatements = result;
+                    CompletableFuture<PreparedStatements> prepared = result;
+                    result.whenComplete((statements, error) -> {
+                        if (error != null) {
+                            resetPreparedStatements(prepared);
+                        }
+                    });
+                }
+            }
+        }
+        return result;
+    }
+
+    private synchronized void resetPreparedStatements(CompletableFuture<PreparedStatements> failed) {
+        if (preparedStatements == failed) {
+            preparedStatements = null;
+        }
+    }
+
+    private CompletableFuture<PreparedStatements> prepare() {
+        SimpleStatement insert = QueryBuilder.insertInto(keyspace, table)
+            .value(lockName, bindMarker())
+            .value(lockUntil, bindMarker())
+            .value(lockedAt, bindMarker())
+            .value(lockedBy, bindMarker())
+            .ifNotExists()
+            .build();
+        SimpleStatement update = QueryBuilder.update(keyspace, table)
+            .setColumn(lockUntil, bindMarker())
+            .setColumn(lockedAt, bindMarker())
+            .setColumn(lockedBy, bindMarker())
+            .whereColumn(lockName).isEqualTo(bindMarker())
+            .ifColumn(lockUntil).isLessThanOrEqualTo(bindMarker())
+            .build();
+        SimpleStatement updateUntil = QueryBuilder.update(keyspace, table)
+            .setColumn(lockUntil, bindMarker())
+            .whereColumn(lockName).isEqualTo(bindMarker())
+            .ifColumn(lockUntil).isGreaterThanOrEqualTo(bindMarker())
+            .ifColumn(lockedBy).isEqualTo(bindMarker())
+            .build();
+        SimpleStatement select = QueryBuilder.selectFrom(keyspace, table)
+            .column(lockUntil)
+            .column(lockedAt)
+            .column(lockedBy)
+            .whereColumn(lockName).isEqualTo(bindMarker())
+            .build();
+
+        CompletableFuture<PreparedStatement> preparedInsert = cqlSession.prepareAsync(insert).toCompletableFuture();
+        CompletableFuture<PreparedStatement> preparedUpdate = cqlSession.prepareAsync(update).toCompletableFuture();
+        CompletableFuture<PreparedStatement> preparedUpdateUntil = cqlSession.prepareAsync(updateUntil).toCompletableFuture();
+        CompletableFuture<PreparedStatement> preparedSelect = cqlSession.prepareAsync(select).toCompletableFuture();
+        return CompletableFuture.allOf(preparedInsert, preparedUpdate, preparedUpdateUntil, preparedSelect)
+            .thenApply(ignored -> new PreparedStatements(
+                preparedInsert.join(),
+                preparedUpdate.join(),
+                preparedUpdateUntil.join(),
+                preparedSelect.join()
+            ));
     }
 
+    private static <T> T block(CompletionStage<T> result) {
+        try {
+            return result.toCompletableFuture().get();
+        } catch (ExecutionException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else {
+                throw new LockException("Can not execute Cassandra statement", cause);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LockException("Interrupted when executing Cassandra statement", e);
+        }
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        while ((e instanceof CompletionException || e instanceof ExecutionException) && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e;
+    }
 
-    private boolean execute(SimpleStatement statement) {
-        return cqlSession.execute(statement.setConsistencyLevel(consistencyLevel).setSerialConsistencyLevel(serialConsistencyLevel)).wasApplied();
+    private static final class PreparedStatements {
+        private final PreparedStatement insert;
+        private final PreparedStatement update;
+        private final PreparedStatement updateUntil;
+        private final PreparedStatement select;
+
+        private PreparedStatements(PreparedStatement insert, PreparedStatement update, PreparedStatement updateUntil, PreparedStatement select) {
+            this.insert = insert;
+            this.update = update;
+            this.updateUntil = updateUntil;
+            this.select = select;
+        }
     }
 }
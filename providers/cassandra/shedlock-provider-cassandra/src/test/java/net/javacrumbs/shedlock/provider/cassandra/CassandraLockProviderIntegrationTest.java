@@ -68,7 +68,7 @@ public class CassandraLockProviderIntegrationTest extends AbstractStorageBasedLo
     }
 
     @Override
-    protected StorageBasedLockProvider getLockProvider() {
+    protected CassandraLockProvider getLockProvider() {
         return new CassandraLockProvider(
             Configuration.builder()
                 .withCqlSession(session)
@@ -17,17 +17,20 @@ package net.javacrumbs.shedlock.provider.consul;
 
 import com.ecwid.consul.v1.ConsulClient;
 import com.ecwid.consul.v1.QueryParams;
+import com.ecwid.consul.v1.Response;
+import com.ecwid.consul.v1.kv.model.GetValue;
 import com.ecwid.consul.v1.kv.model.PutParams;
 import com.ecwid.consul.v1.session.model.NewSession;
 import com.ecwid.consul.v1.session.model.Session;
 import net.javacrumbs.shedlock.core.LockConfiguration;
-import net.javacrumbs.shedlock.core.LockProvider;
 import net.javacrumbs.shedlock.core.SimpleLock;
+import net.javacrumbs.shedlock.core.WaitingLockProvider;
 import net.javacrumbs.shedlock.support.annotation.NonNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
+import java.time.Instant;
 import java.util.Optional;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -50,9 +53,17 @@ import static net.javacrumbs.shedlock.core.ClockProvider.now;
  * doesn't make any correction to the aforementioned TTL behaviour so most likely your locked session will live for
  * longer than specified in lockAtMostFor. In this lock provider there is no session renewal done in the background.</p>
  *
+ * <p>With {@link Configuration.Builder#withSessionReuse(boolean)} the provider keeps one session per instance instead.
+ * The session TTL is set to minSessionTtl and the session is renewed in the background, locks are acquired and released
+ * against it, so a lock attempt is a single KV request. The lock is released after lockAtMostFor by the provider,
+ * if the node dies, the lock is released when consul invalidates the session. Locks with lockAtLeastFor still get their
+ * own session, its TTL keeps the lock held for lockAtLeastFor even if the node dies.</p>
+ *
+ * <p>{@link #tryLock(LockConfiguration, Duration)} waits for the lock using consul blocking queries on the lock key.</p>
+ *
  * @author Artur Kalimullin
  */
-public class ConsulLockProvider implements LockProvider, AutoCloseable {
+public class ConsulLockProvider implements WaitingLockProvider, AutoCloseable {
 
     private static final Logger logger = LoggerFactory.getLogger(ConsulLockProvider.class);
     private static final String DEFAULT_CONSUL_LOCK_POSTFIX = "-leader";
@@ -63,6 +74,8 @@ public class ConsulLockProvider implements LockProvider, AutoCloseable {
 
     private final Configuration configuration;
 
+    private final SharedConsulSession sharedSession;
+
     public ConsulLockProvider(@NonNull ConsulClient consulClient) {
         this(Configuration.builder()
             .withConsulClient(consulClient)
@@ -94,15 +107,45 @@ public class ConsulLockProvider implements LockProvider, AutoCloseable {
 
     public ConsulLockProvider(@NonNull Configuration configuration) {
         this.configuration = configuration;
+        this.sharedSession = configuration.isSessionReuse()
+            ? new SharedConsulSession(client(), token(), configuration.getMinSessionTtl(), unlockScheduler)
+            : null;
     }
 
     @Override
     @NonNull
     public Optional<SimpleLock> lock(@NonNull LockConfiguration lockConfiguration) {
+        if (sharedSession != null && lockConfiguration.getLockAtLeastFor().isZero()) {
+            return sharedSession.lock(lockConfiguration, getLeaderKey(lockConfiguration));
+        }
         String sessionId = createSession(lockConfiguration);
         return tryLock(sessionId, lockConfiguration);
     }
 
+    /**
+     * Tries to lock, if the lock is held by somebody else, waits for a change of the lock key using a blocking query.
+     * Blocking queries have a granularity of seconds, so the wait time is rounded up to seconds.
+     */
+    @Override
+    @NonNull
+    public Optional<SimpleLock> tryLock(@NonNull LockConfiguration lockConfiguration, @NonNull Duration wait) {
+        Instant deadline = now().plus(wait);
+        String leaderKey = getLeaderKey(lockConfiguration);
+        while (true) {
+            Optional<SimpleLock> lock = lock(new LockConfiguration(now(), lockConfiguration.getName(),
+                lockConfiguration.getLockAtMostFor(), lockConfiguration.getLockAtLeastFor()));
+            if (lock.isPresent() || !now().isBefore(deadline)) {
+                return lock;
+            }
+            Response<GetValue> current = client().getKVValue(leaderKey, token());
+            if (current.getValue() != null && current.getValue().getSession() != null) {
+                long waitSeconds = (long) Math.ceil(Duration.between(now(), deadline).toMillis() / 1000.0);
+                logger.debug("Waiting up to {} seconds for {} to be released", waitSeconds, leaderKey);
+                client().getKVValue(leaderKey, token(), new QueryParams(Math.max(waitSeconds, 1), current.getConsulIndex()));
+            }
+        }
+    }
+
     void unlock(String sessionId, LockConfiguration lockConfiguration) {
         Duration additionalSessionTtl = Duration.between(now(), lockConfiguration.getLockAtLeastUntil());
         if (!additionalSessionTtl.isNegative() && !additionalSessionTtl.isZero()) {
@@ -185,6 +228,9 @@ public class ConsulLockProvider implements LockProvider, AutoCloseable {
             }
         } catch (InterruptedException ignored) {
         }
+        if (sharedSession != null) {
+            sharedSession.destroy();
+        }
     }
 
     private ConsulClient client() {
@@ -198,6 +244,7 @@ public class ConsulLockProvider implements LockProvider, AutoCloseable {
         private final ConsulClient consulClient;
         private final Duration gracefulShutdownInterval;
         private final String token;
+        private final boolean sessionReuse;
 
         /**
          * Use Builder to create.
@@ -207,7 +254,8 @@ public class ConsulLockProvider implements LockProvider, AutoCloseable {
             String consulLockPostfix,
             ConsulClient consulClient,
             Duration gracefulShutdownInterval,
-            String token, String consulLockPrefix) {
+            String token, String consulLockPrefix,
+            boolean sessionReuse) {
 
             this.minSessionTtl = minSessionTtl;
             this.consulLockPrefix = consulLockPrefix;
@@ -215,6 +263,7 @@ public class ConsulLockProvider implements LockProvider, AutoCloseable {
             this.consulClient = requireNonNull(consulClient, "consulClient can not be null");
             this.gracefulShutdownInterval = gracefulShutdownInterval;
             this.token = token;
+            this.sessionReuse = sessionReuse;
         }
 
         public Duration getMinSessionTtl() {
@@ -241,6 +290,10 @@ public class ConsulLockProvider implements LockProvider, AutoCloseable {
             return consulLockPrefix;
         }
 
+        public boolean isSessionReuse() {
+            return sessionReuse;
+        }
+
         public static Configuration.Builder builder() {
             return new Configuration.Builder();
         }
@@ -253,6 +306,7 @@ public class ConsulLockProvider implements LockProvider, AutoCloseable {
             private Duration gracefulShutdownInterval = DEFAULT_GRACEFUL_SHUTDOWN_INTERVAL;
             private String token;
             private String consulLockPrefix;
+            private boolean sessionReuse;
 
             public Builder withMinSessionTtl(Duration minSessionTtl) {
                 this.minSessionTtl = minSessionTtl;
@@ -284,9 +338,17 @@ public class ConsulLockProvider implements LockProvider, AutoCloseable {
                 return this;
             }
 
+            /**
+             * Keeps one renewed session per provider instead of creating a session for each lock.
+             */
+            public Builder withSessionReuse(boolean sessionReuse) {
+                this.sessionReuse = sessionReuse;
+                return this;
+            }
+
             public ConsulLockProvider.Configuration build() {
                 return new ConsulLockProvider.Configuration(
-                    minSessionTtl, consulLockPostfix, consulClient, gracefulShutdownInterval, token, consulLockPrefix);
+                    minSessionTtl, consulLockPostfix, consulClient, gracefulShutdownInterval, token, consulLockPrefix, sessionReuse);
             }
         }
     }
@@ -0,0 +1,220 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.provider.consul;
+
+import com.ecwid.consul.v1.ConsulClient;
+import com.ecwid.consul.v1.OperationException;
+import com.ecwid.consul.v1.QueryParams;
+import com.ecwid.consul.v1.kv.model.PutParams;
+import com.ecwid.consul.v1.session.model.NewSession;
+import com.ecwid.consul.v1.session.model.Session;
+import net.javacrumbs.shedlock.core.AbstractSimpleLock;
+import net.javacrumbs.shedlock.core.LockConfiguration;
+import net.javacrumbs.shedlock.core.SimpleLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One Consul session shared by all locks of a {@link ConsulLockProvider}. The session is created lazily,
+ * renewed by a heartbeat and locks are acquired and released against it, so a lock attempt is a single KV request.
+ * <p>
+ * Consul lets a session acquire a key it already holds, so keys held by this node are tracked locally.
+ * The lock is released after lockAtMostFor by this node, if the node dies, Consul deletes the keys once the session expires.
+ * Only locks without lockAtLeastFor are acquired here, the session would not keep them held after the node dies.
+ */
+class SharedConsulSession {
+    private static final Logger logger = LoggerFactory.getLogger(SharedConsulSession.class);
+
+    private final ConsulClient consulClient;
+    private final String token;
+    private final Duration sessionTtl;
+    private final ScheduledExecutorService scheduler;
+
+    private final Map<String, HeldKey> heldKeys = new ConcurrentHashMap<>();
+
+    private String sessionId;
+    private ScheduledFuture<?> heartbeat;
+
+    SharedConsulSession(ConsulClient consulClient, String token, Duration sessionTtl, ScheduledExecutorService scheduler) {
+        this.consulClient = consulClient;
+        this.token = token;
+        this.sessionTtl = sessionTtl;
+        this.scheduler = scheduler;
+    }
+
+    Optional<SimpleLock> lock(LockConfiguration lockConfiguration, String key) {
+        HeldKey heldKey = new HeldKey(key, lockConfiguration.getName());
+        if (heldKeys.putIfAbsent(key, heldKey) != null) {
+            return Optional.empty();
+        }
+        try {
+            if (acquire(heldKey)) {
+                heldKey.timeout = scheduler.schedule(
+                    catchExceptions(() -> release(heldKey)),
+                    lockConfiguration.getLockAtMostFor().toMillis(), TimeUnit.MILLISECONDS
+                );
+                return Optional.of(new SharedSessionLock(lockConfiguration, heldKey));
+            }
+        } catch (RuntimeException e) {
+            heldKeys.remove(key, heldKey);
+            throw e;
+        }
+        heldKeys.remove(key, heldKey);
+        return Optional.empty();
+    }
+
+    private boolean acquire(HeldKey heldKey) {
+        heldKey.sessionId = getSessionId();
+        try {
+            return acquire(heldKey.key, heldKey.value, heldKey.sessionId);
+        } catch (OperationException e) {
+            if (!isInvalidSession(e)) {
+                throw e;
+            }
+            // the session has been invalidated before the heartbeat noticed it, retry once with a new session
+            logger.warn("Shared session {} is not valid anymore, a new one will be created", heldKey.sessionId);
+            invalidateSession(heldKey.sessionId);
+            HeldKey current = heldKeys.putIfAbsent(heldKey.key, heldKey);
+            if (current != null && current != heldKey) {
+                return false;
+            }
+            heldKey.sessionId = getSessionId();
+            return acquire(heldKey.key, heldKey.value, heldKey.sessionId);
+        }
+    }
+
+    private boolean acquire(String key, String value, String sessionId) {
+        PutParams putParams = new PutParams();
+        putParams.setAcquireSession(sessionId);
+        return Boolean.TRUE.equals(consulClient.setKVValue(key, value, token, putParams).getValue());
+    }
+
+    private static boolean isInvalidSession(OperationException e) {
+        return e.getStatusContent() != null && e.getStatusContent().contains("invalid session");
+    }
+
+    private void unlockKey(HeldKey heldKey) {
+        heldKey.timeout.cancel(false);
+        release(heldKey);
+    }
+
+    private void release(HeldKey heldKey) {
+        if (heldKey.released.compareAndSet(false, true)) {
+            try {
+                PutParams putParams = new PutParams();
+                putParams.setReleaseSession(heldKey.sessionId);
+                consulClient.setKVValue(heldKey.key, heldKey.value, token, putParams);
+            } finally {
+                heldKeys.remove(heldKey.key, heldKey);
+            }
+        }
+    }
+
+    private synchronized String getSessionId() {
+        if (sessionId == null) {
+            NewSession newSession = new NewSession();
+            newSession.setName("shedlock");
+            newSession.setLockDelay(0);
+            newSession.setBehavior(Session.Behavior.DELETE);
+            newSession.setTtl(sessionTtl.getSeconds() + "s");
+            sessionId = consulClient.sessionCreate(newSession, QueryParams.DEFAULT, token).getValue();
+            long renewalPeriod = Math.max(sessionTtl.toMillis() / 2, 1);
+            heartbeat = scheduler.scheduleAtFixedRate(catchExceptions(this::renew), renewalPeriod, renewalPeriod, TimeUnit.MILLISECONDS);
+            logger.debug("Created shared session {} with TTL {}", sessionId, sessionTtl);
+        }
+        return sessionId;
+    }
+
+    private synchronized void renew() {
+        if (sessionId == null) {
+            return;
+        }
+        try {
+            consulClient.renewSession(sessionId, QueryParams.DEFAULT, token);
+        } catch (OperationException e) {
+            if (e.getStatusCode() != 404) {
+                throw e;
+            }
+            logger.warn("Shared session {} has expired, a new one will be created", sessionId);
+            invalidateSession(sessionId);
+        }
+    }
+
+    private synchronized void invalidateSession(String invalidSessionId) {
+        if (invalidSessionId.equals(sessionId)) {
+            // Consul has already invalidated the session and deleted its keys
+            sessionId = null;
+            heartbeat.cancel(false);
+            heldKeys.clear();
+        }
+    }
+
+    synchronized void destroy() {
+        if (sessionId != null) {
+            logger.debug("Destroying shared session {}", sessionId);
+            heartbeat.cancel(false);
+            consulClient.sessionDestroy(sessionId, QueryParams.DEFAULT, token);
+            sessionId = null;
+            heldKeys.clear();
+        }
+    }
+
+    private static Runnable catchExceptions(Runnable runnable) {
+        return () -> {
+            try {
+                runnable.run();
+            } catch (Throwable t) {
+                logger.warn("Exception while execution", t);
+            }
+        };
+    }
+
+    private static final class HeldKey {
+        private final String key;
+        private final String value;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile String sessionId;
+        private volatile ScheduledFuture<?> timeout;
+
+        private HeldKey(String key, String value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    private final class SharedSessionLock extends AbstractSimpleLock {
+        private final HeldKey heldKey;
+
+        private SharedSessionLock(LockConfiguration lockConfiguration, HeldKey heldKey) {
+            super(lockConfiguration);
+            this.heldKey = heldKey;
+        }
+
+        @Override
+        protected void doUnlock() {
+            unlockKey(heldKey);
+        }
+    }
+}
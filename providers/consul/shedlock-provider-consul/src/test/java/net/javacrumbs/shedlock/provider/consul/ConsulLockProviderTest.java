@@ -16,8 +16,10 @@
 package net.javacrumbs.shedlock.provider.consul;
 
 import com.ecwid.consul.v1.ConsulClient;
+import com.ecwid.consul.v1.OperationException;
 import com.ecwid.consul.v1.QueryParams;
 import com.ecwid.consul.v1.Response;
+import com.ecwid.consul.v1.kv.model.GetValue;
 import com.ecwid.consul.v1.kv.model.PutParams;
 import net.javacrumbs.shedlock.core.ClockProvider;
 import net.javacrumbs.shedlock.core.LockConfiguration;
@@ -31,7 +33,10 @@ import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -106,6 +111,109 @@ class ConsulLockProviderTest {
         verify(mockConsulClient, times(2)).sessionDestroy(anyString(), any(), any());
     }
 
+    @Test
+    void reusesSessionForAllLocks() {
+        ConsulLockProvider sharedSessionProvider = sharedSessionProvider();
+        Optional<SimpleLock> lock1 = sharedSessionProvider.lock(lockConfig("itachi", SMALL_MIN_TTL, Duration.ZERO));
+        Optional<SimpleLock> lock2 = sharedSessionProvider.lock(lockConfig("kisame", SMALL_MIN_TTL, Duration.ZERO));
+        assertThat(lock1).isNotEmpty();
+        assertThat(lock2).isNotEmpty();
+        lock1.get().unlock();
+        lock2.get().unlock();
+
+        verify(mockConsulClient, times(1)).sessionCreate(any(), any(), any());
+        verify(mockConsulClient, times(2)).setKVValue(anyString(), anyString(), any(), argThat((PutParams params) -> params.getReleaseSession() != null));
+        verify(mockConsulClient, never()).sessionDestroy(anyString(), any(), any());
+
+        sharedSessionProvider.close();
+        verify(mockConsulClient).sessionDestroy(anyString(), any(), any());
+    }
+
+    @Test
+    void doesNotLockKeyHeldByTheSameSession() {
+        ConsulLockProvider sharedSessionProvider = sharedSessionProvider();
+        Optional<SimpleLock> lock = sharedSessionProvider.lock(lockConfig("kakashi", SMALL_MIN_TTL.multipliedBy(10), Duration.ZERO));
+        assertThat(lock).isNotEmpty();
+
+        assertThat(sharedSessionProvider.lock(lockConfig("kakashi", SMALL_MIN_TTL.multipliedBy(10), Duration.ZERO))).isEmpty();
+        lock.get().unlock();
+        assertThat(sharedSessionProvider.lock(lockConfig("kakashi", SMALL_MIN_TTL.multipliedBy(10), Duration.ZERO))).isNotEmpty();
+        sharedSessionProvider.close();
+    }
+
+    @Test
+    void renewsSharedSessionAndReleasesLockAfterLockAtMostFor() {
+        ConsulLockProvider sharedSessionProvider = sharedSessionProvider();
+        Optional<SimpleLock> lock = sharedSessionProvider.lock(lockConfig("gaara", SMALL_MIN_TTL, Duration.ZERO));
+        assertThat(lock).isNotEmpty();
+        sleep(SMALL_MIN_TTL.toMillis() + 50);
+
+        verify(mockConsulClient, atLeastOnce()).renewSession(anyString(), any(), any());
+        verify(mockConsulClient).setKVValue(eq("gaara-leader"), anyString(), any(), argThat((PutParams params) -> params.getReleaseSession() != null));
+        assertThat(sharedSessionProvider.lock(lockConfig("gaara", SMALL_MIN_TTL, Duration.ZERO))).isNotEmpty();
+        sharedSessionProvider.close();
+    }
+
+    @Test
+    void usesOwnSessionForLockAtLeastForEvenIfSessionIsReused() {
+        ConsulLockProvider sharedSessionProvider = sharedSessionProvider();
+        Optional<SimpleLock> lock = sharedSessionProvider.lock(lockConfig("shino", SMALL_MIN_TTL, SMALL_MIN_TTL.dividedBy(2)));
+        assertThat(lock).isNotEmpty();
+        lock.get().unlock();
+        verify(mockConsulClient, never()).sessionDestroy(anyString(), any(), any());
+        sleep(SMALL_MIN_TTL.dividedBy(2).toMillis() + 10);
+
+        verify(mockConsulClient).sessionCreate(argThat(session -> session.getName().equals("shino")), any(), any());
+        verify(mockConsulClient).sessionDestroy(anyString(), any(), any());
+        verify(mockConsulClient, never()).setKVValue(anyString(), anyString(), any(), argThat((PutParams params) -> params.getReleaseSession() != null));
+        sharedSessionProvider.close();
+    }
+
+    @Test
+    void retriesWithNewSessionIfSharedSessionIsInvalid() {
+        when(mockConsulClient.setKVValue(eq("shikamaru-leader"), any(), any(), any(PutParams.class)))
+            .thenThrow(new OperationException(500, "Internal Server Error", "invalid session \"shikamaru\""))
+            .thenReturn(new Response<>(true, null, null, null));
+
+        ConsulLockProvider sharedSessionProvider = sharedSessionProvider();
+        Optional<SimpleLock> lock = sharedSessionProvider.lock(lockConfig("shikamaru", SMALL_MIN_TTL.multipliedBy(10), Duration.ZERO));
+        assertThat(lock).isNotEmpty();
+        verify(mockConsulClient, times(2)).sessionCreate(any(), any(), any());
+        lock.get().unlock();
+        sharedSessionProvider.close();
+    }
+
+    @Test
+    void waitsForLockUsingBlockingQuery() {
+        when(mockConsulClient.setKVValue(eq("hinata-leader"), any(), any(), any(PutParams.class)))
+            .thenReturn(new Response<>(false, null, null, null))
+            .thenReturn(new Response<>(true, null, null, null));
+        GetValue heldByOther = new GetValue();
+        heldByOther.setSession(UUID.randomUUID().toString());
+        when(mockConsulClient.getKVValue(eq("hinata-leader"), (String) isNull())).thenReturn(new Response<>(heldByOther, 42L, null, null));
+
+        Optional<SimpleLock> lock = lockProvider.tryLock(lockConfig("hinata", SMALL_MIN_TTL, Duration.ZERO), Duration.ofSeconds(5));
+        assertThat(lock).isNotEmpty();
+        verify(mockConsulClient).getKVValue(eq("hinata-leader"), isNull(), argThat((QueryParams params) -> params.getIndex() == 42L));
+    }
+
+    @Test
+    void stopsWaitingAfterTimeout() {
+        mockLock(eq("neji-leader"), false);
+        when(mockConsulClient.getKVValue(eq("neji-leader"), (String) isNull())).thenReturn(new Response<>(new GetValue(), 1L, null, null));
+
+        Optional<SimpleLock> lock = lockProvider.tryLock(lockConfig("neji", SMALL_MIN_TTL, Duration.ZERO), Duration.ofMillis(50));
+        assertThat(lock).isEmpty();
+    }
+
+    private ConsulLockProvider sharedSessionProvider() {
+        return new ConsulLockProvider(ConsulLockProvider.Configuration.builder()
+            .withConsulClient(mockConsulClient)
+            .withMinSessionTtl(SMALL_MIN_TTL)
+            .withSessionReuse(true)
+            .build());
+    }
+
     private void mockLock(String eq, boolean b) {
         when(mockConsulClient.setKVValue(eq, any(), any(), any(PutParams.class)))
             .thenReturn(new Response<>(b, null, null, null));
@@ -19,12 +19,16 @@ import co.elastic.clients.elasticsearch.ElasticsearchClient;
 import co.elastic.clients.elasticsearch._types.ElasticsearchException;
 import co.elastic.clients.elasticsearch._types.Refresh;
 import co.elastic.clients.elasticsearch._types.Result;
+import co.elastic.clients.elasticsearch._types.Script;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
 import co.elastic.clients.elasticsearch.core.UpdateRequest;
 import co.elastic.clients.elasticsearch.core.UpdateResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
 import co.elastic.clients.json.JsonData;
 import net.javacrumbs.shedlock.core.AbstractSimpleLock;
+import net.javacrumbs.shedlock.core.BatchLockProvider;
 import net.javacrumbs.shedlock.core.LockConfiguration;
-import net.javacrumbs.shedlock.core.LockProvider;
 import net.javacrumbs.shedlock.core.SimpleLock;
 import net.javacrumbs.shedlock.support.LockException;
 import net.javacrumbs.shedlock.support.annotation.NonNull;
@@ -32,7 +36,11 @@ import org.elasticsearch.client.ResponseException;
 
 import java.io.IOException;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -74,14 +82,18 @@ import static net.javacrumbs.shedlock.support.Utils.getHostname;
  * When unlocking, lock_until is set to now.
  * </li>
  * </ol>
+ * The scripts are sent inline by default. If {@link Builder#usingStoredScripts()} is set, they are registered once
+ * as stored scripts and referenced by id. {@link #lockAll(Collection)} and {@link #unlockAll(Collection)} use the _bulk API.
  */
-public class ElasticsearchLockProvider implements LockProvider {
+public class ElasticsearchLockProvider implements BatchLockProvider {
     static final String SCHEDLOCK_DEFAULT_INDEX = "shedlock";
     static final String LOCK_UNTIL = "lockUntil";
     static final String LOCKED_AT = "lockedAt";
     static final String LOCKED_BY = "lockedBy";
     static final String NAME = "name";
-
+    static final String LOCK_SCRIPT_ID = "shedlock-lock";
+    static final String UNLOCK_SCRIPT_ID = "shedlock-unlock";
+    private static final int DEFAULT_RETRY_ON_CONFLICT = 3;
 
     private static final String UPDATE_SCRIPT =
         "if (ctx._source." + LOCK_UNTIL + " <= " + "params." + LOCKED_AT + ") { " +
@@ -92,18 +104,27 @@ public class ElasticsearchLockProvider implements LockProvider {
             "ctx.op = 'none' " +
         "}";
 
+    private static final String UNLOCK_SCRIPT = "ctx._source." + LOCK_UNTIL + " = params.unlockTime";
+
     private final ElasticsearchClient client;
     private final String hostname;
     private final String index;
+    private final boolean useStoredScripts;
+    private final Refresh refresh;
+    private final int retryOnConflict;
+    private volatile boolean scriptsStored;
 
-    private ElasticsearchLockProvider(@NonNull ElasticsearchClient client, @NonNull String index) {
-        this.client = client;
+    private ElasticsearchLockProvider(Builder builder) {
+        this.client = builder.client;
         this.hostname = getHostname();
-        this.index = index;
+        this.index = builder.index;
+        this.useStoredScripts = builder.useStoredScripts;
+        this.refresh = builder.refresh;
+        this.retryOnConflict = builder.retryOnConflict;
     }
 
     public ElasticsearchLockProvider(@NonNull ElasticsearchClient client) {
-        this(client, SCHEDLOCK_DEFAULT_INDEX);
+        this(new Builder(client));
     }
 
     @Override
@@ -118,11 +139,13 @@ public class ElasticsearchLockProvider implements LockProvider {
             // The object exist only to have some type we can work with
             Lock pojo = new Lock(lockConfiguration.getName(), hostname, now, lockAtMostUntil);
 
+            Script script = script(LOCK_SCRIPT_ID, UPDATE_SCRIPT, lockObject);
             UpdateRequest<Lock, Lock> updateRequest = UpdateRequest.of(ur -> ur
                 .index(index)
                 .id(lockConfiguration.getName())
-                .refresh(Refresh.True)
-                .script(sc -> sc.inline(in -> in.lang("painless").source(UPDATE_SCRIPT).params(lockObject)))
+                .refresh(refresh)
+                .retryOnConflict(retryOnConflict)
+                .script(script)
                 .upsert(pojo));
 
             UpdateResponse<Lock> res = client.update(updateRequest, Lock.class);
@@ -141,6 +164,134 @@ public class ElasticsearchLockProvider implements LockProvider {
         }
     }
 
+    /**
+     * Tries to acquire all the locks using one _bulk request.
+     */
+    @Override
+    @NonNull
+    public Map<String, Optional<SimpleLock>> lockAll(@NonNull Collection<LockConfiguration> lockConfigurations) {
+        Map<String, Optional<SimpleLock>> result = new LinkedHashMap<>();
+        List<BulkOperation> operations = new ArrayList<>(lockConfigurations.size());
+        try {
+            Instant now = now();
+            for (LockConfiguration lockConfiguration : lockConfigurations) {
+                String name = lockConfiguration.getName();
+                if (result.put(name, Optional.empty()) != null) {
+                    throw new IllegalArgumentException("Duplicate lock name '" + name + "'");
+                }
+                Instant lockAtMostUntil = lockConfiguration.getLockAtMostUntil();
+                Script script = script(LOCK_SCRIPT_ID, UPDATE_SCRIPT, lockObject(name, lockAtMostUntil, now));
+                Lock pojo = new Lock(name, hostname, now, lockAtMostUntil);
+                operations.add(BulkOperation.of(op -> op.update(u -> u
+                    .id(name)
+                    .retryOnConflict(retryOnConflict)
+                    .action(a -> a.script(script).upsert(pojo)))));
+            }
+            if (operations.isEmpty()) {
+                return result;
+            }
+
+            List<BulkResponseItem> items = bulk(operations).items();
+            List<LockConfiguration> configurations = new ArrayList<>(lockConfigurations);
+            LockException error = null;
+            for (int i = 0; i < items.size(); i++) {
+                BulkResponseItem item = items.get(i);
+                LockConfiguration lockConfiguration = configurations.get(i);
+                if (item.error() == null) {
+                    if (!"noop".equals(item.result())) {
+                        result.put(lockConfiguration.getName(), Optional.of(new ElasticsearchSimpleLock(lockConfiguration)));
+                    }
+                } else if (item.status() != 409 && error == null) {
+                    error = new LockException("Can not lock " + lockConfiguration.getName() + ": " + item.error().reason());
+                }
+            }
+            if (error != null) {
+                // do not keep locks nobody knows about
+                unlockAll(acquired(result));
+                throw error;
+            }
+            return result;
+        } catch (IOException | ElasticsearchException e) {
+            throw new LockException("Unexpected exception occurred", e);
+        }
+    }
+
+    /**
+     * Releases locks acquired by this provider using one _bulk request.
+     *
+     * @param locks locks returned by this provider
+     * @throws IllegalStateException if any of the locks has already been unlocked or extended
+     */
+    public void unlockAll(@NonNull Collection<SimpleLock> locks) {
+        List<ElasticsearchSimpleLock> released = new ArrayList<>(locks.size());
+        RuntimeException invalidLock = null;
+        for (SimpleLock lock : locks) {
+            if (!(lock instanceof ElasticsearchSimpleLock)) {
+                throw new IllegalArgumentException("Lock " + lock + " has not been created by ElasticsearchLockProvider");
+            }
+            ElasticsearchSimpleLock elasticsearchLock = (ElasticsearchSimpleLock) lock;
+            elasticsearchLock.releasedInBulk = true;
+            try {
+                elasticsearchLock.unlock();
+                released.add(elasticsearchLock);
+            } catch (RuntimeException e) {
+                elasticsearchLock.releasedInBulk = false;
+                invalidLock = e;
+            }
+        }
+        try {
+            if (!released.isEmpty()) {
+                List<BulkOperation> operations = new ArrayList<>(released.size());
+                for (ElasticsearchSimpleLock lock : released) {
+                    operations.add(lock.unlockOperation());
+                }
+                BulkResponse response = bulk(operations);
+                if (response.errors()) {
+                    throw new LockException("Can not unlock all the locks " + response.items());
+                }
+            }
+        } catch (IOException | ElasticsearchException e) {
+            throw new LockException("Unexpected exception occurred", e);
+        }
+        if (invalidLock != null) {
+            throw invalidLock;
+        }
+    }
+
+    private static List<SimpleLock> acquired(Map<String, Optional<SimpleLock>> locks) {
+        List<SimpleLock> acquired = new ArrayList<>();
+        locks.values().forEach(lock -> lock.ifPresent(acquired::add));
+        return acquired;
+    }
+
+    private BulkResponse bulk(List<BulkOperation> operations) throws IOException {
+        return client.bulk(b -> b.index(index).refresh(refresh).operations(operations));
+    }
+
+    private Script script(String id, String source, Map<String, JsonData> params) throws IOException {
+        if (useStoredScripts) {
+            storeScripts();
+            return Script.of(sc -> sc.stored(st -> st.id(id).params(params)));
+        } else {
+            return Script.of(sc -> sc.inline(in -> in.lang("painless").source(source).params(params)));
+        }
+    }
+
+    /**
+     * Registers the scripts once, so they are compiled only once by the cluster.
+     */
+    private void storeScripts() throws IOException {
+        if (!scriptsStored) {
+            synchronized (this) {
+                if (!scriptsStored) {
+                    client.putScript(ps -> ps.id(LOCK_SCRIPT_ID).script(sc -> sc.lang("painless").source(UPDATE_SCRIPT)));
+                    client.putScript(ps -> ps.id(UNLOCK_SCRIPT_ID).script(sc -> sc.lang("painless").source(UNLOCK_SCRIPT)));
+                    scriptsStored = true;
+                }
+            }
+        }
+    }
+
     private Map<String, JsonData> lockObject(String name, Instant lockUntil, Instant lockedAt) {
         return Map.of(
             NAME, JsonData.of(name),
@@ -151,6 +302,8 @@ public class ElasticsearchLockProvider implements LockProvider {
     }
 
     private final class ElasticsearchSimpleLock extends AbstractSimpleLock {
+        // the update is sent by unlockAll
+        private boolean releasedInBulk;
 
         private ElasticsearchSimpleLock(LockConfiguration lockConfiguration) {
             super(lockConfiguration);
@@ -158,21 +311,36 @@ public class ElasticsearchLockProvider implements LockProvider {
 
         @Override
         public void doUnlock() {
+            if (releasedInBulk) {
+                return;
+            }
             // Set lockUtil to now or lockAtLeastUntil whichever is later
             try {
-                Map<String, JsonData> lockObject = Collections.singletonMap("unlockTime", JsonData.of(lockConfiguration.getUnlockTime().toEpochMilli()));
-
+                Script script = unlockScript();
                 UpdateRequest<Lock, Lock> updateRequest = UpdateRequest.of(ur -> ur
                         .index(index)
                         .id(lockConfiguration.getName())
-                        .refresh(Refresh.True)
-                        .script(sc -> sc.inline(in -> in.lang("painless").source("ctx._source.lockUntil = params.unlockTime")
-                            .params(lockObject))));
+                        .refresh(refresh)
+                        .retryOnConflict(retryOnConflict)
+                        .script(script));
                 client.update(updateRequest, Lock.class);
             } catch (IOException | ElasticsearchException e) {
                 throw new LockException("Unexpected exception occurred", e);
             }
         }
+
+        private BulkOperation unlockOperation() throws IOException {
+            Script script = unlockScript();
+            return BulkOperation.of(op -> op.update(u -> u
+                .id(lockConfiguration.getName())
+                .retryOnConflict(retryOnConflict)
+                .action(a -> a.script(script))));
+        }
+
+        private Script unlockScript() throws IOException {
+            Map<String, JsonData> params = Collections.singletonMap("unlockTime", JsonData.of(lockConfiguration.getUnlockTime().toEpochMilli()));
+            return script(UNLOCK_SCRIPT_ID, UNLOCK_SCRIPT, params);
+        }
     }
 
     private static final class Lock {
@@ -205,4 +373,52 @@ public class ElasticsearchLockProvider implements LockProvider {
             return lockUntil;
         }
     }
+
+    public static final class Builder {
+        private final ElasticsearchClient client;
+        private String index = SCHEDLOCK_DEFAULT_INDEX;
+        private boolean useStoredScripts = false;
+        private Refresh refresh = Refresh.True;
+        private int retryOnConflict = DEFAULT_RETRY_ON_CONFLICT;
+
+        public Builder(@NonNull ElasticsearchClient client) {
+            this.client = client;
+        }
+
+        public Builder withIndex(@NonNull String index) {
+            this.index = index;
+            return this;
+        }
+
+        /**
+         * Registers the lock and unlock scripts as stored scripts and references them by id, so the cluster
+         * does not have to look up the inline script in the compilation cache on each request.
+         */
+        public Builder usingStoredScripts() {
+            this.useStoredScripts = true;
+            return this;
+        }
+
+        /**
+         * Refresh policy of lock updates, {@link Refresh#True} by default. The provider reads the lock documents
+         * only by id, which is real-time, so {@link Refresh#False} is safe if the index is not searched by other tools.
+         */
+        public Builder withRefresh(@NonNull Refresh refresh) {
+            this.refresh = refresh;
+            return this;
+        }
+
+        /**
+         * How many times the update is retried if the lock document is changed concurrently, 3 by default.
+         * The script is evaluated again, so concurrent attempts result in no-op instead of 409 Conflict.
+         */
+        public Builder withRetryOnConflict(int retryOnConflict) {
+            this.retryOnConflict = retryOnConflict;
+            return this;
+        }
+
+        public ElasticsearchLockProvider build() {
+            return new ElasticsearchLockProvider(this);
+        }
+    }
 }
@@ -25,7 +25,9 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
+import net.javacrumbs.shedlock.core.LockConfiguration;
 import net.javacrumbs.shedlock.core.LockProvider;
+import net.javacrumbs.shedlock.core.SimpleLock;
 import net.javacrumbs.shedlock.test.support.AbstractLockProviderIntegrationTest;
 import org.apache.http.HttpHost;
 import org.apache.http.auth.AuthScope;
@@ -34,6 +36,7 @@ import org.apache.http.client.CredentialsProvider;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.elasticsearch.client.RestClient;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.testcontainers.elasticsearch.ElasticsearchContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
@@ -43,7 +46,10 @@ import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
 
 import static net.javacrumbs.shedlock.provider.elasticsearch8.ElasticsearchLockProvider.LOCKED_AT;
 import static net.javacrumbs.shedlock.provider.elasticsearch8.ElasticsearchLockProvider.LOCKED_BY;
@@ -129,4 +135,23 @@ public class ElasticsearchLockProviderTest extends AbstractLockProviderIntegrati
         return new Date();
     }
 
+    @Test
+    public void shouldLockAndUnlockAllUsingStoredScripts() {
+        String otherLockName = UUID.randomUUID().toString();
+        ElasticsearchLockProvider provider = new ElasticsearchLockProvider.Builder(client)
+            .usingStoredScripts()
+            .build();
+        Optional<SimpleLock> otherLock = provider.lock(lockConfig(otherLockName));
+        assertThat(otherLock).isPresent();
+
+        List<LockConfiguration> configurations = List.of(lockConfig(LOCK_NAME1), lockConfig(otherLockName));
+        Map<String, Optional<SimpleLock>> locks = provider.lockAll(configurations);
+        assertThat(locks.get(LOCK_NAME1)).isPresent();
+        assertThat(locks.get(otherLockName)).isEmpty();
+        assertLocked(LOCK_NAME1);
+
+        provider.unlockAll(List.of(locks.get(LOCK_NAME1).get(), otherLock.get()));
+        assertUnlocked(LOCK_NAME1);
+        assertUnlocked(otherLockName);
+    }
 }
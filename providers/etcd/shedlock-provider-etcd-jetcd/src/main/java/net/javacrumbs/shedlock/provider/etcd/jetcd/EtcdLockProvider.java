@@ -18,24 +18,42 @@ package net.javacrumbs.shedlock.provider.etcd.jetcd;
 import io.etcd.jetcd.ByteSequence;
 import io.etcd.jetcd.Client;
 import io.etcd.jetcd.KV;
+import io.etcd.jetcd.KeyValue;
 import io.etcd.jetcd.Lease;
-import io.etcd.jetcd.Txn;
+import io.etcd.jetcd.Watch;
 import io.etcd.jetcd.kv.TxnResponse;
+import io.etcd.jetcd.lease.LeaseKeepAliveResponse;
 import io.etcd.jetcd.op.Cmp;
 import io.etcd.jetcd.op.CmpTarget;
 import io.etcd.jetcd.op.Op;
+import io.etcd.jetcd.options.DeleteOption;
 import io.etcd.jetcd.options.PutOption;
+import io.etcd.jetcd.options.WatchOption;
+import io.etcd.jetcd.support.CloseableClient;
+import io.grpc.stub.StreamObserver;
+import net.javacrumbs.shedlock.core.AbstractAsyncSimpleLock;
 import net.javacrumbs.shedlock.core.AbstractSimpleLock;
+import net.javacrumbs.shedlock.core.AsyncLockProvider;
+import net.javacrumbs.shedlock.core.AsyncSimpleLock;
 import net.javacrumbs.shedlock.core.ClockProvider;
+import net.javacrumbs.shedlock.core.ExtensibleLockProvider;
 import net.javacrumbs.shedlock.core.LockConfiguration;
-import net.javacrumbs.shedlock.core.LockProvider;
 import net.javacrumbs.shedlock.core.SimpleLock;
+import net.javacrumbs.shedlock.core.WaitingLockProvider;
 import net.javacrumbs.shedlock.support.LockException;
 import net.javacrumbs.shedlock.support.annotation.NonNull;
+import net.javacrumbs.shedlock.support.annotation.Nullable;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
 
 import static io.etcd.jetcd.options.GetOption.DEFAULT;
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -48,14 +66,24 @@ import static net.javacrumbs.shedlock.support.Utils.toIsoString;
  * https://etcd.io/docs/v3.4.0/learning/api/#key-value-pair
  *
  * The timeout is implemented with the lease concept of etcd, which grants a TTL for key value pairs.
+ * <p>
+ * By default, a new lease is granted for each lock. With {@link Builder#sharedLease(Duration)} all locks are attached
+ * to one lease that is kept alive while the provider is running, so a lock attempt is a single transaction.
+ * lockAtMostFor is then stored in the value and checked when the lock is acquired, the keys are removed by etcd
+ * only when the lease expires (e.g. the node dies). Unlock and extend are transactions guarded by the mod revision of the key.
+ * <p>
+ * {@link #tryLock(LockConfiguration, Duration)} and {@link #lockAsync(LockConfiguration, Duration)} wait for the lock
+ * using etcd watch on the lock key.
  */
-public class EtcdLockProvider implements LockProvider {
+public class EtcdLockProvider implements ExtensibleLockProvider, WaitingLockProvider, AsyncLockProvider, AutoCloseable {
     private static final double MILLIS_IN_SECOND = 1000;
 
     private static final String KEY_PREFIX = "shedlock";
 
     private static final String ENV_DEFAULT = "default";
 
+    private static final String LOCKED_UNTIL_PREFIX = "UNTIL:";
+
     private final EtcdTemplate etcdTemplate;
 
     private final String environment;
@@ -65,19 +93,73 @@ public class EtcdLockProvider implements LockProvider {
     }
 
     public EtcdLockProvider(@NonNull Client client, @NonNull String environment) {
-        this.etcdTemplate = new EtcdTemplate(client);
+        this(client, environment, null);
+    }
+
+    private EtcdLockProvider(@NonNull Client client, @NonNull String environment, @Nullable Duration sharedLeaseTtl) {
+        this.etcdTemplate = new EtcdTemplate(client, sharedLeaseTtl);
         this.environment = environment;
     }
 
     @Override
     @NonNull
     public Optional<SimpleLock> lock(@NonNull LockConfiguration lockConfiguration) {
+        return block(doLock(lockConfiguration)).map(lockedKey -> new EtcdLock(lockedKey, etcdTemplate, lockConfiguration));
+    }
+
+    @Override
+    public CompletionStage<Optional<AsyncSimpleLock>> lockAsync(@NonNull LockConfiguration lockConfiguration) {
+        return doLock(lockConfiguration)
+            .thenApply(lockedKey -> lockedKey.map(key -> new EtcdAsyncLock(key, etcdTemplate, lockConfiguration)));
+    }
+
+    @Override
+    @NonNull
+    public Optional<SimpleLock> tryLock(@NonNull LockConfiguration lockConfiguration, @NonNull Duration wait) {
+        return block(waitForLock(lockConfiguration, ClockProvider.now().plus(wait),
+            (lockedKey, configuration) -> new EtcdLock(lockedKey, etcdTemplate, configuration)));
+    }
+
+    /**
+     * Non-blocking variant of {@link #tryLock(LockConfiguration, Duration)}. The returned stage is completed
+     * when the lock is acquired or when the wait time elapses.
+     */
+    public CompletionStage<Optional<AsyncSimpleLock>> lockAsync(@NonNull LockConfiguration lockConfiguration, @NonNull Duration wait) {
+        return waitForLock(lockConfiguration, ClockProvider.now().plus(wait),
+            (lockedKey, configuration) -> new EtcdAsyncLock(lockedKey, etcdTemplate, configuration));
+    }
+
+    private <T> CompletableFuture<Optional<T>> waitForLock(
+        LockConfiguration lockConfiguration,
+        Instant deadline,
+        BiFunction<LockedKey, LockConfiguration, T> lockFactory
+    ) {
+        LockConfiguration attempt = new LockConfiguration(ClockProvider.now(), lockConfiguration.getName(),
+            lockConfiguration.getLockAtMostFor(), lockConfiguration.getLockAtLeastFor());
         String key = buildKey(lockConfiguration.getName());
-        String value = buildValue();
+        return etcdTemplate.tryToLock(key, attempt).thenCompose(lockedKey -> {
+            if (lockedKey.isPresent()) {
+                return CompletableFuture.completedFuture(Optional.of(lockFactory.apply(lockedKey.get(), attempt)));
+            }
+            if (!ClockProvider.now().isBefore(deadline)) {
+                return CompletableFuture.completedFuture(Optional.empty());
+            }
+            return etcdTemplate.waitForChange(key, deadline)
+                .thenCompose(ignored -> waitForLock(lockConfiguration, deadline, lockFactory));
+        });
+    }
 
-        Optional<Long> leaseIdOpt = etcdTemplate.tryToLock(key, value, lockConfiguration.getLockAtMostUntil());
-        return leaseIdOpt.map(leaseId -> new EtcdLock(key, value, leaseId, etcdTemplate, lockConfiguration));
+    private CompletableFuture<Optional<LockedKey>> doLock(LockConfiguration lockConfiguration) {
+        String key = buildKey(lockConfiguration.getName());
+        return etcdTemplate.tryToLock(key, lockConfiguration);
+    }
 
+    /**
+     * Revokes the shared lease, if used, which removes all the locks held by this provider.
+     */
+    @Override
+    public void close() {
+        etcdTemplate.close();
     }
 
     private static long getSecondsUntil(Instant instant) {
@@ -88,126 +170,400 @@ public class EtcdLockProvider implements LockProvider {
         return Duration.between(ClockProvider.now(), instant).toMillis();
     }
 
-    private String buildValue() {
+    private static String buildValue() {
         return String.format("ADDED:%s@%s", toIsoString(ClockProvider.now()), getHostname());
     }
 
+    private static String buildValue(Instant lockedUntil) {
+        return String.format("%s%s@%s", LOCKED_UNTIL_PREFIX, toIsoString(lockedUntil), getHostname());
+    }
+
+    /**
+     * @return lock until stored in the value by a provider with shared lease or null if the value does not contain it
+     */
+    @Nullable
+    static Instant getLockedUntil(String value) {
+        int end = value.indexOf('@');
+        if (!value.startsWith(LOCKED_UNTIL_PREFIX) || end < 0) {
+            return null;
+        }
+        try {
+            return Instant.parse(value.substring(LOCKED_UNTIL_PREFIX.length(), end));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
     String buildKey(String lockName) {
         return String.format("%s:%s:%s", KEY_PREFIX, environment, lockName);
     }
 
-    private static final class EtcdLock extends AbstractSimpleLock {
+    private static <T> T block(CompletableFuture<T> result) {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            Throwable error = unwrap(e);
+            if (error instanceof RuntimeException) {
+                throw (RuntimeException) error;
+            } else {
+                throw new LockException("Error when communicating with etcd", error);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LockException("Interrupted when communicating with etcd", e);
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        if ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            return error.getCause();
+        }
+        return error;
+    }
+
+    /**
+     * Key held by this provider together with its mod revision and lease.
+     */
+    private static final class LockedKey {
         private final String key;
-        private final String value;
-        private final Long successLeaseId;
+        private final long revision;
+        private final long leaseId;
+
+        private LockedKey(String key, long revision, long leaseId) {
+            this.key = key;
+            this.revision = revision;
+            this.leaseId = leaseId;
+        }
+    }
+
+    private static final class EtcdLock extends AbstractSimpleLock {
+        private final LockedKey lockedKey;
         private final EtcdTemplate etcdTemplate;
 
-        private EtcdLock(String key, String value, Long successLeaseId, EtcdTemplate etcdTemplate, LockConfiguration lockConfiguration) {
+        private EtcdLock(LockedKey lockedKey, EtcdTemplate etcdTemplate, LockConfiguration lockConfiguration) {
             super(lockConfiguration);
-            this.key = key;
-            this.value = value;
-            this.successLeaseId = successLeaseId;
+            this.lockedKey = lockedKey;
             this.etcdTemplate = etcdTemplate;
         }
 
         @Override
         public void doUnlock() {
-            long keepLockFor = getSecondsUntil(lockConfiguration.getLockAtLeastUntil());
+            block(etcdTemplate.unlock(lockedKey, lockConfiguration));
+        }
 
-            // lock at least until is in the past
-            if (keepLockFor <= 0) {
-                try {
-                    // By revoking lease we remove the value and thus release the lock
-                    etcdTemplate.revoke(successLeaseId);
-                } catch (Exception e) {
-                    throw new LockException("Can not revoke old leaseId " + successLeaseId, e);
-                }
-            } else {
-                // implement lockAtLeast functionality with a new leaseId
-                Long leaseId = etcdTemplate.createLease(keepLockFor);
-                // by putting the key with new shorter lease we change the TTL of the value
-                etcdTemplate.putWithLeaseId(key, value, leaseId);
-                // revoke the old lease
-                etcdTemplate.revoke(this.successLeaseId);
-            }
+        @Override
+        protected Optional<SimpleLock> doExtend(LockConfiguration newConfiguration) {
+            return block(etcdTemplate.extend(lockedKey, lockConfiguration, newConfiguration))
+                .map(extendedKey -> new EtcdLock(extendedKey, etcdTemplate, newConfiguration));
+        }
+    }
+
+    private static final class EtcdAsyncLock extends AbstractAsyncSimpleLock {
+        private final LockedKey lockedKey;
+        private final EtcdTemplate etcdTemplate;
+
+        private EtcdAsyncLock(LockedKey lockedKey, EtcdTemplate etcdTemplate, LockConfiguration lockConfiguration) {
+            super(lockConfiguration);
+            this.lockedKey = lockedKey;
+            this.etcdTemplate = etcdTemplate;
+        }
+
+        @Override
+        protected CompletionStage<Void> doUnlockAsync() {
+            return etcdTemplate.unlock(lockedKey, lockConfiguration);
+        }
+
+        @Override
+        protected CompletionStage<Optional<AsyncSimpleLock>> doExtendAsync(LockConfiguration newConfiguration) {
+            return etcdTemplate.extend(lockedKey, lockConfiguration, newConfiguration)
+                .thenApply(extendedKey -> extendedKey.map(key -> new EtcdAsyncLock(key, etcdTemplate, newConfiguration)));
         }
     }
 
     private static class EtcdTemplate {
         private final KV kvClient;
         private final Lease leaseClient;
+        private final Watch watchClient;
+        @Nullable
+        private final Duration sharedLeaseTtl;
+
+        private CompletableFuture<Long> sharedLease;
+        private CloseableClient keepAlive;
 
-        private EtcdTemplate(Client client) {
+        private EtcdTemplate(Client client, @Nullable Duration sharedLeaseTtl) {
             this.kvClient = client.getKVClient();
             this.leaseClient = client.getLeaseClient();
+            this.watchClient = client.getWatchClient();
+            this.sharedLeaseTtl = sharedLeaseTtl;
+        }
+
+        private boolean usesSharedLease() {
+            return sharedLeaseTtl != null;
         }
 
-        public Long createLease(long lockUntilInSeconds) {
-            try {
-                return leaseClient.grant(lockUntilInSeconds).get().getID();
-            } catch (Exception e) {
-                throw new LockException("Failed create lease", e);
+        private CompletableFuture<Long> createLease(long lockUntilInSeconds) {
+            return leaseClient.grant(lockUntilInSeconds)
+                .handle((response, error) -> {
+                    if (error != null) {
+                        throw new LockException("Failed create lease", unwrap(error));
+                    }
+                    return response.getID();
+                });
+        }
+
+        /**
+         * Grants the shared lease on the first use and keeps it alive. If the lease is lost, a new one is granted
+         * on the next lock attempt.
+         */
+        private synchronized CompletableFuture<Long> getSharedLease() {
+            if (sharedLease == null || sharedLease.isCompletedExceptionally()) {
+                CompletableFuture<Long> lease = createLease(sharedLeaseTtl.getSeconds());
+                sharedLease = lease;
+                lease.thenAccept(leaseId -> startKeepAlive(lease, leaseId));
             }
+            return sharedLease;
         }
 
-        public Optional<Long> tryToLock(String key, String value, Instant lockAtMostUntil) {
-            Long leaseId = createLease(getSecondsUntil(lockAtMostUntil));
-            try {
-                ByteSequence lockKey = toByteSequence(key);
-                PutOption putOption = putOptionWithLeaseId(leaseId);
-
-                // Version is the version of the key.
-                // A deletion resets the version to zero and any modification of the key increases its version.
-                Txn txn = kvClient.txn()
-                    .If(new Cmp(lockKey, Cmp.Op.EQUAL, CmpTarget.version(0)))
-                    .Then(Op.put(lockKey, toByteSequence(value), putOption))
-                    .Else(Op.get(lockKey, DEFAULT));
-
-                TxnResponse tr = txn.commit().get();
-                if (tr.isSucceeded()) {
-                    return Optional.of(leaseId);
-                } else {
-                    revoke(leaseId);
-                    return Optional.empty();
-                }
-            } catch (Exception e) {
-                revoke(leaseId);
-                throw new LockException("Failed to set lock " + key, e);
+        private synchronized void startKeepAlive(CompletableFuture<Long> lease, long leaseId) {
+            if (sharedLease != lease) {
+                return;
             }
+            keepAlive = leaseClient.keepAlive(leaseId, new StreamObserver<LeaseKeepAliveResponse>() {
+                @Override
+                public void onNext(LeaseKeepAliveResponse response) {
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    leaseLost(lease);
+                }
 
+                @Override
+                public void onCompleted() {
+                    leaseLost(lease);
+                }
+            });
+        }
+
+        private synchronized void leaseLost(CompletableFuture<Long> lease) {
+            if (sharedLease == lease) {
+                sharedLease = null;
+                keepAlive = null;
+            }
         }
 
-        public void revoke(Long leaseId) {
-            try {
-                leaseClient.revoke(leaseId).get();
-            } catch (Exception e) {
-                throw new LockException("Failed to revoke lease " + leaseId, e);
+        private CompletableFuture<Optional<LockedKey>> tryToLock(String key, LockConfiguration lockConfiguration) {
+            if (usesSharedLease()) {
+                return getSharedLease().thenCompose(leaseId -> tryToLockWithSharedLease(key, leaseId, lockConfiguration));
             }
+            return createLease(getSecondsUntil(lockConfiguration.getLockAtMostUntil()))
+                .thenCompose(leaseId -> {
+                    ByteSequence lockKey = toByteSequence(key);
+                    // Version is the version of the key.
+                    // A deletion resets the version to zero and any modification of the key increases its version.
+                    return kvClient.txn()
+                        .If(new Cmp(lockKey, Cmp.Op.EQUAL, CmpTarget.version(0)))
+                        .Then(Op.put(lockKey, toByteSequence(buildValue()), putOptionWithLeaseId(leaseId)))
+                        .commit()
+                        .handle((response, error) -> {
+                            if (error == null && response.isSucceeded()) {
+                                return Optional.of(new LockedKey(key, getRevision(response), leaseId));
+                            }
+                            revoke(leaseId);
+                            if (error != null) {
+                                throw new LockException("Failed to set lock " + key, unwrap(error));
+                            }
+                            return Optional.empty();
+                        });
+                });
+        }
+
+        private CompletableFuture<Optional<LockedKey>> tryToLockWithSharedLease(String key, long leaseId, LockConfiguration lockConfiguration) {
+            ByteSequence lockKey = toByteSequence(key);
+            Op put = Op.put(lockKey, toByteSequence(buildValue(lockConfiguration.getLockAtMostUntil())), putOptionWithLeaseId(leaseId));
+            return kvClient.txn()
+                .If(new Cmp(lockKey, Cmp.Op.EQUAL, CmpTarget.version(0)))
+                .Then(put)
+                .Else(Op.get(lockKey, DEFAULT))
+                .commit()
+                .thenCompose(response -> {
+                    if (response.isSucceeded()) {
+                        return CompletableFuture.completedFuture(Optional.of(new LockedKey(key, getRevision(response), leaseId)));
+                    }
+                    Optional<KeyValue> current = response.getGetResponses().stream().flatMap(r -> r.getKvs().stream()).findFirst();
+                    if (current.isEmpty() || !isExpired(current.get())) {
+                        return CompletableFuture.completedFuture(Optional.empty());
+                    }
+                    // the lock has expired, take it over unless somebody else has done it in the meantime
+                    return kvClient.txn()
+                        .If(new Cmp(lockKey, Cmp.Op.EQUAL, CmpTarget.modRevision(current.get().getModRevision())))
+                        .Then(put)
+                        .commit()
+                        .thenApply(takeOver -> takeOver.isSucceeded()
+                            ? Optional.of(new LockedKey(key, getRevision(takeOver), leaseId))
+                            : Optional.empty());
+                });
         }
 
         /**
-         * Set the provided leaseId lease for the key-value pair similar to the CLI command
-         * <p>
-         * etcdctl put key value --lease <leaseId>
-         * <p>
-         * If the key has already been put with an other leaseId earlier, the old leaseId
-         * will be timed out and then removed, eventually.
+         * Completes when the key is changed after it has been read, when the lock stored in it expires or at the deadline.
          */
-        public void putWithLeaseId(String key, String value, Long leaseId) {
+        private CompletableFuture<Void> waitForChange(String key, Instant deadline) {
             ByteSequence lockKey = toByteSequence(key);
-            ByteSequence lockValue = toByteSequence(value);
+            return kvClient.get(lockKey).thenCompose(response -> {
+                if (response.getKvs().isEmpty()) {
+                    // released in the meantime
+                    return CompletableFuture.completedFuture(null);
+                }
+                Instant lockedUntil = getLockedUntil(response.getKvs().get(0).getValue().toString(UTF_8));
+                Instant wakeUp = lockedUntil != null && lockedUntil.isBefore(deadline) ? lockedUntil : deadline;
+                long waitMs = getMsUntil(wakeUp);
+                if (waitMs <= 0) {
+                    return CompletableFuture.completedFuture(null);
+                }
+                CompletableFuture<Void> changed = new CompletableFuture<>();
+                WatchOption watchOption = WatchOption.newBuilder().withRevision(response.getHeader().getRevision() + 1).build();
+                Watch.Watcher watcher = watchClient.watch(lockKey, watchOption,
+                    watchResponse -> changed.complete(null),
+                    changed::completeExceptionally
+                );
+                return changed
+                    .completeOnTimeout(null, waitMs, TimeUnit.MILLISECONDS)
+                    .whenComplete((result, error) -> watcher.close());
+            });
+        }
+
+        private CompletableFuture<Void> unlock(LockedKey lockedKey, LockConfiguration lockConfiguration) {
+            // lock at least until is in the past
+            if (getMsUntil(lockConfiguration.getLockAtLeastUntil()) <= 0) {
+                if (usesSharedLease()) {
+                    return ifNotModified(lockedKey, Op.delete(toByteSequence(lockedKey.key), DeleteOption.DEFAULT))
+                        .thenApply(response -> null);
+                }
+                // By revoking lease we remove the value and thus release the lock
+                return revoke(lockedKey.leaseId);
+            }
+            if (usesSharedLease()) {
+                return putIfNotModified(lockedKey, lockedKey.leaseId, buildValue(lockConfiguration.getLockAtLeastUntil()))
+                    .thenApply(response -> null);
+            }
+            // implement lockAtLeast functionality with a new lease, the old one is revoked
+            return replaceLease(lockedKey, getSecondsUntil(lockConfiguration.getLockAtLeastUntil()))
+                .thenApply(response -> null);
+        }
+
+        private CompletableFuture<Optional<LockedKey>> extend(LockedKey lockedKey, LockConfiguration lockConfiguration, LockConfiguration newConfiguration) {
+            if (getMsUntil(lockConfiguration.getLockAtMostUntil()) <= 0) {
+                if (usesSharedLease()) {
+                    return CompletableFuture.completedFuture(Optional.empty());
+                }
+                // the lease may outlive lockAtMostFor as its TTL is rounded up to seconds
+                return revoke(lockedKey.leaseId).thenApply(ignored -> Optional.empty());
+            }
+            if (usesSharedLease()) {
+                return putIfNotModified(lockedKey, lockedKey.leaseId, buildValue(newConfiguration.getLockAtMostUntil()))
+                    .thenApply(response -> response.isSucceeded()
+                        ? Optional.of(new LockedKey(lockedKey.key, getRevision(response), lockedKey.leaseId))
+                        : Optional.empty());
+            }
+            return replaceLease(lockedKey, getSecondsUntil(newConfiguration.getLockAtMostUntil()));
+        }
+
+        /**
+         * Moves the key to a new lease if it has not been modified since we have locked it, and revokes the old lease.
+         */
+        private CompletableFuture<Optional<LockedKey>> replaceLease(LockedKey lockedKey, long ttlInSeconds) {
+            return createLease(ttlInSeconds)
+                .thenCompose(newLeaseId -> putIfNotModified(lockedKey, newLeaseId, buildValue())
+                    .thenCompose(response -> {
+                        if (response.isSucceeded()) {
+                            return revoke(lockedKey.leaseId)
+                                .thenApply(ignored -> Optional.of(new LockedKey(lockedKey.key, getRevision(response), newLeaseId)));
+                        }
+                        return revoke(newLeaseId).thenApply(ignored -> Optional.<LockedKey>empty());
+                    }));
+        }
+
+        private CompletableFuture<TxnResponse> putIfNotModified(LockedKey lockedKey, long leaseId, String value) {
+            return ifNotModified(lockedKey, Op.put(toByteSequence(lockedKey.key), toByteSequence(value), putOptionWithLeaseId(leaseId)));
+        }
+
+        private CompletableFuture<TxnResponse> ifNotModified(LockedKey lockedKey, Op op) {
+            ByteSequence lockKey = toByteSequence(lockedKey.key);
+            return kvClient.txn()
+                .If(new Cmp(lockKey, Cmp.Op.EQUAL, CmpTarget.modRevision(lockedKey.revision)))
+                .Then(op)
+                .commit();
+        }
+
+        private CompletableFuture<Void> revoke(long leaseId) {
+            return leaseClient.revoke(leaseId)
+                .handle((response, error) -> {
+                    if (error != null) {
+                        throw new LockException("Failed to revoke lease " + leaseId, unwrap(error));
+                    }
+                    return null;
+                });
+        }
+
+        private synchronized void close() {
+            if (keepAlive != null) {
+                keepAlive.close();
+                keepAlive = null;
+            }
+            if (sharedLease != null && !sharedLease.isCompletedExceptionally()) {
+                CompletableFuture<Long> lease = sharedLease;
+                sharedLease = null;
+                block(lease.thenCompose(this::revoke));
+            }
+        }
 
-            PutOption putOption = putOptionWithLeaseId(leaseId);
-            kvClient.put(lockKey, lockValue, putOption);
+        private static boolean isExpired(KeyValue keyValue) {
+            Instant lockedUntil = getLockedUntil(keyValue.getValue().toString(UTF_8));
+            return lockedUntil != null && !lockedUntil.isAfter(ClockProvider.now());
         }
 
-        private ByteSequence toByteSequence(String key) {
+        /**
+         * Transaction with a put increments the store revision, which becomes the mod revision of the key.
+         */
+        private static long getRevision(TxnResponse response) {
+            return response.getHeader().getRevision();
+        }
+
+        private static ByteSequence toByteSequence(String key) {
             return ByteSequence.from(key.getBytes(UTF_8));
         }
 
-        private PutOption putOptionWithLeaseId(Long leaseId) {
+        private static PutOption putOptionWithLeaseId(long leaseId) {
             return PutOption.newBuilder().withLeaseId(leaseId).build();
         }
     }
 
+    public static class Builder {
+        private final Client client;
+        private String environment = ENV_DEFAULT;
+        private Duration sharedLeaseTtl;
+
+        public Builder(@NonNull Client client) {
+            this.client = client;
+        }
+
+        public EtcdLockProvider.Builder environment(@NonNull String environment) {
+            this.environment = environment;
+            return this;
+        }
+
+        /**
+         * Attaches all locks to one lease with the given TTL which is kept alive while the provider is running.
+         * If the node dies, its locks are released when the lease expires. Please close the provider on shutdown.
+         */
+        public EtcdLockProvider.Builder sharedLease(@NonNull Duration leaseTtl) {
+            this.sharedLeaseTtl = leaseTtl;
+            return this;
+        }
+
+        public EtcdLockProvider build() {
+            return new EtcdLockProvider(client, environment, sharedLeaseTtl);
+        }
+    }
 }
@@ -20,20 +20,32 @@ import io.etcd.jetcd.Client;
 import io.etcd.jetcd.KV;
 import io.etcd.jetcd.launcher.Etcd;
 import io.etcd.jetcd.launcher.EtcdCluster;
-import net.javacrumbs.shedlock.core.LockProvider;
-import net.javacrumbs.shedlock.test.support.AbstractLockProviderIntegrationTest;
+import io.etcd.jetcd.KeyValue;
+import net.javacrumbs.shedlock.core.AsyncSimpleLock;
+import net.javacrumbs.shedlock.core.ClockProvider;
+import net.javacrumbs.shedlock.core.ExtensibleLockProvider;
+import net.javacrumbs.shedlock.core.SimpleLock;
+import net.javacrumbs.shedlock.test.support.AbstractAsyncLockProviderIntegrationTest;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.time.Duration.ofSeconds;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.fail;
 
-public class EtcdLockProviderIntegrationTest extends AbstractLockProviderIntegrationTest {
+public class EtcdLockProviderIntegrationTest extends AbstractAsyncLockProviderIntegrationTest {
 
     private static final EtcdCluster cluster = new Etcd.Builder().withNodes(1).build();
 
@@ -56,12 +68,17 @@ public class EtcdLockProviderIntegrationTest extends AbstractLockProviderIntegra
         // the first call is very slow, so we do this warm up before the actual tests
         warmUpLeaseClient(client);
         kvClient = client.getKVClient();
-        lockProvider = new EtcdLockProvider(client);
+        lockProvider = createLockProvider(client);
+    }
+
+    protected EtcdLockProvider createLockProvider(Client client) {
+        return new EtcdLockProvider(client);
     }
 
     @AfterEach
     public void clear() {
         kvClient.delete(buildKey(LOCK_NAME1));
+        lockProvider.close();
     }
 
     private void warmUpLeaseClient(Client client) {
@@ -90,20 +107,52 @@ public class EtcdLockProviderIntegrationTest extends AbstractLockProviderIntegra
         doTestShouldLockAtLeastFor(2000);
     }
 
+    @Test
+    public void shouldWaitUntilLockIsReleased() throws Exception {
+        Optional<SimpleLock> lock1 = lockProvider.lock(lockConfig(LOCK_NAME1, Duration.ofSeconds(30), Duration.ZERO));
+        assertThat(lock1).isNotEmpty();
+        CompletableFuture.runAsync(() -> lock1.get().unlock(), CompletableFuture.delayedExecutor(500, TimeUnit.MILLISECONDS));
+
+        Optional<AsyncSimpleLock> lock2 = lockProvider.lockAsync(lockConfig(LOCK_NAME1), Duration.ofSeconds(10)).toCompletableFuture().get();
+        assertThat(lock2).isNotEmpty();
+        assertLocked(LOCK_NAME1);
+        lock2.get().unlockAsync().toCompletableFuture().get();
+    }
+
+    @Test
+    public void shouldStopWaitingAfterTimeout() {
+        Optional<SimpleLock> lock1 = lockProvider.lock(lockConfig(LOCK_NAME1, Duration.ofSeconds(30), Duration.ZERO));
+        assertThat(lock1).isNotEmpty();
+
+        assertThat(lockProvider.tryLock(lockConfig(LOCK_NAME1), Duration.ofMillis(500))).isEmpty();
+        lock1.get().unlock();
+    }
+
+    /**
+     * The key is either removed or, with shared lease, contains lock until in the past
+     */
     @Override
     protected void assertUnlocked(String lockName) {
-        await().timeout(ofSeconds(1)).untilAsserted(() -> assertKeysFound(lockName, 0));
+        await().timeout(ofSeconds(1)).untilAsserted(() -> {
+            List<KeyValue> kvs = kvClient.get(buildKey(lockName)).get().getKvs();
+            if (!kvs.isEmpty()) {
+                Instant lockedUntil = EtcdLockProvider.getLockedUntil(kvs.get(0).getValue().toString(UTF_8));
+                assertThat(lockedUntil).isNotNull();
+                assertThat(lockedUntil.isAfter(ClockProvider.now())).isFalse();
+            }
+        });
     }
 
     @Override
     protected void assertLocked(String lockName) {
-        assertKeysFound(lockName, 1);
-    }
-
-    private void assertKeysFound(String lockName, int expected) {
         ByteSequence key = buildKey(lockName);
         try {
-            assertThat(kvClient.get(key).get().getCount()).isEqualTo(expected);
+            List<KeyValue> kvs = kvClient.get(key).get().getKvs();
+            assertThat(kvs.size()).isEqualTo(1);
+            Instant lockedUntil = EtcdLockProvider.getLockedUntil(kvs.get(0).getValue().toString(UTF_8));
+            if (lockedUntil != null) {
+                assertThat(lockedUntil.isAfter(ClockProvider.now())).isTrue();
+            }
         } catch (Exception ex) {
             fail(ex);
         }
@@ -114,7 +163,7 @@ public class EtcdLockProviderIntegrationTest extends AbstractLockProviderIntegra
     }
 
     @Override
-    protected LockProvider getLockProvider() {
+    protected ExtensibleLockProvider getLockProvider() {
         return lockProvider;
     }
 
@@ -19,13 +19,29 @@ import net.javacrumbs.shedlock.core.ClockProvider;
 import net.javacrumbs.shedlock.core.LockConfiguration;
 import net.javacrumbs.shedlock.support.AbstractStorageAccessor;
 import net.javacrumbs.shedlock.support.LockException;
+import net.javacrumbs.shedlock.support.LockTableResolver;
 import net.javacrumbs.shedlock.support.annotation.NonNull;
+import net.javacrumbs.shedlock.support.annotation.Nullable;
 
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
 import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 
 import static java.util.Objects.requireNonNull;
 
@@ -33,21 +49,61 @@ import static java.util.Objects.requireNonNull;
  * Internal class, please do not use.
  */
 public abstract class AbstractJdbcStorageAccessor extends AbstractStorageAccessor {
-    private final String tableName;
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    private final LockTableResolver lockTableResolver;
+    private final boolean useDbTime;
+    // statements do not change, so we build them only once per table
+    private final Map<String, Statements> statements = new ConcurrentHashMap<>();
+    @Nullable
+    private volatile ServerTimeStatements.Dialect dialect;
 
     public AbstractJdbcStorageAccessor(@NonNull String tableName) {
-        this.tableName = requireNonNull(tableName, "tableName can not be null");
+        this(LockTableResolver.singleTable(tableName));
+    }
+
+    public AbstractJdbcStorageAccessor(@NonNull LockTableResolver lockTableResolver) {
+        this(lockTableResolver, false);
+    }
+
+    /**
+     * @param useDbTime if true, time of the database server is used instead of the time of the client, see {@link ServerTimeStatements}
+     */
+    public AbstractJdbcStorageAccessor(@NonNull LockTableResolver lockTableResolver, boolean useDbTime) {
+        this.lockTableResolver = requireNonNull(lockTableResolver, "lockTableResolver can not be null");
+        this.useDbTime = useDbTime;
+    }
+
+    private Statements statements(String lockName) {
+        return statementsForTable(lockTableResolver.resolveTableName(lockName));
+    }
+
+    private Statements statementsForTable(String tableName) {
+        Statements result = statements.get(tableName);
+        if (result == null) {
+            ServerTimeStatements.Dialect dialect = useDbTime ? dialect() : null;
+            result = statements.computeIfAbsent(tableName, name -> new Statements(name, dialect));
+        }
+        return result;
+    }
+
+    private ServerTimeStatements.Dialect dialect() {
+        ServerTimeStatements.Dialect result = dialect;
+        if (result == null) {
+            String databaseProductName = getDatabaseProductName();
+            logger.debug("Using DB time of '{}'", databaseProductName);
+            result = ServerTimeStatements.Dialect.fromDatabaseProductName(databaseProductName);
+            dialect = result;
+        }
+        return result;
     }
 
     @Override
     public boolean insertRecord(@NonNull LockConfiguration lockConfiguration) {
         // Try to insert if the record does not exist (not optimal, but the simplest platform agnostic way)
-        String sql = "INSERT INTO " + tableName + "(name, lock_until, locked_at, locked_by) VALUES(?, ?, ?, ?)";
-        return executeCommand(sql, statement -> {
-            statement.setString(1, lockConfiguration.getName());
-            statement.setTimestamp(2, Timestamp.from(lockConfiguration.getLockAtMostUntil()));
-            statement.setTimestamp(3, Timestamp.from(ClockProvider.now()));
-            statement.setString(4, getHostname());
+        BoundSql insert = statements(lockConfiguration.getName()).insert;
+        return executeCommand(insert.sql, statement -> {
+            insert.bind(statement, lockConfiguration);
             int insertedRows = statement.executeUpdate();
             return insertedRows > 0;
         }, this::handleInsertionException);
@@ -55,51 +111,186 @@ public abstract class AbstractJdbcStorageAccessor extends AbstractStorageAccesso
 
     @Override
     public boolean updateRecord(@NonNull LockConfiguration lockConfiguration) {
-        String sql = "UPDATE " + tableName + " SET lock_until = ?, locked_at = ?, locked_by = ? WHERE name = ? AND lock_until <= ?";
-        return executeCommand(sql, statement -> {
-            Timestamp now = Timestamp.from(ClockProvider.now());
-            statement.setTimestamp(1, Timestamp.from(lockConfiguration.getLockAtMostUntil()));
-            statement.setTimestamp(2, now);
-            statement.setString(3, getHostname());
-            statement.setString(4, lockConfiguration.getName());
-            statement.setTimestamp(5, now);
+        BoundSql update = statements(lockConfiguration.getName()).update;
+        return executeCommand(update.sql, statement -> {
+            update.bind(statement, lockConfiguration);
             int updatedRows = statement.executeUpdate();
             return updatedRows > 0;
         }, this::handleUpdateException);
     }
 
     @Override
-    public boolean extend(@NonNull LockConfiguration lockConfiguration) {
-        String sql = "UPDATE " + tableName + " SET lock_until = ? WHERE name = ? AND locked_by = ? AND lock_until > ? ";
+    public UpdateResult updateRecordWithResult(@NonNull LockConfiguration lockConfiguration) {
+        if (updateRecord(lockConfiguration)) {
+            return UpdateResult.updated();
+        }
+        if (useDbTime) {
+            // lock_until is not in the time zone of the client
+            return UpdateResult.notUpdated(null);
+        }
+        Instant lockedUntil = executeCommand(statements(lockConfiguration.getName()).lockedUntilStatement, statement -> {
+            statement.setString(1, lockConfiguration.getName());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getTimestamp(1).toInstant() : null;
+            }
+        }, this::handleSelectException);
+        return UpdateResult.notUpdated(lockedUntil);
+    }
 
+    /**
+     * Executes all the updates as one JDBC batch per table, so it usually costs only one round-trip.
+     */
+    @Override
+    public Set<String> updateRecords(@NonNull Collection<LockConfiguration> lockConfigurations) {
+        return executeBatch(s -> s.update, lockConfigurations, this::handleBatchUpdateException);
+    }
+
+    private Set<String> executeBatch(
+        Function<Statements, BoundSql> sql,
+        Collection<LockConfiguration> lockConfigurations,
+        BiFunction<String, SQLException, Set<String>> exceptionHandler
+    ) {
+        Map<Statements, List<LockConfiguration>> byTable = new LinkedHashMap<>();
+        for (LockConfiguration lockConfiguration : lockConfigurations) {
+            byTable.computeIfAbsent(statements(lockConfiguration.getName()), k -> new ArrayList<>()).add(lockConfiguration);
+        }
+        Set<String> updated = new HashSet<>();
+        byTable.forEach((statements, configurations) ->
+            updated.addAll(executeBatch(sql.apply(statements), configurations, exceptionHandler)));
+        return updated;
+    }
+
+    private Set<String> executeBatch(
+        BoundSql sql,
+        List<LockConfiguration> lockConfigurations,
+        BiFunction<String, SQLException, Set<String>> exceptionHandler
+    ) {
+        return executeCommand(sql.sql, statement -> {
+            Timestamp now = sql.usesClientTime ? Timestamp.from(ClockProvider.now()) : null;
+            List<String> names = new ArrayList<>(lockConfigurations.size());
+            for (LockConfiguration lockConfiguration : lockConfigurations) {
+                sql.binder.bind(statement, lockConfiguration, now);
+                statement.addBatch();
+                names.add(lockConfiguration.getName());
+            }
+            int[] updatedRows = statement.executeBatch();
+            Set<String> updated = new HashSet<>();
+            for (int i = 0; i < updatedRows.length; i++) {
+                if (updatedRows[i] == Statement.SUCCESS_NO_INFO) {
+                    throw new LockException("JDBC driver does not report update counts of batch statements, can not use batch");
+                }
+                if (updatedRows[i] > 0) {
+                    updated.add(names.get(i));
+                }
+            }
+            return updated;
+        }, exceptionHandler);
+    }
+
+    @Override
+    public boolean extend(@NonNull LockConfiguration lockConfiguration) {
         logger.debug("Extending lock={} until={}", lockConfiguration.getName(), lockConfiguration.getLockAtMostUntil());
 
-        return executeCommand(sql, statement -> {
-            statement.setTimestamp(1, Timestamp.from(lockConfiguration.getLockAtMostUntil()));
-            statement.setString(2, lockConfiguration.getName());
-            statement.setString(3, getHostname());
-            statement.setTimestamp(4, Timestamp.from(ClockProvider.now()));
+        BoundSql extend = statements(lockConfiguration.getName()).extend;
+        return executeCommand(extend.sql, statement -> {
+            extend.bind(statement, lockConfiguration);
+            return statement.executeUpdate() > 0;
+        }, this::handleUnlockException);
+    }
+
+    /**
+     * Executes all the extensions as one JDBC batch per table, so it usually costs only one round-trip.
+     */
+    @Override
+    public Set<String> extendRecords(@NonNull Collection<LockConfiguration> lockConfigurations) {
+        logger.debug("Extending {} locks", lockConfigurations.size());
+        return executeBatch(s -> s.extend, lockConfigurations, this::handleBatchExtendException);
+    }
+
+    /**
+     * Converts the lock held by us to a lock of the next execution in one statement, so unlock and lock do not
+     * have to be executed separately.
+     */
+    @Override
+    public boolean handOver(@NonNull LockConfiguration lockConfiguration) {
+        logger.debug("Handing over lock={} until={}", lockConfiguration.getName(), lockConfiguration.getLockAtMostUntil());
+
+        BoundSql handOver = statements(lockConfiguration.getName()).handOver;
+        return executeCommand(handOver.sql, statement -> {
+            handOver.bind(statement, lockConfiguration);
             return statement.executeUpdate() > 0;
         }, this::handleUnlockException);
     }
 
     @Override
     public void unlock(@NonNull LockConfiguration lockConfiguration) {
-        String sql = "UPDATE " + tableName + " SET lock_until = ? WHERE name = ?";
-        executeCommand(sql, statement -> {
-            statement.setTimestamp(1, Timestamp.from(lockConfiguration.getUnlockTime()));
-            statement.setString(2, lockConfiguration.getName());
+        BoundSql unlock = statements(lockConfiguration.getName()).unlock;
+        executeCommand(unlock.sql, statement -> {
+            unlock.bind(statement, lockConfiguration);
             statement.executeUpdate();
             return null;
         }, this::handleUnlockException);
     }
 
+    /**
+     * Deletes records with lock_until older than lockUntilBefore. Names of the records are selected first, the records
+     * are then deleted in one batch per table, lock_until is checked again, so we do not delete records locked in the meantime.
+     *
+     * @return number of deleted records
+     */
+    public int removeExpiredLockRecords(@NonNull Instant lockUntilBefore, int limit) {
+        int deleted = 0;
+        for (String tableName : lockTableResolver.getTableNames()) {
+            if (deleted >= limit) {
+                break;
+            }
+            deleted += removeExpiredLockRecords(statementsForTable(tableName), Timestamp.from(lockUntilBefore), limit - deleted);
+        }
+        return deleted;
+    }
+
+    private int removeExpiredLockRecords(Statements statements, Timestamp lockUntilBefore, int limit) {
+        List<String> names = executeCommand(statements.expiredNamesStatement, statement -> {
+            statements.setLockUntilBefore(statement, 1, lockUntilBefore);
+            statement.setMaxRows(limit);
+            List<String> result = new ArrayList<>();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    result.add(resultSet.getString(1));
+                }
+            }
+            return result;
+        }, this::handleSelectExpiredException);
+        if (names.isEmpty()) {
+            return 0;
+        }
+        return executeCommand(statements.deleteExpiredStatement, statement -> {
+            for (String name : names) {
+                statement.setString(1, name);
+                statements.setLockUntilBefore(statement, 2, lockUntilBefore);
+                statement.addBatch();
+            }
+            int deleted = 0;
+            for (int deletedRows : statement.executeBatch()) {
+                // if the driver does not report the count, we assume the row has been deleted
+                deleted += deletedRows == Statement.SUCCESS_NO_INFO ? 1 : deletedRows;
+            }
+            return deleted;
+        }, this::handleDeleteException);
+    }
+
     protected abstract <T> T executeCommand(
         String sql,
         SqlFunction<PreparedStatement, T> body,
         BiFunction<String, SQLException, T> exceptionHandler
     );
 
+    /**
+     * @return name of the database as reported by {@link java.sql.DatabaseMetaData#getDatabaseProductName()},
+     * used to choose the dialect when DB time is used
+     */
+    protected abstract String getDatabaseProductName();
+
     boolean handleInsertionException(String sql, SQLException e) {
         if (e instanceof SQLIntegrityConstraintViolationException) {
             // lock record already exists
@@ -115,10 +306,134 @@ public abstract class AbstractJdbcStorageAccessor extends AbstractStorageAccesso
         throw new LockException("Unexpected exception when locking", e);
     }
 
+    Instant handleSelectException(String sql, SQLException e) {
+        // we just do not know lock_until
+        logger.debug("Exception thrown when reading lock_until", e);
+        return null;
+    }
+
+    Set<String> handleBatchUpdateException(String sql, SQLException e) {
+        throw new LockException("Unexpected exception when locking", e);
+    }
+
+    Set<String> handleBatchExtendException(String sql, SQLException e) {
+        throw new LockException("Unexpected exception when extending", e);
+    }
+
+    List<String> handleSelectExpiredException(String sql, SQLException e) {
+        throw new LockException("Unexpected exception when reading expired lock records", e);
+    }
+
+    Integer handleDeleteException(String sql, SQLException e) {
+        throw new LockException("Unexpected exception when deleting expired lock records", e);
+    }
+
     boolean handleUnlockException(String sql, SQLException e) {
         throw new LockException("Unexpected exception when unlocking", e);
     }
 
+    private final class Statements {
+        private final BoundSql insert;
+        private final BoundSql update;
+        private final BoundSql extend;
+        private final BoundSql handOver;
+        private final BoundSql unlock;
+        private final String lockedUntilStatement;
+        private final String expiredNamesStatement;
+        private final String deleteExpiredStatement;
+        @Nullable
+        private final Calendar calendar;
+
+        private Statements(String tableName, @Nullable ServerTimeStatements.Dialect dialect) {
+            if (dialect == null) {
+                this.insert = new BoundSql("INSERT INTO " + tableName + "(name, lock_until, locked_at, locked_by) VALUES(?, ?, ?, ?)", (statement, lockConfiguration, now) -> {
+                    statement.setString(1, lockConfiguration.getName());
+                    statement.setTimestamp(2, Timestamp.from(lockConfiguration.getLockAtMostUntil()));
+                    statement.setTimestamp(3, now);
+                    statement.setString(4, getHostname());
+                }, true);
+                this.update = new BoundSql("UPDATE " + tableName + " SET lock_until = ?, locked_at = ?, locked_by = ? WHERE name = ? AND lock_until <= ?", (statement, lockConfiguration, now) -> {
+                    statement.setTimestamp(1, Timestamp.from(lockConfiguration.getLockAtMostUntil()));
+                    statement.setTimestamp(2, now);
+                    statement.setString(3, getHostname());
+                    statement.setString(4, lockConfiguration.getName());
+                    statement.setTimestamp(5, now);
+                }, true);
+                this.extend = new BoundSql("UPDATE " + tableName + " SET lock_until = ? WHERE name = ? AND locked_by = ? AND lock_until > ? ", (statement, lockConfiguration, now) -> {
+                    statement.setTimestamp(1, Timestamp.from(lockConfiguration.getLockAtMostUntil()));
+                    statement.setString(2, lockConfiguration.getName());
+                    statement.setString(3, getHostname());
+                    statement.setTimestamp(4, now);
+                }, true);
+                this.handOver = new BoundSql("UPDATE " + tableName + " SET lock_until = ?, locked_at = ? WHERE name = ? AND locked_by = ? AND lock_until > ?", (statement, lockConfiguration, now) -> {
+                    statement.setTimestamp(1, Timestamp.from(lockConfiguration.getLockAtMostUntil()));
+                    statement.setTimestamp(2, now);
+                    statement.setString(3, lockConfiguration.getName());
+                    statement.setString(4, getHostname());
+                    statement.setTimestamp(5, now);
+                }, true);
+                this.unlock = new BoundSql("UPDATE " + tableName + " SET lock_until = ? WHERE name = ?", (statement, lockConfiguration, now) -> {
+                    statement.setTimestamp(1, Timestamp.from(lockConfiguration.getUnlockTime()));
+                    statement.setString(2, lockConfiguration.getName());
+                }, true);
+                this.calendar = null;
+            } else {
+                ServerTimeStatements serverTimeStatements = new ServerTimeStatements(dialect, tableName, (index, name) -> "?");
+                this.insert = serverTime(serverTimeStatements, serverTimeStatements.getInsertStatement());
+                this.update = serverTime(serverTimeStatements, serverTimeStatements.getUpdateStatement());
+                this.extend = serverTime(serverTimeStatements, serverTimeStatements.getExtendStatement());
+                this.handOver = serverTime(serverTimeStatements, serverTimeStatements.getHandOverStatement());
+                this.unlock = serverTime(serverTimeStatements, serverTimeStatements.getUnlockStatement());
+                this.calendar = dialect.usesUtc() ? Calendar.getInstance(UTC) : null;
+            }
+            this.lockedUntilStatement = "SELECT lock_until FROM " + tableName + " WHERE name = ?";
+            this.expiredNamesStatement = "SELECT name FROM " + tableName + " WHERE lock_until < ?";
+            this.deleteExpiredStatement = "DELETE FROM " + tableName + " WHERE name = ? AND lock_until < ?";
+        }
+
+        private BoundSql serverTime(ServerTimeStatements serverTimeStatements, ServerTimeStatements.Statement sql) {
+            List<ServerTimeStatements.Parameter> parameters = sql.getParameters();
+            return new BoundSql(sql.getSql(), (statement, lockConfiguration, now) -> {
+                for (int i = 0; i < parameters.size(); i++) {
+                    statement.setObject(i + 1, serverTimeStatements.value(parameters.get(i), lockConfiguration, getHostname()));
+                }
+            }, false);
+        }
+
+        private void setLockUntilBefore(PreparedStatement statement, int index, Timestamp lockUntilBefore) throws SQLException {
+            if (calendar != null) {
+                // DB time is stored in UTC
+                statement.setTimestamp(index, lockUntilBefore, (Calendar) calendar.clone());
+            } else {
+                statement.setTimestamp(index, lockUntilBefore);
+            }
+        }
+    }
+
+    /**
+     * SQL with the code binding its parameters.
+     */
+    private static final class BoundSql {
+        private final String sql;
+        private final BatchBinder binder;
+        private final boolean usesClientTime;
+
+        private BoundSql(String sql, BatchBinder binder, boolean usesClientTime) {
+            this.sql = sql;
+            this.binder = binder;
+            this.usesClientTime = usesClientTime;
+        }
+
+        private void bind(PreparedStatement statement, LockConfiguration lockConfiguration) throws SQLException {
+            binder.bind(statement, lockConfiguration, usesClientTime ? Timestamp.from(ClockProvider.now()) : null);
+        }
+    }
+
+    @FunctionalInterface
+    private interface BatchBinder {
+        void bind(PreparedStatement statement, LockConfiguration lockConfiguration, @Nullable Timestamp now) throws SQLException;
+    }
+
     @FunctionalInterface
     public interface SqlFunction<T, R> {
         R apply(T t) throws SQLException;
@@ -0,0 +1,344 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.provider.jdbc.internal;
+
+import net.javacrumbs.shedlock.core.LockConfiguration;
+import net.javacrumbs.shedlock.support.annotation.NonNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Statements that use the time of the database server instead of the time of the client. lock_until is computed in
+ * the database by adding lockAtMostFor to the current time, so the only values bound to the statements
+ * are the lock name, the hostname and the durations.
+ * <p>
+ * Time is stored in UTC, with the exception of H2 and HSQLDB, which store it in the time zone of the session.
+ * <p>
+ * Internal class, please do not use.
+ */
+public final class ServerTimeStatements {
+    private final Dialect dialect;
+    private final Statement lockAtMostUntil;
+    private final Statement insertStatement;
+    private final Statement updateStatement;
+    private final Statement extendStatement;
+    private final Statement handOverStatement;
+    private final Statement unlockStatement;
+
+    /**
+     * @param parameterMarker creates the placeholder of n-th (starting from 1) parameter in the SQL
+     */
+    public ServerTimeStatements(@NonNull Dialect dialect, @NonNull String tableName, @NonNull ParameterMarker parameterMarker) {
+        this(dialect, tableName, "name", "lock_until", "locked_at", "locked_by", parameterMarker);
+    }
+
+    /**
+     * @param parameterMarker creates the placeholder of n-th (starting from 1) parameter in the SQL
+     */
+    public ServerTimeStatements(
+        @NonNull Dialect dialect,
+        @NonNull String tableName,
+        @NonNull String name,
+        @NonNull String lockUntil,
+        @NonNull String lockedAt,
+        @NonNull String lockedBy,
+        @NonNull ParameterMarker parameterMarker
+    ) {
+        this.dialect = requireNonNull(dialect, "dialect can not be null");
+        requireNonNull(tableName, "tableName can not be null");
+        requireNonNull(name, "name can not be null");
+        requireNonNull(lockUntil, "lockUntil can not be null");
+        requireNonNull(lockedAt, "lockedAt can not be null");
+        requireNonNull(lockedBy, "lockedBy can not be null");
+        requireNonNull(parameterMarker, "parameterMarker can not be null");
+        String now = dialect.now();
+
+        this.lockAtMostUntil = new SqlBuilder(parameterMarker).plus(now, Parameter.LOCK_AT_MOST_FOR).build();
+        this.insertStatement = new SqlBuilder(parameterMarker)
+            .sql("INSERT INTO " + tableName + "(" + name + ", " + lockUntil + ", " + lockedAt + ", " + lockedBy + ") VALUES(").param(Parameter.NAME)
+            .sql(", ").plus(now, Parameter.LOCK_AT_MOST_FOR)
+            .sql(", " + now + ", ").param(Parameter.LOCKED_BY).sql(")")
+            .build();
+        this.updateStatement = new SqlBuilder(parameterMarker)
+            .sql("UPDATE " + tableName + " SET " + lockUntil + " = ").plus(now, Parameter.LOCK_AT_MOST_FOR)
+            .sql(", " + lockedAt + " = " + now + ", " + lockedBy + " = ").param(Parameter.LOCKED_BY)
+            .sql(" WHERE " + name + " = ").param(Parameter.NAME).sql(" AND " + lockUntil + " <= " + now)
+            .build();
+        this.extendStatement = new SqlBuilder(parameterMarker)
+            .sql("UPDATE " + tableName + " SET " + lockUntil + " = ").plus(now, Parameter.LOCK_AT_MOST_FOR)
+            .sql(" WHERE " + name + " = ").param(Parameter.NAME).sql(" AND " + lockedBy + " = ").param(Parameter.LOCKED_BY)
+            .sql(" AND " + lockUntil + " > " + now)
+            .build();
+        this.handOverStatement = new SqlBuilder(parameterMarker)
+            .sql("UPDATE " + tableName + " SET " + lockUntil + " = ").plus(now, Parameter.LOCK_AT_MOST_FOR)
+            .sql(", " + lockedAt + " = " + now + " WHERE " + name + " = ").param(Parameter.NAME).sql(" AND " + lockedBy + " = ").param(Parameter.LOCKED_BY)
+            .sql(" AND " + lockUntil + " > " + now)
+            .build();
+        // lock_until = max(locked_at + lockAtLeastFor, now)
+        this.unlockStatement = new SqlBuilder(parameterMarker)
+            .sql("UPDATE " + tableName + " SET " + lockUntil + " = CASE WHEN ").plus(lockedAt, Parameter.LOCK_AT_LEAST_FOR)
+            .sql(" > " + now + " THEN ").plus(lockedAt, Parameter.LOCK_AT_LEAST_FOR)
+            .sql(" ELSE " + now + " END WHERE " + name + " = ").param(Parameter.NAME).sql(" AND " + lockedBy + " = ").param(Parameter.LOCKED_BY)
+            .build();
+    }
+
+    public Dialect getDialect() {
+        return dialect;
+    }
+
+    /**
+     * @return SQL expression of the current time, for statements composed by the caller
+     */
+    public String getNow() {
+        return dialect.now();
+    }
+
+    /**
+     * @return SQL expression of the time until the lock is held, for statements composed by the caller
+     */
+    public Statement getLockAtMostUntil() {
+        return lockAtMostUntil;
+    }
+
+    public Statement getInsertStatement() {
+        return insertStatement;
+    }
+
+    public Statement getUpdateStatement() {
+        return updateStatement;
+    }
+
+    public Statement getExtendStatement() {
+        return extendStatement;
+    }
+
+    public Statement getHandOverStatement() {
+        return handOverStatement;
+    }
+
+    public Statement getUnlockStatement() {
+        return unlockStatement;
+    }
+
+    /**
+     * @return value of the parameter in the form expected by the dialect
+     */
+    public Object value(Parameter parameter, LockConfiguration lockConfiguration, String lockedBy) {
+        switch (parameter) {
+            case NAME:
+                return lockConfiguration.getName();
+            case LOCKED_BY:
+                return lockedBy;
+            case LOCK_AT_MOST_FOR:
+                return dialect.durationValue(lockConfiguration.getLockAtMostFor());
+            case LOCK_AT_LEAST_FOR:
+                return dialect.durationValue(lockConfiguration.getLockAtLeastFor());
+            default:
+                throw new IllegalArgumentException("Unknown parameter " + parameter);
+        }
+    }
+
+    public enum Dialect {
+        POSTGRES("timezone('utc', CURRENT_TIMESTAMP)") {
+            @Override
+            String plus(String timestamp, String duration) {
+                return timestamp + " + cast(" + duration + " as interval)";
+            }
+
+            @Override
+            Object durationValue(Duration duration) {
+                return duration.toMillis() + " milliseconds";
+            }
+        },
+        MS_SQL("SYSUTCDATETIME()") {
+            @Override
+            String plus(String timestamp, String duration) {
+                return "DATEADD(millisecond, " + duration + ", " + timestamp + ")";
+            }
+
+            @Override
+            Object durationValue(Duration duration) {
+                return duration.toMillis();
+            }
+        },
+        ORACLE("SYS_EXTRACT_UTC(SYSTIMESTAMP)") {
+            private static final long MILLISECONDS_IN_DAY = 24 * 60 * 60 * 1000;
+
+            @Override
+            String plus(String timestamp, String duration) {
+                return timestamp + " + " + duration;
+            }
+
+            @Override
+            Object durationValue(Duration duration) {
+                return ((double) duration.toMillis()) / MILLISECONDS_IN_DAY;
+            }
+        },
+        MYSQL("UTC_TIMESTAMP(3)"),
+        DB2("(CURRENT TIMESTAMP - CURRENT TIMEZONE)") {
+            @Override
+            String plus(String timestamp, String duration) {
+                return "(" + timestamp + " + " + duration + " MICROSECONDS)";
+            }
+
+            @Override
+            Object durationValue(Duration duration) {
+                return ((double) duration.toNanos()) / 1_000;
+            }
+        },
+        H2("CURRENT_TIMESTAMP(3)"),
+        HSQL("CURRENT_TIMESTAMP(3)");
+
+        private final String now;
+
+        Dialect(String now) {
+            this.now = now;
+        }
+
+        /**
+         * @param databaseProductName name reported by JDBC DatabaseMetaData or R2DBC ConnectionFactoryMetadata
+         */
+        public static Dialect fromDatabaseProductName(@NonNull String databaseProductName) {
+            switch (databaseProductName) {
+                case "PostgreSQL":
+                    return POSTGRES;
+                case "Microsoft SQL Server":
+                    return MS_SQL;
+                case "Oracle":
+                case "Oracle Database":
+                    return ORACLE;
+                case "MySQL":
+                case "MariaDB":
+                    return MYSQL;
+                case "HSQL Database Engine":
+                    return HSQL;
+                case "H2":
+                    return H2;
+                default:
+                    if (databaseProductName.startsWith("DB2")) {
+                        return DB2;
+                    }
+                    throw new UnsupportedOperationException("DB time is not supported for '" + databaseProductName + "'");
+            }
+        }
+
+        /**
+         * @return SQL expression of the current time
+         */
+        String now() {
+            return now;
+        }
+
+        /**
+         * @return true if the current time is in UTC, false if it is in the time zone of the session
+         */
+        public boolean usesUtc() {
+            return this != H2 && this != HSQL;
+        }
+
+        String plus(String timestamp, String duration) {
+            return "TIMESTAMPADD(MICROSECOND, " + duration + ", " + timestamp + ")";
+        }
+
+        Object durationValue(Duration duration) {
+            return duration.toNanos() / 1_000;
+        }
+    }
+
+    public enum Parameter {
+        NAME("name"),
+        LOCKED_BY("lockedBy"),
+        LOCK_AT_MOST_FOR("lockAtMostFor"),
+        LOCK_AT_LEAST_FOR("lockAtLeastFor");
+
+        private final String parameterName;
+
+        Parameter(String parameterName) {
+            this.parameterName = parameterName;
+        }
+
+        public String getParameterName() {
+            return parameterName;
+        }
+    }
+
+    /**
+     * SQL with parameters in the order of their placeholders.
+     */
+    public static final class Statement {
+        private final String sql;
+        private final List<Parameter> parameters;
+
+        private Statement(String sql, List<Parameter> parameters) {
+            this.sql = sql;
+            this.parameters = Collections.unmodifiableList(parameters);
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public List<Parameter> getParameters() {
+            return parameters;
+        }
+
+        @Override
+        public String toString() {
+            return sql;
+        }
+    }
+
+    @FunctionalInterface
+    public interface ParameterMarker {
+        String toParameter(int index, String name);
+    }
+
+    private final class SqlBuilder {
+        private final ParameterMarker parameterMarker;
+        private final StringBuilder sql = new StringBuilder();
+        private final List<Parameter> parameters = new ArrayList<>();
+
+        private SqlBuilder(ParameterMarker parameterMarker) {
+            this.parameterMarker = parameterMarker;
+        }
+
+        private SqlBuilder sql(String text) {
+            sql.append(text);
+            return this;
+        }
+
+        private SqlBuilder param(Parameter parameter) {
+            parameters.add(parameter);
+            sql.append(parameterMarker.toParameter(parameters.size(), parameter.getParameterName()));
+            return this;
+        }
+
+        private SqlBuilder plus(String timestamp, Parameter duration) {
+            parameters.add(duration);
+            sql.append(dialect.plus(timestamp, parameterMarker.toParameter(parameters.size(), duration.getParameterName())));
+            return this;
+        }
+
+        private Statement build() {
+            return new Statement(sql.toString(), new ArrayList<>(parameters));
+        }
+    }
+}
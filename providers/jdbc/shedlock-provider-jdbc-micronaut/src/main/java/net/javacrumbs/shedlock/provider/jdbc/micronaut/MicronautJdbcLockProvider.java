@@ -17,11 +17,13 @@ package net.javacrumbs.shedlock.provider.jdbc.micronaut;
 
 import io.micronaut.transaction.TransactionOperations;
 import io.micronaut.transaction.jdbc.DataSourceTransactionManager;
+import net.javacrumbs.shedlock.support.ExpiredLockRecordRemover;
 import net.javacrumbs.shedlock.support.StorageBasedLockProvider;
 import net.javacrumbs.shedlock.support.annotation.NonNull;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
+import java.time.Instant;
 
 /**
  * Lock provided by plain JDBC, using the Micronaut Data transaction manager. It uses a table that contains lock_name and locked_until.
@@ -45,10 +47,12 @@ import java.sql.Connection;
  * </li>
  * </ol>
  */
-public class MicronautJdbcLockProvider extends StorageBasedLockProvider {
+public class MicronautJdbcLockProvider extends StorageBasedLockProvider implements ExpiredLockRecordRemover {
 
     private static final String DEFAULT_TABLE_NAME = "shedlock";
 
+    private final MicronautJdbcStorageAccessor storageAccessor;
+
     public MicronautJdbcLockProvider(@NonNull DataSource datasource) {
         this(new DataSourceTransactionManager(datasource), DEFAULT_TABLE_NAME);
     }
@@ -58,6 +62,23 @@ public class MicronautJdbcLockProvider extends StorageBasedLockProvider {
     }
 
     public MicronautJdbcLockProvider(@NonNull TransactionOperations<Connection> transactionManager, @NonNull String tableName) {
-        super(new MicronautJdbcStorageAccessor(transactionManager, tableName));
+        this(transactionManager, tableName, false);
+    }
+
+    /**
+     * @param useDbTime if true, the time of the database server is used instead of the time of the client
+     */
+    public MicronautJdbcLockProvider(@NonNull TransactionOperations<Connection> transactionManager, @NonNull String tableName, boolean useDbTime) {
+        this(new MicronautJdbcStorageAccessor(transactionManager, tableName, useDbTime));
+    }
+
+    private MicronautJdbcLockProvider(MicronautJdbcStorageAccessor storageAccessor) {
+        super(storageAccessor);
+        this.storageAccessor = storageAccessor;
+    }
+
+    @Override
+    public int removeExpiredLockRecords(@NonNull Instant lockUntilBefore, int limit) {
+        return storageAccessor.removeExpiredLockRecords(lockUntilBefore, limit);
     }
 }
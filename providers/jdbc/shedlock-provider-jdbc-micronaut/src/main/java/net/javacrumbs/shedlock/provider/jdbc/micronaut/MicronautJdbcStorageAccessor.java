@@ -18,6 +18,8 @@ package net.javacrumbs.shedlock.provider.jdbc.micronaut;
 import io.micronaut.transaction.TransactionDefinition;
 import io.micronaut.transaction.TransactionOperations;
 import net.javacrumbs.shedlock.provider.jdbc.internal.AbstractJdbcStorageAccessor;
+import net.javacrumbs.shedlock.support.LockException;
+import net.javacrumbs.shedlock.support.LockTableResolver;
 import net.javacrumbs.shedlock.support.annotation.NonNull;
 
 import java.sql.Connection;
@@ -32,8 +34,8 @@ class MicronautJdbcStorageAccessor extends AbstractJdbcStorageAccessor {
 
     private final TransactionDefinition.Propagation propagation = TransactionDefinition.Propagation.REQUIRES_NEW;
 
-    MicronautJdbcStorageAccessor(@NonNull TransactionOperations<Connection> transactionManager, @NonNull String tableName) {
-        super(tableName);
+    MicronautJdbcStorageAccessor(@NonNull TransactionOperations<Connection> transactionManager, @NonNull String tableName, boolean useDbTime) {
+        super(LockTableResolver.singleTable(tableName), useDbTime);
         this.transactionManager = requireNonNull(transactionManager, "transactionManager can not be null");
     }
 
@@ -47,4 +49,15 @@ class MicronautJdbcStorageAccessor extends AbstractJdbcStorageAccessor {
             }
         });
     }
+
+    @Override
+    protected String getDatabaseProductName() {
+        return transactionManager.execute(TransactionDefinition.of(propagation), status -> {
+            try {
+                return status.getConnection().getMetaData().getDatabaseProductName();
+            } catch (SQLException e) {
+                throw new LockException("Can not read database product name", e);
+            }
+        });
+    }
 }
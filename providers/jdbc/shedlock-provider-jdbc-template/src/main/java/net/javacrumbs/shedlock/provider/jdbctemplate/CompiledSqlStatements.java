@@ -0,0 +1,141 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.provider.jdbctemplate;
+
+import net.javacrumbs.shedlock.core.LockConfiguration;
+import net.javacrumbs.shedlock.support.annotation.Nullable;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.time.Instant;
+
+/**
+ * Statements of {@link SqlStatementsSource} built and parsed only once, so lock operations do not have to
+ * concatenate the SQL and parse named parameters on each call.
+ */
+class CompiledSqlStatements {
+    private final SqlStatementsSource source;
+    private final CompiledSql insertStatement;
+    @Nullable
+    private final CompiledSql upsertStatement;
+    private final CompiledSql updateStatement;
+    private final CompiledSql extendStatement;
+    private final CompiledSql handOverStatement;
+    private final CompiledSql unlockStatement;
+    private final CompiledSql lockedUntilStatement;
+
+    CompiledSqlStatements(SqlStatementsSource source) {
+        this.source = source;
+        this.insertStatement = compile(source.getInsertStatement());
+        String upsert = source.getUpsertStatement();
+        this.upsertStatement = upsert != null ? compile(upsert) : null;
+        this.updateStatement = compile(source.getUpdateStatement());
+        this.extendStatement = compile(source.getExtendStatement());
+        this.handOverStatement = compile(source.getHandOverStatement());
+        this.unlockStatement = compile(source.getUnlockStatement());
+        this.lockedUntilStatement = compile(source.getLockedUntilStatement());
+    }
+
+    private CompiledSql compile(String sql) {
+        return new CompiledSql(source, sql);
+    }
+
+    SqlStatementsSource getSource() {
+        return source;
+    }
+
+    CompiledSql getInsertStatement() {
+        return insertStatement;
+    }
+
+    @Nullable
+    CompiledSql getUpsertStatement() {
+        return upsertStatement;
+    }
+
+    CompiledSql getUpdateStatement() {
+        return updateStatement;
+    }
+
+    CompiledSql getExtendStatement() {
+        return extendStatement;
+    }
+
+    CompiledSql getHandOverStatement() {
+        return handOverStatement;
+    }
+
+    CompiledSql getUnlockStatement() {
+        return unlockStatement;
+    }
+
+    CompiledSql getLockedUntilStatement() {
+        return lockedUntilStatement;
+    }
+
+    static final class CompiledSql {
+        private final SqlStatementsSource source;
+        private final ParsedSql parsedSql;
+        private final String sql;
+
+        private CompiledSql(SqlStatementsSource source, String namedSql) {
+            this.source = source;
+            this.parsedSql = NamedParameterUtils.parseSqlStatement(namedSql);
+            this.sql = NamedParameterUtils.substituteNamedParameters(parsedSql, null);
+        }
+
+        /**
+         * @return SQL with positional parameters
+         */
+        String getSql() {
+            return sql;
+        }
+
+        /**
+         * @return values of positional parameters
+         */
+        Object[] values(LockConfiguration lockConfiguration, Instant currentTime) {
+            return NamedParameterUtils.buildValueArray(parsedSql, new LockParameterSource(source, lockConfiguration, currentTime), null);
+        }
+    }
+
+    /**
+     * Resolves parameter values directly from the lock configuration, without building a Map.
+     */
+    private static final class LockParameterSource implements SqlParameterSource {
+        private final SqlStatementsSource source;
+        private final LockConfiguration lockConfiguration;
+        private final Instant currentTime;
+
+        private LockParameterSource(SqlStatementsSource source, LockConfiguration lockConfiguration, Instant currentTime) {
+            this.source = source;
+            this.lockConfiguration = lockConfiguration;
+            this.currentTime = currentTime;
+        }
+
+        @Override
+        public boolean hasValue(String paramName) {
+            return true;
+        }
+
+        @Override
+        @Nullable
+        public Object getValue(String paramName) {
+            return source.paramValue(paramName, lockConfiguration, currentTime);
+        }
+    }
+}
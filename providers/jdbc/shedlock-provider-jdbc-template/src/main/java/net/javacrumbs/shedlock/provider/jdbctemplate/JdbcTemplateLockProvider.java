@@ -15,6 +15,8 @@
  */
 package net.javacrumbs.shedlock.provider.jdbctemplate;
 
+import net.javacrumbs.shedlock.support.ExpiredLockRecordRemover;
+import net.javacrumbs.shedlock.support.LockTableResolver;
 import net.javacrumbs.shedlock.support.StorageBasedLockProvider;
 import net.javacrumbs.shedlock.support.Utils;
 import net.javacrumbs.shedlock.support.annotation.NonNull;
@@ -23,6 +25,7 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.transaction.PlatformTransactionManager;
 
 import javax.sql.DataSource;
+import java.time.Instant;
 import java.util.TimeZone;
 
 import static java.util.Objects.requireNonNull;
@@ -49,10 +52,12 @@ import static java.util.Objects.requireNonNull;
  * </li>
  * </ol>
  */
-public class JdbcTemplateLockProvider extends StorageBasedLockProvider {
+public class JdbcTemplateLockProvider extends StorageBasedLockProvider implements ExpiredLockRecordRemover {
 
     private static final String DEFAULT_TABLE_NAME = "shedlock";
 
+    private final JdbcTemplateStorageAccessor storageAccessor;
+
     public JdbcTemplateLockProvider(@NonNull JdbcTemplate jdbcTemplate) {
         this(jdbcTemplate, (PlatformTransactionManager) null);
     }
@@ -83,7 +88,17 @@ public class JdbcTemplateLockProvider extends StorageBasedLockProvider {
     }
 
     public JdbcTemplateLockProvider(@NonNull Configuration configuration) {
-        super(new JdbcTemplateStorageAccessor(configuration));
+        this(new JdbcTemplateStorageAccessor(configuration));
+    }
+
+    private JdbcTemplateLockProvider(JdbcTemplateStorageAccessor storageAccessor) {
+        super(storageAccessor);
+        this.storageAccessor = storageAccessor;
+    }
+
+    @Override
+    public int removeExpiredLockRecords(@NonNull Instant lockUntilBefore, int limit) {
+        return storageAccessor.removeExpiredLockRecords(lockUntilBefore, limit);
     }
 
     public static final class Configuration {
@@ -95,6 +110,7 @@ public class JdbcTemplateLockProvider extends StorageBasedLockProvider {
         private final String lockedByValue;
         private final boolean useDbTime;
         private final Integer isolationLevel;
+        private final LockTableResolver lockTableResolver;
 
         Configuration(
             @NonNull JdbcTemplate jdbcTemplate,
@@ -104,7 +120,8 @@ public class JdbcTemplateLockProvider extends StorageBasedLockProvider {
             @NonNull ColumnNames columnNames,
             @NonNull String lockedByValue,
             boolean useDbTime,
-            @Nullable Integer isolationLevel) {
+            @Nullable Integer isolationLevel,
+            @Nullable LockTableResolver lockTableResolver) {
 
             this.jdbcTemplate = requireNonNull(jdbcTemplate, "jdbcTemplate can not be null");
             this.transactionManager = transactionManager;
@@ -117,6 +134,14 @@ public class JdbcTemplateLockProvider extends StorageBasedLockProvider {
                 throw new IllegalArgumentException("Can not set both useDbTime and timeZone");
             }
             this.useDbTime = useDbTime;
+            this.lockTableResolver = lockTableResolver != null ? lockTableResolver : LockTableResolver.singleTable(tableName);
+        }
+
+        /**
+         * @return the same configuration with all the locks in the given table
+         */
+        Configuration forTable(String tableName) {
+            return new Configuration(jdbcTemplate, transactionManager, tableName, timeZone, columnNames, lockedByValue, useDbTime, isolationLevel, null);
         }
 
         public JdbcTemplate getJdbcTemplate() {
@@ -151,6 +176,10 @@ public class JdbcTemplateLockProvider extends StorageBasedLockProvider {
             return isolationLevel;
         }
 
+        public LockTableResolver getLockTableResolver() {
+            return lockTableResolver;
+        }
+
         public static Configuration.Builder builder() {
             return new Configuration.Builder();
         }
@@ -165,6 +194,7 @@ public class JdbcTemplateLockProvider extends StorageBasedLockProvider {
             private ColumnNames columnNames = new ColumnNames("name", "lock_until", "locked_at", "locked_by");
             private boolean useDbTime = false;
             private Integer isolationLevel;
+            private LockTableResolver lockTableResolver;
 
             public Builder withJdbcTemplate(@NonNull JdbcTemplate jdbcTemplate) {
                 this.jdbcTemplate = jdbcTemplate;
@@ -213,8 +243,17 @@ public class JdbcTemplateLockProvider extends StorageBasedLockProvider {
                 return this;
             }
 
+            /**
+             * Spreads the lock records across several tables, see {@link LockTableResolver#hashSharded(String, int)}.
+             * If set, tableName is ignored.
+             */
+            public Builder withLockTableResolver(@NonNull LockTableResolver lockTableResolver) {
+                this.lockTableResolver = lockTableResolver;
+                return this;
+            }
+
             public JdbcTemplateLockProvider.Configuration build() {
-                return new JdbcTemplateLockProvider.Configuration(jdbcTemplate, transactionManager, tableName, timeZone, columnNames, lockedByValue, useDbTime, isolationLevel);
+                return new JdbcTemplateLockProvider.Configuration(jdbcTemplate, transactionManager, tableName, timeZone, columnNames, lockedByValue, useDbTime, isolationLevel, lockTableResolver);
             }
         }
 
@@ -15,16 +15,22 @@
  */
 package net.javacrumbs.shedlock.provider.jdbctemplate;
 
+import net.javacrumbs.shedlock.core.ClockProvider;
 import net.javacrumbs.shedlock.core.LockConfiguration;
+import net.javacrumbs.shedlock.provider.jdbctemplate.CompiledSqlStatements.CompiledSql;
 import net.javacrumbs.shedlock.provider.jdbctemplate.JdbcTemplateLockProvider.Configuration;
 import net.javacrumbs.shedlock.support.AbstractStorageAccessor;
+import net.javacrumbs.shedlock.support.LockException;
 import net.javacrumbs.shedlock.support.annotation.NonNull;
 import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.BadSqlGrammarException;
 import org.springframework.jdbc.UncategorizedSQLException;
-import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapperResultSetExtractor;
 import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.TransactionDefinition;
@@ -32,7 +38,21 @@ import org.springframework.transaction.TransactionException;
 import org.springframework.transaction.TransactionSystemException;
 import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 import static java.util.Objects.requireNonNull;
 
@@ -40,14 +60,16 @@ import static java.util.Objects.requireNonNull;
  * Spring JdbcTemplate based implementation usable in JTA environment
  */
 class JdbcTemplateStorageAccessor extends AbstractStorageAccessor {
-    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final JdbcTemplate jdbcTemplate;
     private final TransactionTemplate transactionTemplate;
     private final Configuration configuration;
-    private SqlStatementsSource sqlStatementsSource;
+    private final Map<String, CompiledSqlStatements> sqlStatements = new ConcurrentHashMap<>();
+    private final Object sqlStatementsMonitor = new Object();
+    private volatile SqlStatementsSource.Factory sqlStatementsFactory;
 
     JdbcTemplateStorageAccessor(@NonNull Configuration configuration) {
         requireNonNull(configuration, "configuration can not be null");
-        this.jdbcTemplate = new NamedParameterJdbcTemplate(configuration.getJdbcTemplate());
+        this.jdbcTemplate = configuration.getJdbcTemplate();
         this.configuration = configuration;
         PlatformTransactionManager transactionManager = configuration.getTransactionManager() != null ?
             configuration.getTransactionManager() :
@@ -64,8 +86,7 @@ class JdbcTemplateStorageAccessor extends AbstractStorageAccessor {
     @Override
     public boolean insertRecord(@NonNull LockConfiguration lockConfiguration) {
         try {
-            String sql = sqlStatementsSource().getInsertStatement();
-            return execute(sql, lockConfiguration);
+            return execute(sqlStatements(lockConfiguration).getInsertStatement(), lockConfiguration);
         } catch (DuplicateKeyException | ConcurrencyFailureException e) {
             return false;
         } catch (DataIntegrityViolationException | BadSqlGrammarException | UncategorizedSQLException | TransactionSystemException e) {
@@ -74,11 +95,27 @@ class JdbcTemplateStorageAccessor extends AbstractStorageAccessor {
         }
     }
 
+    @Override
+    public boolean supportsUpsert() {
+        // depends only on the database, not on the table
+        return sqlStatementsFactory().supportsUpsert();
+    }
+
+    @Override
+    public boolean upsertRecord(@NonNull LockConfiguration lockConfiguration) {
+        try {
+            return execute(requireNonNull(sqlStatements(lockConfiguration).getUpsertStatement()), lockConfiguration);
+        } catch (DuplicateKeyException | ConcurrencyFailureException e) {
+            // somebody else has inserted the record concurrently
+            return false;
+        }
+        // other exceptions are propagated, the record may not exist (DB not ready yet), so it must not be cached
+    }
+
     @Override
     public boolean updateRecord(@NonNull LockConfiguration lockConfiguration) {
-        String sql = sqlStatementsSource().getUpdateStatement();
         try {
-            return execute(sql, lockConfiguration);
+            return execute(sqlStatements(lockConfiguration).getUpdateStatement(), lockConfiguration);
         } catch (ConcurrencyFailureException e) {
             return false;
         } catch (DataIntegrityViolationException | TransactionSystemException e) {
@@ -87,12 +124,60 @@ class JdbcTemplateStorageAccessor extends AbstractStorageAccessor {
         }
     }
 
+    /**
+     * Reads lock_until of the record if the update fails. Not supported with DB time, since lock_until
+     * would not be comparable with client time.
+     */
     @Override
-    public boolean extend(@NonNull LockConfiguration lockConfiguration) {
-        String sql = sqlStatementsSource().getExtendStatement();
+    public UpdateResult updateRecordWithResult(@NonNull LockConfiguration lockConfiguration) {
+        if (updateRecord(lockConfiguration)) {
+            return UpdateResult.updated();
+        }
+        if (configuration.getUseDbTime()) {
+            return UpdateResult.notUpdated(null);
+        }
+        try {
+            CompiledSql sql = sqlStatements(lockConfiguration).getLockedUntilStatement();
+            List<Instant> lockedUntil = jdbcTemplate.query(sql.getSql(), (rs, rowNum) -> {
+                TimeZone timeZone = configuration.getTimeZone();
+                Timestamp timestamp = timeZone == null ? rs.getTimestamp(1) : rs.getTimestamp(1, Calendar.getInstance(timeZone));
+                return timestamp.toInstant();
+            }, sql.values(lockConfiguration, ClockProvider.now()));
+            return UpdateResult.notUpdated(lockedUntil.isEmpty() ? null : lockedUntil.get(0));
+        } catch (DataAccessException e) {
+            logger.debug("Can not read lock_until", e);
+            return UpdateResult.notUpdated(null);
+        }
+    }
+
+    @Override
+    public Set<String> updateRecords(@NonNull Collection<LockConfiguration> lockConfigurations) {
+        try {
+            return executeBatch(CompiledSqlStatements::getUpdateStatement, lockConfigurations);
+        } catch (ConcurrencyFailureException e) {
+            return Set.of();
+        } catch (DataIntegrityViolationException | TransactionSystemException e) {
+            logger.error("Unexpected exception", e);
+            return Set.of();
+        }
+    }
 
+    @Override
+    public boolean extend(@NonNull LockConfiguration lockConfiguration) {
         logger.debug("Extending lock={} until={}", lockConfiguration.getName(), lockConfiguration.getLockAtMostUntil());
-        return execute(sql, lockConfiguration);
+        return execute(sqlStatements(lockConfiguration).getExtendStatement(), lockConfiguration);
+    }
+
+    @Override
+    public Set<String> extendRecords(@NonNull Collection<LockConfiguration> lockConfigurations) {
+        logger.debug("Extending {} locks", lockConfigurations.size());
+        return executeBatch(CompiledSqlStatements::getExtendStatement, lockConfigurations);
+    }
+
+    @Override
+    public boolean handOver(@NonNull LockConfiguration lockConfiguration) {
+        logger.debug("Handing over lock={} until={}", lockConfiguration.getName(), lockConfiguration.getLockAtMostUntil());
+        return execute(sqlStatements(lockConfiguration).getHandOverStatement(), lockConfiguration);
     }
 
     @Override
@@ -106,26 +191,126 @@ class JdbcTemplateStorageAccessor extends AbstractStorageAccessor {
     }
 
     private void doUnlock(LockConfiguration lockConfiguration) {
-        String sql = sqlStatementsSource().getUnlockStatement();
-        execute(sql, lockConfiguration);
+        execute(sqlStatements(lockConfiguration).getUnlockStatement(), lockConfiguration);
     }
 
+    /**
+     * Executes one batch per table, all of them in one transaction.
+     */
     @SuppressWarnings("ConstantConditions")
-    private boolean execute(String sql, LockConfiguration lockConfiguration) throws TransactionException {
-        return transactionTemplate.execute(status -> jdbcTemplate.update(sql, params(lockConfiguration)) > 0);
+    private Set<String> executeBatch(Function<CompiledSqlStatements, CompiledSql> statement, Collection<LockConfiguration> lockConfigurations) {
+        Map<CompiledSqlStatements, List<LockConfiguration>> byTable = new LinkedHashMap<>();
+        for (LockConfiguration lockConfiguration : lockConfigurations) {
+            byTable.computeIfAbsent(sqlStatements(lockConfiguration), k -> new ArrayList<>()).add(lockConfiguration);
+        }
+        Instant now = ClockProvider.now();
+        return transactionTemplate.execute(status -> {
+            Set<String> updated = new HashSet<>();
+            byTable.forEach((statements, configurations) -> {
+                CompiledSql sql = statement.apply(statements);
+                List<Object[]> batchValues = new ArrayList<>(configurations.size());
+                for (LockConfiguration lockConfiguration : configurations) {
+                    batchValues.add(sql.values(lockConfiguration, now));
+                }
+                int[] updatedRows = jdbcTemplate.batchUpdate(sql.getSql(), batchValues);
+                for (int i = 0; i < updatedRows.length; i++) {
+                    if (updatedRows[i] == Statement.SUCCESS_NO_INFO) {
+                        throw new LockException("JDBC driver does not report update counts of batch statements, can not use batch");
+                    }
+                    if (updatedRows[i] > 0) {
+                        updated.add(configurations.get(i).getName());
+                    }
+                }
+            });
+            return updated;
+        });
+    }
+
+    @SuppressWarnings("ConstantConditions")
+    private boolean execute(CompiledSql sql, LockConfiguration lockConfiguration) throws TransactionException {
+        Object[] values = sql.values(lockConfiguration, ClockProvider.now());
+        return transactionTemplate.execute(status -> jdbcTemplate.update(sql.getSql(), values) > 0);
     }
 
-    @NonNull
-    private Map<String, Object> params(@NonNull LockConfiguration lockConfiguration) {
-        return sqlStatementsSource().params(lockConfiguration);
+    /**
+     * Deletes records with lock_until older than lockUntilBefore. Names of the records are selected first, the records
+     * are then deleted in one batch per table, lock_until is checked again, so we do not delete records locked in the meantime.
+     *
+     * @return number of deleted records
+     */
+    int removeExpiredLockRecords(@NonNull Instant lockUntilBefore, int limit) {
+        int deleted = 0;
+        for (String tableName : configuration.getLockTableResolver().getTableNames()) {
+            if (deleted >= limit) {
+                break;
+            }
+            deleted += removeExpiredLockRecords(sqlStatements(tableName).getSource(), lockUntilBefore, limit - deleted);
+        }
+        return deleted;
+    }
+
+    @SuppressWarnings("ConstantConditions")
+    private int removeExpiredLockRecords(SqlStatementsSource source, Instant lockUntilBefore, int limit) {
+        Object lockUntil = source.lockUntilBeforeValue(lockUntilBefore);
+        List<String> names = jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(source.getExpiredNamesStatement());
+                statement.setMaxRows(limit);
+                return statement;
+            },
+            new ArgumentPreparedStatementSetter(new Object[]{lockUntil}),
+            new RowMapperResultSetExtractor<>((rs, rowNum) -> rs.getString(1))
+        );
+        if (names.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> batchValues = new ArrayList<>(names.size());
+        for (String name : names) {
+            batchValues.add(new Object[]{name, lockUntil});
+        }
+        int[] deletedRows = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(source.getDeleteExpiredStatement(), batchValues));
+        int deleted = 0;
+        for (int rows : deletedRows) {
+            // if the driver does not report the count, we assume the row has been deleted
+            deleted += rows == Statement.SUCCESS_NO_INFO ? 1 : rows;
+        }
+        return deleted;
+    }
+
+    private CompiledSqlStatements sqlStatements(LockConfiguration lockConfiguration) {
+        return sqlStatements(configuration.getLockTableResolver().resolveTableName(lockConfiguration.getName()));
+    }
+
+    /**
+     * Statements are resolved only once per table, the lock is taken only until then.
+     */
+    private CompiledSqlStatements sqlStatements(String tableName) {
+        CompiledSqlStatements result = sqlStatements.get(tableName);
+        if (result == null) {
+            synchronized (sqlStatementsMonitor) {
+                result = sqlStatements.get(tableName);
+                if (result == null) {
+                    result = new CompiledSqlStatements(sqlStatementsFactory().create(configuration.forTable(tableName)));
+                    sqlStatements.put(tableName, result);
+                }
+            }
+        }
+        return result;
     }
 
-    private SqlStatementsSource sqlStatementsSource() {
-        synchronized (configuration) {
-            if (sqlStatementsSource == null) {
-                sqlStatementsSource = SqlStatementsSource.create(configuration);
+    /**
+     * The database is detected on first use, not in the constructor, it does not have to be available yet.
+     */
+    private SqlStatementsSource.Factory sqlStatementsFactory() {
+        SqlStatementsSource.Factory result = sqlStatementsFactory;
+        if (result == null) {
+            synchronized (sqlStatementsMonitor) {
+                result = sqlStatementsFactory;
+                if (result == null) {
+                    result = SqlStatementsSource.factory(configuration);
+                    sqlStatementsFactory = result;
+                }
             }
-            return sqlStatementsSource;
         }
+        return result;
     }
 }
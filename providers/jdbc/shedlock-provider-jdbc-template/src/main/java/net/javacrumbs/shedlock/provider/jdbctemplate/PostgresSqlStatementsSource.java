@@ -15,16 +15,25 @@
  */
 package net.javacrumbs.shedlock.provider.jdbctemplate;
 
+import net.javacrumbs.shedlock.provider.jdbc.internal.ServerTimeStatements.Dialect;
+import net.javacrumbs.shedlock.support.annotation.Nullable;
+
 class PostgresSqlStatementsSource extends SqlStatementsSource {
-    PostgresSqlStatementsSource(JdbcTemplateLockProvider.Configuration configuration) {
-        super(configuration);
+    PostgresSqlStatementsSource(JdbcTemplateLockProvider.Configuration configuration, @Nullable Dialect dialect) {
+        super(configuration, null, dialect);
     }
 
     @Override
     String getInsertStatement() {
         return super.getInsertStatement() + " ON CONFLICT (" + name() + ") DO UPDATE " +
-            "SET " + lockUntil() + " = :lockUntil, " + lockedAt() + " = :now, " + lockedBy() + " = :lockedBy " +
-            "WHERE " + tableName() + "." + lockUntil() + " <= :now";
+            "SET " + lockUntil() + " = " + lockUntilValue() + ", " + lockedAt() + " = " + nowValue() + ", " + lockedBy() + " = :lockedBy " +
+            "WHERE " + tableName() + "." + lockUntil() + " <= " + nowValue();
+    }
+
+    @Override
+    String getUpsertStatement() {
+        // insert statement already updates the record if it is not locked
+        return getInsertStatement();
     }
 
 }
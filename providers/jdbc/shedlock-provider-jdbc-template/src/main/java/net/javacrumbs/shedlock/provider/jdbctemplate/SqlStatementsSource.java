@@ -15,73 +15,103 @@
  */
 package net.javacrumbs.shedlock.provider.jdbctemplate;
 
-import net.javacrumbs.shedlock.core.ClockProvider;
 import net.javacrumbs.shedlock.core.LockConfiguration;
+import net.javacrumbs.shedlock.provider.jdbc.internal.ServerTimeStatements;
+import net.javacrumbs.shedlock.provider.jdbc.internal.ServerTimeStatements.Dialect;
+import net.javacrumbs.shedlock.provider.jdbc.internal.ServerTimeStatements.Parameter;
 import net.javacrumbs.shedlock.provider.jdbctemplate.JdbcTemplateLockProvider.Configuration;
 import net.javacrumbs.shedlock.support.annotation.NonNull;
+import net.javacrumbs.shedlock.support.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.SqlTypeValue;
 
 import java.sql.Timestamp;
 import java.time.Instant;
 import java.util.Calendar;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.TimeZone;
 
 class SqlStatementsSource {
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
     protected final Configuration configuration;
+    @Nullable
+    private final UpsertSyntax upsertSyntax;
+    @Nullable
+    private final ThreadLocal<Calendar> calendar;
+    /**
+     * Statements computing the time in the database, null if the time of the client is used
+     */
+    @Nullable
+    private final ServerTimeStatements serverTime;
 
     private static final Logger logger = LoggerFactory.getLogger(SqlStatementsSource.class);
 
-    SqlStatementsSource(Configuration configuration) {
+    SqlStatementsSource(Configuration configuration, @Nullable UpsertSyntax upsertSyntax, @Nullable Dialect dialect) {
         this.configuration = configuration;
+        this.upsertSyntax = upsertSyntax;
+        TimeZone timeZone = configuration.getTimeZone();
+        this.calendar = timeZone != null ? ThreadLocal.withInitial(() -> Calendar.getInstance(timeZone)) : null;
+        this.serverTime = dialect != null ? new ServerTimeStatements(dialect, tableName(), name(), lockUntil(), lockedAt(), lockedBy(), (index, name) -> ":" + name) : null;
     }
 
-    static SqlStatementsSource create(Configuration configuration) {
+    /**
+     * Detects the database, it is done only once, statements of the tables are then created by the returned factory.
+     */
+    static Factory factory(Configuration configuration) {
         String databaseProductName = getDatabaseProductName(configuration);
-
+        Dialect dialect = null;
         if (configuration.getUseDbTime()) {
-            switch (databaseProductName) {
-                case "PostgreSQL":
-                    logger.debug("Using PostgresSqlServerTimeStatementsSource");
-                    return new PostgresSqlServerTimeStatementsSource(configuration);
-                case "Microsoft SQL Server":
-                    logger.debug("Using MsSqlServerTimeStatementsSource");
-                    return new MsSqlServerTimeStatementsSource(configuration);
-                case "Oracle":
-                    logger.debug("Using OracleServerTimeStatementsSource");
-                    return new OracleServerTimeStatementsSource(configuration);
-                case "MySQL":
-                    logger.debug("Using MySqlServerTimeStatementsSource");
-                    return new MySqlServerTimeStatementsSource(configuration);
-                case "MariaDB":
-                    logger.debug("Using MySqlServerTimeStatementsSource (for MariaDB)");
-                    return new MySqlServerTimeStatementsSource(configuration);
-                case "HSQL Database Engine":
-                    logger.debug("Using HsqlServerTimeStatementsSource");
-                    return new HsqlServerTimeStatementsSource(configuration);
-                case "H2":
-                    logger.debug("Using H2ServerTimeStatementsSource");
-                    return new H2ServerTimeStatementsSource(configuration);
-                default:
-                    if (databaseProductName.startsWith("DB2")) {
-                        logger.debug("Using Db2ServerTimeStatementsSource");
-                        return new Db2ServerTimeStatementsSource(configuration);
-                    }
-                    throw new UnsupportedOperationException("DB time is not supported for '" + databaseProductName + "'");
-            }
+            dialect = Dialect.fromDatabaseProductName(databaseProductName);
+            logger.debug("Using DB time of {}", dialect);
+        }
+        if ("PostgreSQL".equals(databaseProductName)) {
+            logger.debug("Using PostgresSqlStatementsSource");
+            return new Factory(true, null, dialect);
         } else {
-            if ("PostgreSQL".equals(databaseProductName)) {
-                logger.debug("Using PostgresSqlServerTimeStatementsSource");
-                return new PostgresSqlStatementsSource(configuration);
-            } else {
-                logger.debug("Using SqlStatementsSource");
-                return new SqlStatementsSource(configuration);
+            logger.debug("Using SqlStatementsSource");
+            return new Factory(false, upsertSyntax(configuration, databaseProductName), dialect);
+        }
+    }
+
+    @Nullable
+    private static UpsertSyntax upsertSyntax(Configuration configuration, String databaseProductName) {
+        switch (databaseProductName) {
+            case "Microsoft SQL Server":
+                return UpsertSyntax.MS_SQL_MERGE;
+            case "Oracle":
+                return UpsertSyntax.ORACLE_MERGE;
+            case "MySQL":
+            case "MariaDB":
+                return mySqlUpsertSyntax(configuration);
+            case "HSQL Database Engine":
+            case "H2":
+                return UpsertSyntax.STANDARD_MERGE;
+            default:
+                if (databaseProductName.startsWith("DB2")) {
+                    return UpsertSyntax.STANDARD_MERGE;
+                }
+                return null;
+        }
+    }
+
+    /**
+     * By default, MySQL drivers report rows matched by ON DUPLICATE KEY UPDATE as affected even if they have not been
+     * changed, so we would not be able to tell if we got the lock. Upsert is used only if the driver reports changed rows.
+     */
+    @Nullable
+    private static UpsertSyntax mySqlUpsertSyntax(Configuration configuration) {
+        try {
+            String url = configuration.getJdbcTemplate().execute((ConnectionCallback<String>) connection -> connection.getMetaData().getURL());
+            if (url != null && url.toLowerCase().contains("useaffectedrows=true")) {
+                return UpsertSyntax.MYSQL_ON_DUPLICATE_KEY;
             }
+        } catch (Exception e) {
+            logger.debug("Can not determine database URL " + e.getMessage());
         }
+        logger.debug("Not using upsert for MySQL, useAffectedRows=true is not set");
+        return null;
     }
 
     private static String getDatabaseProductName(Configuration configuration) {
@@ -93,48 +123,178 @@ class SqlStatementsSource {
         }
     }
 
+    /**
+     * Value of a named parameter used in the statements. Called for each parameter of each executed statement,
+     * so it should not allocate more than necessary.
+     *
+     * @param currentTime the same for all parameters of one statement execution
+     */
+    @Nullable
+    Object paramValue(String paramName, LockConfiguration lockConfiguration, Instant currentTime) {
+        switch (paramName) {
+            case "name":
+                return lockConfiguration.getName();
+            case "lockedBy":
+                return configuration.getLockedByValue();
+            case "lockUntil":
+                return timestamp(lockConfiguration.getLockAtMostUntil());
+            case "now":
+                return timestamp(currentTime);
+            case "unlockTime":
+                return timestamp(lockConfiguration.getUnlockTime());
+            case "lockAtMostFor":
+                return serverTimeValue(Parameter.LOCK_AT_MOST_FOR, lockConfiguration);
+            case "lockAtLeastFor":
+                return serverTimeValue(Parameter.LOCK_AT_LEAST_FOR, lockConfiguration);
+            default:
+                throw new IllegalArgumentException("Unknown parameter '" + paramName + "'");
+        }
+    }
+
+    private Object serverTimeValue(Parameter parameter, LockConfiguration lockConfiguration) {
+        if (serverTime == null) {
+            throw new IllegalArgumentException("Parameter '" + parameter.getParameterName() + "' is used only with DB time");
+        }
+        return serverTime.value(parameter, lockConfiguration, configuration.getLockedByValue());
+    }
+
+    /**
+     * @return value of lock_until parameter of {@link #getExpiredNamesStatement()} and {@link #getDeleteExpiredStatement()}
+     */
     @NonNull
-    Map<String, Object> params(@NonNull LockConfiguration lockConfiguration) {
-        Map<String, Object> params = new HashMap<>();
-        params.put("name", lockConfiguration.getName());
-        params.put("lockUntil", timestamp(lockConfiguration.getLockAtMostUntil()));
-        params.put("now", timestamp(ClockProvider.now()));
-        params.put("lockedBy", configuration.getLockedByValue());
-        params.put("unlockTime", timestamp(lockConfiguration.getUnlockTime()));
-        return params;
+    Object lockUntilBeforeValue(Instant lockUntilBefore) {
+        if (serverTime != null) {
+            Timestamp timestamp = Timestamp.from(lockUntilBefore);
+            if (serverTime.getDialect().usesUtc()) {
+                return (SqlTypeValue) (ps, paramIndex, sqlType, typeName) -> ps.setTimestamp(paramIndex, timestamp, Calendar.getInstance(UTC));
+            }
+            // CURRENT_TIMESTAMP is stored in the session time zone
+            return timestamp;
+        }
+        return timestamp(lockUntilBefore);
     }
 
     @NonNull
     private Object timestamp(Instant time) {
-        TimeZone timeZone = configuration.getTimeZone();
-        if (timeZone == null) {
-            return Timestamp.from(time);
+        Timestamp timestamp = Timestamp.from(time);
+        if (calendar == null) {
+            return timestamp;
         } else {
-            Calendar calendar = Calendar.getInstance();
-            calendar.setTime(Date.from(time));
-            calendar.setTimeZone(timeZone);
-            return calendar;
+            // calendar is used by the driver only to get the time zone, we can reuse it within the thread
+            return (SqlTypeValue) (ps, paramIndex, sqlType, typeName) -> ps.setTimestamp(paramIndex, timestamp, calendar.get());
         }
     }
 
 
     String getInsertStatement() {
+        if (serverTime != null) {
+            return serverTime.getInsertStatement().getSql();
+        }
         return "INSERT INTO " + tableName() + "(" + name() + ", " + lockUntil() + ", " + lockedAt() + ", " + lockedBy() + ") VALUES(:name, :lockUntil, :now, :lockedBy)";
     }
 
 
+    /**
+     * @return statement that inserts the lock record or updates it if it is not locked, null if not supported
+     */
+    @Nullable
+    String getUpsertStatement() {
+        if (upsertSyntax == null) {
+            return null;
+        }
+        String table = tableName();
+        String values = "(" + name() + ", " + lockUntil() + ", " + lockedAt() + ", " + lockedBy() + ") VALUES(:name, " + lockUntilValue() + ", " + nowValue() + ", :lockedBy)";
+        String notLocked = table + "." + lockUntil() + " <= " + nowValue();
+        String set = " SET " + lockUntil() + " = " + lockUntilValue() + ", " + lockedAt() + " = " + nowValue() + ", " + lockedBy() + " = :lockedBy";
+        switch (upsertSyntax) {
+            case STANDARD_MERGE:
+                return "MERGE INTO " + table + " USING (VALUES(1)) ON (" + table + "." + name() + " = :name)" +
+                    " WHEN MATCHED AND " + notLocked + " THEN UPDATE" + set +
+                    " WHEN NOT MATCHED THEN INSERT " + values;
+            case MS_SQL_MERGE:
+                return "MERGE INTO " + table + " WITH (HOLDLOCK) USING (VALUES(1)) AS s(x) ON (" + table + "." + name() + " = :name)" +
+                    " WHEN MATCHED AND " + notLocked + " THEN UPDATE" + set +
+                    " WHEN NOT MATCHED THEN INSERT " + values + ";";
+            case ORACLE_MERGE:
+                return "MERGE INTO " + table + " USING dual ON (" + table + "." + name() + " = :name)" +
+                    " WHEN MATCHED THEN UPDATE" + set + " WHERE " + notLocked +
+                    " WHEN NOT MATCHED THEN INSERT " + values;
+            case MYSQL_ON_DUPLICATE_KEY:
+                // lock_until has to be the last one, the conditions have to see its original value
+                String condition = "IF(" + lockUntil() + " <= " + nowValue() + ", ";
+                return "INSERT INTO " + table + values + " ON DUPLICATE KEY UPDATE " +
+                    lockedBy() + " = " + condition + "VALUES(" + lockedBy() + "), " + lockedBy() + "), " +
+                    lockedAt() + " = " + condition + "VALUES(" + lockedAt() + "), " + lockedAt() + "), " +
+                    lockUntil() + " = " + condition + "VALUES(" + lockUntil() + "), " + lockUntil() + ")";
+            default:
+                throw new IllegalStateException("Unsupported upsert syntax " + upsertSyntax);
+        }
+    }
+
     public String getUpdateStatement() {
+        if (serverTime != null) {
+            return serverTime.getUpdateStatement().getSql();
+        }
         return "UPDATE " + tableName() + " SET " + lockUntil() + " = :lockUntil, " + lockedAt() + " = :now, " + lockedBy() + " = :lockedBy WHERE " + name() + " = :name AND " + lockUntil() + " <= :now";
     }
 
     public String getExtendStatement() {
+        if (serverTime != null) {
+            return serverTime.getExtendStatement().getSql();
+        }
         return "UPDATE " + tableName() + " SET " + lockUntil() + " = :lockUntil WHERE " + name() + " = :name AND " + lockedBy() + " = :lockedBy AND " + lockUntil() + " > :now";
     }
 
+    /**
+     * @return statement converting the lock held by us to a lock of the next execution
+     */
+    String getHandOverStatement() {
+        if (serverTime != null) {
+            return serverTime.getHandOverStatement().getSql();
+        }
+        return "UPDATE " + tableName() + " SET " + lockUntil() + " = " + lockUntilValue() + ", " + lockedAt() + " = " + nowValue() + " WHERE " + name() + " = :name AND " + lockedBy() + " = :lockedBy AND " + lockUntil() + " > " + nowValue();
+    }
+
     public String getUnlockStatement() {
+        if (serverTime != null) {
+            return serverTime.getUnlockStatement().getSql();
+        }
         return "UPDATE " + tableName() + " SET " + lockUntil() + " = :unlockTime WHERE " + name() + " = :name";
     }
 
+    public String getLockedUntilStatement() {
+        return "SELECT " + lockUntil() + " FROM " + tableName() + " WHERE " + name() + " = :name";
+    }
+
+    /**
+     * @return statement selecting names of expired records, uses positional parameter lock_until
+     */
+    String getExpiredNamesStatement() {
+        return "SELECT " + name() + " FROM " + tableName() + " WHERE " + lockUntil() + " < ?";
+    }
+
+    /**
+     * @return statement deleting an expired record, uses positional parameters name and lock_until, so records locked
+     * in the meantime are not deleted
+     */
+    String getDeleteExpiredStatement() {
+        return "DELETE FROM " + tableName() + " WHERE " + name() + " = ? AND " + lockUntil() + " < ?";
+    }
+
+    /**
+     * @return SQL expression of the current time
+     */
+    String nowValue() {
+        return serverTime != null ? serverTime.getNow() : ":now";
+    }
+
+    /**
+     * @return SQL expression of the time until the lock is held
+     */
+    String lockUntilValue() {
+        return serverTime != null ? serverTime.getLockAtMostUntil().getSql() : ":lockUntil";
+    }
+
     String name() {
         return configuration.getColumnNames().getName();
     }
@@ -154,4 +314,45 @@ class SqlStatementsSource {
     String tableName() {
         return configuration.getTableName();
     }
+
+    enum UpsertSyntax {
+        /**
+         * MERGE with WHEN MATCHED AND condition, H2, HSQLDB and DB2
+         */
+        STANDARD_MERGE,
+        /**
+         * MERGE with HOLDLOCK, without it concurrent MERGEs may fail on the primary key
+         */
+        MS_SQL_MERGE,
+        /**
+         * MERGE with the condition in the WHERE clause of the update
+         */
+        ORACLE_MERGE,
+        /**
+         * INSERT ... ON DUPLICATE KEY UPDATE with conditional IF(), MySQL and MariaDB
+         */
+        MYSQL_ON_DUPLICATE_KEY
+    }
+
+    static final class Factory {
+        private final boolean postgres;
+        @Nullable
+        private final UpsertSyntax upsertSyntax;
+        @Nullable
+        private final Dialect dialect;
+
+        private Factory(boolean postgres, @Nullable UpsertSyntax upsertSyntax, @Nullable Dialect dialect) {
+            this.postgres = postgres;
+            this.upsertSyntax = upsertSyntax;
+            this.dialect = dialect;
+        }
+
+        SqlStatementsSource create(Configuration configuration) {
+            return postgres ? new PostgresSqlStatementsSource(configuration, dialect) : new SqlStatementsSource(configuration, upsertSyntax, dialect);
+        }
+
+        boolean supportsUpsert() {
+            return postgres || upsertSyntax != null;
+        }
+    }
 }
@@ -28,6 +28,7 @@ import java.time.Duration;
 import static java.lang.Thread.sleep;
 import static net.javacrumbs.shedlock.core.ClockProvider.now;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 public abstract class AbstractJdbcTemplateStorageAccessorTest {
 
@@ -71,6 +72,34 @@ public abstract class AbstractJdbcTemplateStorageAccessorTest {
         assertThat(testUtils.getLockedUntil(MY_LOCK)).isEqualTo(originalLockValidity);
     }
 
+    @Test
+    void shouldUpsertWhenNotUsingDbTime() throws InterruptedException {
+        shouldUpsert(false);
+    }
+
+    @Test
+    void shouldUpsertWhenUsingDbTime() throws InterruptedException {
+        shouldUpsert(true);
+    }
+
+    private void shouldUpsert(boolean usingDbTime) throws InterruptedException {
+        JdbcTemplateStorageAccessor accessor = getAccessor(usingDbTime);
+        assumeTrue(accessor.supportsUpsert());
+
+        // inserts missing record
+        assertThat(accessor.upsertRecord(lockConfig(MY_LOCK, Duration.ofMillis(2000)))).isEqualTo(true);
+        Timestamp originalLockValidity = testUtils.getLockedUntil(MY_LOCK);
+
+        // does not touch valid lock
+        assertThat(accessor.upsertRecord(lockConfig(MY_LOCK, Duration.ofSeconds(10)))).isEqualTo(false);
+        assertThat(testUtils.getLockedUntil(MY_LOCK)).isEqualTo(originalLockValidity);
+
+        // updates expired lock
+        sleep(2050);
+        assertThat(accessor.upsertRecord(lockConfig(MY_LOCK, Duration.ofSeconds(10)))).isEqualTo(true);
+        assertThat(testUtils.getLockedUntil(MY_LOCK)).isAfter(originalLockValidity);
+    }
+
     @Test
     void shouldNotUpdateOtherLockConfigurationsWhenNotUsingDbTime() throws InterruptedException {
         shouldNotUpdateOtherLockConfigurations(false);
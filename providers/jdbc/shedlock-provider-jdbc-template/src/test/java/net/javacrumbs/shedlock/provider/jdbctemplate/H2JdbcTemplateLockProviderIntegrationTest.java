@@ -15,7 +15,33 @@
  */
 package net.javacrumbs.shedlock.provider.jdbctemplate;
 
+import net.javacrumbs.shedlock.core.LockConfiguration;
+import net.javacrumbs.shedlock.core.SimpleLock;
+import net.javacrumbs.shedlock.support.LockTableDdl;
+import net.javacrumbs.shedlock.support.LockTableResolver;
 import net.javacrumbs.shedlock.test.support.jdbc.H2Config;
+import net.javacrumbs.shedlock.test.support.jdbc.JdbcTestUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TimeZone;
+
+import static java.time.temporal.ChronoUnit.MILLIS;
+import static java.util.stream.Collectors.toList;
+import static net.javacrumbs.shedlock.core.ClockProvider.now;
+import static net.javacrumbs.shedlock.provider.jdbctemplate.JdbcTemplateLockProvider.Configuration.builder;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class H2JdbcTemplateLockProviderIntegrationTest extends AbstractJdbcTemplateLockProviderIntegrationTest {
     private static final H2Config dbConfig = new H2Config();
@@ -23,4 +49,105 @@ public class H2JdbcTemplateLockProviderIntegrationTest extends AbstractJdbcTempl
     public H2JdbcTemplateLockProviderIntegrationTest() {
         super(dbConfig);
     }
+
+    @Nested
+    class TimezoneTest {
+        private final JdbcTestUtils testUtils = new JdbcTestUtils(dbConfig);
+
+        @AfterEach
+        void cleanup() {
+            testUtils.clean();
+        }
+
+        @Test
+        void shouldStoreTimesInConfiguredTimezone() {
+            TimeZone timeZone = TimeZone.getTimeZone("Pacific/Kiritimati");
+            JdbcTemplateLockProvider provider = new JdbcTemplateLockProvider(builder()
+                .withJdbcTemplate(new JdbcTemplate(dbConfig.getDataSource()))
+                .withTimeZone(timeZone)
+                .build());
+
+            Instant createdAt = now().truncatedTo(MILLIS);
+            LockConfiguration lockConfiguration = new LockConfiguration(createdAt, "timezone_test", Duration.ofSeconds(10), Duration.ofSeconds(5));
+            Optional<SimpleLock> lock = provider.lock(lockConfiguration);
+            assertThat(lock).isNotEmpty();
+            assertThat(lockUntil(timeZone)).isEqualTo(createdAt.plusSeconds(10));
+
+            lock.get().unlock();
+            assertThat(lockUntil(timeZone)).isEqualTo(createdAt.plusSeconds(5));
+        }
+
+        private Instant lockUntil(TimeZone timeZone) {
+            return testUtils.getJdbcTemplate().queryForObject(
+                "SELECT lock_until FROM shedlock WHERE name = 'timezone_test'",
+                (rs, rowNum) -> rs.getTimestamp(1, Calendar.getInstance(timeZone)).toInstant()
+            );
+        }
+    }
+
+    @Nested
+    class MissingTableTest {
+        private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dbConfig.getDataSource());
+
+        @AfterEach
+        void dropTable() {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS shedlock_late");
+        }
+
+        @Test
+        void shouldLockOnceTableIsCreated() {
+            JdbcTemplateLockProvider provider = new JdbcTemplateLockProvider(builder()
+                .withJdbcTemplate(jdbcTemplate)
+                .withTableName("shedlock_late")
+                .build());
+            LockConfiguration lockConfiguration = new LockConfiguration(now(), "late_test", Duration.ofSeconds(10), Duration.ZERO);
+
+            // the DB is not ready yet
+            assertThatThrownBy(() -> provider.lock(lockConfiguration)).isInstanceOf(DataAccessException.class);
+
+            jdbcTemplate.execute(LockTableDdl.createTable(LockTableDdl.Dialect.H2, "shedlock_late"));
+            assertThat(provider.lock(lockConfiguration)).isNotEmpty();
+        }
+    }
+
+    @Nested
+    class ShardedTablesTest {
+        private static final int TABLES = 3;
+        private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dbConfig.getDataSource());
+        private final LockTableResolver resolver = LockTableResolver.hashSharded("shedlock_shard", TABLES);
+
+        @BeforeEach
+        void createTables() {
+            LockTableDdl.createShardedTables(LockTableDdl.Dialect.H2, "shedlock_shard", TABLES).forEach(jdbcTemplate::execute);
+        }
+
+        @AfterEach
+        void dropTables() {
+            for (int i = 0; i < TABLES; i++) {
+                jdbcTemplate.execute("DROP TABLE shedlock_shard_" + i);
+            }
+        }
+
+        @Test
+        void shouldStoreLocksInResolvedTables() {
+            JdbcTemplateLockProvider provider = new JdbcTemplateLockProvider(builder()
+                .withJdbcTemplate(jdbcTemplate)
+                .withLockTableResolver(resolver)
+                .build());
+
+            List<LockConfiguration> configurations = List.of("job-1", "job-2", "job-3", "job-4", "job-5").stream()
+                .map(name -> new LockConfiguration(now(), name, Duration.ofSeconds(10), Duration.ZERO))
+                .collect(toList());
+            for (LockConfiguration configuration : configurations) {
+                assertThat(provider.lock(configuration)).isNotEmpty();
+                assertThat(provider.lock(configuration)).isEmpty();
+                String table = resolver.resolveTableName(configuration.getName());
+                assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table + " WHERE name = ?", Integer.class, configuration.getName())).isEqualTo(1);
+            }
+
+            // all the records exist now, lockAll updates them in a batch per table
+            Map<String, Optional<SimpleLock>> locks = provider.lockAll(configurations);
+            assertThat(locks.values()).allSatisfy(lock -> assertThat(lock).isEmpty());
+        }
+    }
 }
@@ -0,0 +1,422 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.provider.jdbc;
+
+import net.javacrumbs.shedlock.core.AbstractSimpleLock;
+import net.javacrumbs.shedlock.core.ClockProvider;
+import net.javacrumbs.shedlock.core.ExtensibleLockProvider;
+import net.javacrumbs.shedlock.core.LockConfiguration;
+import net.javacrumbs.shedlock.core.SimpleLock;
+import net.javacrumbs.shedlock.support.LockException;
+import net.javacrumbs.shedlock.support.annotation.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.util.Objects.requireNonNull;
+import static net.javacrumbs.shedlock.support.Utils.fnv1aHash;
+import static net.javacrumbs.shedlock.support.Utils.getHostname;
+
+/**
+ * Lock provider using session level advisory locks of PostgreSQL (<code>pg_try_advisory_lock</code>) or
+ * MySQL and MariaDB (<code>GET_LOCK</code>). Locking does not write anything to the database.
+ * <p>
+ * All the locks are held by one connection taken from the DataSource and kept for the whole life of the provider.
+ * If the application or the connection dies, the database releases the locks immediately.
+ * While the application runs, lockAtMostFor is enforced by the provider, the lock is released when it elapses.
+ * <p>
+ * If the lock is unlocked before lockAtLeastFor elapses, lock_until is stored to the lock table (the same table as
+ * used by {@link JdbcLockProvider}) and the advisory lock is released. The lock is acquired only if its lock_until
+ * is not in the future, so lockAtLeastFor is kept even if the application dies.
+ * <p>
+ * Please note that lock names are hashed to 64-bit keys on PostgreSQL, and that MySQL supports lock names
+ * up to 64 characters, longer names are shortened and hashed. Call {@link #close()} to release the connection.
+ */
+public class JdbcAdvisoryLockProvider implements ExtensibleLockProvider, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(JdbcAdvisoryLockProvider.class);
+    private static final String DEFAULT_TABLE_NAME = "shedlock";
+
+    private final DataSource dataSource;
+    private final String tableName;
+    private final ScheduledExecutorService scheduler;
+
+    // all the state is guarded by connectionLock
+    private final ReentrantLock connectionLock = new ReentrantLock();
+    private final Map<String, HeldLock> heldLocks = new HashMap<>();
+    private Connection connection;
+    private Dialect dialect;
+    private PreparedStatement lockStatement;
+    private PreparedStatement unlockStatement;
+    private PreparedStatement lockedUntilStatement;
+    private PreparedStatement storeLockedUntilStatement;
+    private long generation;
+
+    public JdbcAdvisoryLockProvider(@NonNull DataSource dataSource) {
+        this(dataSource, DEFAULT_TABLE_NAME);
+    }
+
+    /**
+     * @param tableName table with lock_until of locks unlocked before lockAtLeastFor has elapsed
+     */
+    public JdbcAdvisoryLockProvider(@NonNull DataSource dataSource, @NonNull String tableName) {
+        this.dataSource = requireNonNull(dataSource, "dataSource can not be null");
+        this.tableName = requireNonNull(tableName, "tableName can not be null");
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "shedlock-advisory-lock");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    @NonNull
+    public Optional<SimpleLock> lock(@NonNull LockConfiguration lockConfiguration) {
+        String name = lockConfiguration.getName();
+        connectionLock.lock();
+        try {
+            // advisory locks are reentrant within a session, we have to check locks held by this provider first
+            HeldLock existing = heldLocks.get(name);
+            if (existing != null) {
+                if (!existing.isExpired()) {
+                    return Optional.empty();
+                }
+                // the scheduled release has not been executed yet
+                release(existing);
+            }
+            if (!execute(name, true)) {
+                return Optional.empty();
+            }
+            // the record is written by the holder of the advisory lock, so it has to be read only after we get it
+            if (isLockedUntilInFuture(name)) {
+                execute(name, false);
+                return Optional.empty();
+            }
+            HeldLock heldLock = new HeldLock(name, generation);
+            heldLock.releaseAt(lockConfiguration.getLockAtMostUntil());
+            heldLocks.put(name, heldLock);
+            return Optional.of(new AdvisoryLock(lockConfiguration, heldLock));
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private void unlockHeldLock(HeldLock heldLock, Instant unlockTime) {
+        connectionLock.lock();
+        try {
+            if (heldLocks.get(heldLock.name) != heldLock) {
+                // already released after lockAtMostFor
+                return;
+            }
+            if (unlockTime.isAfter(ClockProvider.now()) && !storeLockedUntil(heldLock, unlockTime)) {
+                // keep at least the advisory lock until lockAtLeastFor elapses
+                heldLock.releaseAt(unlockTime);
+            } else {
+                release(heldLock);
+            }
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private boolean extendHeldLock(HeldLock heldLock, LockConfiguration newConfiguration) {
+        connectionLock.lock();
+        try {
+            if (heldLocks.get(heldLock.name) != heldLock) {
+                return false;
+            }
+            if (heldLock.isExpired()) {
+                release(heldLock);
+                return false;
+            }
+            heldLock.releaseAt(newConfiguration.getLockAtMostUntil());
+            return true;
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private void release(HeldLock heldLock) {
+        connectionLock.lock();
+        try {
+            if (!heldLocks.remove(heldLock.name, heldLock)) {
+                return;
+            }
+            heldLock.cancelRelease();
+            // locks acquired by a connection that has been replaced have been released by the database
+            if (heldLock.generation == generation) {
+                execute(heldLock.name, false);
+            }
+        } catch (LockException e) {
+            logger.warn("Can not release lock {}", heldLock.name, e);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private boolean isLockedUntilInFuture(String name) {
+        try {
+            lockedUntilStatement.setString(1, name);
+            try (ResultSet resultSet = lockedUntilStatement.executeQuery()) {
+                return resultSet.next() && resultSet.getTimestamp(1).toInstant().isAfter(ClockProvider.now());
+            }
+        } catch (SQLException e) {
+            if (isConnectionValid()) {
+                // we do not know if the lock is free, the advisory lock has to be released
+                execute(name, false);
+            } else {
+                releaseConnection();
+            }
+            throw new LockException("Unexpected exception when reading lock_until of " + name, e);
+        }
+    }
+
+    /**
+     * @return true if lock_until has been stored, so the advisory lock can be released
+     */
+    private boolean storeLockedUntil(HeldLock heldLock, Instant lockedUntil) {
+        try {
+            storeLockedUntilStatement.setString(1, heldLock.name);
+            storeLockedUntilStatement.setTimestamp(2, Timestamp.from(lockedUntil));
+            storeLockedUntilStatement.setTimestamp(3, Timestamp.from(ClockProvider.now()));
+            storeLockedUntilStatement.setString(4, getHostname());
+            storeLockedUntilStatement.executeUpdate();
+            return true;
+        } catch (SQLException e) {
+            logger.warn("Can not store lock_until of lock {}, keeping the advisory lock", heldLock.name, e);
+            return false;
+        }
+    }
+
+    private boolean execute(String name, boolean lock) {
+        PreparedStatement statement = null;
+        try {
+            prepareConnection();
+            statement = lock ? lockStatement : unlockStatement;
+            dialect.bindKey(statement, name);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        } catch (SQLException e) {
+            if (!isConnectionValid()) {
+                releaseConnection();
+            }
+            throw new LockException("Unexpected exception when " + (lock ? "locking " : "unlocking ") + name, e);
+        }
+    }
+
+    private void prepareConnection() throws SQLException {
+        if (connection == null) {
+            Connection newConnection = dataSource.getConnection();
+            try {
+                if (!newConnection.getAutoCommit()) {
+                    newConnection.setAutoCommit(true);
+                }
+                dialect = Dialect.of(newConnection.getMetaData().getDatabaseProductName());
+                lockStatement = newConnection.prepareStatement(dialect.lockSql);
+                unlockStatement = newConnection.prepareStatement(dialect.unlockSql);
+                lockedUntilStatement = newConnection.prepareStatement("SELECT lock_until FROM " + tableName + " WHERE name = ?");
+                storeLockedUntilStatement = newConnection.prepareStatement(dialect.upsertSql(tableName));
+            } catch (SQLException | RuntimeException e) {
+                closeQuietly(newConnection);
+                throw e;
+            }
+            connection = newConnection;
+            generation++;
+        }
+    }
+
+    private boolean isConnectionValid() {
+        try {
+            return connection != null && connection.isValid(1);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Closing the connection releases all its locks in the database
+     */
+    private void releaseConnection() {
+        heldLocks.values().forEach(HeldLock::cancelRelease);
+        heldLocks.clear();
+        if (connection != null) {
+            closeQuietly(connection);
+            connection = null;
+            lockStatement = null;
+            unlockStatement = null;
+            lockedUntilStatement = null;
+            storeLockedUntilStatement = null;
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.debug("Can not close connection", e);
+        }
+    }
+
+    /**
+     * Releases all the locks and the connection.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        connectionLock.lock();
+        try {
+            releaseConnection();
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    /**
+     * Lock held by this provider. Guarded by connectionLock.
+     */
+    private final class HeldLock {
+        private final String name;
+        private final long generation;
+        private ScheduledFuture<?> scheduledRelease;
+        private Instant releaseTime;
+
+        private HeldLock(String name, long generation) {
+            this.name = name;
+            this.generation = generation;
+        }
+
+        private void releaseAt(Instant time) {
+            cancelRelease();
+            releaseTime = time;
+            long delay = Math.max(Duration.between(ClockProvider.now(), time).toMillis(), 0);
+            scheduledRelease = scheduler.schedule(() -> release(this), delay, TimeUnit.MILLISECONDS);
+        }
+
+        private boolean isExpired() {
+            return !releaseTime.isAfter(ClockProvider.now());
+        }
+
+        private void cancelRelease() {
+            if (scheduledRelease != null) {
+                scheduledRelease.cancel(false);
+                scheduledRelease = null;
+            }
+        }
+    }
+
+    private final class AdvisoryLock extends AbstractSimpleLock {
+        private final HeldLock heldLock;
+
+        private AdvisoryLock(LockConfiguration lockConfiguration, HeldLock heldLock) {
+            super(lockConfiguration);
+            this.heldLock = heldLock;
+        }
+
+        @Override
+        protected void doUnlock() {
+            unlockHeldLock(heldLock, lockConfiguration.getUnlockTime());
+        }
+
+        @Override
+        protected Optional<SimpleLock> doExtend(LockConfiguration newConfiguration) {
+            if (extendHeldLock(heldLock, newConfiguration)) {
+                return Optional.of(new AdvisoryLock(newConfiguration, heldLock));
+            } else {
+                return Optional.empty();
+            }
+        }
+    }
+
+    enum Dialect {
+        POSTGRES("SELECT pg_try_advisory_lock(?)", "SELECT pg_advisory_unlock(?)") {
+            @Override
+            void bindKey(PreparedStatement statement, String name) throws SQLException {
+                statement.setLong(1, fnv1aHash(name));
+            }
+
+            @Override
+            String upsertSql(String tableName) {
+                return "INSERT INTO " + tableName + "(name, lock_until, locked_at, locked_by) VALUES(?, ?, ?, ?)" +
+                    " ON CONFLICT (name) DO UPDATE SET lock_until = EXCLUDED.lock_until, locked_at = EXCLUDED.locked_at, locked_by = EXCLUDED.locked_by";
+            }
+        },
+        MYSQL("SELECT GET_LOCK(?, 0)", "SELECT RELEASE_LOCK(?)") {
+            @Override
+            void bindKey(PreparedStatement statement, String name) throws SQLException {
+                statement.setString(1, mySqlLockName(name));
+            }
+
+            @Override
+            String upsertSql(String tableName) {
+                return "INSERT INTO " + tableName + "(name, lock_until, locked_at, locked_by) VALUES(?, ?, ?, ?)" +
+                    " ON DUPLICATE KEY UPDATE lock_until = VALUES(lock_until), locked_at = VALUES(locked_at), locked_by = VALUES(locked_by)";
+            }
+        };
+
+        private static final int MYSQL_MAX_NAME_LENGTH = 64;
+
+        private final String lockSql;
+        private final String unlockSql;
+
+        Dialect(String lockSql, String unlockSql) {
+            this.lockSql = lockSql;
+            this.unlockSql = unlockSql;
+        }
+
+        abstract void bindKey(PreparedStatement statement, String name) throws SQLException;
+
+        /**
+         * @return statement storing lock_until of the lock, executed only by the holder of the advisory lock
+         */
+        abstract String upsertSql(String tableName);
+
+        static Dialect of(String databaseProductName) {
+            switch (databaseProductName) {
+                case "PostgreSQL":
+                    return POSTGRES;
+                case "MySQL":
+                case "MariaDB":
+                    return MYSQL;
+                default:
+                    throw new UnsupportedOperationException("Advisory locks are not supported for '" + databaseProductName + "'");
+            }
+        }
+
+        static String mySqlLockName(String name) {
+            if (name.length() <= MYSQL_MAX_NAME_LENGTH) {
+                return name;
+            }
+            String hash = Long.toHexString(fnv1aHash(name));
+            return name.substring(0, MYSQL_MAX_NAME_LENGTH - hash.length() - 1) + "#" + hash;
+        }
+    }
+}
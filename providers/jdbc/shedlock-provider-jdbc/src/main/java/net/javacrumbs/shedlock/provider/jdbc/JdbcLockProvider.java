@@ -15,10 +15,17 @@
  */
 package net.javacrumbs.shedlock.provider.jdbc;
 
+import net.javacrumbs.shedlock.provider.jdbc.internal.AbstractJdbcStorageAccessor;
+import net.javacrumbs.shedlock.support.ExpiredLockRecordRemover;
+import net.javacrumbs.shedlock.support.LockTableResolver;
 import net.javacrumbs.shedlock.support.StorageBasedLockProvider;
 import net.javacrumbs.shedlock.support.annotation.NonNull;
+import net.javacrumbs.shedlock.support.annotation.Nullable;
 
 import javax.sql.DataSource;
+import java.time.Instant;
+
+import static java.util.Objects.requireNonNull;
 
 /**
  * Lock provided by plain JDBC. It uses a table that contains lock_name and locked_until.
@@ -41,13 +48,155 @@ import javax.sql.DataSource;
  * When unlocking, lock_until is set to now.
  * </li>
  * </ol>
+ * If {@link Configuration.Builder#usingPinnedConnection()} is set, the provider keeps one connection and its prepared
+ * statements for its whole life, so a lock attempt does not have to wait for a connection from the pool.
+ * Call {@link #close()} to release the connection.
+ * <p>
+ * If {@link Configuration.Builder#usingDbTime()} is set, the time of the database server is used instead of the time
+ * of the client.
  */
-public class JdbcLockProvider extends StorageBasedLockProvider {
+public class JdbcLockProvider extends StorageBasedLockProvider implements ExpiredLockRecordRemover, AutoCloseable {
+    private static final String DEFAULT_TABLE_NAME = "shedlock";
+
+    private final AbstractJdbcStorageAccessor storageAccessor;
+
     public JdbcLockProvider(@NonNull DataSource datasource) {
-        this(datasource, "shedlock");
+        this(datasource, DEFAULT_TABLE_NAME);
     }
 
     public JdbcLockProvider(@NonNull DataSource datasource, @NonNull String tableName) {
-        super(new JdbcStorageAccessor(datasource, tableName));
+        this(Configuration.builder()
+            .withDataSource(datasource)
+            .withTableName(tableName)
+            .build()
+        );
+    }
+
+    public JdbcLockProvider(@NonNull Configuration configuration) {
+        this(createStorageAccessor(configuration));
+    }
+
+    private JdbcLockProvider(AbstractJdbcStorageAccessor storageAccessor) {
+        super(storageAccessor);
+        this.storageAccessor = storageAccessor;
+    }
+
+    private static AbstractJdbcStorageAccessor createStorageAccessor(Configuration configuration) {
+        if (configuration.isUsePinnedConnection()) {
+            return new PinnedConnectionJdbcStorageAccessor(configuration.getDataSource(), configuration.getLockTableResolver(), configuration.getUseDbTime());
+        } else {
+            return new JdbcStorageAccessor(configuration.getDataSource(), configuration.getLockTableResolver(), configuration.getUseDbTime());
+        }
+    }
+
+    @Override
+    public int removeExpiredLockRecords(@NonNull Instant lockUntilBefore, int limit) {
+        return storageAccessor.removeExpiredLockRecords(lockUntilBefore, limit);
+    }
+
+    /**
+     * Releases the pinned connection, if there is one. The provider can not be used afterwards.
+     */
+    @Override
+    public void close() {
+        if (storageAccessor instanceof PinnedConnectionJdbcStorageAccessor) {
+            ((PinnedConnectionJdbcStorageAccessor) storageAccessor).close();
+        }
+    }
+
+    public static final class Configuration {
+        private final DataSource dataSource;
+        private final String tableName;
+        private final boolean usePinnedConnection;
+        private final LockTableResolver lockTableResolver;
+        private final boolean useDbTime;
+
+        Configuration(
+            @NonNull DataSource dataSource,
+            @NonNull String tableName,
+            boolean usePinnedConnection,
+            @Nullable LockTableResolver lockTableResolver,
+            boolean useDbTime
+        ) {
+            this.dataSource = requireNonNull(dataSource, "dataSource can not be null");
+            this.tableName = requireNonNull(tableName, "tableName can not be null");
+            this.usePinnedConnection = usePinnedConnection;
+            this.lockTableResolver = lockTableResolver != null ? lockTableResolver : LockTableResolver.singleTable(tableName);
+            this.useDbTime = useDbTime;
+        }
+
+        public DataSource getDataSource() {
+            return dataSource;
+        }
+
+        public String getTableName() {
+            return tableName;
+        }
+
+        public boolean isUsePinnedConnection() {
+            return usePinnedConnection;
+        }
+
+        public LockTableResolver getLockTableResolver() {
+            return lockTableResolver;
+        }
+
+        public boolean getUseDbTime() {
+            return useDbTime;
+        }
+
+        public static Configuration.Builder builder() {
+            return new Configuration.Builder();
+        }
+
+        public static final class Builder {
+            private DataSource dataSource;
+            private String tableName = DEFAULT_TABLE_NAME;
+            private boolean usePinnedConnection = false;
+            private LockTableResolver lockTableResolver;
+            private boolean useDbTime = false;
+
+            public Builder withDataSource(@NonNull DataSource dataSource) {
+                this.dataSource = dataSource;
+                return this;
+            }
+
+            public Builder withTableName(@NonNull String tableName) {
+                this.tableName = tableName;
+                return this;
+            }
+
+            /**
+             * Keeps one connection from the DataSource and reuses prepared statements. Lock operations are
+             * serialized on the connection. Consider using a small DataSource dedicated to ShedLock, so the
+             * connection pool of the application is not affected.
+             */
+            public Builder usingPinnedConnection() {
+                this.usePinnedConnection = true;
+                return this;
+            }
+
+            /**
+             * Spreads the lock records across several tables, see {@link LockTableResolver#hashSharded(String, int)}.
+             * If set, tableName is ignored.
+             */
+            public Builder withLockTableResolver(@NonNull LockTableResolver lockTableResolver) {
+                this.lockTableResolver = lockTableResolver;
+                return this;
+            }
+
+            /**
+             * Uses the time of the database server, so the clocks of the nodes do not have to be synchronized.
+             * Supported on PostgreSQL, MySQL, MariaDB, MS SQL, Oracle, DB2, H2 and HSQLDB.
+             */
+            public Builder usingDbTime() {
+                this.useDbTime = true;
+                return this;
+            }
+
+            public JdbcLockProvider.Configuration build() {
+                return new JdbcLockProvider.Configuration(dataSource, tableName, usePinnedConnection, lockTableResolver, useDbTime);
+            }
+        }
     }
 }
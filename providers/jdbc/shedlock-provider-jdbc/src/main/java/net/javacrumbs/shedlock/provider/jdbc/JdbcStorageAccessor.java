@@ -16,6 +16,8 @@
 package net.javacrumbs.shedlock.provider.jdbc;
 
 import net.javacrumbs.shedlock.provider.jdbc.internal.AbstractJdbcStorageAccessor;
+import net.javacrumbs.shedlock.support.LockException;
+import net.javacrumbs.shedlock.support.LockTableResolver;
 import net.javacrumbs.shedlock.support.annotation.NonNull;
 
 import javax.sql.DataSource;
@@ -29,8 +31,8 @@ import static java.util.Objects.requireNonNull;
 class JdbcStorageAccessor extends AbstractJdbcStorageAccessor {
     private final DataSource dataSource;
 
-    JdbcStorageAccessor(@NonNull DataSource dataSource, @NonNull String tableName) {
-        super(tableName);
+    JdbcStorageAccessor(@NonNull DataSource dataSource, @NonNull LockTableResolver lockTableResolver, boolean useDbTime) {
+        super(lockTableResolver, useDbTime);
         this.dataSource = requireNonNull(dataSource, "dataSource can not be null");
     }
 
@@ -59,4 +61,13 @@ class JdbcStorageAccessor extends AbstractJdbcStorageAccessor {
             return exceptionHandler.apply(sql, e);
         }
     }
+
+    @Override
+    protected String getDatabaseProductName() {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.getMetaData().getDatabaseProductName();
+        } catch (SQLException e) {
+            throw new LockException("Can not read database product name", e);
+        }
+    }
 }
@@ -0,0 +1,152 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.provider.jdbc;
+
+import net.javacrumbs.shedlock.provider.jdbc.internal.AbstractJdbcStorageAccessor;
+import net.javacrumbs.shedlock.support.LockException;
+import net.javacrumbs.shedlock.support.LockTableResolver;
+import net.javacrumbs.shedlock.support.annotation.NonNull;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Keeps one connection taken from the DataSource and reuses prepared statements. The connection is used by
+ * one thread at a time, it is released only if it gets broken or when the accessor is closed.
+ */
+class PinnedConnectionJdbcStorageAccessor extends AbstractJdbcStorageAccessor implements AutoCloseable {
+    private final DataSource dataSource;
+    private final ReentrantLock connectionLock = new ReentrantLock();
+
+    // guarded by connectionLock
+    private Connection connection;
+    private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+    PinnedConnectionJdbcStorageAccessor(@NonNull DataSource dataSource, @NonNull LockTableResolver lockTableResolver, boolean useDbTime) {
+        super(lockTableResolver, useDbTime);
+        this.dataSource = requireNonNull(dataSource, "dataSource can not be null");
+    }
+
+    @Override
+    protected <T> T executeCommand(
+        String sql,
+        SqlFunction<PreparedStatement, T> body,
+        BiFunction<String, SQLException, T> exceptionHandler
+    ) {
+        connectionLock.lock();
+        try {
+            PreparedStatement statement = null;
+            try {
+                statement = statement(sql);
+                return body.apply(statement);
+            } catch (SQLException e) {
+                // statement may be left in an inconsistent state (e.g. unfinished batch)
+                if (statement != null) {
+                    statements.remove(sql);
+                    closeQuietly(statement);
+                }
+                if (!isConnectionValid()) {
+                    logger.debug("Releasing broken connection", e);
+                    releaseConnection();
+                }
+                return exceptionHandler.apply(sql, e);
+            }
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    @Override
+    protected String getDatabaseProductName() {
+        connectionLock.lock();
+        try {
+            return connection().getMetaData().getDatabaseProductName();
+        } catch (SQLException e) {
+            throw new LockException("Can not read database product name", e);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private PreparedStatement statement(String sql) throws SQLException {
+        PreparedStatement statement = statements.get(sql);
+        if (statement == null) {
+            statement = connection().prepareStatement(sql);
+            statements.put(sql, statement);
+        }
+        return statement;
+    }
+
+    private Connection connection() throws SQLException {
+        if (connection == null) {
+            Connection newConnection = dataSource.getConnection();
+            try {
+                // set only once, we never change it afterwards
+                if (!newConnection.getAutoCommit()) {
+                    newConnection.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                closeQuietly(newConnection);
+                throw e;
+            }
+            connection = newConnection;
+        }
+        return connection;
+    }
+
+    private boolean isConnectionValid() {
+        try {
+            return connection != null && connection.isValid(1);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void releaseConnection() {
+        statements.values().forEach(this::closeQuietly);
+        statements.clear();
+        if (connection != null) {
+            closeQuietly(connection);
+            connection = null;
+        }
+    }
+
+    private void closeQuietly(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            logger.debug("Can not close {}", closeable, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        connectionLock.lock();
+        try {
+            releaseConnection();
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+}
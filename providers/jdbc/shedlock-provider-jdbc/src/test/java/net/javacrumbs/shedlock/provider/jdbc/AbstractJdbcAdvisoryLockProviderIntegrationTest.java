@@ -0,0 +1,127 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.provider.jdbc;
+
+import net.javacrumbs.shedlock.core.ExtensibleLockProvider;
+import net.javacrumbs.shedlock.core.SimpleLock;
+import net.javacrumbs.shedlock.test.support.AbstractExtensibleLockProviderIntegrationTest;
+import net.javacrumbs.shedlock.test.support.jdbc.DbConfig;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+abstract class AbstractJdbcAdvisoryLockProviderIntegrationTest extends AbstractExtensibleLockProviderIntegrationTest {
+    private JdbcAdvisoryLockProvider lockProvider;
+
+    protected abstract DbConfig getDbConfig();
+
+    /**
+     * @return SQL returning true if the lock is not held by any session
+     */
+    protected abstract String isFreeSql();
+
+    protected abstract void bindKey(PreparedStatement statement, String lockName) throws SQLException;
+
+    @BeforeAll
+    public void startDb() {
+        getDbConfig().startDb();
+    }
+
+    @AfterAll
+    public void shutDownDb() {
+        getDbConfig().shutdownDb();
+    }
+
+    @AfterEach
+    void closeLockProvider() {
+        if (lockProvider != null) {
+            lockProvider.close();
+            lockProvider = null;
+        }
+    }
+
+    @Override
+    protected ExtensibleLockProvider getLockProvider() {
+        if (lockProvider == null) {
+            lockProvider = new JdbcAdvisoryLockProvider(getDbConfig().getDataSource());
+        }
+        return lockProvider;
+    }
+
+    @Test
+    public void shouldKeepLockAtLeastForAfterClose() {
+        Optional<SimpleLock> lock = getLockProvider().lock(lockConfig(LOCK_NAME1, Duration.ofMinutes(1), Duration.ofMinutes(1)));
+        assertThat(lock).isNotEmpty();
+        lock.get().unlock();
+        // lock_until is stored in the table, the advisory lock is not needed anymore
+        assertUnlocked(LOCK_NAME1);
+        closeLockProvider();
+
+        // new provider behaves like another node or a restarted application
+        assertThat(getLockProvider().lock(lockConfig(LOCK_NAME1))).isEmpty();
+        assertUnlocked(LOCK_NAME1);
+
+        deleteLockRecord(LOCK_NAME1);
+        Optional<SimpleLock> newLock = getLockProvider().lock(lockConfig(LOCK_NAME1));
+        assertThat(newLock).isNotEmpty();
+        newLock.get().unlock();
+    }
+
+    @Override
+    protected void assertUnlocked(String lockName) {
+        assertThat(isFree(lockName)).describedAs("Lock %s should be free", lockName).isTrue();
+    }
+
+    @Override
+    protected void assertLocked(String lockName) {
+        assertThat(isFree(lockName)).describedAs("Lock %s should be held", lockName).isFalse();
+    }
+
+    private void deleteLockRecord(String lockName) {
+        try (Connection connection = getDbConfig().getDataSource().getConnection();
+             PreparedStatement statement = connection.prepareStatement("DELETE FROM shedlock WHERE name = ?")) {
+            statement.setString(1, lockName);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private boolean isFree(String lockName) {
+        try (Connection connection = getDbConfig().getDataSource().getConnection();
+             PreparedStatement statement = connection.prepareStatement(isFreeSql())) {
+            bindKey(statement, lockName);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                assertThat(resultSet.next()).isTrue();
+                return resultSet.getBoolean(1);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.provider.jdbc;
+
+import net.javacrumbs.shedlock.support.StorageBasedLockProvider;
+import net.javacrumbs.shedlock.test.support.jdbc.DbConfig;
+import net.javacrumbs.shedlock.test.support.jdbc.HsqlConfig;
+
+public class HsqlDbTimeJdbcLockProviderIntegrationTest extends AbstractJdbcTest {
+    private static final HsqlConfig dbConfig = new HsqlConfig();
+
+    @Override
+    protected DbConfig getDbConfig() {
+        return dbConfig;
+    }
+
+    @Override
+    protected boolean useDbTime() {
+        return true;
+    }
+
+    @Override
+    protected StorageBasedLockProvider getLockProvider() {
+        return new JdbcLockProvider(JdbcLockProvider.Configuration.builder()
+            .withDataSource(testUtils.getDatasource())
+            .usingDbTime()
+            .build()
+        );
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.provider.jdbc;
+
+import net.javacrumbs.shedlock.support.StorageBasedLockProvider;
+import net.javacrumbs.shedlock.test.support.jdbc.DbConfig;
+import net.javacrumbs.shedlock.test.support.jdbc.HsqlConfig;
+import org.junit.jupiter.api.AfterEach;
+
+public class HsqlPinnedConnectionJdbcLockProviderIntegrationTest extends AbstractJdbcTest {
+    private static final HsqlConfig dbConfig = new HsqlConfig();
+
+    private JdbcLockProvider lockProvider;
+
+    @Override
+    protected DbConfig getDbConfig() {
+        return dbConfig;
+    }
+
+    /**
+     * Each provider holds a connection, so we share one within a test. Clearing the cache makes it
+     * behave like a new instance.
+     */
+    @Override
+    protected StorageBasedLockProvider getLockProvider() {
+        if (lockProvider == null) {
+            lockProvider = new JdbcLockProvider(JdbcLockProvider.Configuration.builder()
+                .withDataSource(testUtils.getDatasource())
+                .usingPinnedConnection()
+                .build()
+            );
+        }
+        lockProvider.clearCache();
+        return lockProvider;
+    }
+
+    @AfterEach
+    void closeLockProvider() {
+        if (lockProvider != null) {
+            lockProvider.close();
+            lockProvider = null;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.provider.jdbc;
+
+import net.javacrumbs.shedlock.provider.jdbc.JdbcAdvisoryLockProvider.Dialect;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JdbcAdvisoryLockProviderTest {
+
+    @Test
+    void shouldShortenLongMySqlLockNames() {
+        String shortName = "x".repeat(64);
+        assertThat(Dialect.mySqlLockName(shortName)).isEqualTo(shortName);
+
+        String longName = "x".repeat(65);
+        String longName2 = "x".repeat(66);
+        assertThat(Dialect.mySqlLockName(longName)).hasSizeLessThanOrEqualTo(64).startsWith("xxx");
+        assertThat(Dialect.mySqlLockName(longName)).isNotEqualTo(Dialect.mySqlLockName(longName2));
+    }
+
+    @Test
+    void shouldRejectUnsupportedDatabases() {
+        assertThatThrownBy(() -> Dialect.of("H2")).isInstanceOf(UnsupportedOperationException.class);
+    }
+}
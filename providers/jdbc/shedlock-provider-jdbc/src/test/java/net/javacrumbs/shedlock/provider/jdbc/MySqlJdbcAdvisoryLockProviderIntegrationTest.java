@@ -0,0 +1,41 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.provider.jdbc;
+
+import net.javacrumbs.shedlock.test.support.jdbc.DbConfig;
+import net.javacrumbs.shedlock.test.support.jdbc.MySqlConfig;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+public class MySqlJdbcAdvisoryLockProviderIntegrationTest extends AbstractJdbcAdvisoryLockProviderIntegrationTest {
+    private static final MySqlConfig dbConfig = new MySqlConfig();
+
+    @Override
+    protected DbConfig getDbConfig() {
+        return dbConfig;
+    }
+
+    @Override
+    protected String isFreeSql() {
+        return "SELECT IS_FREE_LOCK(?)";
+    }
+
+    @Override
+    protected void bindKey(PreparedStatement statement, String lockName) throws SQLException {
+        statement.setString(1, JdbcAdvisoryLockProvider.Dialect.mySqlLockName(lockName));
+    }
+}
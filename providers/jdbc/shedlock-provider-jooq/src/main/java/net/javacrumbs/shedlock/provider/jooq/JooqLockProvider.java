@@ -15,13 +15,23 @@
  */
 package net.javacrumbs.shedlock.provider.jooq;
 
+import net.javacrumbs.shedlock.support.LockTableResolver;
 import net.javacrumbs.shedlock.support.StorageBasedLockProvider;
 import net.javacrumbs.shedlock.support.annotation.NonNull;
 import org.jooq.DSLContext;
 
+import static java.util.Objects.requireNonNull;
+
 
 public class JooqLockProvider extends StorageBasedLockProvider {
     public JooqLockProvider(@NonNull DSLContext dslContext) {
-        super(new JooqStorageAccessor(dslContext));
+        super(new JooqStorageAccessor(dslContext, null));
+    }
+
+    /**
+     * Stores the locks in tables with the same structure as the shedlock table, resolved by the lockTableResolver.
+     */
+    public JooqLockProvider(@NonNull DSLContext dslContext, @NonNull LockTableResolver lockTableResolver) {
+        super(new JooqStorageAccessor(dslContext, requireNonNull(lockTableResolver, "lockTableResolver can not be null")));
     }
 }
@@ -2,18 +2,32 @@ package net.javacrumbs.shedlock.provider.jooq;
 
 import net.javacrumbs.shedlock.core.LockConfiguration;
 import net.javacrumbs.shedlock.support.AbstractStorageAccessor;
+import net.javacrumbs.shedlock.support.LockException;
+import net.javacrumbs.shedlock.support.LockTableResolver;
 import net.javacrumbs.shedlock.support.annotation.NonNull;
+import net.javacrumbs.shedlock.support.annotation.Nullable;
+import org.jooq.Configuration;
 import org.jooq.DSLContext;
 import org.jooq.Field;
+import org.jooq.Query;
 import org.jooq.Record;
 import org.jooq.TableField;
+import org.jooq.impl.DSL;
 import org.jooq.types.DayToSecond;
 
 import java.io.Serializable;
+import java.sql.Statement;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
 
+import static java.util.stream.Collectors.toList;
 import static net.javacrumbs.shedlock.provider.jooq.Shedlock.SHEDLOCK;
 import static org.jooq.impl.DSL.currentLocalDateTime;
 import static org.jooq.impl.DSL.inline;
@@ -22,30 +36,56 @@ import static org.jooq.impl.DSL.when;
 
 class JooqStorageAccessor extends AbstractStorageAccessor {
     private final DSLContext dslContext;
-    private final Shedlock t = SHEDLOCK;
+    @Nullable
+    private final LockTableResolver lockTableResolver;
+    private final Map<String, Shedlock> tables = new ConcurrentHashMap<>();
 
-    JooqStorageAccessor(DSLContext dslContext) {
+    JooqStorageAccessor(DSLContext dslContext, @Nullable LockTableResolver lockTableResolver) {
         this.dslContext = dslContext;
+        this.lockTableResolver = lockTableResolver;
+    }
+
+    private Shedlock table(LockConfiguration lockConfiguration) {
+        if (lockTableResolver == null) {
+            return SHEDLOCK;
+        }
+        String tableName = lockTableResolver.resolveTableName(lockConfiguration.getName());
+        Shedlock table = tables.get(tableName);
+        // schema.table is supported
+        return table != null ? table : tables.computeIfAbsent(tableName, name -> SHEDLOCK.rename(DSL.name(name.split("\\."))));
     }
 
     @Override
     public boolean insertRecord(@NonNull LockConfiguration lockConfiguration) {
+        Shedlock t = table(lockConfiguration);
         return dslContext.transactionResult(tx -> tx.dsl().insertInto(t)
-            .set(data(lockConfiguration))
+            .set(data(t, lockConfiguration))
             .onConflictDoNothing()
             .execute() > 0);
     }
 
     @Override
     public boolean updateRecord(@NonNull LockConfiguration lockConfiguration) {
+        Shedlock t = table(lockConfiguration);
         return dslContext.transactionResult(tx -> tx.dsl().update(t)
-            .set(data(lockConfiguration))
+            .set(data(t, lockConfiguration))
             .where(t.NAME.eq(lockConfiguration.getName()).and(t.LOCK_UNTIL.le(now())))
             .execute() > 0);
     }
 
+    @Override
+    public Set<String> updateRecords(@NonNull Collection<LockConfiguration> lockConfigurations) {
+        return executeBatch(lockConfigurations, (tx, lockConfiguration) -> {
+            Shedlock t = table(lockConfiguration);
+            return tx.dsl().update(t)
+                .set(data(t, lockConfiguration))
+                .where(t.NAME.eq(lockConfiguration.getName()).and(t.LOCK_UNTIL.le(now())));
+        });
+    }
+
     @Override
     public void unlock(LockConfiguration lockConfiguration) {
+        Shedlock t = table(lockConfiguration);
         Field<LocalDateTime> lockAtLeastFor = t.LOCKED_AT.add(DayToSecond.valueOf(lockConfiguration.getLockAtLeastFor()));
         dslContext.transaction(tx -> tx.dsl().update(t).set(t.LOCK_UNTIL, when(lockAtLeastFor.gt(now()), lockAtLeastFor).otherwise(now()))
             .where(t.NAME.eq(lockConfiguration.getName()).and(t.LOCKED_BY.eq(getHostname())))
@@ -54,13 +94,40 @@ class JooqStorageAccessor extends AbstractStorageAccessor {
 
     @Override
     public boolean extend(@NonNull LockConfiguration lockConfiguration) {
-        return dslContext.transactionResult(tx -> tx.dsl().update(t).set(t.LOCK_UNTIL, nowPlus(lockConfiguration.getLockAtMostFor()))
-            .where(t.NAME.eq(lockConfiguration.getName()).and(t.LOCKED_BY.eq(getHostname())).and(t.LOCK_UNTIL.gt(now())))
-            .execute() > 0);
+        return dslContext.transactionResult(tx -> extendQuery(tx, lockConfiguration).execute() > 0);
     }
 
+    @Override
+    public Set<String> extendRecords(@NonNull Collection<LockConfiguration> lockConfigurations) {
+        return executeBatch(lockConfigurations, this::extendQuery);
+    }
+
+    private Query extendQuery(Configuration tx, LockConfiguration lockConfiguration) {
+        Shedlock t = table(lockConfiguration);
+        return tx.dsl().update(t).set(t.LOCK_UNTIL, nowPlus(lockConfiguration.getLockAtMostFor()))
+            .where(t.NAME.eq(lockConfiguration.getName()).and(t.LOCKED_BY.eq(getHostname())).and(t.LOCK_UNTIL.gt(now())));
+    }
+
+    private Set<String> executeBatch(Collection<LockConfiguration> lockConfigurations, BiFunction<Configuration, LockConfiguration, Query> queryFactory) {
+        List<String> names = lockConfigurations.stream().map(LockConfiguration::getName).collect(toList());
+        return dslContext.transactionResult(tx -> {
+            List<Query> queries = lockConfigurations.stream().map(lockConfiguration -> queryFactory.apply(tx, lockConfiguration)).collect(toList());
+            int[] updatedRows = tx.dsl().batch(queries).execute();
+            Set<String> updated = new HashSet<>();
+            for (int i = 0; i < updatedRows.length; i++) {
+                if (updatedRows[i] == Statement.SUCCESS_NO_INFO) {
+                    // thrown in the transaction, so that the records are not left locked
+                    throw new LockException("JDBC driver does not report update counts of batch statements, can not use batch");
+                }
+                if (updatedRows[i] > 0) {
+                    updated.add(names.get(i));
+                }
+            }
+            return updated;
+        });
+    }
 
-    private Map<? extends TableField<Record, ? extends Serializable>, Serializable> data(LockConfiguration lockConfiguration) {
+    private Map<? extends TableField<Record, ? extends Serializable>, Serializable> data(Shedlock t, LockConfiguration lockConfiguration) {
         return Map.of(
             t.NAME, lockConfiguration.getName(),
             t.LOCK_UNTIL, nowPlus(lockConfiguration.getLockAtMostFor()),
@@ -0,0 +1,50 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.provider.jooq;
+
+import net.javacrumbs.shedlock.core.LockConfiguration;
+import net.javacrumbs.shedlock.support.LockException;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.jooq.tools.jdbc.MockConnection;
+import org.jooq.tools.jdbc.MockResult;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static net.javacrumbs.shedlock.core.ClockProvider.now;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JooqStorageAccessorTest {
+    @Test
+    void shouldNotUseBatchIfDriverDoesNotReportUpdateCounts() {
+        MockConnection connection = new MockConnection(ctx -> {
+            MockResult[] results = new MockResult[ctx.batchSQL().length];
+            Arrays.fill(results, new MockResult(Statement.SUCCESS_NO_INFO, null));
+            return results;
+        });
+        JooqStorageAccessor accessor = new JooqStorageAccessor(DSL.using(connection, SQLDialect.HSQLDB), null);
+
+        List<LockConfiguration> lockConfigurations = List.of(
+            new LockConfiguration(now(), "lock-1", Duration.ofSeconds(10), Duration.ZERO),
+            new LockConfiguration(now(), "lock-2", Duration.ofSeconds(10), Duration.ZERO)
+        );
+        assertThatThrownBy(() -> accessor.updateRecords(lockConfigurations)).isInstanceOf(LockException.class);
+    }
+}
@@ -18,6 +18,8 @@ package net.javacrumbs.shedlock.test.support.jdbc;
 import net.javacrumbs.shedlock.core.ClockProvider;
 import net.javacrumbs.shedlock.core.LockConfiguration;
 import net.javacrumbs.shedlock.core.SimpleLock;
+import net.javacrumbs.shedlock.support.CachingLockProvider;
+import net.javacrumbs.shedlock.support.ExpiredLockRecordRemover;
 import net.javacrumbs.shedlock.test.support.AbstractStorageBasedLockProviderIntegrationTest;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -26,12 +28,14 @@ import org.junit.jupiter.api.Test;
 
 import javax.sql.DataSource;
 import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 public abstract class AbstractJdbcLockProviderIntegrationTest extends AbstractStorageBasedLockProviderIntegrationTest {
     protected JdbcTestUtils testUtils;
@@ -78,6 +82,74 @@ public abstract class AbstractJdbcLockProviderIntegrationTest extends AbstractSt
         TransactionalFuzzTester.fuzzTestShouldWorkWithTransaction(getLockProvider(), getDatasource());
     }
 
+    @Test
+    public void cachingLockProviderShouldRememberLockedUntil() {
+        CachingLockProvider cachingLockProvider = new CachingLockProvider(getLockProvider());
+        Optional<SimpleLock> lock = getLockProvider().lock(lockConfig(LOCK_NAME1));
+        assertThat(lock).isPresent();
+
+        assertThat(cachingLockProvider.lock(lockConfig(LOCK_NAME1))).isEmpty();
+        assertThat(cachingLockProvider.lock(lockConfig(LOCK_NAME1))).isEmpty();
+        assertThat(cachingLockProvider.getSkippedLockAttempts()).isEqualTo(reportsLockedUntil() ? 1 : 0);
+
+        lock.get().unlock();
+        cachingLockProvider.clearCache();
+        Optional<SimpleLock> lock2 = cachingLockProvider.lock(lockConfig(LOCK_NAME1));
+        assertThat(lock2).isPresent();
+        lock2.get().unlock();
+    }
+
+    @Test
+    public void shouldRemoveExpiredLockRecords() {
+        assumeTrue(getLockProvider() instanceof ExpiredLockRecordRemover);
+        ExpiredLockRecordRemover remover = (ExpiredLockRecordRemover) getLockProvider();
+        insertRecord("expired1", Instant.now().minus(3, ChronoUnit.DAYS));
+        insertRecord("expired2", Instant.now().minus(2, ChronoUnit.DAYS));
+        insertRecord("recent", Instant.now().minus(1, ChronoUnit.HOURS));
+
+        Instant lockUntilBefore = ClockProvider.now().minus(1, ChronoUnit.DAYS);
+        assertThat(remover.removeExpiredLockRecords(lockUntilBefore, 1)).isEqualTo(1);
+        assertThat(remover.removeExpiredLockRecords(lockUntilBefore, 10)).isEqualTo(1);
+        assertThat(remover.removeExpiredLockRecords(lockUntilBefore, 10)).isEqualTo(0);
+        assertThat(testUtils.getJdbcTemplate().queryForList("SELECT name FROM shedlock", String.class)).containsExactly("recent");
+    }
+
+    @Test
+    public void shouldHandOverLock() {
+        Optional<SimpleLock> lock = getLockProvider().lock(lockConfig(LOCK_NAME1));
+        assertThat(lock).isPresent();
+
+        Optional<SimpleLock> handedOver = lock.get().handOver(lockConfig(LOCK_NAME1, Duration.ofMinutes(10), Duration.ZERO));
+        assertThat(handedOver).isPresent();
+        assertLocked(LOCK_NAME1);
+        assertThat(getLockProvider().lock(lockConfig(LOCK_NAME1))).isEmpty();
+
+        handedOver.get().unlock();
+        assertUnlocked(LOCK_NAME1);
+    }
+
+    @Test
+    public void shouldNotHandOverExpiredLock() {
+        Optional<SimpleLock> lock = getLockProvider().lock(lockConfig(LOCK_NAME1, Duration.ofMillis(100), Duration.ZERO));
+        assertThat(lock).isPresent();
+        sleepFor(Duration.ofMillis(200));
+
+        assertThat(lock.get().handOver(lockConfig(LOCK_NAME1))).isEmpty();
+        assertUnlocked(LOCK_NAME1);
+    }
+
+    private void insertRecord(String name, Instant lockUntil) {
+        Timestamp timestamp = Timestamp.from(lockUntil);
+        testUtils.getJdbcTemplate().update("INSERT INTO shedlock(name, lock_until, locked_at, locked_by) VALUES(?, ?, ?, ?)", name, timestamp, timestamp, "me");
+    }
+
+    /**
+     * Lock_until of a lock held by somebody else is not reported when using DB time.
+     */
+    protected boolean reportsLockedUntil() {
+        return !useDbTime();
+    }
+
     @Test
     @Disabled
     public void shouldNotFailIfKeyNameTooLong() {
@@ -32,6 +32,11 @@ public class H2Config extends AbstractDbConfig {
         return "";
     }
 
+    @Override
+    public String getR2dbcUrl() {
+        return "r2dbc:h2:mem:///test";
+    }
+
     @Override
     public String nowExpression() {
         return "CURRENT_TIMESTAMP(3)";
@@ -19,7 +19,10 @@ import com.mongodb.MongoServerException;
 import com.mongodb.client.model.FindOneAndUpdateOptions;
 import com.mongodb.reactivestreams.client.MongoCollection;
 import com.mongodb.reactivestreams.client.MongoDatabase;
+import net.javacrumbs.shedlock.core.AbstractAsyncSimpleLock;
 import net.javacrumbs.shedlock.core.AbstractSimpleLock;
+import net.javacrumbs.shedlock.core.AsyncLockProvider;
+import net.javacrumbs.shedlock.core.AsyncSimpleLock;
 import net.javacrumbs.shedlock.core.ClockProvider;
 import net.javacrumbs.shedlock.core.ExtensibleLockProvider;
 import net.javacrumbs.shedlock.core.LockConfiguration;
@@ -28,10 +31,15 @@ import net.javacrumbs.shedlock.support.LockException;
 import net.javacrumbs.shedlock.support.Utils;
 import org.bson.Document;
 import org.bson.conversions.Bson;
-import org.reactivestreams.Publisher;
 
 import java.time.Instant;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static com.mongodb.client.model.Filters.and;
 import static com.mongodb.client.model.Filters.eq;
@@ -39,6 +47,7 @@ import static com.mongodb.client.model.Filters.gt;
 import static com.mongodb.client.model.Filters.lte;
 import static com.mongodb.client.model.Updates.combine;
 import static com.mongodb.client.model.Updates.set;
+import static net.javacrumbs.shedlock.provider.mongo.reactivestreams.SingleResultSubscriber.toFuture;
 
 /**
  * Distributed lock using Reactive MongoDB. Requires mongodb-driver-reactivestreams
@@ -70,14 +79,18 @@ import static com.mongodb.client.model.Updates.set;
  * When unlocking, lock_until is set to now.
  * </li>
  * </ol>
+ * Implements {@link AsyncLockProvider}, {@link #lockAsync(LockConfiguration)} and the returned lock do not block any thread.
+ * The completion stage can be adapted by Project Reactor (Mono.fromCompletionStage) or Mutiny (Uni.createFrom().completionStage).
  */
-public class ReactiveStreamsMongoLockProvider implements ExtensibleLockProvider {
+public class ReactiveStreamsMongoLockProvider implements ExtensibleLockProvider, AsyncLockProvider {
     static final String LOCK_UNTIL = "lockUntil";
     static final String LOCKED_AT = "lockedAt";
     static final String LOCKED_BY = "lockedBy";
     static final String ID = "_id";
     static final String DEFAULT_SHEDLOCK_COLLECTION_NAME = "shedLock";
 
+    private static final long BLOCKING_TIMEOUT_SECONDS = 10;
+
     private final String hostname;
     private final MongoCollection<Document> collection;
 
@@ -101,76 +114,93 @@ public class ReactiveStreamsMongoLockProvider implements ExtensibleLockProvider
 
     @Override
     public Optional<SimpleLock> lock(LockConfiguration lockConfiguration) {
+        if (block(doLock(lockConfiguration))) {
+            return Optional.of(new ReactiveMongoLock(lockConfiguration, this));
+        } else {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public CompletionStage<Optional<AsyncSimpleLock>> lockAsync(LockConfiguration lockConfiguration) {
+        return doLock(lockConfiguration)
+            .thenApply(locked -> locked ? Optional.of(new ReactiveMongoAsyncLock(lockConfiguration, this)) : Optional.empty());
+    }
+
+    private CompletableFuture<Boolean> doLock(LockConfiguration lockConfiguration) {
         Instant now = now();
         Bson update = combine(
             set(LOCK_UNTIL, lockConfiguration.getLockAtMostUntil()),
             set(LOCKED_AT, now),
             set(LOCKED_BY, hostname)
         );
-        try {
-            // There are three possible situations:
-            // 1. The lock document does not exist yet - it is inserted - we have the lock
-            // 2. The lock document exists and lockUtil <= now - it is updated - we have the lock
-            // 3. The lock document exists and lockUtil > now - Duplicate key exception is thrown
-            execute(getCollection().findOneAndUpdate(
-                and(eq(ID, lockConfiguration.getName()), lte(LOCK_UNTIL, now)),
-                update,
-                new FindOneAndUpdateOptions().upsert(true)
-            ));
-            return Optional.of(new ReactiveMongoLock(lockConfiguration, this));
-        } catch (MongoServerException e) {
-            if (e.getCode() == 11000) { // duplicate key
+        // There are three possible situations:
+        // 1. The lock document does not exist yet - it is inserted - we have the lock
+        // 2. The lock document exists and lockUtil <= now - it is updated - we have the lock
+        // 3. The lock document exists and lockUtil > now - Duplicate key exception is thrown
+        return toFuture(getCollection().findOneAndUpdate(
+            and(eq(ID, lockConfiguration.getName()), lte(LOCK_UNTIL, now)),
+            update,
+            new FindOneAndUpdateOptions().upsert(true)
+        )).handle((document, error) -> {
+            if (error == null) {
+                return true;
+            }
+            Throwable cause = unwrap(error);
+            if (cause instanceof MongoServerException && ((MongoServerException) cause).getCode() == 11000) { // duplicate key
                 //Upsert attempts to insert when there were no filter matches.
                 //This means there was a lock with matching ID with lockUntil > now.
-                return Optional.empty();
-            } else {
-                throw e;
+                return false;
             }
-        }
+            throw new CompletionException(cause);
+        });
     }
 
-    private Optional<SimpleLock> extend(LockConfiguration lockConfiguration) {
+    private CompletableFuture<Boolean> extend(LockConfiguration lockConfiguration) {
         Instant now = now();
         Bson update = set(LOCK_UNTIL, lockConfiguration.getLockAtMostUntil());
 
-        Document updatedDocument = execute(getCollection().findOneAndUpdate(
+        return toFuture(getCollection().findOneAndUpdate(
             and(
                 eq(ID, lockConfiguration.getName()),
                 gt(LOCK_UNTIL, now),
                 eq(LOCKED_BY, hostname)
             ),
             update
-        ));
-
-        if (updatedDocument != null) {
-            return Optional.of(new ReactiveMongoLock(lockConfiguration, this));
-        } else {
-            return Optional.empty();
-        }
+        )).thenApply(updatedDocument -> updatedDocument != null);
     }
 
-    private void unlock(LockConfiguration lockConfiguration) {
+    private CompletableFuture<Void> unlock(LockConfiguration lockConfiguration) {
         // Set lockUtil to now or lockAtLeastUntil whichever is later
-        execute(getCollection().findOneAndUpdate(
+        return toFuture(getCollection().findOneAndUpdate(
             eq(ID, lockConfiguration.getName()),
             combine(set(LOCK_UNTIL, lockConfiguration.getUnlockTime()))
-        ));
+        )).thenApply(ignored -> null);
     }
 
-    static <T> T execute(Publisher<T> command) {
-        SingleLockableSubscriber<T> subscriber = new SingleLockableSubscriber<>();
-        command.subscribe(subscriber);
-        subscriber.await();
-        Throwable error = subscriber.getError();
-        if (error != null) {
+    private static <T> T block(CompletableFuture<T> result) {
+        try {
+            return result.get(BLOCKING_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            Throwable error = unwrap(e);
             if (error instanceof RuntimeException) {
                 throw (RuntimeException) error;
             } else {
                 throw new LockException("Error when executing Mongo statement", error);
             }
-        } else {
-            return subscriber.getValue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LockException("Interrupted when executing Mongo statement", e);
+        } catch (TimeoutException e) {
+            throw new LockException("Timeout when executing Mongo statement", e);
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        if ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            return error.getCause();
         }
+        return error;
     }
 
     private MongoCollection<Document> getCollection() {
@@ -191,12 +221,36 @@ public class ReactiveStreamsMongoLockProvider implements ExtensibleLockProvider
 
         @Override
         public void doUnlock() {
-            mongoLockProvider.unlock(lockConfiguration);
+            block(mongoLockProvider.unlock(lockConfiguration));
         }
 
         @Override
         public Optional<SimpleLock> doExtend(LockConfiguration newLockConfiguration) {
-            return mongoLockProvider.extend(newLockConfiguration);
+            if (block(mongoLockProvider.extend(newLockConfiguration))) {
+                return Optional.of(new ReactiveMongoLock(newLockConfiguration, mongoLockProvider));
+            } else {
+                return Optional.empty();
+            }
+        }
+    }
+
+    private static final class ReactiveMongoAsyncLock extends AbstractAsyncSimpleLock {
+        private final ReactiveStreamsMongoLockProvider mongoLockProvider;
+
+        private ReactiveMongoAsyncLock(LockConfiguration lockConfiguration, ReactiveStreamsMongoLockProvider mongoLockProvider) {
+            super(lockConfiguration);
+            this.mongoLockProvider = mongoLockProvider;
+        }
+
+        @Override
+        protected CompletionStage<Void> doUnlockAsync() {
+            return mongoLockProvider.unlock(lockConfiguration);
+        }
+
+        @Override
+        protected CompletionStage<Optional<AsyncSimpleLock>> doExtendAsync(LockConfiguration newConfiguration) {
+            return mongoLockProvider.extend(newConfiguration)
+                .thenApply(extended -> extended ? Optional.of(new ReactiveMongoAsyncLock(newConfiguration, mongoLockProvider)) : Optional.empty());
         }
     }
 }
@@ -16,26 +16,30 @@
 package net.javacrumbs.shedlock.provider.mongo.reactivestreams;
 
 import net.javacrumbs.shedlock.support.annotation.Nullable;
+import org.reactivestreams.Publisher;
 import org.reactivestreams.Subscriber;
 import org.reactivestreams.Subscription;
 
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
 
 /**
- * Subscriber that expects a single result and allows locking until complete or error
+ * Subscriber that expects at most one result and completes a future with it, or with null if the publisher is empty.
+ * Does not block any thread.
  *
  * @param <T>
  */
-class SingleLockableSubscriber<T> implements Subscriber<T> {
+class SingleResultSubscriber<T> implements Subscriber<T> {
 
-    @Nullable
-    private T value;
+    private final CompletableFuture<T> result = new CompletableFuture<>();
 
     @Nullable
-    private Throwable error;
+    private T value;
 
-    private final CountDownLatch latch = new CountDownLatch(1);
+    static <T> CompletableFuture<T> toFuture(Publisher<T> publisher) {
+        SingleResultSubscriber<T> subscriber = new SingleResultSubscriber<>();
+        publisher.subscribe(subscriber);
+        return subscriber.result;
+    }
 
     @Override
     public void onSubscribe(Subscription subscription) {
@@ -49,28 +53,11 @@ class SingleLockableSubscriber<T> implements Subscriber<T> {
 
     @Override
     public void onError(Throwable throwable) {
-        this.error = throwable;
-        onComplete();
+        result.completeExceptionally(throwable);
     }
 
     @Override
     public void onComplete() {
-        latch.countDown();
-    }
-
-    T getValue() {
-        return value;
-    }
-
-    Throwable getError() {
-        return error;
-    }
-
-    void await() {
-        try {
-            latch.await(10, TimeUnit.SECONDS);
-        } catch (InterruptedException e) {
-            this.error = e;
-        }
+        result.complete(value);
     }
 }
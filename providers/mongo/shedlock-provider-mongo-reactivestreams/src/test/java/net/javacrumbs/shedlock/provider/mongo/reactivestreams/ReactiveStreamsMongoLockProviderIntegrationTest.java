@@ -24,14 +24,14 @@ import de.flapdoodle.embed.mongo.MongodProcess;
 import de.flapdoodle.embed.mongo.MongodStarter;
 import de.flapdoodle.embed.mongo.config.MongodConfig;
 import de.flapdoodle.embed.mongo.distribution.Version;
-import net.javacrumbs.shedlock.core.ExtensibleLockProvider;
 import net.javacrumbs.shedlock.core.LockProvider;
-import net.javacrumbs.shedlock.test.support.AbstractExtensibleLockProviderIntegrationTest;
+import net.javacrumbs.shedlock.test.support.AbstractAsyncLockProviderIntegrationTest;
 import org.bson.Document;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
 
 import java.io.IOException;
 import java.util.Date;
@@ -42,11 +42,11 @@ import static net.javacrumbs.shedlock.provider.mongo.reactivestreams.ReactiveStr
 import static net.javacrumbs.shedlock.provider.mongo.reactivestreams.ReactiveStreamsMongoLockProvider.LOCKED_AT;
 import static net.javacrumbs.shedlock.provider.mongo.reactivestreams.ReactiveStreamsMongoLockProvider.LOCKED_BY;
 import static net.javacrumbs.shedlock.provider.mongo.reactivestreams.ReactiveStreamsMongoLockProvider.LOCK_UNTIL;
-import static net.javacrumbs.shedlock.provider.mongo.reactivestreams.ReactiveStreamsMongoLockProvider.execute;
+import static net.javacrumbs.shedlock.provider.mongo.reactivestreams.SingleResultSubscriber.toFuture;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assumptions.assumeThat;
 
-public class ReactiveStreamsMongoLockProviderIntegrationTest extends AbstractExtensibleLockProviderIntegrationTest {
+public class ReactiveStreamsMongoLockProviderIntegrationTest extends AbstractAsyncLockProviderIntegrationTest {
     private static final MongodStarter starter = MongodStarter.getDefaultInstance();
 
     private static final String DB_NAME = "db";
@@ -80,7 +80,7 @@ public class ReactiveStreamsMongoLockProviderIntegrationTest extends AbstractExt
     }
 
     @Override
-    protected ExtensibleLockProvider getLockProvider() {
+    protected ReactiveStreamsMongoLockProvider getLockProvider() {
         return new ReactiveStreamsMongoLockProvider(mongo.getDatabase(DB_NAME));
     }
 
@@ -112,6 +112,10 @@ public class ReactiveStreamsMongoLockProviderIntegrationTest extends AbstractExt
         return execute(getLockCollection().find(eq(ID, lockName)).first());
     }
 
+    private static <T> T execute(Publisher<T> command) {
+        return toFuture(command).join();
+    }
+
     @Test
     public void shouldLockWhenDocumentRemovedExternally() {
         LockProvider provider = getLockProvider();
@@ -24,17 +24,23 @@ import net.javacrumbs.shedlock.core.ClockProvider;
 import net.javacrumbs.shedlock.core.ExtensibleLockProvider;
 import net.javacrumbs.shedlock.core.LockConfiguration;
 import net.javacrumbs.shedlock.core.SimpleLock;
+import net.javacrumbs.shedlock.support.ExpiredLockRecordRemover;
 import net.javacrumbs.shedlock.support.Utils;
 import org.bson.Document;
 import org.bson.conversions.Bson;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import static com.mongodb.client.model.Filters.and;
 import static com.mongodb.client.model.Filters.eq;
 import static com.mongodb.client.model.Filters.gt;
+import static com.mongodb.client.model.Filters.in;
+import static com.mongodb.client.model.Filters.lt;
 import static com.mongodb.client.model.Filters.lte;
+import static com.mongodb.client.model.Projections.include;
 import static com.mongodb.client.model.Updates.combine;
 import static com.mongodb.client.model.Updates.set;
 
@@ -69,7 +75,7 @@ import static com.mongodb.client.model.Updates.set;
  * </li>
  * </ol>
  */
-public class MongoLockProvider implements ExtensibleLockProvider {
+public class MongoLockProvider implements ExtensibleLockProvider, ExpiredLockRecordRemover {
     static final String LOCK_UNTIL = "lockUntil";
     static final String LOCKED_AT = "lockedAt";
     static final String LOCKED_BY = "lockedBy";
@@ -154,6 +160,23 @@ public class MongoLockProvider implements ExtensibleLockProvider {
         );
     }
 
+    /**
+     * Reads ids of at most limit expired documents and deletes them using deleteMany. lockUntil is checked again,
+     * so documents locked in the meantime are not deleted.
+     */
+    @Override
+    public int removeExpiredLockRecords(Instant lockUntilBefore, int limit) {
+        List<Object> ids = getCollection().find(lt(LOCK_UNTIL, lockUntilBefore))
+            .projection(include(ID))
+            .limit(limit)
+            .map(document -> document.get(ID))
+            .into(new ArrayList<>());
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return (int) getCollection().deleteMany(and(in(ID, ids), lt(LOCK_UNTIL, lockUntilBefore))).getDeletedCount();
+    }
+
     private MongoCollection<Document> getCollection() {
         return collection;
     }
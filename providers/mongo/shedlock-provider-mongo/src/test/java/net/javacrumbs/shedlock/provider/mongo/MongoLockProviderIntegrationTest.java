@@ -24,6 +24,7 @@ import de.flapdoodle.embed.mongo.MongodProcess;
 import de.flapdoodle.embed.mongo.MongodStarter;
 import de.flapdoodle.embed.mongo.config.MongodConfig;
 import de.flapdoodle.embed.mongo.distribution.Version;
+import net.javacrumbs.shedlock.core.ClockProvider;
 import net.javacrumbs.shedlock.core.ExtensibleLockProvider;
 import net.javacrumbs.shedlock.core.LockProvider;
 import net.javacrumbs.shedlock.test.support.AbstractExtensibleLockProviderIntegrationTest;
@@ -34,6 +35,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.time.Instant;
 import java.util.Date;
 
 import static com.mongodb.client.model.Filters.eq;
@@ -123,4 +125,16 @@ public class MongoLockProviderIntegrationTest extends AbstractExtensibleLockProv
         assertThat(provider.lock(lockConfig(LOCK_NAME1))).isNotEmpty();
         assertLocked(LOCK_NAME1);
     }
+
+    @Test
+    public void shouldRemoveExpiredLockDocuments() {
+        MongoLockProvider provider = (MongoLockProvider) getLockProvider();
+        provider.lock(lockConfig(LOCK_NAME1)).get().unlock();
+        assertThat(provider.lock(lockConfig("other"))).isNotEmpty();
+
+        Instant lockUntilBefore = ClockProvider.now().plusMillis(1);
+        assertThat(provider.removeExpiredLockRecords(lockUntilBefore, 10)).isEqualTo(1);
+        assertThat(getLockDocument(LOCK_NAME1)).isNull();
+        assertThat(getLockDocument("other")).isNotNull();
+    }
 }
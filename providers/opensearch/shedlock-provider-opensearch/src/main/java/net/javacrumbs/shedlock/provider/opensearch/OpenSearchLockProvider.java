@@ -16,25 +16,38 @@
 package net.javacrumbs.shedlock.provider.opensearch;
 
 import net.javacrumbs.shedlock.core.AbstractSimpleLock;
+import net.javacrumbs.shedlock.core.BatchLockProvider;
 import net.javacrumbs.shedlock.core.LockConfiguration;
-import net.javacrumbs.shedlock.core.LockProvider;
 import net.javacrumbs.shedlock.core.SimpleLock;
 import net.javacrumbs.shedlock.support.LockException;
 import net.javacrumbs.shedlock.support.annotation.NonNull;
 import org.opensearch.OpenSearchException;
 import org.opensearch.action.DocWriteResponse;
+import org.opensearch.action.admin.cluster.storedscripts.PutStoredScriptRequest;
+import org.opensearch.action.bulk.BulkItemResponse;
+import org.opensearch.action.bulk.BulkRequest;
+import org.opensearch.action.bulk.BulkResponse;
+import org.opensearch.action.support.WriteRequest.RefreshPolicy;
 import org.opensearch.action.update.UpdateRequest;
 import org.opensearch.action.update.UpdateResponse;
 import org.opensearch.client.RequestOptions;
 import org.opensearch.client.RestHighLevelClient;
+import org.opensearch.common.bytes.BytesReference;
+import org.opensearch.common.xcontent.XContentBuilder;
+import org.opensearch.common.xcontent.XContentFactory;
+import org.opensearch.common.xcontent.XContentType;
 import org.opensearch.rest.RestStatus;
 import org.opensearch.script.Script;
 import org.opensearch.script.ScriptType;
 
 import java.io.IOException;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -79,14 +92,18 @@ import static org.opensearch.action.support.WriteRequest.RefreshPolicy.IMMEDIATE
  * When unlocking, lock_until is set to now.
  * </li>
  * </ol>
+ * The scripts are sent inline by default. If {@link Builder#usingStoredScripts()} is set, they are registered once
+ * as stored scripts and referenced by id. {@link #lockAll(Collection)} and {@link #unlockAll(Collection)} use the _bulk API.
  */
-public class OpenSearchLockProvider implements LockProvider {
+public class OpenSearchLockProvider implements BatchLockProvider {
     static final String SCHEDLOCK_DEFAULT_INDEX = "shedlock";
     static final String LOCK_UNTIL = "lockUntil";
     static final String LOCKED_AT = "lockedAt";
     static final String LOCKED_BY = "lockedBy";
     static final String NAME = "name";
-
+    static final String LOCK_SCRIPT_ID = "shedlock-lock";
+    static final String UNLOCK_SCRIPT_ID = "shedlock-unlock";
+    private static final int DEFAULT_RETRY_ON_CONFLICT = 3;
 
     private static final String UPDATE_SCRIPT =
         "if (ctx._source." + LOCK_UNTIL + " <= " + "params." + LOCKED_AT + ") { " +
@@ -97,34 +114,35 @@ public class OpenSearchLockProvider implements LockProvider {
             "ctx.op = 'none' " +
             "}";
 
+    private static final String UNLOCK_SCRIPT = "ctx._source." + LOCK_UNTIL + " = params.unlockTime";
+
     private final RestHighLevelClient highLevelClient;
     private final String hostname;
     private final String index;
+    private final boolean useStoredScripts;
+    private final RefreshPolicy refreshPolicy;
+    private final int retryOnConflict;
+    private volatile boolean scriptsStored;
 
-    private OpenSearchLockProvider(@NonNull RestHighLevelClient highLevelClient, @NonNull String index) {
-        this.highLevelClient = highLevelClient;
+    private OpenSearchLockProvider(Builder builder) {
+        this.highLevelClient = builder.highLevelClient;
         this.hostname = getHostname();
-        this.index = index;
+        this.index = builder.index;
+        this.useStoredScripts = builder.useStoredScripts;
+        this.refreshPolicy = builder.refreshPolicy;
+        this.retryOnConflict = builder.retryOnConflict;
     }
 
     public OpenSearchLockProvider(@NonNull RestHighLevelClient highLevelClient) {
-        this(highLevelClient, SCHEDLOCK_DEFAULT_INDEX);
+        this(new Builder(highLevelClient));
     }
 
     @Override
     @NonNull
     public Optional<SimpleLock> lock(@NonNull LockConfiguration lockConfiguration) {
         try {
-            Map<String, Object> lockObject = lockObject(lockConfiguration.getName(),
-                lockConfiguration.getLockAtMostUntil(),
-                now());
-            UpdateRequest ur = updateRequest(lockConfiguration)
-                .script(new Script(ScriptType.INLINE,
-                    "painless",
-                    UPDATE_SCRIPT,
-                    lockObject)
-                )
-                .upsert(lockObject);
+            UpdateRequest ur = lockRequest(lockConfiguration, now())
+                .setRefreshPolicy(refreshPolicy);
             UpdateResponse res = highLevelClient.update(ur, RequestOptions.DEFAULT);
             if (res.getResult() != DocWriteResponse.Result.NOOP) {
                 return Optional.of(new OpenSearchSimpleLock(lockConfiguration));
@@ -140,11 +158,149 @@ public class OpenSearchLockProvider implements LockProvider {
         }
     }
 
+    /**
+     * Tries to acquire all the locks using one _bulk request.
+     */
+    @Override
+    @NonNull
+    public Map<String, Optional<SimpleLock>> lockAll(@NonNull Collection<LockConfiguration> lockConfigurations) {
+        Map<String, Optional<SimpleLock>> result = new LinkedHashMap<>();
+        BulkRequest bulkRequest = new BulkRequest().setRefreshPolicy(refreshPolicy);
+        try {
+            Instant now = now();
+            for (LockConfiguration lockConfiguration : lockConfigurations) {
+                String name = lockConfiguration.getName();
+                if (result.put(name, Optional.empty()) != null) {
+                    throw new IllegalArgumentException("Duplicate lock name '" + name + "'");
+                }
+                bulkRequest.add(lockRequest(lockConfiguration, now));
+            }
+            if (bulkRequest.numberOfActions() == 0) {
+                return result;
+            }
+
+            BulkItemResponse[] items = highLevelClient.bulk(bulkRequest, RequestOptions.DEFAULT).getItems();
+            List<LockConfiguration> configurations = new ArrayList<>(lockConfigurations);
+            LockException error = null;
+            for (int i = 0; i < items.length; i++) {
+                BulkItemResponse item = items[i];
+                LockConfiguration lockConfiguration = configurations.get(i);
+                if (!item.isFailed()) {
+                    if (item.getResponse().getResult() != DocWriteResponse.Result.NOOP) {
+                        result.put(lockConfiguration.getName(), Optional.of(new OpenSearchSimpleLock(lockConfiguration)));
+                    }
+                } else if (item.status() != RestStatus.CONFLICT && error == null) {
+                    error = new LockException("Can not lock " + lockConfiguration.getName() + ": " + item.getFailureMessage());
+                }
+            }
+            if (error != null) {
+                // do not keep locks nobody knows about
+                unlockAll(acquired(result));
+                throw error;
+            }
+            return result;
+        } catch (IOException | OpenSearchException e) {
+            throw new LockException("Unexpected exception occurred", e);
+        }
+    }
+
+    /**
+     * Releases locks acquired by this provider using one _bulk request.
+     *
+     * @param locks locks returned by this provider
+     * @throws IllegalStateException if any of the locks has already been unlocked or extended
+     */
+    public void unlockAll(@NonNull Collection<SimpleLock> locks) {
+        List<OpenSearchSimpleLock> released = new ArrayList<>(locks.size());
+        RuntimeException invalidLock = null;
+        for (SimpleLock lock : locks) {
+            if (!(lock instanceof OpenSearchSimpleLock)) {
+                throw new IllegalArgumentException("Lock " + lock + " has not been created by OpenSearchLockProvider");
+            }
+            OpenSearchSimpleLock openSearchLock = (OpenSearchSimpleLock) lock;
+            openSearchLock.releasedInBulk = true;
+            try {
+                openSearchLock.unlock();
+                released.add(openSearchLock);
+            } catch (RuntimeException e) {
+                openSearchLock.releasedInBulk = false;
+                invalidLock = e;
+            }
+        }
+        try {
+            if (!released.isEmpty()) {
+                BulkRequest bulkRequest = new BulkRequest().setRefreshPolicy(refreshPolicy);
+                for (OpenSearchSimpleLock lock : released) {
+                    bulkRequest.add(lock.unlockRequest());
+                }
+                BulkResponse response = highLevelClient.bulk(bulkRequest, RequestOptions.DEFAULT);
+                if (response.hasFailures()) {
+                    throw new LockException("Can not unlock all the locks " + response.buildFailureMessage());
+                }
+            }
+        } catch (IOException | OpenSearchException e) {
+            throw new LockException("Unexpected exception occurred", e);
+        }
+        if (invalidLock != null) {
+            throw invalidLock;
+        }
+    }
+
+    private static List<SimpleLock> acquired(Map<String, Optional<SimpleLock>> locks) {
+        List<SimpleLock> acquired = new ArrayList<>();
+        locks.values().forEach(lock -> lock.ifPresent(acquired::add));
+        return acquired;
+    }
+
+    private UpdateRequest lockRequest(LockConfiguration lockConfiguration, Instant now) throws IOException {
+        Map<String, Object> lockObject = lockObject(lockConfiguration.getName(),
+            lockConfiguration.getLockAtMostUntil(),
+            now);
+        return updateRequest(lockConfiguration)
+            .script(script(LOCK_SCRIPT_ID, UPDATE_SCRIPT, lockObject))
+            .upsert(lockObject);
+    }
+
     private UpdateRequest updateRequest(@NonNull LockConfiguration lockConfiguration) {
         return new UpdateRequest()
             .index(index)
             .id(lockConfiguration.getName())
-            .setRefreshPolicy(IMMEDIATE);
+            .retryOnConflict(retryOnConflict);
+    }
+
+    private Script script(String id, String source, Map<String, Object> params) throws IOException {
+        if (useStoredScripts) {
+            storeScripts();
+            return new Script(ScriptType.STORED, null, id, params);
+        } else {
+            return new Script(ScriptType.INLINE, "painless", source, params);
+        }
+    }
+
+    /**
+     * Registers the scripts once, so they are compiled only once by the cluster.
+     */
+    private void storeScripts() throws IOException {
+        if (!scriptsStored) {
+            synchronized (this) {
+                if (!scriptsStored) {
+                    putScript(LOCK_SCRIPT_ID, UPDATE_SCRIPT);
+                    putScript(UNLOCK_SCRIPT_ID, UNLOCK_SCRIPT);
+                    scriptsStored = true;
+                }
+            }
+        }
+    }
+
+    private void putScript(String id, String source) throws IOException {
+        XContentBuilder content = XContentFactory.jsonBuilder()
+            .startObject()
+                .startObject("script")
+                    .field("lang", "painless")
+                    .field("source", source)
+                .endObject()
+            .endObject();
+        highLevelClient.putScript(new PutStoredScriptRequest().id(id).content(BytesReference.bytes(content), XContentType.JSON), RequestOptions.DEFAULT);
     }
 
     private Map<String, Object> lockObject(String name, Instant lockUntil, Instant lockedAt) {
@@ -157,6 +313,8 @@ public class OpenSearchLockProvider implements LockProvider {
     }
 
     private final class OpenSearchSimpleLock extends AbstractSimpleLock {
+        // the update is sent by unlockAll
+        private boolean releasedInBulk;
 
         private OpenSearchSimpleLock(LockConfiguration lockConfiguration) {
             super(lockConfiguration);
@@ -164,17 +322,69 @@ public class OpenSearchLockProvider implements LockProvider {
 
         @Override
         public void doUnlock() {
+            if (releasedInBulk) {
+                return;
+            }
             // Set lockUtil to now or lockAtLeastUntil whichever is later
             try {
-                UpdateRequest ur = updateRequest(lockConfiguration)
-                    .script(new Script(ScriptType.INLINE,
-                        "painless",
-                        "ctx._source.lockUntil = params.unlockTime",
-                        Collections.singletonMap("unlockTime", lockConfiguration.getUnlockTime().toEpochMilli())));
-                highLevelClient.update(ur, RequestOptions.DEFAULT);
+                highLevelClient.update(unlockRequest().setRefreshPolicy(refreshPolicy), RequestOptions.DEFAULT);
             } catch (IOException | OpenSearchException e) {
                 throw new LockException("Unexpected exception occurred", e);
             }
         }
+
+        private UpdateRequest unlockRequest() throws IOException {
+            return updateRequest(lockConfiguration)
+                .script(script(UNLOCK_SCRIPT_ID, UNLOCK_SCRIPT,
+                    Collections.singletonMap("unlockTime", lockConfiguration.getUnlockTime().toEpochMilli())));
+        }
+    }
+
+    public static final class Builder {
+        private final RestHighLevelClient highLevelClient;
+        private String index = SCHEDLOCK_DEFAULT_INDEX;
+        private boolean useStoredScripts = false;
+        private RefreshPolicy refreshPolicy = IMMEDIATE;
+        private int retryOnConflict = DEFAULT_RETRY_ON_CONFLICT;
+
+        public Builder(@NonNull RestHighLevelClient highLevelClient) {
+            this.highLevelClient = highLevelClient;
+        }
+
+        public Builder withIndex(@NonNull String index) {
+            this.index = index;
+            return this;
+        }
+
+        /**
+         * Registers the lock and unlock scripts as stored scripts and references them by id, so the cluster
+         * does not have to look up the inline script in the compilation cache on each request.
+         */
+        public Builder usingStoredScripts() {
+            this.useStoredScripts = true;
+            return this;
+        }
+
+        /**
+         * Refresh policy of lock updates, {@link RefreshPolicy#IMMEDIATE} by default. The provider reads the lock documents
+         * only by id, which is real-time, so {@link RefreshPolicy#NONE} is safe if the index is not searched by other tools.
+         */
+        public Builder withRefreshPolicy(@NonNull RefreshPolicy refreshPolicy) {
+            this.refreshPolicy = refreshPolicy;
+            return this;
+        }
+
+        /**
+         * How many times the update is retried if the lock document is changed concurrently, 3 by default.
+         * The script is evaluated again, so concurrent attempts result in no-op instead of 409 Conflict.
+         */
+        public Builder withRetryOnConflict(int retryOnConflict) {
+            this.retryOnConflict = retryOnConflict;
+            return this;
+        }
+
+        public OpenSearchLockProvider build() {
+            return new OpenSearchLockProvider(this);
+        }
     }
 }
@@ -16,11 +16,14 @@
 package net.javacrumbs.shedlock.provider.opensearch;
 
 import net.javacrumbs.container.OpenSearchContainer;
+import net.javacrumbs.shedlock.core.LockConfiguration;
 import net.javacrumbs.shedlock.core.LockProvider;
+import net.javacrumbs.shedlock.core.SimpleLock;
 import net.javacrumbs.shedlock.test.support.AbstractLockProviderIntegrationTest;
 import org.apache.http.HttpHost;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.opensearch.action.get.GetRequest;
 import org.opensearch.action.get.GetResponse;
 import org.opensearch.client.RequestOptions;
@@ -32,7 +35,10 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 import java.io.IOException;
 import java.time.Duration;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
 
 import static net.javacrumbs.shedlock.provider.opensearch.OpenSearchLockProvider.LOCKED_AT;
 import static net.javacrumbs.shedlock.provider.opensearch.OpenSearchLockProvider.LOCKED_BY;
@@ -104,4 +110,24 @@ public class OpenSearchLockProviderTest extends AbstractLockProviderIntegrationT
     private Date now() {
         return new Date();
     }
+
+    @Test
+    public void shouldLockAndUnlockAllUsingStoredScripts() {
+        String otherLockName = UUID.randomUUID().toString();
+        OpenSearchLockProvider provider = new OpenSearchLockProvider.Builder(highLevelClient)
+            .usingStoredScripts()
+            .build();
+        Optional<SimpleLock> otherLock = provider.lock(lockConfig(otherLockName));
+        assertThat(otherLock).isPresent();
+
+        List<LockConfiguration> configurations = List.of(lockConfig(LOCK_NAME1), lockConfig(otherLockName));
+        Map<String, Optional<SimpleLock>> locks = provider.lockAll(configurations);
+        assertThat(locks.get(LOCK_NAME1)).isPresent();
+        assertThat(locks.get(otherLockName)).isEmpty();
+        assertLocked(LOCK_NAME1);
+
+        provider.unlockAll(List.of(locks.get(LOCK_NAME1).get(), otherLock.get()));
+        assertUnlocked(LOCK_NAME1);
+        assertUnlocked(otherLockName);
+    }
 }
@@ -19,13 +19,19 @@ import io.r2dbc.spi.R2dbcDataIntegrityViolationException;
 import io.r2dbc.spi.Statement;
 import net.javacrumbs.shedlock.core.ClockProvider;
 import net.javacrumbs.shedlock.core.LockConfiguration;
+import net.javacrumbs.shedlock.provider.jdbc.internal.ServerTimeStatements;
 import net.javacrumbs.shedlock.support.AbstractStorageAccessor;
 import net.javacrumbs.shedlock.support.LockException;
+import net.javacrumbs.shedlock.support.LockTableResolver;
 import net.javacrumbs.shedlock.support.annotation.NonNull;
+import net.javacrumbs.shedlock.support.annotation.Nullable;
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Mono;
 
 import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
@@ -35,10 +41,21 @@ import static java.util.Objects.requireNonNull;
  * Internal class, please do not use.
  */
 abstract class AbstractR2dbcStorageAccessor extends AbstractStorageAccessor {
-    private final String tableName;
+    private final LockTableResolver lockTableResolver;
+    private final boolean useDbTime;
+    // SQL depends only on the table and the dialect, so it is built once per table
+    private final Map<String, Statements> statements = new ConcurrentHashMap<>();
 
-    public AbstractR2dbcStorageAccessor(@NonNull String tableName) {
-        this.tableName = requireNonNull(tableName, "tableName can not be null");
+    public AbstractR2dbcStorageAccessor(@NonNull LockTableResolver lockTableResolver) {
+        this(lockTableResolver, false);
+    }
+
+    /**
+     * @param useDbTime if true, time of the database server is used instead of the time of the client, see {@link ServerTimeStatements}
+     */
+    public AbstractR2dbcStorageAccessor(@NonNull LockTableResolver lockTableResolver, boolean useDbTime) {
+        this.lockTableResolver = requireNonNull(lockTableResolver, "lockTableResolver can not be null");
+        this.useDbTime = useDbTime;
     }
 
     @Override
@@ -61,10 +78,18 @@ abstract class AbstractR2dbcStorageAccessor extends AbstractStorageAccessor {
         Mono.from(unlockReactive(lockConfiguration)).block();
     }
 
+    @Override
+    public boolean upsertRecord(@NonNull LockConfiguration lockConfiguration) {
+        return Boolean.TRUE.equals(Mono.from(upsertRecordReactive(lockConfiguration)).block());
+    }
+
     public Publisher<Boolean> insertRecordReactive(@NonNull LockConfiguration lockConfiguration) {
         // Try to insert if the record does not exist (not optimal, but the simplest platform agnostic way)
-        String sql = "INSERT INTO " + tableName + "(name, lock_until, locked_at, locked_by) VALUES(" + toParameter(1, "name") + ", " + toParameter(2, "lock_until") + ", " + toParameter(3, "locked_at") + ", " + toParameter(4, "locked_by") + ")";
-        return executeCommand(sql, statement -> {
+        Statements statements = statements(lockConfiguration);
+        if (statements.serverTime != null) {
+            return executeServerTime(statements.serverTime, statements.serverTime.getInsertStatement(), lockConfiguration, this::handleInsertionException);
+        }
+        return executeCommand(statements.insertStatement, statement -> {
             bind(statement, 0, "name", lockConfiguration.getName());
             bind(statement, 1, "lock_until", lockConfiguration.getLockAtMostUntil());
             bind(statement, 2, "locked_at", ClockProvider.now());
@@ -73,9 +98,30 @@ abstract class AbstractR2dbcStorageAccessor extends AbstractStorageAccessor {
         }, this::handleInsertionException);
     }
 
-    public Publisher<Boolean> updateRecordReactive(@NonNull LockConfiguration lockConfiguration) {
-        String sql = "UPDATE " + tableName + " SET lock_until = " + toParameter(1, "lock_until") + ", locked_at = " + toParameter(2, "locked_at") + ", locked_by = " + toParameter(3, "locked_by") + " WHERE name = " + toParameter(4, "name") + " AND lock_until <= " + toParameter(5, "now");
+    /**
+     * Inserts the record or updates it if it is not locked, in one statement. Can be used only if
+     * {@link #supportsUpsert()} returns true.
+     */
+    public Publisher<Boolean> upsertRecordReactive(@NonNull LockConfiguration lockConfiguration) {
+        String sql = statements(lockConfiguration).upsertStatement;
+        if (sql == null) {
+            return Mono.error(new UnsupportedOperationException("Upsert is not supported by the database"));
+        }
         return executeCommand(sql, statement -> {
+            bind(statement, 0, "name", lockConfiguration.getName());
+            bind(statement, 1, "lock_until", lockConfiguration.getLockAtMostUntil());
+            bind(statement, 2, "locked_at", ClockProvider.now());
+            bind(statement, 3, "locked_by", getHostname());
+            return Mono.from(statement.execute()).flatMap(it -> Mono.from(it.getRowsUpdated())).map(it -> it > 0);
+        }, this::handleUpdateException);
+    }
+
+    public Publisher<Boolean> updateRecordReactive(@NonNull LockConfiguration lockConfiguration) {
+        Statements statements = statements(lockConfiguration);
+        if (statements.serverTime != null) {
+            return executeServerTime(statements.serverTime, statements.serverTime.getUpdateStatement(), lockConfiguration, this::handleUpdateException);
+        }
+        return executeCommand(statements.updateStatement, statement -> {
             Instant now = ClockProvider.now();
             bind(statement, 0, "lock_until", lockConfiguration.getLockAtMostUntil());
             bind(statement, 1, "locked_at", now);
@@ -87,11 +133,13 @@ abstract class AbstractR2dbcStorageAccessor extends AbstractStorageAccessor {
     }
 
     public Publisher<Boolean> extendReactive(@NonNull LockConfiguration lockConfiguration) {
-        String sql = "UPDATE " + tableName + " SET lock_until = " + toParameter(1, "lock_until") + " WHERE name = " + toParameter(2, "name") + " AND locked_by = " + toParameter(3, "locked_by") + " AND lock_until > " + toParameter(4, "now");
-
         logger.debug("Extending lock={} until={}", lockConfiguration.getName(), lockConfiguration.getLockAtMostUntil());
 
-        return executeCommand(sql, statement -> {
+        Statements statements = statements(lockConfiguration);
+        if (statements.serverTime != null) {
+            return executeServerTime(statements.serverTime, statements.serverTime.getExtendStatement(), lockConfiguration, this::handleUnlockException);
+        }
+        return executeCommand(statements.extendStatement, statement -> {
             bind(statement, 0, "lock_until", lockConfiguration.getLockAtMostUntil());
             bind(statement, 1, "name", lockConfiguration.getName());
             bind(statement, 2, "locked_by", getHostname());
@@ -101,14 +149,40 @@ abstract class AbstractR2dbcStorageAccessor extends AbstractStorageAccessor {
     }
 
     public Publisher<Void> unlockReactive(@NonNull LockConfiguration lockConfiguration) {
-        String sql = "UPDATE " + tableName + " SET lock_until = " + toParameter(1, "lock_until") + " WHERE name = " + toParameter(2, "name");
-        return executeCommand(sql, statement -> {
+        Statements statements = statements(lockConfiguration);
+        if (statements.serverTime != null) {
+            return executeServerTime(statements.serverTime, statements.serverTime.getUnlockStatement(), lockConfiguration, this::handleUnlockException).then();
+        }
+        return executeCommand(statements.unlockStatement, statement -> {
             bind(statement, 0, "lock_until", lockConfiguration.getUnlockTime());
             bind(statement, 1, "name", lockConfiguration.getName());
             return Mono.from(statement.execute()).flatMap(it -> Mono.from(it.getRowsUpdated())).then();
         }, (s, t) -> handleUnlockException(s, t).then());
     }
 
+    /**
+     * Binds the durations instead of timestamps, lock_until is computed by the database.
+     */
+    private Mono<Boolean> executeServerTime(
+        ServerTimeStatements serverTime,
+        ServerTimeStatements.Statement sql,
+        LockConfiguration lockConfiguration,
+        BiFunction<String, Throwable, Mono<Boolean>> exceptionHandler
+    ) {
+        return executeCommand(sql.getSql(), statement -> {
+            List<ServerTimeStatements.Parameter> parameters = sql.getParameters();
+            for (int i = 0; i < parameters.size(); i++) {
+                ServerTimeStatements.Parameter parameter = parameters.get(i);
+                bind(statement, i, parameter.getParameterName(), serverTime.value(parameter, lockConfiguration, getHostname()));
+            }
+            return Mono.from(statement.execute()).flatMap(it -> Mono.from(it.getRowsUpdated())).map(it -> it > 0);
+        }, exceptionHandler);
+    }
+
+    private Statements statements(LockConfiguration lockConfiguration) {
+        return statements.computeIfAbsent(lockTableResolver.resolveTableName(lockConfiguration.getName()), Statements::new);
+    }
+
     protected abstract <T> Mono<T> executeCommand(
         String sql,
         Function<Statement, Mono<T>> body,
@@ -117,8 +191,23 @@ abstract class AbstractR2dbcStorageAccessor extends AbstractStorageAccessor {
 
     protected abstract String toParameter(int index, String name);
 
+    /**
+     * @return upsert statement in the dialect of the database, null if the database does not support it
+     */
+    @Nullable
+    protected abstract String upsertStatement(String tableName);
+
     protected abstract void bind(Statement statement, int index, String name, Object value);
 
+    /**
+     * @return name of the database as reported by the connection factory metadata, used only with DB time
+     */
+    protected abstract String getDatabaseProductName();
+
+    protected boolean usesDbTime() {
+        return useDbTime;
+    }
+
     Mono<Boolean> handleInsertionException(String sql, Throwable e) {
         if (e instanceof R2dbcDataIntegrityViolationException) {
             // lock record already exists
@@ -137,4 +226,26 @@ abstract class AbstractR2dbcStorageAccessor extends AbstractStorageAccessor {
     Mono<Boolean> handleUnlockException(String sql, Throwable e) {
         return Mono.error(new LockException("Unexpected exception when unlocking", e));
     }
+
+    private final class Statements {
+        private final String insertStatement;
+        @Nullable
+        private final String upsertStatement;
+        private final String updateStatement;
+        private final String extendStatement;
+        private final String unlockStatement;
+        @Nullable
+        private final ServerTimeStatements serverTime;
+
+        private Statements(String tableName) {
+            this.serverTime = useDbTime
+                ? new ServerTimeStatements(ServerTimeStatements.Dialect.fromDatabaseProductName(getDatabaseProductName()), tableName, AbstractR2dbcStorageAccessor.this::toParameter)
+                : null;
+            this.insertStatement = "INSERT INTO " + tableName + "(name, lock_until, locked_at, locked_by) VALUES(" + toParameter(1, "name") + ", " + toParameter(2, "lock_until") + ", " + toParameter(3, "locked_at") + ", " + toParameter(4, "locked_by") + ")";
+            this.upsertStatement = useDbTime ? null : upsertStatement(tableName);
+            this.updateStatement = "UPDATE " + tableName + " SET lock_until = " + toParameter(1, "lock_until") + ", locked_at = " + toParameter(2, "locked_at") + ", locked_by = " + toParameter(3, "locked_by") + " WHERE name = " + toParameter(4, "name") + " AND lock_until <= " + toParameter(5, "now");
+            this.extendStatement = "UPDATE " + tableName + " SET lock_until = " + toParameter(1, "lock_until") + " WHERE name = " + toParameter(2, "name") + " AND locked_by = " + toParameter(3, "locked_by") + " AND lock_until > " + toParameter(4, "now");
+            this.unlockStatement = "UPDATE " + tableName + " SET lock_until = " + toParameter(1, "lock_until") + " WHERE name = " + toParameter(2, "name");
+        }
+    }
 }
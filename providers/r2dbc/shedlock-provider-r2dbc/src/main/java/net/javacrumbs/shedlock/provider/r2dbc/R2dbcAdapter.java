@@ -2,6 +2,7 @@ package net.javacrumbs.shedlock.provider.r2dbc;
 
 import io.r2dbc.spi.Statement;
 import net.javacrumbs.shedlock.support.annotation.NonNull;
+import net.javacrumbs.shedlock.support.annotation.Nullable;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
@@ -13,6 +14,7 @@ abstract class R2dbcAdapter {
     private static final String MYSQL_NAME = "MySQL";
     private static final String MARIA_NAME = "MariaDB";
     private static final String ORACLE_NAME = "Oracle Database";
+    private static final String POSTGRES_NAME = "PostgreSQL";
 
     static R2dbcAdapter create(@NonNull String driver) {
         switch (driver) {
@@ -20,30 +22,48 @@ abstract class R2dbcAdapter {
                 return new DefaultR2dbcAdapter(
                     (index, name) -> "@" + name,
                     R2dbcAdapter::toLocalDate,
-                    R2dbcAdapter::bindByName
+                    R2dbcAdapter::bindByName,
+                    null
                 );
             case MYSQL_NAME:
             case MARIA_NAME:
                 return new DefaultR2dbcAdapter(
                     (index, name) -> "?",
                     R2dbcAdapter::toLocalDate,
-                    R2dbcAdapter::bindByIndex
+                    R2dbcAdapter::bindByIndex,
+                    null
                 );
             case ORACLE_NAME:
                 return new DefaultR2dbcAdapter(
                     (index, name) -> ":" + name,
                     R2dbcAdapter::toLocalDate,
-                    R2dbcAdapter::bindByName
+                    R2dbcAdapter::bindByName,
+                    null
+                );
+            case POSTGRES_NAME:
+                return new DefaultR2dbcAdapter(
+                    (index, name) -> "$" + index,
+                    R2dbcAdapter::toInstant,
+                    R2dbcAdapter::bindByIndex,
+                    R2dbcAdapter::postgresUpsert
                 );
             default:
                 return new DefaultR2dbcAdapter(
                     (index, name) -> "$" + index,
                     R2dbcAdapter::toInstant,
-                    R2dbcAdapter::bindByIndex
+                    R2dbcAdapter::bindByIndex,
+                    null
                 );
         }
     }
 
+    // parameters are reused, the driver binds them by index
+    private static String postgresUpsert(String tableName) {
+        return "INSERT INTO " + tableName + "(name, lock_until, locked_at, locked_by) VALUES($1, $2, $3, $4)" +
+            " ON CONFLICT (name) DO UPDATE SET lock_until = $2, locked_at = $3, locked_by = $4" +
+            " WHERE " + tableName + ".lock_until <= $3";
+    }
+
     private static Instant toInstant(Instant date) {
         return date;
     }
@@ -64,19 +84,42 @@ abstract class R2dbcAdapter {
 
     public abstract void bind(Statement statement, int index, String name, Object value);
 
+    protected abstract boolean supportsUpsert();
+
+    /**
+     * @return statement that inserts the record or updates it if it is not locked, null if not supported
+     */
+    @Nullable
+    protected abstract String upsertStatement(String tableName);
+
     private static class DefaultR2dbcAdapter extends R2dbcAdapter {
         private final ParameterResolver parameterResolver;
         private final Function<Instant, Object> dateConverter;
         private final ValueBinder binder;
+        @Nullable
+        private final Function<String, String> upsertStatementFactory;
 
         private DefaultR2dbcAdapter(
             @NonNull ParameterResolver parameterResolver,
             @NonNull Function<Instant, Object> dateConverter,
-            @NonNull ValueBinder binder
+            @NonNull ValueBinder binder,
+            @Nullable Function<String, String> upsertStatementFactory
         ) {
             this.parameterResolver = parameterResolver;
             this.dateConverter = dateConverter;
             this.binder = binder;
+            this.upsertStatementFactory = upsertStatementFactory;
+        }
+
+        @Override
+        protected boolean supportsUpsert() {
+            return upsertStatementFactory != null;
+        }
+
+        @Override
+        @Nullable
+        protected String upsertStatement(String tableName) {
+            return upsertStatementFactory != null ? upsertStatementFactory.apply(tableName) : null;
         }
 
         @Override
@@ -16,8 +16,17 @@
 package net.javacrumbs.shedlock.provider.r2dbc;
 
 import io.r2dbc.spi.ConnectionFactory;
+import net.javacrumbs.shedlock.core.AbstractAsyncSimpleLock;
+import net.javacrumbs.shedlock.core.AsyncLockProvider;
+import net.javacrumbs.shedlock.core.AsyncSimpleLock;
+import net.javacrumbs.shedlock.core.LockConfiguration;
+import net.javacrumbs.shedlock.support.LockTableResolver;
 import net.javacrumbs.shedlock.support.StorageBasedLockProvider;
 import net.javacrumbs.shedlock.support.annotation.NonNull;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
 
 /**
  * Lock provided by plain R2DBC SPI. It uses a table that contains lock_name and locked_until.
@@ -40,13 +49,95 @@ import net.javacrumbs.shedlock.support.annotation.NonNull;
  * When unlocking, lock_until is set to now.
  * </li>
  * </ol>
+ * On PostgreSQL, the first two steps are done using one INSERT ... ON CONFLICT DO UPDATE statement.
+ * <p>
+ * Implements {@link AsyncLockProvider}, {@link #lockAsync(LockConfiguration)} and the returned lock
+ * do not block any thread.
  */
-public class R2dbcLockProvider extends StorageBasedLockProvider {
+public class R2dbcLockProvider extends StorageBasedLockProvider implements AsyncLockProvider {
+    private final AbstractR2dbcStorageAccessor storageAccessor;
+
     public R2dbcLockProvider(@NonNull ConnectionFactory connectionFactory) {
         this(connectionFactory, "shedlock");
     }
 
     public R2dbcLockProvider(@NonNull ConnectionFactory connectionFactory, @NonNull String tableName) {
-        super(new R2dbcStorageAccessor(connectionFactory, tableName));
+        this(connectionFactory, LockTableResolver.singleTable(tableName));
+    }
+
+    /**
+     * Spreads the lock records across several tables, see {@link LockTableResolver#hashSharded(String, int)}.
+     */
+    public R2dbcLockProvider(@NonNull ConnectionFactory connectionFactory, @NonNull LockTableResolver lockTableResolver) {
+        this(connectionFactory, lockTableResolver, false);
+    }
+
+    /**
+     * @param useDbTime if true, the time of the database server is used instead of the time of the client.
+     *                  Supported on PostgreSQL, MS SQL, Oracle, MySQL, MariaDB and H2.
+     */
+    public R2dbcLockProvider(@NonNull ConnectionFactory connectionFactory, @NonNull LockTableResolver lockTableResolver, boolean useDbTime) {
+        this(new R2dbcStorageAccessor(connectionFactory, lockTableResolver, useDbTime));
+    }
+
+    private R2dbcLockProvider(AbstractR2dbcStorageAccessor storageAccessor) {
+        super(storageAccessor);
+        this.storageAccessor = storageAccessor;
+    }
+
+    @Override
+    @NonNull
+    public CompletionStage<Optional<AsyncSimpleLock>> lockAsync(@NonNull LockConfiguration lockConfiguration) {
+        return doLockReactive(lockConfiguration)
+            .map(locked -> locked ? Optional.<AsyncSimpleLock>of(new R2dbcAsyncLock(lockConfiguration, storageAccessor)) : Optional.<AsyncSimpleLock>empty())
+            .defaultIfEmpty(Optional.empty())
+            .toFuture();
+    }
+
+    /**
+     * Same steps as {@link #doLock(LockConfiguration)}, composed without blocking.
+     */
+    private Mono<Boolean> doLockReactive(LockConfiguration lockConfiguration) {
+        String name = lockConfiguration.getName();
+        if (lockRecordRecentlyCreated(name)) {
+            return Mono.from(storageAccessor.updateRecordReactive(lockConfiguration));
+        }
+        if (storageAccessor.supportsUpsert()) {
+            return Mono.from(storageAccessor.upsertRecordReactive(lockConfiguration))
+                .doOnSuccess(locked -> addLockRecord(name));
+        }
+        return Mono.from(storageAccessor.insertRecordReactive(lockConfiguration))
+            .defaultIfEmpty(false)
+            .flatMap(inserted -> {
+                addLockRecord(name);
+                if (inserted) {
+                    return Mono.just(true);
+                }
+                // the record may not exist since the DB is not ready yet, we will try to insert it next time
+                return Mono.from(storageAccessor.updateRecordReactive(lockConfiguration))
+                    .doOnError(e -> removeLockRecord(name));
+            });
+    }
+
+    private static final class R2dbcAsyncLock extends AbstractAsyncSimpleLock {
+        private final AbstractR2dbcStorageAccessor storageAccessor;
+
+        private R2dbcAsyncLock(LockConfiguration lockConfiguration, AbstractR2dbcStorageAccessor storageAccessor) {
+            super(lockConfiguration);
+            this.storageAccessor = storageAccessor;
+        }
+
+        @Override
+        protected CompletionStage<Void> doUnlockAsync() {
+            return Mono.from(storageAccessor.unlockReactive(lockConfiguration)).toFuture();
+        }
+
+        @Override
+        protected CompletionStage<Optional<AsyncSimpleLock>> doExtendAsync(LockConfiguration newConfiguration) {
+            return Mono.from(storageAccessor.extendReactive(newConfiguration))
+                .map(extended -> extended ? Optional.<AsyncSimpleLock>of(new R2dbcAsyncLock(newConfiguration, storageAccessor)) : Optional.<AsyncSimpleLock>empty())
+                .defaultIfEmpty(Optional.empty())
+                .toFuture();
+        }
     }
 }
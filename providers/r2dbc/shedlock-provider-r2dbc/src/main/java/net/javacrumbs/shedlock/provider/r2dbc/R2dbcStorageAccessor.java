@@ -18,7 +18,9 @@ package net.javacrumbs.shedlock.provider.r2dbc;
 import io.r2dbc.spi.Connection;
 import io.r2dbc.spi.ConnectionFactory;
 import io.r2dbc.spi.Statement;
+import net.javacrumbs.shedlock.support.LockTableResolver;
 import net.javacrumbs.shedlock.support.annotation.NonNull;
+import net.javacrumbs.shedlock.support.annotation.Nullable;
 import reactor.core.publisher.Mono;
 
 import java.util.function.BiFunction;
@@ -31,8 +33,8 @@ class R2dbcStorageAccessor extends AbstractR2dbcStorageAccessor {
     private final ConnectionFactory connectionFactory;
     private R2dbcAdapter adapter;
 
-    R2dbcStorageAccessor(@NonNull ConnectionFactory connectionFactory, @NonNull String tableName) {
-        super(tableName);
+    R2dbcStorageAccessor(@NonNull ConnectionFactory connectionFactory, @NonNull LockTableResolver lockTableResolver, boolean useDbTime) {
+        super(lockTableResolver, useDbTime);
         this.connectionFactory = requireNonNull(connectionFactory, "dataSource can not be null");
     }
 
@@ -56,11 +58,28 @@ class R2dbcStorageAccessor extends AbstractR2dbcStorageAccessor {
        return getAdapter().toParameter(index, name);
     }
 
+    @Override
+    @Nullable
+    protected String upsertStatement(String tableName) {
+        return getAdapter().upsertStatement(tableName);
+    }
+
+    @Override
+    public boolean supportsUpsert() {
+        // the upsert binds client time
+        return !usesDbTime() && getAdapter().supportsUpsert();
+    }
+
     @Override
     protected void bind(Statement statement, int index, String name, Object value) {
         getAdapter().bind(statement, index, name, value);
     }
 
+    @Override
+    protected String getDatabaseProductName() {
+        return connectionFactory.getMetadata().getName();
+    }
+
     private R2dbcAdapter getAdapter() {
         synchronized (this) {
             if (adapter == null) {
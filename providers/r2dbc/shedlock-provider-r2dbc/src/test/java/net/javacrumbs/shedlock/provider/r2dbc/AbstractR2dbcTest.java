@@ -5,16 +5,20 @@ import io.r2dbc.pool.ConnectionPoolConfiguration;
 import io.r2dbc.spi.ConnectionFactories;
 import io.r2dbc.spi.ConnectionFactory;
 import io.r2dbc.spi.ConnectionFactoryOptions;
+import net.javacrumbs.shedlock.core.AsyncSimpleLock;
 import net.javacrumbs.shedlock.support.StorageBasedLockProvider;
 import net.javacrumbs.shedlock.test.support.jdbc.AbstractJdbcLockProviderIntegrationTest;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 
 import java.time.Duration;
+import java.util.Optional;
 
 import static io.r2dbc.spi.ConnectionFactoryOptions.PASSWORD;
 import static io.r2dbc.spi.ConnectionFactoryOptions.USER;
+import static org.assertj.core.api.Assertions.assertThat;
 
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 abstract class AbstractR2dbcTest extends AbstractJdbcLockProviderIntegrationTest {
@@ -58,11 +62,31 @@ abstract class AbstractR2dbcTest extends AbstractJdbcLockProviderIntegrationTest
         return false;
     }
 
+    @Override
+    protected boolean reportsLockedUntil() {
+        return false;
+    }
+
     @Override
     protected StorageBasedLockProvider getLockProvider() {
         return new R2dbcLockProvider(connectionFactory());
     }
 
+    @Test
+    public void shouldUpdateExistingRecordAsync() throws Exception {
+        R2dbcLockProvider lockProvider = new R2dbcLockProvider(connectionFactory());
+        Optional<AsyncSimpleLock> lock = lockProvider.lockAsync(lockConfig(LOCK_NAME1)).toCompletableFuture().get();
+        assertThat(lock).isNotEmpty();
+        lock.get().unlockAsync().toCompletableFuture().get();
+
+        // the record exists now, it is updated
+        lockProvider.clearCache();
+        Optional<AsyncSimpleLock> secondLock = lockProvider.lockAsync(lockConfig(LOCK_NAME1)).toCompletableFuture().get();
+        assertThat(secondLock).isNotEmpty();
+        assertLocked(LOCK_NAME1);
+        secondLock.get().unlockAsync().toCompletableFuture().get();
+    }
+
     protected ConnectionFactory connectionFactory() {
         return connectionFactory;
     }
@@ -16,20 +16,30 @@
 package net.javacrumbs.shedlock.provider.redis.jedis4;
 
 import net.javacrumbs.shedlock.core.AbstractSimpleLock;
+import net.javacrumbs.shedlock.core.BatchLockProvider;
 import net.javacrumbs.shedlock.core.ClockProvider;
+import net.javacrumbs.shedlock.core.ExtensibleLockProvider;
 import net.javacrumbs.shedlock.core.LockConfiguration;
-import net.javacrumbs.shedlock.core.LockProvider;
 import net.javacrumbs.shedlock.core.SimpleLock;
 import net.javacrumbs.shedlock.support.LockException;
 import net.javacrumbs.shedlock.support.annotation.NonNull;
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
 import redis.clients.jedis.commands.JedisCommands;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
 import redis.clients.jedis.params.SetParams;
+import redis.clients.jedis.util.JedisClusterCRC16;
 import redis.clients.jedis.util.Pool;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 
 import static net.javacrumbs.shedlock.support.Utils.getHostname;
 import static net.javacrumbs.shedlock.support.Utils.toIsoString;
@@ -39,14 +49,18 @@ import static redis.clients.jedis.params.SetParams.setParams;
  * Uses Redis's `SET resource-name anystring NX PX max-lock-ms-time` as locking mechanism.
  * <p>
  * See https://redis.io/commands/set
+ * <p>
+ * Unlock and extend are executed using Lua scripts that check that the lock is still held by us, so
+ * we never remove a lock that has expired and has been acquired by somebody else.
  */
-public class JedisLockProvider implements LockProvider {
+public class JedisLockProvider implements ExtensibleLockProvider, BatchLockProvider {
 
     private static final String KEY_PREFIX = "job-lock";
     private static final String ENV_DEFAULT = "default";
 
     private final JedisTemplate jedisTemplate;
     private final String environment;
+    private final KeyLayout keyLayout;
 
     public JedisLockProvider(@NonNull Pool<Jedis> jedisPool) {
         this(jedisPool, ENV_DEFAULT);
@@ -60,8 +74,21 @@ public class JedisLockProvider implements LockProvider {
      *                    multiple ShedLock instances running on the same Redis
      */
     public JedisLockProvider(@NonNull Pool<Jedis> jedisPool, @NonNull String environment) {
+        this(jedisPool, environment, KeyLayout.flat());
+    }
+
+    /**
+     * Creates JedisLockProvider
+     *
+     * @param jedisPool   Jedis connection pool
+     * @param environment environment is part of the key and thus makes sure there is not key conflict between
+     *                    multiple ShedLock instances running on the same Redis
+     * @param keyLayout   builds keys from the prefix, environment and lock name
+     */
+    public JedisLockProvider(@NonNull Pool<Jedis> jedisPool, @NonNull String environment, @NonNull KeyLayout keyLayout) {
         this.jedisTemplate = new JedisPoolTemplate(jedisPool);
         this.environment = environment;
+        this.keyLayout = keyLayout;
     }
 
     /**
@@ -72,49 +99,127 @@ public class JedisLockProvider implements LockProvider {
      *                     multiple ShedLock instances running on the same Redis
      */
     public JedisLockProvider(@NonNull JedisCommands jedisCommands, @NonNull String environment) {
+        this(jedisCommands, environment, KeyLayout.flat());
+    }
+
+    /**
+     * Creates JedisLockProvider
+     *
+     * @param jedisCommands implementation of JedisCommands.
+     * @param environment  environment is part of the key and thus makes sure there is not key conflict between
+     *                     multiple ShedLock instances running on the same Redis
+     * @param keyLayout    builds keys from the prefix, environment and lock name. Use hash tags, so locks acquired
+     *                     together by {@link #lockAll(Collection)} belong to the same Redis Cluster slot.
+     */
+    public JedisLockProvider(@NonNull JedisCommands jedisCommands, @NonNull String environment, @NonNull KeyLayout keyLayout) {
         this.jedisTemplate = new JedisCommandsTemplate(jedisCommands);
         this.environment = environment;
+        this.keyLayout = keyLayout;
     }
 
     @Override
     @NonNull
     public Optional<SimpleLock> lock(@NonNull LockConfiguration lockConfiguration) {
-        long expireTime = getMsUntil(lockConfiguration.getLockAtMostUntil());
+        long expireTime = getLockAtMostForMs(lockConfiguration.getLockAtMostUntil());
 
-        String key = buildKey(lockConfiguration.getName(), this.environment);
+        String key = keyLayout.buildKey(KEY_PREFIX, environment, lockConfiguration.getName());
+        String value = buildValue();
 
-        String rez = jedisTemplate.set(key, buildValue(), setParams().nx().px(expireTime));
+        String rez = jedisTemplate.set(key, value, setParams().nx().px(expireTime));
 
         if ("OK".equals(rez)) {
-            return Optional.of(new RedisLock(key, jedisTemplate, lockConfiguration));
+            return Optional.of(new RedisLock(key, value, jedisTemplate, lockConfiguration));
         }
 
         return Optional.empty();
     }
 
+    /**
+     * Acquires all the locks using one script execution. With JedisCluster, the locks are grouped by slot and the script
+     * is executed once per slot. Use {@link KeyLayout} with hash tags to put locks that are acquired together to the same slot.
+     */
+    @Override
+    @NonNull
+    public Map<String, Optional<SimpleLock>> lockAll(@NonNull Collection<LockConfiguration> lockConfigurations) {
+        Map<String, Optional<SimpleLock>> result = new LinkedHashMap<>();
+        Map<Integer, Map<String, LockConfiguration>> slots = new LinkedHashMap<>();
+        for (LockConfiguration lockConfiguration : lockConfigurations) {
+            String name = lockConfiguration.getName();
+            if (result.put(name, Optional.empty()) != null) {
+                throw new IllegalArgumentException("Duplicate lock name '" + name + "'");
+            }
+            String key = keyLayout.buildKey(KEY_PREFIX, environment, name);
+            int slot = jedisTemplate.isCluster() ? JedisClusterCRC16.getSlot(key) : 0;
+            slots.computeIfAbsent(slot, it -> new LinkedHashMap<>()).put(key, lockConfiguration);
+        }
+
+        String value = buildValue();
+        try {
+            for (Map<String, LockConfiguration> locks : slots.values()) {
+                lockAll(locks, value, result);
+            }
+        } catch (RuntimeException e) {
+            // do not keep locks nobody knows about
+            result.values().forEach(lock -> lock.ifPresent(SimpleLock::unlock));
+            throw e;
+        }
+        return result;
+    }
+
+    private void lockAll(Map<String, LockConfiguration> locks, String value, Map<String, Optional<SimpleLock>> result) {
+        List<String> keys = new ArrayList<>(locks.keySet());
+        List<String> args = new ArrayList<>(locks.size() + 1);
+        args.add(value);
+        for (LockConfiguration lockConfiguration : locks.values()) {
+            args.add(String.valueOf(getLockAtMostForMs(lockConfiguration.getLockAtMostUntil())));
+        }
+
+        List<?> locked = (List<?>) jedisTemplate.eval(LockScript.LOCK_ALL, keys, args);
+        int i = 0;
+        for (Map.Entry<String, LockConfiguration> lock : locks.entrySet()) {
+            if (Long.valueOf(1).equals(locked.get(i))) {
+                LockConfiguration lockConfiguration = lock.getValue();
+                result.put(lockConfiguration.getName(), Optional.of(new RedisLock(lock.getKey(), value, jedisTemplate, lockConfiguration)));
+            }
+            i++;
+        }
+    }
+
     private static final class RedisLock extends AbstractSimpleLock {
         private final String key;
+        private final String value;
         private final JedisTemplate jedisTemplate;
 
-        private RedisLock(String key, JedisTemplate jedisTemplate, LockConfiguration lockConfiguration) {
+        private RedisLock(String key, String value, JedisTemplate jedisTemplate, LockConfiguration lockConfiguration) {
             super(lockConfiguration);
             this.key = key;
+            this.value = value;
             this.jedisTemplate = jedisTemplate;
         }
 
         @Override
         public void doUnlock() {
-            long keepLockFor = getMsUntil(lockConfiguration.getLockAtLeastUntil());
-
-            // lock at least until is in the past
-            if (keepLockFor <= 0) {
-                try {
-                    jedisTemplate.del(key);
-                } catch (Exception e) {
-                    throw new LockException("Can not remove node", e);
-                }
+            // lock at least until may be in the past, the script removes the key in such case
+            long keepLockFor = Math.max(getMsUntil(lockConfiguration.getLockAtLeastUntil()), 0);
+            try {
+                jedisTemplate.eval(LockScript.UNLOCK, List.of(key), List.of(value, String.valueOf(keepLockFor)));
+            } catch (Exception e) {
+                throw new LockException("Can not remove node", e);
+            }
+        }
+
+        @Override
+        public Optional<SimpleLock> doExtend(LockConfiguration newConfiguration) {
+            // Redis checks expiration with millisecond granularity, a lock that has just expired may be still present
+            if (!lockConfiguration.getLockAtMostUntil().isAfter(ClockProvider.now())) {
+                return Optional.empty();
+            }
+            long lockAtMostFor = getLockAtMostForMs(newConfiguration.getLockAtMostUntil());
+            Object extended = jedisTemplate.eval(LockScript.EXTEND, List.of(key), List.of(value, String.valueOf(lockAtMostFor)));
+            if (Long.valueOf(1).equals(extended)) {
+                return Optional.of(new RedisLock(key, value, jedisTemplate, newConfiguration));
             } else {
-                jedisTemplate.set(key, buildValue(), setParams().xx().px(keepLockFor));
+                return Optional.empty();
             }
         }
     }
@@ -123,18 +228,37 @@ public class JedisLockProvider implements LockProvider {
         return Duration.between(ClockProvider.now(), instant).toMillis();
     }
 
+    // zero expiration would not be accepted by Redis
+    private static long getLockAtMostForMs(Instant instant) {
+        return Math.max(getMsUntil(instant), 1);
+    }
+
     static String buildKey(String lockName, String env) {
-        return String.format("%s:%s:%s", KEY_PREFIX, env, lockName);
+        return KeyLayout.flat().buildKey(KEY_PREFIX, env, lockName);
     }
 
     private static String buildValue() {
-        return String.format("ADDED:%s@%s", toIsoString(ClockProvider.now()), getHostname());
+        // hostname and time are not unique, two threads on the same host may lock in the same millisecond
+        return String.format("ADDED:%s@%s:%s", toIsoString(ClockProvider.now()), getHostname(), UUID.randomUUID());
     }
 
     private interface JedisTemplate {
         String set(String key, String value, SetParams setParams);
 
-        void del(String key);
+        Object evalsha(String sha1, List<String> keys, List<String> args);
+
+        Object eval(String script, List<String> keys, List<String> args);
+
+        boolean isCluster();
+
+        default Object eval(LockScript script, List<String> keys, List<String> args) {
+            try {
+                return evalsha(script.getSha1(), keys, args);
+            } catch (JedisNoScriptException e) {
+                // the script is not in the script cache yet, EVAL adds it there
+                return eval(script.getScript(), keys, args);
+            }
+        }
     }
 
     private static class JedisPoolTemplate implements JedisTemplate {
@@ -152,11 +276,23 @@ public class JedisLockProvider implements LockProvider {
         }
 
         @Override
-        public void del(String key) {
+        public Object evalsha(String sha1, List<String> keys, List<String> args) {
+            try (Jedis jedis = jedisPool.getResource()) {
+                return jedis.evalsha(sha1, keys, args);
+            }
+        }
+
+        @Override
+        public Object eval(String script, List<String> keys, List<String> args) {
             try (Jedis jedis = jedisPool.getResource()) {
-                jedis.del(key);
+                return jedis.eval(script, keys, args);
             }
         }
+
+        @Override
+        public boolean isCluster() {
+            return false;
+        }
     }
 
     private static class JedisCommandsTemplate implements JedisTemplate {
@@ -172,8 +308,18 @@ public class JedisLockProvider implements LockProvider {
         }
 
         @Override
-        public void del(String key) {
-            jedisCommands.del(key);
+        public Object evalsha(String sha1, List<String> keys, List<String> args) {
+            return jedisCommands.evalsha(sha1, keys, args);
+        }
+
+        @Override
+        public Object eval(String script, List<String> keys, List<String> args) {
+            return jedisCommands.eval(script, keys, args);
+        }
+
+        @Override
+        public boolean isCluster() {
+            return jedisCommands instanceof JedisCluster;
         }
     }
 }
@@ -0,0 +1,98 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.provider.redis.jedis4;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Lua script executed using EVALSHA. The SHA1 digest is computed locally, so the script is sent to Redis only
+ * the first time, when EVALSHA fails with NOSCRIPT and EVAL loads the script to the script cache.
+ */
+final class LockScript {
+    /**
+     * Deletes the lock or shortens it to lockAtLeastFor, only if it is held by the caller.
+     * KEYS[1] = key, ARGV[1] = value of the lock, ARGV[2] = keep lock for ms
+     */
+    static final LockScript UNLOCK = new LockScript(
+        "if redis.call('get', KEYS[1]) ~= ARGV[1] then\n" +
+        "    return 0\n" +
+        "end\n" +
+        "if tonumber(ARGV[2]) > 0 then\n" +
+        "    redis.call('pexpire', KEYS[1], ARGV[2])\n" +
+        "else\n" +
+        "    redis.call('del', KEYS[1])\n" +
+        "end\n" +
+        "return 1"
+    );
+
+    /**
+     * Sets new expiration of the lock, only if it is held by the caller.
+     * KEYS[1] = key, ARGV[1] = value of the lock, ARGV[2] = lock at most for ms
+     */
+    static final LockScript EXTEND = new LockScript(
+        "if redis.call('get', KEYS[1]) == ARGV[1] then\n" +
+        "    return redis.call('pexpire', KEYS[1], ARGV[2])\n" +
+        "end\n" +
+        "return 0"
+    );
+
+    /**
+     * Tries to set each of the keys if absent. Returns 1 for each key that has been set, 0 otherwise.
+     * KEYS = keys, ARGV[1] = value of the locks, ARGV[i + 1] = lock at most for ms of KEYS[i]
+     */
+    static final LockScript LOCK_ALL = new LockScript(
+        "local result = {}\n" +
+        "for i, key in ipairs(KEYS) do\n" +
+        "    if redis.call('set', key, ARGV[1], 'nx', 'px', ARGV[i + 1]) then\n" +
+        "        result[i] = 1\n" +
+        "    else\n" +
+        "        result[i] = 0\n" +
+        "    end\n" +
+        "end\n" +
+        "return result"
+    );
+
+    private final String script;
+    private final String sha1;
+
+    private LockScript(String script) {
+        this.script = script;
+        this.sha1 = sha1(script);
+    }
+
+    String getScript() {
+        return script;
+    }
+
+    String getSha1() {
+        return sha1;
+    }
+
+    private static String sha1(String script) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(script.getBytes(StandardCharsets.UTF_8));
+            StringBuilder result = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                result.append(String.format("%02x", b));
+            }
+            return result.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not supported", e);
+        }
+    }
+}
@@ -15,10 +15,12 @@
  */
 package net.javacrumbs.shedlock.provider.redis.jedis4;
 
-import net.javacrumbs.shedlock.core.LockProvider;
-import net.javacrumbs.shedlock.test.support.AbstractLockProviderIntegrationTest;
+import net.javacrumbs.shedlock.core.ExtensibleLockProvider;
+import net.javacrumbs.shedlock.core.SimpleLock;
+import net.javacrumbs.shedlock.test.support.AbstractExtensibleLockProviderIntegrationTest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import redis.clients.jedis.HostAndPort;
@@ -26,6 +28,11 @@ import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisCluster;
 import redis.clients.jedis.JedisPool;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
 import static net.javacrumbs.shedlock.provider.redis.jedis4.RedisContainer.ENV;
 import static net.javacrumbs.shedlock.provider.redis.jedis4.RedisContainer.PORT;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -37,8 +44,8 @@ public class JedisLockProviderIntegrationTest  {
     public static final RedisContainer redis = new RedisContainer(PORT);
 
     @Nested
-    class Cluster extends AbstractLockProviderIntegrationTest {
-        private LockProvider lockProvider;
+    class Cluster extends AbstractExtensibleLockProviderIntegrationTest {
+        private JedisLockProvider lockProvider;
 
         private JedisCluster jedisCluster;
 
@@ -47,6 +54,42 @@ public class JedisLockProviderIntegrationTest  {
             jedisCluster = new JedisCluster(new HostAndPort(redis.getContainerIpAddress(), redis.getFirstMappedPort()));
             lockProvider = new JedisLockProvider(jedisCluster, ENV);
         }
+
+        @Test
+        public void shouldLockAllInDifferentSlots() {
+            Map<String, Optional<SimpleLock>> locks = lockProvider.lockAll(List.of(lockConfig(LOCK_NAME1), lockConfig("slot2"), lockConfig("slot3")));
+            assertThat(locks.values()).allMatch(Optional::isPresent);
+            assertLocked("slot3");
+
+            locks.values().forEach(it -> it.ifPresent(SimpleLock::unlock));
+            assertUnlocked(LOCK_NAME1);
+            assertUnlocked("slot3");
+        }
+
+        @Test
+        public void shouldLockAllInOneSlot() {
+            JedisLockProvider groupedLockProvider = new JedisLockProvider(jedisCluster, ENV, KeyLayout.environmentHashTag());
+            Map<String, Optional<SimpleLock>> locks = groupedLockProvider.lockAll(List.of(lockConfig(LOCK_NAME1), lockConfig("slot2")));
+            assertThat(locks.values()).allMatch(Optional::isPresent);
+            assertThat(jedisCluster.get("job-lock:{" + ENV + "}:" + LOCK_NAME1)).isNotNull();
+
+            locks.values().forEach(it -> it.ifPresent(SimpleLock::unlock));
+            assertThat(jedisCluster.get("job-lock:{" + ENV + "}:" + LOCK_NAME1)).isNull();
+        }
+        /**
+         * Redis expires keys with millisecond granularity, so the lock has to be a bit longer than in the generic test.
+         */
+        @Test
+        @Override
+        public void shouldNotBeAbleToExtendExpiredLock() {
+            Optional<SimpleLock> lock = lockProvider.lock(lockConfig(LOCK_NAME1, Duration.ofMillis(10), Duration.ZERO));
+            assertThat(lock).isNotEmpty();
+            sleepFor(Duration.ofMillis(20));
+
+            assertThat(lock.get().extend(Duration.ofSeconds(10), Duration.ZERO)).isEmpty();
+            assertUnlocked(LOCK_NAME1);
+        }
+
         @Override
         protected void assertUnlocked(String lockName) {
             assertThat(getLock(lockName)).isNull();
@@ -62,14 +105,14 @@ public class JedisLockProviderIntegrationTest  {
         }
 
         @Override
-        protected LockProvider getLockProvider() {
+        protected ExtensibleLockProvider getLockProvider() {
             return lockProvider;
         }
     }
 
     @Nested
-    class Pool extends AbstractLockProviderIntegrationTest {
-        private LockProvider lockProvider;
+    class Pool extends AbstractExtensibleLockProviderIntegrationTest {
+        private JedisLockProvider lockProvider;
 
         private JedisPool jedisPool;
 
@@ -79,6 +122,51 @@ public class JedisLockProviderIntegrationTest  {
             lockProvider = new JedisLockProvider(jedisPool, ENV);
         }
 
+        @Test
+        public void shouldNotUnlockLockHeldBySomebodyElse() {
+            Optional<SimpleLock> lock = lockProvider.lock(lockConfig(LOCK_NAME1));
+            assertThat(lock).isNotEmpty();
+
+            try (Jedis jedis = jedisPool.getResource()) {
+                // simulates that our lock has expired and somebody else has acquired it
+                jedis.set(JedisLockProvider.buildKey(LOCK_NAME1, ENV), "somebody else");
+                lock.get().unlock();
+                assertThat(getLock(LOCK_NAME1, jedis)).isEqualTo("somebody else");
+                jedis.del(JedisLockProvider.buildKey(LOCK_NAME1, ENV));
+            }
+        }
+
+        @Test
+        public void shouldLockAll() {
+            Optional<SimpleLock> lock = lockProvider.lock(lockConfig(LOCK_NAME1));
+            assertThat(lock).isNotEmpty();
+
+            Map<String, Optional<SimpleLock>> locks = lockProvider.lockAll(List.of(lockConfig(LOCK_NAME1), lockConfig("batch2"), lockConfig("batch3")));
+            assertThat(locks.keySet()).containsExactly(LOCK_NAME1, "batch2", "batch3");
+            assertThat(locks.get(LOCK_NAME1)).isEmpty();
+            assertLocked("batch2");
+            assertLocked("batch3");
+
+            locks.values().forEach(it -> it.ifPresent(SimpleLock::unlock));
+            lock.get().unlock();
+            assertUnlocked("batch2");
+            assertUnlocked("batch3");
+        }
+
+        /**
+         * Redis expires keys with millisecond granularity, so the lock has to be a bit longer than in the generic test.
+         */
+        @Test
+        @Override
+        public void shouldNotBeAbleToExtendExpiredLock() {
+            Optional<SimpleLock> lock = lockProvider.lock(lockConfig(LOCK_NAME1, Duration.ofMillis(10), Duration.ZERO));
+            assertThat(lock).isNotEmpty();
+            sleepFor(Duration.ofMillis(20));
+
+            assertThat(lock.get().extend(Duration.ofSeconds(10), Duration.ZERO)).isEmpty();
+            assertUnlocked(LOCK_NAME1);
+        }
+
         @Override
         protected void assertUnlocked(String lockName) {
             try (Jedis jedis = jedisPool.getResource()) {
@@ -98,7 +186,7 @@ public class JedisLockProviderIntegrationTest  {
         }
 
         @Override
-        protected LockProvider getLockProvider() {
+        protected ExtensibleLockProvider getLockProvider() {
             return lockProvider;
         }
     }
@@ -0,0 +1,56 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.provider.redis.spring;
+
+import java.util.function.Function;
+
+/**
+ * Builds Redis keys of the locks. In Redis Cluster, keys with the same hash tag (the part of the key in curly braces)
+ * belong to the same slot, so such locks can be acquired using one script execution.
+ */
+@FunctionalInterface
+public interface KeyLayout {
+
+    String buildKey(String keyPrefix, String environment, String lockName);
+
+    /**
+     * keyPrefix:environment:lockName, the default layout. Each lock can be in a different slot.
+     */
+    static KeyLayout flat() {
+        return (keyPrefix, environment, lockName) -> keyPrefix + ":" + environment + ":" + lockName;
+    }
+
+    /**
+     * keyPrefix:{environment}:lockName, all locks of the environment are in the same slot.
+     */
+    static KeyLayout environmentHashTag() {
+        return (keyPrefix, environment, lockName) -> keyPrefix + ":{" + environment + "}:" + lockName;
+    }
+
+    /**
+     * keyPrefix:environment:{group}:lockName, locks of the same group are in the same slot. Locks for which
+     * groupOfLock returns null use the {@link #flat()} layout.
+     */
+    static KeyLayout lockGroups(Function<String, String> groupOfLock) {
+        return (keyPrefix, environment, lockName) -> {
+            String group = groupOfLock.apply(lockName);
+            if (group == null) {
+                return flat().buildKey(keyPrefix, environment, lockName);
+            }
+            return keyPrefix + ":" + environment + ":{" + group + "}:" + lockName;
+        };
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.provider.redis.spring;
+
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+
+/**
+ * Lua scripts used by Redis lock providers. Spring Data Redis executes them using EVALSHA and falls back to EVAL
+ * if the script is not loaded yet, so each operation is a single round-trip.
+ */
+final class LockScripts {
+    /**
+     * Deletes the lock or shortens it to lockAtLeastFor, only if it is held by the caller.
+     * KEYS[1] = key, ARGV[1] = value of the lock, ARGV[2] = keep lock for ms
+     */
+    static final RedisScript<Long> UNLOCK = RedisScript.of(
+        "if redis.call('get', KEYS[1]) ~= ARGV[1] then\n" +
+        "    return 0\n" +
+        "end\n" +
+        "if tonumber(ARGV[2]) > 0 then\n" +
+        "    redis.call('pexpire', KEYS[1], ARGV[2])\n" +
+        "else\n" +
+        "    redis.call('del', KEYS[1])\n" +
+        "end\n" +
+        "return 1",
+        Long.class
+    );
+
+    /**
+     * Sets new expiration of the lock, only if it is held by the caller.
+     * KEYS[1] = key, ARGV[1] = value of the lock, ARGV[2] = lock at most for ms
+     */
+    static final RedisScript<Long> EXTEND = RedisScript.of(
+        "if redis.call('get', KEYS[1]) == ARGV[1] then\n" +
+        "    return redis.call('pexpire', KEYS[1], ARGV[2])\n" +
+        "end\n" +
+        "return 0",
+        Long.class
+    );
+
+    /**
+     * Tries to set each of the keys if absent. Returns 1 for each key that has been set, 0 otherwise.
+     * KEYS = keys, ARGV[1] = value of the locks, ARGV[i + 1] = lock at most for ms of KEYS[i]
+     */
+    @SuppressWarnings("rawtypes")
+    static final RedisScript<List> LOCK_ALL = RedisScript.of(
+        "local result = {}\n" +
+        "for i, key in ipairs(KEYS) do\n" +
+        "    if redis.call('set', key, ARGV[1], 'nx', 'px', ARGV[i + 1]) then\n" +
+        "        result[i] = 1\n" +
+        "    else\n" +
+        "        result[i] = 0\n" +
+        "    end\n" +
+        "end\n" +
+        "return result",
+        List.class
+    );
+
+    private LockScripts() {
+    }
+}
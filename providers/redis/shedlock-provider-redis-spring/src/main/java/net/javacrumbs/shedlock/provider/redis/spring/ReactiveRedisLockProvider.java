@@ -1,18 +1,25 @@
 package net.javacrumbs.shedlock.provider.redis.spring;
 
+import net.javacrumbs.shedlock.core.AbstractAsyncSimpleLock;
 import net.javacrumbs.shedlock.core.AbstractSimpleLock;
+import net.javacrumbs.shedlock.core.AsyncLockProvider;
+import net.javacrumbs.shedlock.core.AsyncSimpleLock;
 import net.javacrumbs.shedlock.core.ClockProvider;
+import net.javacrumbs.shedlock.core.ExtensibleLockProvider;
 import net.javacrumbs.shedlock.core.LockConfiguration;
-import net.javacrumbs.shedlock.core.LockProvider;
 import net.javacrumbs.shedlock.core.SimpleLock;
 import net.javacrumbs.shedlock.support.LockException;
 import net.javacrumbs.shedlock.support.annotation.NonNull;
 import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
 import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import reactor.core.publisher.Mono;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletionStage;
 
 import static net.javacrumbs.shedlock.support.Utils.getHostname;
 import static net.javacrumbs.shedlock.support.Utils.toIsoString;
@@ -20,14 +27,20 @@ import static net.javacrumbs.shedlock.support.Utils.toIsoString;
 /**
  * Uses Redis's `SET resource-name anystring NX PX max-lock-ms-time` as locking mechanism.
  * See https://redis.io/commands/set
+ * <p>
+ * Implements {@link AsyncLockProvider}, so the lock can be acquired and released without blocking.
+ * <p>
+ * Unlock and extend are executed using Lua scripts that check that the lock is still held by us, so
+ * we never remove a lock that has expired and has been acquired by somebody else.
  */
-public class ReactiveRedisLockProvider implements LockProvider {
+public class ReactiveRedisLockProvider implements ExtensibleLockProvider, AsyncLockProvider {
     private static final String KEY_PREFIX_DEFAULT = "job-lock";
     private static final String ENV_DEFAULT = "default";
 
     private final ReactiveStringRedisTemplate redisTemplate;
     private final String environment;
     private final String keyPrefix;
+    private final KeyLayout keyLayout;
 
     public ReactiveRedisLockProvider(@NonNull ReactiveRedisConnectionFactory redisConn) {
         this(redisConn, ENV_DEFAULT);
@@ -65,57 +78,143 @@ public class ReactiveRedisLockProvider implements LockProvider {
      * @param keyPrefix     prefix of the key in Redis.
      */
     public ReactiveRedisLockProvider(@NonNull ReactiveStringRedisTemplate redisTemplate, @NonNull String environment, @NonNull String keyPrefix) {
+        this(redisTemplate, environment, keyPrefix, KeyLayout.flat());
+    }
+
+    /**
+     * Create ReactiveRedisLockProvider
+     *
+     * @param redisTemplate ReactiveStringRedisTemplate
+     * @param environment   environment is part of the key and thus makes sure there is not key conflict between
+     *                      multiple ShedLock instances running on the same Redis
+     * @param keyPrefix     prefix of the key in Redis.
+     * @param keyLayout     builds keys from the prefix, environment and lock name
+     */
+    public ReactiveRedisLockProvider(@NonNull ReactiveStringRedisTemplate redisTemplate, @NonNull String environment, @NonNull String keyPrefix, @NonNull KeyLayout keyLayout) {
         this.redisTemplate = redisTemplate;
         this.environment = environment;
         this.keyPrefix = keyPrefix;
+        this.keyLayout = keyLayout;
     }
 
     @Override
     @NonNull
     public Optional<SimpleLock> lock(@NonNull LockConfiguration lockConfiguration) {
-        Instant now = ClockProvider.now();
-        String key = ReactiveRedisLock.createKey(keyPrefix, environment, lockConfiguration.getName());
-        String value = ReactiveRedisLock.createValue(now);
-        Duration expirationTime = Duration.between(now, lockConfiguration.getLockAtMostUntil());
-        Boolean lockResult = redisTemplate.opsForValue().setIfAbsent(key, value, expirationTime).block();
-        if (Boolean.TRUE.equals(lockResult)) {
-            return Optional.of(new ReactiveRedisLock(key, redisTemplate, lockConfiguration));
+        String key = createKey(lockConfiguration);
+        String value = createValue(ClockProvider.now());
+        if (Boolean.TRUE.equals(tryToLock(key, value, lockConfiguration).block())) {
+            return Optional.of(new ReactiveRedisLock(key, value, redisTemplate, lockConfiguration));
         }
         return Optional.empty();
     }
 
+    @Override
+    @NonNull
+    public CompletionStage<Optional<AsyncSimpleLock>> lockAsync(@NonNull LockConfiguration lockConfiguration) {
+        String key = createKey(lockConfiguration);
+        String value = createValue(ClockProvider.now());
+        return tryToLock(key, value, lockConfiguration)
+            .map(lockResult -> lockResult ? Optional.<AsyncSimpleLock>of(new ReactiveRedisAsyncLock(key, value, redisTemplate, lockConfiguration)) : Optional.<AsyncSimpleLock>empty())
+            .defaultIfEmpty(Optional.empty())
+            .toFuture();
+    }
+
+    private String createKey(LockConfiguration lockConfiguration) {
+        return keyLayout.buildKey(keyPrefix, environment, lockConfiguration.getName());
+    }
+
+    private Mono<Boolean> tryToLock(String key, String value, LockConfiguration lockConfiguration) {
+        Duration expirationTime = Duration.ofMillis(getLockAtMostForMs(lockConfiguration.getLockAtMostUntil()));
+        return redisTemplate.opsForValue().setIfAbsent(key, value, expirationTime);
+    }
+
+    private static String createValue(Instant now) {
+        // unique per lock, so that only the owner can unlock or extend it
+        return String.format("ADDED:%s@%s:%s", toIsoString(now), getHostname(), UUID.randomUUID());
+    }
+
+    private static Mono<Void> doUnlock(String key, String value, ReactiveStringRedisTemplate redisTemplate, LockConfiguration lockConfiguration) {
+        // lock at least until may be in the past, the script removes the key in such case
+        long keepLockFor = Math.max(getMsUntil(lockConfiguration.getLockAtLeastUntil()), 0);
+        return redisTemplate.execute(LockScripts.UNLOCK, List.of(key), List.of(value, String.valueOf(keepLockFor)))
+            .onErrorMap(e -> new LockException("Can not remove node", e))
+            .then();
+    }
+
+    private static Mono<Boolean> doExtend(String key, String value, ReactiveStringRedisTemplate redisTemplate, LockConfiguration lockConfiguration, LockConfiguration newConfiguration) {
+        if (isExpired(lockConfiguration)) {
+            return Mono.just(false);
+        }
+        long lockAtMostFor = getLockAtMostForMs(newConfiguration.getLockAtMostUntil());
+        return redisTemplate.execute(LockScripts.EXTEND, List.of(key), List.of(value, String.valueOf(lockAtMostFor)))
+            .next()
+            .map(extended -> extended == 1)
+            .defaultIfEmpty(false);
+    }
+
+    private static long getMsUntil(Instant until) {
+        return Duration.between(ClockProvider.now(), until).toMillis();
+    }
+
+    // Redis checks expiration with millisecond granularity, a lock that has just expired may be still present
+    private static boolean isExpired(LockConfiguration lockConfiguration) {
+        return !lockConfiguration.getLockAtMostUntil().isAfter(ClockProvider.now());
+    }
+
+    // zero expiration would not be accepted or would create a lock without expiration
+    private static long getLockAtMostForMs(Instant until) {
+        return Math.max(getMsUntil(until), 1);
+    }
+
     private static final class ReactiveRedisLock extends AbstractSimpleLock {
         private final String key;
+        private final String value;
         private final ReactiveStringRedisTemplate redisTemplate;
 
-        private static String createKey(String keyPrefix, String environment, String lockName) {
-            return String.format("%s:%s:%s", keyPrefix, environment, lockName);
+        private ReactiveRedisLock(String key, String value, ReactiveStringRedisTemplate redisTemplate, LockConfiguration lockConfiguration) {
+            super(lockConfiguration);
+            this.key = key;
+            this.value = value;
+            this.redisTemplate = redisTemplate;
         }
 
-        private static String createValue(Instant now) {
-            return String.format("ADDED:%s@%s", toIsoString(now), getHostname());
+        @Override
+        protected void doUnlock() {
+            ReactiveRedisLockProvider.doUnlock(key, value, redisTemplate, lockConfiguration).block();
         }
 
-        private ReactiveRedisLock(String key, ReactiveStringRedisTemplate redisTemplate, LockConfiguration lockConfiguration) {
+        @Override
+        protected Optional<SimpleLock> doExtend(LockConfiguration newConfiguration) {
+            if (Boolean.TRUE.equals(ReactiveRedisLockProvider.doExtend(key, value, redisTemplate, lockConfiguration, newConfiguration).block())) {
+                return Optional.of(new ReactiveRedisLock(key, value, redisTemplate, newConfiguration));
+            } else {
+                return Optional.empty();
+            }
+        }
+    }
+
+    private static final class ReactiveRedisAsyncLock extends AbstractAsyncSimpleLock {
+        private final String key;
+        private final String value;
+        private final ReactiveStringRedisTemplate redisTemplate;
+
+        private ReactiveRedisAsyncLock(String key, String value, ReactiveStringRedisTemplate redisTemplate, LockConfiguration lockConfiguration) {
             super(lockConfiguration);
             this.key = key;
+            this.value = value;
             this.redisTemplate = redisTemplate;
         }
 
         @Override
-        protected void doUnlock() {
-            Instant now = ClockProvider.now();
-            Duration expirationTime = Duration.between(now, lockConfiguration.getLockAtLeastUntil());
-            if (expirationTime.isNegative() || expirationTime.isZero()) {
-                try {
-                    redisTemplate.delete(key).block();
-                } catch (Exception e) {
-                    throw new LockException("Can not remove node", e);
-                }
-            } else {
-                String value = createValue(now);
-                redisTemplate.opsForValue().setIfPresent(key, value, expirationTime).block();
-            }
+        protected CompletionStage<Void> doUnlockAsync() {
+            return ReactiveRedisLockProvider.doUnlock(key, value, redisTemplate, lockConfiguration).toFuture();
+        }
+
+        @Override
+        protected CompletionStage<Optional<AsyncSimpleLock>> doExtendAsync(LockConfiguration newConfiguration) {
+            return ReactiveRedisLockProvider.doExtend(key, value, redisTemplate, lockConfiguration, newConfiguration)
+                .map(extended -> extended ? Optional.<AsyncSimpleLock>of(new ReactiveRedisAsyncLock(key, value, redisTemplate, newConfiguration)) : Optional.<AsyncSimpleLock>empty())
+                .toFuture();
         }
     }
 
@@ -123,6 +222,7 @@ public class ReactiveRedisLockProvider implements LockProvider {
         private final ReactiveStringRedisTemplate redisTemplate;
         private String environment = ENV_DEFAULT;
         private String keyPrefix = KEY_PREFIX_DEFAULT;
+        private KeyLayout keyLayout = KeyLayout.flat();
 
         public Builder(@NonNull ReactiveRedisConnectionFactory redisConnectionFactory) {
             this.redisTemplate = new ReactiveStringRedisTemplate(redisConnectionFactory);
@@ -142,8 +242,13 @@ public class ReactiveRedisLockProvider implements LockProvider {
             return this;
         }
 
+        public ReactiveRedisLockProvider.Builder keyLayout(@NonNull KeyLayout keyLayout) {
+            this.keyLayout = keyLayout;
+            return this;
+        }
+
         public ReactiveRedisLockProvider build() {
-            return new ReactiveRedisLockProvider(redisTemplate, environment, keyPrefix);
+            return new ReactiveRedisLockProvider(redisTemplate, environment, keyPrefix, keyLayout);
         }
     }
 }
@@ -16,12 +16,17 @@
 package net.javacrumbs.shedlock.provider.redis.spring;
 
 import net.javacrumbs.shedlock.core.AbstractSimpleLock;
+import net.javacrumbs.shedlock.core.BatchLockProvider;
 import net.javacrumbs.shedlock.core.ClockProvider;
+import net.javacrumbs.shedlock.core.ExtensibleLockProvider;
 import net.javacrumbs.shedlock.core.LockConfiguration;
-import net.javacrumbs.shedlock.core.LockProvider;
 import net.javacrumbs.shedlock.core.SimpleLock;
 import net.javacrumbs.shedlock.support.LockException;
 import net.javacrumbs.shedlock.support.annotation.NonNull;
+import net.javacrumbs.shedlock.support.annotation.Nullable;
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisConnection;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
 import org.springframework.data.redis.core.StringRedisTemplate;
@@ -30,7 +35,13 @@ import org.springframework.data.redis.serializer.RedisSerializer;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
 import static java.lang.Boolean.TRUE;
@@ -41,14 +52,20 @@ import static org.springframework.data.redis.connection.RedisStringCommands.SetO
 /**
  * Uses Redis's `SET resource-name anystring NX PX max-lock-ms-time` as locking mechanism.
  * See https://redis.io/commands/set
+ * <p>
+ * Unlock and extend are executed using Lua scripts that check that the lock is still held by us, so
+ * we never remove a lock that has expired and has been acquired by somebody else.
  */
-public class RedisLockProvider implements LockProvider {
+public class RedisLockProvider implements ExtensibleLockProvider, BatchLockProvider {
     private static final String KEY_PREFIX_DEFAULT = "job-lock";
     private static final String ENV_DEFAULT = "default";
 
     private final StringRedisTemplate redisTemplate;
     private final String environment;
     private final String keyPrefix;
+    private final KeyLayout keyLayout;
+    @Nullable
+    private volatile Boolean cluster;
 
     public RedisLockProvider(@NonNull RedisConnectionFactory redisConn) {
         this(redisConn, ENV_DEFAULT);
@@ -86,25 +103,113 @@ public class RedisLockProvider implements LockProvider {
      * @param keyPrefix     prefix of the key in Redis.
      */
     public RedisLockProvider(@NonNull StringRedisTemplate redisTemplate, @NonNull String environment, @NonNull String keyPrefix) {
+        this(redisTemplate, environment, keyPrefix, KeyLayout.flat());
+    }
+
+    /**
+     * Create RedisLockProvider
+     *
+     * @param redisTemplate StringRedisTemplate
+     * @param environment   environment is part of the key and thus makes sure there is not key conflict between
+     *                      multiple ShedLock instances running on the same Redis
+     * @param keyPrefix     prefix of the key in Redis.
+     * @param keyLayout     builds keys from the prefix, environment and lock name
+     */
+    public RedisLockProvider(@NonNull StringRedisTemplate redisTemplate, @NonNull String environment, @NonNull String keyPrefix, @NonNull KeyLayout keyLayout) {
         this.redisTemplate = redisTemplate;
         this.environment = environment;
         this.keyPrefix = keyPrefix;
+        this.keyLayout = keyLayout;
     }
 
     @Override
     @NonNull
     public Optional<SimpleLock> lock(@NonNull LockConfiguration lockConfiguration) {
         String key = buildKey(lockConfiguration.getName());
+        String value = buildValue();
         Expiration expiration = getExpiration(lockConfiguration.getLockAtMostUntil());
-        if (TRUE.equals(tryToSetExpiration(redisTemplate, key, expiration, SET_IF_ABSENT))) {
-            return Optional.of(new RedisLock(key, redisTemplate, lockConfiguration));
+        if (TRUE.equals(tryToSetExpiration(redisTemplate, key, value, expiration, SET_IF_ABSENT))) {
+            return Optional.of(new RedisLock(key, value, redisTemplate, lockConfiguration));
         } else {
             return Optional.empty();
         }
     }
 
+    /**
+     * Acquires all the locks using one script execution. In Redis Cluster, the locks are grouped by slot and the script
+     * is executed once per slot. Use {@link KeyLayout} with hash tags to put locks that are acquired together to the same slot.
+     */
+    @Override
+    @NonNull
+    public Map<String, Optional<SimpleLock>> lockAll(@NonNull Collection<LockConfiguration> lockConfigurations) {
+        Map<String, Optional<SimpleLock>> result = new LinkedHashMap<>();
+        Map<Integer, Map<String, LockConfiguration>> slots = new LinkedHashMap<>();
+        boolean cluster = isCluster();
+        for (LockConfiguration lockConfiguration : lockConfigurations) {
+            String name = lockConfiguration.getName();
+            if (result.put(name, Optional.empty()) != null) {
+                throw new IllegalArgumentException("Duplicate lock name '" + name + "'");
+            }
+            String key = buildKey(name);
+            int slot = cluster ? ClusterSlotHashUtil.calculateSlot(key) : 0;
+            slots.computeIfAbsent(slot, it -> new LinkedHashMap<>()).put(key, lockConfiguration);
+        }
+
+        String value = buildValue();
+        try {
+            for (Map<String, LockConfiguration> locks : slots.values()) {
+                lockAll(locks, value, result);
+            }
+        } catch (RuntimeException e) {
+            // do not keep locks nobody knows about
+            result.values().forEach(lock -> lock.ifPresent(SimpleLock::unlock));
+            throw e;
+        }
+        return result;
+    }
+
+    private void lockAll(Map<String, LockConfiguration> locks, String value, Map<String, Optional<SimpleLock>> result) {
+        List<String> keys = new ArrayList<>(locks.keySet());
+        List<String> args = new ArrayList<>(locks.size() + 1);
+        args.add(value);
+        for (LockConfiguration lockConfiguration : locks.values()) {
+            args.add(String.valueOf(getLockAtMostForMs(lockConfiguration.getLockAtMostUntil())));
+        }
+
+        List<?> locked = redisTemplate.execute(LockScripts.LOCK_ALL, keys, args.toArray());
+        int i = 0;
+        for (Map.Entry<String, LockConfiguration> lock : locks.entrySet()) {
+            if (locked != null && Long.valueOf(1).equals(locked.get(i))) {
+                LockConfiguration lockConfiguration = lock.getValue();
+                result.put(lockConfiguration.getName(), Optional.of(new RedisLock(lock.getKey(), value, redisTemplate, lockConfiguration)));
+            }
+            i++;
+        }
+    }
+
+    private boolean isCluster() {
+        Boolean result = cluster;
+        if (result == null) {
+            try (RedisConnection connection = redisTemplate.getRequiredConnectionFactory().getConnection()) {
+                result = connection instanceof RedisClusterConnection;
+            }
+            cluster = result;
+        }
+        return result;
+    }
+
     private static Expiration getExpiration(Instant until) {
-        return Expiration.from(getMsUntil(until), TimeUnit.MILLISECONDS);
+        return Expiration.from(getLockAtMostForMs(until), TimeUnit.MILLISECONDS);
+    }
+
+    // Redis checks expiration with millisecond granularity, a lock that has just expired may be still present
+    private static boolean isExpired(LockConfiguration lockConfiguration) {
+        return !lockConfiguration.getLockAtMostUntil().isAfter(ClockProvider.now());
+    }
+
+    // zero expiration would not be accepted or would create a lock without expiration
+    private static long getLockAtMostForMs(Instant until) {
+        return Math.max(getMsUntil(until), 1);
     }
 
     private static long getMsUntil(Instant until) {
@@ -114,39 +219,56 @@ public class RedisLockProvider implements LockProvider {
     private static final class RedisLock extends AbstractSimpleLock {
 
         private final String key;
+        private final String value;
         private final StringRedisTemplate redisTemplate;
 
-        private RedisLock(String key, StringRedisTemplate redisTemplate, LockConfiguration lockConfiguration) {
+        private RedisLock(String key, String value, StringRedisTemplate redisTemplate, LockConfiguration lockConfiguration) {
             super(lockConfiguration);
             this.key = key;
+            this.value = value;
             this.redisTemplate = redisTemplate;
         }
 
         @Override
         public void doUnlock() {
-            Expiration keepLockFor = getExpiration(lockConfiguration.getLockAtLeastUntil());
-            // lock at least until is in the past
-            if (keepLockFor.getExpirationTimeInMilliseconds() <= 0) {
-                try {
-                    redisTemplate.delete(key);
-                } catch (Exception e) {
-                    throw new LockException("Can not remove node", e);
-                }
+            // lock at least until may be in the past, the script removes the key in such case
+            long keepLockFor = Math.max(getMsUntil(lockConfiguration.getLockAtLeastUntil()), 0);
+            try {
+                redisTemplate.execute(LockScripts.UNLOCK, List.of(key), value, String.valueOf(keepLockFor));
+            } catch (Exception e) {
+                throw new LockException("Can not remove node", e);
+            }
+        }
+
+        @Override
+        public Optional<SimpleLock> doExtend(LockConfiguration newConfiguration) {
+            if (isExpired(lockConfiguration)) {
+                return Optional.empty();
+            }
+            long lockAtMostFor = getLockAtMostForMs(newConfiguration.getLockAtMostUntil());
+            Long extended = redisTemplate.execute(LockScripts.EXTEND, List.of(key), value, String.valueOf(lockAtMostFor));
+            if (Long.valueOf(1).equals(extended)) {
+                return Optional.of(new RedisLock(key, value, redisTemplate, newConfiguration));
             } else {
-                tryToSetExpiration(this.redisTemplate, key, keepLockFor, SetOption.SET_IF_PRESENT);
+                return Optional.empty();
             }
         }
     }
 
 
     String buildKey(String lockName) {
-        return String.format("%s:%s:%s", keyPrefix, environment, lockName);
+        return keyLayout.buildKey(keyPrefix, environment, lockName);
     }
 
-    private static Boolean tryToSetExpiration(StringRedisTemplate template, String key, Expiration expiration, SetOption option) {
+    private static String buildValue() {
+        // the random part makes the value unique, unlock and extend scripts compare it to check the lock is still ours
+        return String.format("ADDED:%s@%s:%s", toIsoString(ClockProvider.now()), getHostname(), UUID.randomUUID());
+    }
+
+    private static Boolean tryToSetExpiration(StringRedisTemplate template, String key, String value, Expiration expiration, SetOption option) {
         return template.execute(connection -> {
             byte[] serializedKey = ((RedisSerializer<String>) template.getKeySerializer()).serialize(key);
-            byte[] serializedValue = ((RedisSerializer<String>) template.getValueSerializer()).serialize(String.format("ADDED:%s@%s", toIsoString(ClockProvider.now()), getHostname()));
+            byte[] serializedValue = ((RedisSerializer<String>) template.getValueSerializer()).serialize(value);
             return connection.set(serializedKey, serializedValue, expiration, option);
         }, false);
     }
@@ -155,6 +277,7 @@ public class RedisLockProvider implements LockProvider {
         private final StringRedisTemplate redisTemplate;
         private String environment = ENV_DEFAULT;
         private String keyPrefix = KEY_PREFIX_DEFAULT;
+        private KeyLayout keyLayout = KeyLayout.flat();
 
         public Builder(@NonNull RedisConnectionFactory redisConnectionFactory) {
             this.redisTemplate = new StringRedisTemplate(redisConnectionFactory);
@@ -174,8 +297,17 @@ public class RedisLockProvider implements LockProvider {
             return this;
         }
 
+        /**
+         * Sets layout of the keys. For example {@link KeyLayout#environmentHashTag()} puts all locks to the same
+         * Redis Cluster slot, so they can be acquired at once using {@link RedisLockProvider#lockAll(Collection)}.
+         */
+        public Builder keyLayout(@NonNull KeyLayout keyLayout) {
+            this.keyLayout = keyLayout;
+            return this;
+        }
+
         public RedisLockProvider build() {
-            return new RedisLockProvider(redisTemplate, environment, keyPrefix);
+            return new RedisLockProvider(redisTemplate, environment, keyPrefix, keyLayout);
         }
     }
 }
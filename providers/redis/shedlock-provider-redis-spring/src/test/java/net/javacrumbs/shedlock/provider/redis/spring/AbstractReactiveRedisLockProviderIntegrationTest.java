@@ -1,13 +1,21 @@
 package net.javacrumbs.shedlock.provider.redis.spring;
 
-import net.javacrumbs.shedlock.core.LockProvider;
-import net.javacrumbs.shedlock.test.support.AbstractLockProviderIntegrationTest;
+import net.javacrumbs.shedlock.core.AsyncSimpleLock;
+import net.javacrumbs.shedlock.core.DefaultAsyncLockingTaskExecutor;
+import net.javacrumbs.shedlock.core.ExtensibleLockProvider;
+import net.javacrumbs.shedlock.core.LockingTaskExecutor.TaskResult;
+import net.javacrumbs.shedlock.core.SimpleLock;
+import net.javacrumbs.shedlock.test.support.AbstractAsyncLockProviderIntegrationTest;
+import org.junit.jupiter.api.Test;
 import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
 import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 
+import java.time.Duration;
+import java.util.Optional;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
-public abstract class AbstractReactiveRedisLockProviderIntegrationTest extends AbstractLockProviderIntegrationTest {
+public abstract class AbstractReactiveRedisLockProviderIntegrationTest extends AbstractAsyncLockProviderIntegrationTest {
     private final ReactiveRedisLockProvider lockProvider;
     private final ReactiveStringRedisTemplate redisTemplate;
 
@@ -23,8 +31,48 @@ public abstract class AbstractReactiveRedisLockProviderIntegrationTest extends A
         redisTemplate = new ReactiveStringRedisTemplate(connectionFactory);
     }
 
+    @Test
+    public void shouldNotUnlockAsyncLockHeldBySomebodyElse() throws Exception {
+        Optional<AsyncSimpleLock> lock = lockProvider.lockAsync(lockConfig(LOCK_NAME1)).toCompletableFuture().get();
+        assertThat(lock).isNotEmpty();
+
+        // simulates that our lock has expired and somebody else has acquired it
+        redisTemplate.opsForValue().set(createKey(LOCK_NAME1), "somebody else").block();
+        lock.get().unlockAsync().toCompletableFuture().get();
+        assertThat(redisTemplate.opsForValue().get(createKey(LOCK_NAME1)).block()).isEqualTo("somebody else");
+        redisTemplate.delete(createKey(LOCK_NAME1)).block();
+    }
+
+    @Test
+    public void shouldExecuteReactiveTaskWithLock() throws Exception {
+        DefaultAsyncLockingTaskExecutor executor = new DefaultAsyncLockingTaskExecutor(lockProvider);
+        // do not block in the task, it may be executed in the event-loop
+        TaskResult<Long> result = executor.executeWithLock(
+            () -> redisTemplate.getExpire(createKey(LOCK_NAME1)).map(Duration::toMillis).toFuture(),
+            lockConfig(LOCK_NAME1)
+        ).toCompletableFuture().get();
+
+        assertThat(result.wasExecuted()).isTrue();
+        assertThat(result.getResult()).isPositive();
+        assertUnlocked(LOCK_NAME1);
+    }
+
+    /**
+     * Redis expires keys with millisecond granularity, so the lock has to be a bit longer than in the generic test.
+     */
+    @Test
+    @Override
+    public void shouldNotBeAbleToExtendExpiredLock() {
+        Optional<SimpleLock> lock = lockProvider.lock(lockConfig(LOCK_NAME1, Duration.ofMillis(10), Duration.ZERO));
+        assertThat(lock).isNotEmpty();
+        sleepFor(Duration.ofMillis(20));
+
+        assertThat(lock.get().extend(Duration.ofSeconds(10), Duration.ZERO)).isEmpty();
+        assertUnlocked(LOCK_NAME1);
+    }
+
     @Override
-    protected LockProvider getLockProvider() {
+    protected ExtensibleLockProvider getLockProvider() {
         return lockProvider;
     }
 
@@ -15,14 +15,21 @@
  */
 package net.javacrumbs.shedlock.provider.redis.spring;
 
-import net.javacrumbs.shedlock.core.LockProvider;
-import net.javacrumbs.shedlock.test.support.AbstractLockProviderIntegrationTest;
+import net.javacrumbs.shedlock.core.ExtensibleLockProvider;
+import net.javacrumbs.shedlock.core.SimpleLock;
+import net.javacrumbs.shedlock.test.support.AbstractExtensibleLockProviderIntegrationTest;
+import org.junit.jupiter.api.Test;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.StringRedisTemplate;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
-public abstract class AbstractRedisLockProviderIntegrationTest extends AbstractLockProviderIntegrationTest {
+public abstract class AbstractRedisLockProviderIntegrationTest extends AbstractExtensibleLockProviderIntegrationTest {
 
     private final RedisLockProvider lockProvider;
     private final StringRedisTemplate redisTemplate;
@@ -40,8 +47,69 @@ public abstract class AbstractRedisLockProviderIntegrationTest extends AbstractL
         redisTemplate = new StringRedisTemplate(connectionFactory);
     }
 
+    @Test
+    public void shouldNotUnlockLockHeldBySomebodyElse() {
+        Optional<SimpleLock> lock = lockProvider.lock(lockConfig(LOCK_NAME1));
+        assertThat(lock).isNotEmpty();
+
+        // simulates that our lock has expired and somebody else has acquired it
+        redisTemplate.opsForValue().set(buildKey(LOCK_NAME1), "somebody else");
+        lock.get().unlock();
+        assertThat(redisTemplate.opsForValue().get(buildKey(LOCK_NAME1))).isEqualTo("somebody else");
+        redisTemplate.delete(buildKey(LOCK_NAME1));
+    }
+
+    @Test
+    public void shouldLockAll() {
+        Optional<SimpleLock> lock = lockProvider.lock(lockConfig(LOCK_NAME1));
+        assertThat(lock).isNotEmpty();
+
+        Map<String, Optional<SimpleLock>> locks = lockProvider.lockAll(List.of(lockConfig(LOCK_NAME1), lockConfig("batch2"), lockConfig("batch3")));
+        assertThat(locks.keySet()).containsExactly(LOCK_NAME1, "batch2", "batch3");
+        assertThat(locks.get(LOCK_NAME1)).isEmpty();
+        assertLocked("batch2");
+        assertLocked("batch3");
+
+        locks.values().forEach(it -> it.ifPresent(SimpleLock::unlock));
+        lock.get().unlock();
+        assertUnlocked(LOCK_NAME1);
+        assertUnlocked("batch2");
+        assertUnlocked("batch3");
+    }
+
+    @Test
+    public void shouldUseKeyLayout() {
+        RedisLockProvider groupedLockProvider = new RedisLockProvider.Builder(redisTemplate)
+            .environment(ENV)
+            .keyPrefix(KEY_PREFIX)
+            .keyLayout(KeyLayout.lockGroups(lockName -> "group"))
+            .build();
+        String key = KEY_PREFIX + ":" + ENV + ":{group}:" + LOCK_NAME1;
+
+        Map<String, Optional<SimpleLock>> locks = groupedLockProvider.lockAll(List.of(lockConfig(LOCK_NAME1), lockConfig("grouped2")));
+        assertThat(locks.values()).allMatch(Optional::isPresent);
+        assertThat(redisTemplate.getExpire(key)).isPositive();
+
+        locks.values().forEach(it -> it.ifPresent(SimpleLock::unlock));
+        assertThat(redisTemplate.hasKey(key)).isFalse();
+    }
+
+    /**
+     * Redis expires keys with millisecond granularity, so the lock has to be a bit longer than in the generic test.
+     */
+    @Test
+    @Override
+    public void shouldNotBeAbleToExtendExpiredLock() {
+        Optional<SimpleLock> lock = lockProvider.lock(lockConfig(LOCK_NAME1, Duration.ofMillis(10), Duration.ZERO));
+        assertThat(lock).isNotEmpty();
+        sleepFor(Duration.ofMillis(20));
+
+        assertThat(lock.get().extend(Duration.ofSeconds(10), Duration.ZERO)).isEmpty();
+        assertUnlocked(LOCK_NAME1);
+    }
+
     @Override
-    protected LockProvider getLockProvider() {
+    protected ExtensibleLockProvider getLockProvider() {
         return lockProvider;
     }
 
@@ -18,21 +18,30 @@ package net.javacrumbs.shedlock.provider.zookeeper.curator;
 import net.javacrumbs.shedlock.core.AbstractSimpleLock;
 import net.javacrumbs.shedlock.core.ClockProvider;
 import net.javacrumbs.shedlock.core.LockConfiguration;
-import net.javacrumbs.shedlock.core.LockProvider;
 import net.javacrumbs.shedlock.core.SimpleLock;
+import net.javacrumbs.shedlock.core.WaitingLockProvider;
+import net.javacrumbs.shedlock.support.ExpiredLockRecordRemover;
 import net.javacrumbs.shedlock.support.LockException;
 import net.javacrumbs.shedlock.support.annotation.NonNull;
 import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.api.CuratorWatcher;
+import org.apache.curator.framework.api.transaction.CuratorOp;
 import org.apache.curator.utils.PathUtils;
 import org.apache.zookeeper.CreateMode;
 import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Watcher;
 import org.apache.zookeeper.data.Stat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Objects.requireNonNull;
@@ -41,11 +50,17 @@ import static net.javacrumbs.shedlock.support.Utils.toIsoString;
 /**
  * Locks kept using ZooKeeper. When locking, creates a PERSISTENT  node with node name = lock_name and value containing lock data,
  * when unlocking, keeps the node and changes node data to release the lock.
+ * Nodes of locks that have not been used for a long time can be deleted using {@link #removeExpiredLockRecords(Instant, int)}.
+ * {@link #tryLock(LockConfiguration, Duration)} waits for the lock using a watcher on the lock node.
  */
-public class ZookeeperCuratorLockProvider implements LockProvider {
+public class ZookeeperCuratorLockProvider implements WaitingLockProvider, ExpiredLockRecordRemover {
     public static final String DEFAULT_PATH = "/shedlock";
     private final String path;
     private final CuratorFramework client;
+    /**
+     * Position of the current sweep, guarded by itself
+     */
+    private final SweepCursor sweepCursor = new SweepCursor();
 
     private static final Logger logger = LoggerFactory.getLogger(ZookeeperCuratorLockProvider.class);
 
@@ -84,6 +99,56 @@ public class ZookeeperCuratorLockProvider implements LockProvider {
         }
     }
 
+    /**
+     * Tries to lock, if the lock is held by somebody else, sets a watcher on the node and tries again when the node
+     * is changed or when the lock expires.
+     */
+    @Override
+    @NonNull
+    public Optional<SimpleLock> tryLock(@NonNull LockConfiguration lockConfiguration, @NonNull Duration wait) {
+        Instant deadline = ClockProvider.now().plus(wait);
+        String nodePath = getNodePath(lockConfiguration.getName());
+        while (true) {
+            Optional<SimpleLock> lock = lock(new LockConfiguration(ClockProvider.now(), lockConfiguration.getName(),
+                lockConfiguration.getLockAtMostFor(), lockConfiguration.getLockAtLeastFor()));
+            if (lock.isPresent() || !ClockProvider.now().isBefore(deadline)) {
+                return lock;
+            }
+            try {
+                CountDownLatch changed = new CountDownLatch(1);
+                CuratorWatcher watcher = event -> changed.countDown();
+                byte[] data = client.getData().usingWatcher(watcher).forPath(nodePath);
+                if (isLocked(data)) {
+                    Instant wakeUp = min(deadline, getLockedUntil(data));
+                    changed.await(Duration.between(ClockProvider.now(), wakeUp).toMillis(), TimeUnit.MILLISECONDS);
+                }
+                if (changed.getCount() > 0) {
+                    // the watcher is one-shot, but stays registered until the node changes, so it would pile up
+                    client.watchers().remove(watcher).ofType(Watcher.WatcherType.Data).quietly().forPath(nodePath);
+                }
+            } catch (KeeperException.NoNodeException e) {
+                // deleted in the meantime, try again
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new LockException("Interrupted while waiting for lock", e);
+            } catch (Exception e) {
+                throw new LockException("Can not watch lock node", e);
+            }
+        }
+    }
+
+    private static Instant getLockedUntil(byte[] data) {
+        try {
+            return parse(data);
+        } catch (DateTimeParseException e) {
+            return Instant.MAX;
+        }
+    }
+
+    private static Instant min(Instant a, Instant b) {
+        return a.isBefore(b) ? a : b;
+    }
+
     private Optional<SimpleLock> tryLock(LockConfiguration lockConfiguration, String nodePath, Stat stat) throws Exception {
         try {
             client.setData().withVersion(stat.getVersion()).forPath(nodePath, serialize(lockConfiguration.getLockAtMostUntil()));
@@ -105,6 +170,98 @@ public class ZookeeperCuratorLockProvider implements LockProvider {
         }
     }
 
+    /**
+     * Deletes expired lock nodes in one transaction. Nodes are deleted with the version that has been read,
+     * so a node locked in the meantime is not deleted. If the transaction fails due to such node,
+     * the nodes are deleted one by one.
+     * <p>
+     * Children are listed only once per sweep, calls with the same lockUntilBefore continue where the previous call
+     * has stopped, so each node is read at most once in a sweep.
+     */
+    @Override
+    public int removeExpiredLockRecords(@NonNull Instant lockUntilBefore, int limit) {
+        synchronized (sweepCursor) {
+            try {
+                return removeExpiredLockRecords(sweepCursor, lockUntilBefore, limit);
+            } catch (Exception e) {
+                throw new LockException("Can not delete expired lock nodes", e);
+            }
+        }
+    }
+
+    private int removeExpiredLockRecords(SweepCursor cursor, Instant lockUntilBefore, int limit) throws Exception {
+        if (!lockUntilBefore.equals(cursor.lockUntilBefore)) {
+            cursor.lockUntilBefore = lockUntilBefore;
+            cursor.children = children();
+            cursor.position = 0;
+        }
+        List<String> nodePaths = new ArrayList<>();
+        List<Integer> versions = new ArrayList<>();
+        while (nodePaths.size() < limit && cursor.position < cursor.children.size()) {
+            String nodePath = getNodePath(cursor.children.get(cursor.position++));
+            Stat stat = new Stat();
+            try {
+                byte[] data = client.getData().storingStatIn(stat).forPath(nodePath);
+                if (stat.getNumChildren() == 0 && isExpired(data, lockUntilBefore)) {
+                    nodePaths.add(nodePath);
+                    versions.add(stat.getVersion());
+                }
+            } catch (KeeperException.NoNodeException e) {
+                // deleted in the meantime
+            }
+        }
+        if (cursor.position >= cursor.children.size()) {
+            // do not keep the list until the next sweep
+            cursor.children = List.of();
+        }
+        if (nodePaths.isEmpty()) {
+            return 0;
+        }
+        List<CuratorOp> deletes = new ArrayList<>(nodePaths.size());
+        for (int i = 0; i < nodePaths.size(); i++) {
+            deletes.add(client.transactionOp().delete().withVersion(versions.get(i)).forPath(nodePaths.get(i)));
+        }
+        try {
+            client.transaction().forOperations(deletes);
+            return deletes.size();
+        } catch (KeeperException e) {
+            logger.debug("Can not delete expired lock nodes in one transaction, deleting one by one", e);
+            return deleteOneByOne(nodePaths, versions);
+        }
+    }
+
+    private List<String> children() throws Exception {
+        try {
+            return client.getChildren().forPath(path);
+        } catch (KeeperException.NoNodeException e) {
+            return List.of();
+        }
+    }
+
+    private int deleteOneByOne(List<String> nodePaths, List<Integer> versions) throws Exception {
+        int deleted = 0;
+        for (int i = 0; i < nodePaths.size(); i++) {
+            try {
+                client.delete().withVersion(versions.get(i)).forPath(nodePaths.get(i));
+                deleted++;
+            } catch (KeeperException.BadVersionException | KeeperException.NoNodeException e) {
+                logger.trace("Node {} has been changed by a parallel process", nodePaths.get(i));
+            }
+        }
+        return deleted;
+    }
+
+    private boolean isExpired(byte[] data, Instant lockUntilBefore) {
+        if (data == null || data.length == 0) {
+            return false;
+        }
+        try {
+            return parse(data).isBefore(lockUntilBefore);
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
     boolean isLocked(String nodePath) throws Exception {
         byte[] data = client.getData().forPath(nodePath);
         return isLocked(data);
@@ -137,6 +294,12 @@ public class ZookeeperCuratorLockProvider implements LockProvider {
         return path + "/" + lockName;
     }
 
+    private static final class SweepCursor {
+        private Instant lockUntilBefore;
+        private List<String> children = List.of();
+        private int position;
+    }
+
     private static final class CuratorLock extends AbstractSimpleLock {
         private final String nodePath;
         private final CuratorFramework client;
@@ -15,6 +15,7 @@
  */
 package net.javacrumbs.shedlock.provider.zookeeper.curator;
 
+import net.javacrumbs.shedlock.core.ClockProvider;
 import net.javacrumbs.shedlock.core.LockProvider;
 import net.javacrumbs.shedlock.core.SimpleLock;
 import net.javacrumbs.shedlock.test.support.AbstractLockProviderIntegrationTest;
@@ -28,7 +29,11 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -70,6 +75,75 @@ public class ZookeeperCuratorLockProviderIntegrationTest extends AbstractLockPro
         assertThat(lock2).isNotEmpty();
     }
 
+    @Test
+    public void shouldRemoveExpiredLockNodes() throws Exception {
+        Optional<SimpleLock> lock1 = zookeeperCuratorLockProvider.lock(lockConfig(LOCK_NAME1));
+        lock1.get().unlock();
+        Optional<SimpleLock> lock2 = zookeeperCuratorLockProvider.lock(lockConfig("other"));
+        assertThat(lock2).isNotEmpty();
+
+        Instant lockUntilBefore = ClockProvider.now().plusMillis(1);
+        assertThat(zookeeperCuratorLockProvider.removeExpiredLockRecords(lockUntilBefore, 10)).isEqualTo(1);
+        assertThat(client.checkExists().forPath(getNodePath(LOCK_NAME1))).isNull();
+        assertThat(client.checkExists().forPath(getNodePath("other"))).isNotNull();
+
+        // the node is recreated
+        assertThat(zookeeperCuratorLockProvider.lock(lockConfig(LOCK_NAME1))).isNotEmpty();
+    }
+
+    @Test
+    public void shouldListNodesOnlyOncePerSweep() throws Exception {
+        for (String name : new String[]{"a", "b", "c"}) {
+            zookeeperCuratorLockProvider.lock(lockConfig(name)).get().unlock();
+        }
+
+        Instant lockUntilBefore = ClockProvider.now().plusMillis(1);
+        assertThat(zookeeperCuratorLockProvider.removeExpiredLockRecords(lockUntilBefore, 2)).isEqualTo(2);
+        // created after the nodes have been listed, it is left for the next sweep
+        zookeeperCuratorLockProvider.lock(lockConfig("d")).get().unlock();
+        assertThat(zookeeperCuratorLockProvider.removeExpiredLockRecords(lockUntilBefore, 2)).isEqualTo(1);
+        assertThat(zookeeperCuratorLockProvider.removeExpiredLockRecords(lockUntilBefore, 2)).isEqualTo(0);
+        assertThat(client.checkExists().forPath(getNodePath("d"))).isNotNull();
+
+        assertThat(zookeeperCuratorLockProvider.removeExpiredLockRecords(ClockProvider.now().plusMillis(1), 2)).isEqualTo(1);
+        assertThat(client.checkExists().forPath(getNodePath("d"))).isNull();
+    }
+
+    @Test
+    public void shouldWaitUntilLockIsReleased() {
+        Optional<SimpleLock> lock1 = zookeeperCuratorLockProvider.lock(lockConfig(LOCK_NAME1, Duration.ofSeconds(30), Duration.ZERO));
+        assertThat(lock1).isNotEmpty();
+        CompletableFuture.runAsync(() -> lock1.get().unlock(), CompletableFuture.delayedExecutor(200, TimeUnit.MILLISECONDS));
+
+        Instant start = Instant.now();
+        Optional<SimpleLock> lock2 = zookeeperCuratorLockProvider.tryLock(lockConfig(LOCK_NAME1), Duration.ofSeconds(10));
+        assertThat(lock2).isNotEmpty();
+        assertThat(Duration.between(start, Instant.now())).isLessThan(Duration.ofSeconds(5));
+        assertLocked(LOCK_NAME1);
+        lock2.get().unlock();
+    }
+
+    @Test
+    public void shouldWaitUntilLockExpires() {
+        Optional<SimpleLock> lock1 = zookeeperCuratorLockProvider.lock(lockConfig(LOCK_NAME1, Duration.ofMillis(300), Duration.ZERO));
+        assertThat(lock1).isNotEmpty();
+
+        Optional<SimpleLock> lock2 = zookeeperCuratorLockProvider.tryLock(lockConfig(LOCK_NAME1), Duration.ofSeconds(10));
+        assertThat(lock2).isNotEmpty();
+        lock2.get().unlock();
+    }
+
+    @Test
+    public void shouldStopWaitingAfterTimeout() {
+        Optional<SimpleLock> lock1 = zookeeperCuratorLockProvider.lock(lockConfig(LOCK_NAME1, Duration.ofSeconds(30), Duration.ZERO));
+        assertThat(lock1).isNotEmpty();
+
+        Instant start = Instant.now();
+        assertThat(zookeeperCuratorLockProvider.tryLock(lockConfig(LOCK_NAME1), Duration.ofMillis(200))).isEmpty();
+        assertThat(Duration.between(start, Instant.now())).isGreaterThanOrEqualTo(Duration.ofMillis(200));
+        lock1.get().unlock();
+    }
+
     @Override
     protected LockProvider getLockProvider() {
         return zookeeperCuratorLockProvider;
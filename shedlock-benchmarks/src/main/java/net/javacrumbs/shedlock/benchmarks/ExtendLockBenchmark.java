@@ -0,0 +1,95 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.benchmarks;
+
+import net.javacrumbs.shedlock.core.LockProvider;
+import net.javacrumbs.shedlock.core.SimpleLock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static net.javacrumbs.shedlock.benchmarks.LockProviderBenchmark.LOCK_AT_MOST_FOR;
+import static net.javacrumbs.shedlock.benchmarks.LockProviderBenchmark.lockConfiguration;
+
+/**
+ * Measures {@link SimpleLock#extend(Duration, Duration)} on providers that support lock extension.
+ * Each thread holds its own lock and keeps extending it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExtendLockBenchmark {
+    @Param({"IN_MEMORY", "STORAGE_IN_MEMORY", "JDBC_H2", "JDBC_HSQL", "JDBC_TEMPLATE_H2", "JDBC_TEMPLATE_HSQL"})
+    private ProviderType provider;
+
+    private ProviderType.ProviderSetup setup;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        setup = provider.create();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        setup.close();
+    }
+
+    @Benchmark
+    public SimpleLock extend(ThreadState threadState) {
+        SimpleLock extended = threadState.lock.extend(LOCK_AT_MOST_FOR, Duration.ZERO)
+            .orElseThrow(() -> new IllegalStateException("Can not extend " + threadState.lockName));
+        threadState.lock = extended;
+        return extended;
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private static final AtomicInteger counter = new AtomicInteger();
+
+        private final String lockName = "extended-" + counter.incrementAndGet();
+        private SimpleLock lock;
+
+        @Setup(Level.Trial)
+        public void lock(ExtendLockBenchmark benchmark) {
+            LockProvider lockProvider = benchmark.setup.getLockProvider();
+            Optional<SimpleLock> newLock = lockProvider.lock(lockConfiguration(lockName));
+            lock = newLock.orElseThrow(() -> new IllegalStateException("Can not lock " + lockName));
+        }
+
+        @TearDown(Level.Trial)
+        public void unlock() {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.benchmarks;
+
+import net.javacrumbs.shedlock.core.ClockProvider;
+import net.javacrumbs.shedlock.core.LockConfiguration;
+import net.javacrumbs.shedlock.support.AbstractStorageAccessor;
+
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * StorageAccessor backed by a ConcurrentHashMap. Stands in for remote storages (Mongo, Redis, ...) so the overhead
+ * of StorageBasedLockProvider can be measured without network round-trips.
+ */
+class InMemoryStorageAccessor extends AbstractStorageAccessor {
+    private final ConcurrentMap<String, LockRecord> records = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean insertRecord(LockConfiguration lockConfiguration) {
+        LockRecord newRecord = new LockRecord(lockConfiguration.getLockAtMostUntil(), getHostname());
+        return records.putIfAbsent(lockConfiguration.getName(), newRecord) == null;
+    }
+
+    @Override
+    public boolean updateRecord(LockConfiguration lockConfiguration) {
+        Instant now = ClockProvider.now();
+        LockRecord newRecord = new LockRecord(lockConfiguration.getLockAtMostUntil(), getHostname());
+        LockRecord result = records.computeIfPresent(lockConfiguration.getName(),
+            (name, current) -> !current.lockUntil.isAfter(now) ? newRecord : current
+        );
+        return result == newRecord;
+    }
+
+    @Override
+    public boolean extend(LockConfiguration lockConfiguration) {
+        Instant now = ClockProvider.now();
+        String hostname = getHostname();
+        LockRecord newRecord = new LockRecord(lockConfiguration.getLockAtMostUntil(), hostname);
+        LockRecord result = records.computeIfPresent(lockConfiguration.getName(),
+            (name, current) -> current.lockedBy.equals(hostname) && current.lockUntil.isAfter(now) ? newRecord : current
+        );
+        return result == newRecord;
+    }
+
+    @Override
+    public void unlock(LockConfiguration lockConfiguration) {
+        records.put(lockConfiguration.getName(), new LockRecord(lockConfiguration.getUnlockTime(), getHostname()));
+    }
+
+    private static class LockRecord {
+        private final Instant lockUntil;
+        private final String lockedBy;
+
+        private LockRecord(Instant lockUntil, String lockedBy) {
+            this.lockUntil = lockUntil;
+            this.lockedBy = lockedBy;
+        }
+    }
+}
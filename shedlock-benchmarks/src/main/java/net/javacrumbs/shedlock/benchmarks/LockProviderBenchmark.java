@@ -0,0 +1,105 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.benchmarks;
+
+import net.javacrumbs.shedlock.core.ClockProvider;
+import net.javacrumbs.shedlock.core.LockConfiguration;
+import net.javacrumbs.shedlock.core.LockProvider;
+import net.javacrumbs.shedlock.core.SimpleLock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures {@link LockProvider#lock(LockConfiguration)} and {@link SimpleLock#unlock()}. Every thread works with its own
+ * lock name so the numbers reflect the provider overhead, not lock contention. Use <code>-prof gc</code> to get
+ * allocation rate per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LockProviderBenchmark {
+    static final Duration LOCK_AT_MOST_FOR = Duration.ofMinutes(1);
+    private static final String HELD_LOCK_NAME = "held-lock";
+
+    @Param
+    private ProviderType provider;
+
+    private ProviderType.ProviderSetup setup;
+    private LockProvider lockProvider;
+    private SimpleLock heldLock;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        setup = provider.create();
+        lockProvider = setup.getLockProvider();
+        heldLock = lockProvider.lock(lockConfiguration(HELD_LOCK_NAME))
+            .orElseThrow(() -> new IllegalStateException("Can not lock " + HELD_LOCK_NAME));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        heldLock.unlock();
+        setup.close();
+    }
+
+    /**
+     * Uncontended lock immediately followed by unlock, the typical cycle of a short scheduled task.
+     */
+    @Benchmark
+    public Optional<SimpleLock> lockAndUnlock(ThreadState threadState) {
+        Optional<SimpleLock> lock = lockProvider.lock(lockConfiguration(threadState.lockName));
+        lock.ifPresent(SimpleLock::unlock);
+        return lock;
+    }
+
+    /**
+     * Attempt to get a lock that is held by somebody else, the typical case on all but one node.
+     */
+    @Benchmark
+    public Optional<SimpleLock> lockAlreadyHeld() {
+        return lockProvider.lock(lockConfiguration(HELD_LOCK_NAME));
+    }
+
+    static LockConfiguration lockConfiguration(String lockName) {
+        return new LockConfiguration(ClockProvider.now(), lockName, LOCK_AT_MOST_FOR, Duration.ZERO);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private static final AtomicInteger counter = new AtomicInteger();
+
+        final String lockName = "lock-" + counter.incrementAndGet();
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.benchmarks;
+
+import net.javacrumbs.shedlock.core.DefaultLockingTaskExecutor;
+import net.javacrumbs.shedlock.core.LockingTaskExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import static net.javacrumbs.shedlock.benchmarks.LockProviderBenchmark.lockConfiguration;
+
+/**
+ * Measures the full {@link DefaultLockingTaskExecutor#executeWithLock(Runnable, net.javacrumbs.shedlock.core.LockConfiguration)}
+ * cycle including LockAssert and LockExtender bookkeeping.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LockingTaskExecutorBenchmark {
+    @Param({"IN_MEMORY", "STORAGE_IN_MEMORY", "KEEP_ALIVE", "JDBC_H2"})
+    private ProviderType provider;
+
+    private ProviderType.ProviderSetup setup;
+    private LockingTaskExecutor executor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        setup = provider.create();
+        executor = new DefaultLockingTaskExecutor(setup.getLockProvider());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        setup.close();
+    }
+
+    @Benchmark
+    public void executeWithLock(LockProviderBenchmark.ThreadState threadState, Blackhole blackhole) {
+        executor.executeWithLock((Runnable) () -> blackhole.consume(threadState), lockConfiguration(threadState.lockName));
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.benchmarks;
+
+import net.javacrumbs.shedlock.core.LockProvider;
+import net.javacrumbs.shedlock.provider.inmemory.InMemoryLockProvider;
+import net.javacrumbs.shedlock.provider.jdbc.JdbcLockProvider;
+import net.javacrumbs.shedlock.provider.jdbctemplate.JdbcTemplateLockProvider;
+import net.javacrumbs.shedlock.support.KeepAliveLockProvider;
+import net.javacrumbs.shedlock.test.support.jdbc.DbConfig;
+import net.javacrumbs.shedlock.test.support.jdbc.H2Config;
+import net.javacrumbs.shedlock.test.support.jdbc.HsqlConfig;
+import net.javacrumbs.shedlock.test.support.jdbc.JdbcTestUtils;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Function;
+
+/**
+ * Lock providers under benchmark. Storages that need an external process are represented by
+ * {@link #STORAGE_IN_MEMORY}, JDBC providers run against embedded H2 and HSQL databases.
+ */
+public enum ProviderType {
+    IN_MEMORY {
+        @Override
+        ProviderSetup create() {
+            return new ProviderSetup(new InMemoryLockProvider(), () -> {});
+        }
+    },
+    STORAGE_IN_MEMORY {
+        @Override
+        ProviderSetup create() {
+            return new ProviderSetup(new InMemoryStorageLockProvider(), () -> {});
+        }
+    },
+    KEEP_ALIVE {
+        @Override
+        ProviderSetup create() {
+            ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor();
+            return new ProviderSetup(new KeepAliveLockProvider(new InMemoryLockProvider(), executorService), executorService::shutdownNow);
+        }
+    },
+    JDBC_H2 {
+        @Override
+        ProviderSetup create() {
+            return createJdbc(new H2Config(), testUtils -> new JdbcLockProvider(testUtils.getDatasource()));
+        }
+    },
+    JDBC_HSQL {
+        @Override
+        ProviderSetup create() {
+            return createJdbc(new HsqlConfig(), testUtils -> new JdbcLockProvider(testUtils.getDatasource()));
+        }
+    },
+    JDBC_TEMPLATE_H2 {
+        @Override
+        ProviderSetup create() {
+            return createJdbc(new H2Config(), testUtils -> new JdbcTemplateLockProvider(testUtils.getJdbcTemplate()));
+        }
+    },
+    JDBC_TEMPLATE_HSQL {
+        @Override
+        ProviderSetup create() {
+            return createJdbc(new HsqlConfig(), testUtils -> new JdbcTemplateLockProvider(testUtils.getJdbcTemplate()));
+        }
+    };
+
+    abstract ProviderSetup create();
+
+    private static ProviderSetup createJdbc(DbConfig dbConfig, Function<JdbcTestUtils, LockProvider> providerFactory) {
+        dbConfig.startDb();
+        JdbcTestUtils testUtils = new JdbcTestUtils(dbConfig);
+        return new ProviderSetup(providerFactory.apply(testUtils), () -> {
+            testUtils.clean();
+            dbConfig.shutdownDb();
+        });
+    }
+
+    static class ProviderSetup implements AutoCloseable {
+        private final LockProvider lockProvider;
+        private final Runnable cleanup;
+
+        ProviderSetup(LockProvider lockProvider, Runnable cleanup) {
+            this.lockProvider = lockProvider;
+            this.cleanup = cleanup;
+        }
+
+        LockProvider getLockProvider() {
+            return lockProvider;
+        }
+
+        @Override
+        public void close() {
+            cleanup.run();
+        }
+    }
+}
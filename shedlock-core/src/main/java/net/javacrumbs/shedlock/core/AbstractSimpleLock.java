@@ -47,6 +47,24 @@ public abstract class AbstractSimpleLock implements SimpleLock {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public Optional<SimpleLock> handOver(LockConfiguration newConfiguration) {
+        checkValidity();
+        if (!lockConfiguration.getName().equals(newConfiguration.getName())) {
+            throw new IllegalArgumentException("Lock " + lockConfiguration.getName() + " can not be handed over to " + newConfiguration.getName());
+        }
+        Optional<SimpleLock> result = doHandOver(newConfiguration);
+        valid = false;
+        return result;
+    }
+
+    /**
+     * Extends the lock by default, override if the storage can record the start of the new execution as well.
+     */
+    protected Optional<SimpleLock> doHandOver(LockConfiguration newConfiguration) {
+        return doExtend(newConfiguration);
+    }
+
     private void checkValidity() {
         if (!valid) {
             throw new IllegalStateException("Lock " + lockConfiguration.getName() + " is not valid, it has already been unlocked or extended");
@@ -0,0 +1,34 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.core;
+
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Non-blocking variant of {@link LockProvider}. Providers that are based on asynchronous or reactive clients can implement
+ * it, so the lock can be acquired and released without blocking event-loop or carrier threads.
+ */
+public interface AsyncLockProvider {
+
+    /**
+     * Same as {@link LockProvider#lock(LockConfiguration)}, but does not block.
+     *
+     * @return completion stage with the lock or with empty Optional if the lock is held by somebody else. Fails with
+     * LockException if there is an unexpected error.
+     */
+    CompletionStage<Optional<AsyncSimpleLock>> lockAsync(LockConfiguration lockConfiguration);
+}
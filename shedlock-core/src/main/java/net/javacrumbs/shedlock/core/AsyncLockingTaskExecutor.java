@@ -0,0 +1,43 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.core;
+
+import net.javacrumbs.shedlock.core.LockingTaskExecutor.TaskResult;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Executes asynchronous tasks under lock. The lock is released when the CompletionStage returned by the task completes.
+ * <p>
+ * Reactive tasks can be adapted, for example <code>() -&gt; mono.toFuture()</code> for Project Reactor.
+ * The task may be called from the thread that has acquired the lock, for example from an event-loop, so it should not block.
+ * <p>
+ * Please note that {@link LockAssert} and {@link LockExtender} do not work in asynchronous tasks.
+ */
+public interface AsyncLockingTaskExecutor {
+
+    /**
+     * Executes the task if the lock can be acquired.
+     *
+     * @return completion stage with the result of the task or with not executed result if the lock is held by somebody else.
+     */
+    <T> CompletionStage<TaskResult<T>> executeWithLock(AsyncTask<T> task, LockConfiguration lockConfig);
+
+    @FunctionalInterface
+    interface AsyncTask<T> {
+        CompletionStage<T> call() throws Throwable;
+    }
+}
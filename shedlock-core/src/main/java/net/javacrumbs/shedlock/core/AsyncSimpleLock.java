@@ -0,0 +1,49 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.core;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Non-blocking variant of {@link SimpleLock}.
+ */
+public interface AsyncSimpleLock {
+
+    /**
+     * Unlocks the lock. Once you unlock it, you should not use for any other operation.
+     *
+     * @return completion stage that is completed when the lock is released. It's completed exceptionally with
+     * IllegalStateException if the lock has already been unlocked or extended
+     */
+    CompletionStage<Void> unlockAsync();
+
+    /**
+     * Extends the lock. If the lock can be extended a new lock is returned. After calling extend, no other operation
+     * can be called on current lock.
+     * <p>
+     * This method is NOT supported by all lock providers.
+     *
+     * @return completion stage with a new lock or with empty optional if the lock can not be extended. It's completed exceptionally
+     * with IllegalStateException if the lock has already been unlocked or extended or with UnsupportedOperationException if the lock
+     * extension is not supported by AsyncLockProvider.
+     */
+    default CompletionStage<Optional<AsyncSimpleLock>> extendAsync(Duration lockAtMostFor, Duration lockAtLeastFor) {
+        return CompletableFuture.failedFuture(new UnsupportedOperationException());
+    }
+}
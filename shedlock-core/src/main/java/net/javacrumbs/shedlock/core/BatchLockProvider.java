@@ -0,0 +1,38 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.core;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * LockProvider that is able to acquire several locks at once. Useful when many tasks are triggered at
+ * the same time and the storage supports sending multiple commands in one round-trip.
+ */
+public interface BatchLockProvider extends LockProvider {
+
+    /**
+     * Tries to acquire all the locks. Each lock is acquired independently, so some of them can be acquired
+     * while others are held by somebody else.
+     *
+     * @param lockConfigurations configurations of the locks, lock names have to be unique
+     * @return lock name to lock mapping in the same order as lockConfigurations. If the value is empty optional, the lock
+     * could not be acquired. Acquired locks have to be released by the caller.
+     * @throws IllegalArgumentException if lock names are not unique
+     */
+    Map<String, Optional<SimpleLock>> lockAll(Collection<LockConfiguration> lockConfigurations);
+}
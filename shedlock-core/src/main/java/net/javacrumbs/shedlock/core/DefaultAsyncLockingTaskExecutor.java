@@ -0,0 +1,89 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.core;
+
+import net.javacrumbs.shedlock.core.LockingTaskExecutor.TaskResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Default {@link AsyncLockingTaskExecutor} implementation.
+ */
+public class DefaultAsyncLockingTaskExecutor implements AsyncLockingTaskExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(DefaultAsyncLockingTaskExecutor.class);
+    private final AsyncLockProvider lockProvider;
+
+    public DefaultAsyncLockingTaskExecutor(AsyncLockProvider lockProvider) {
+        this.lockProvider = requireNonNull(lockProvider);
+    }
+
+    @Override
+    public <T> CompletionStage<TaskResult<T>> executeWithLock(AsyncTask<T> task, LockConfiguration lockConfig) {
+        String lockName = lockConfig.getName();
+        return lockProvider.lockAsync(lockConfig).thenCompose(lock -> {
+            if (lock.isPresent()) {
+                logger.debug("Locked '{}', lock will be held at most until {}", lockName, lockConfig.getLockAtMostUntil());
+                return executeAndUnlock(task, lock.get(), lockName);
+            } else {
+                logger.debug("Not executing '{}'. It's locked.", lockName);
+                return CompletableFuture.completedFuture(TaskResult.notExecuted());
+            }
+        });
+    }
+
+    private <T> CompletionStage<TaskResult<T>> executeAndUnlock(AsyncTask<T> task, AsyncSimpleLock lock, String lockName) {
+        CompletionStage<T> result;
+        try {
+            result = requireNonNull(task.call(), "Task has to return CompletionStage");
+        } catch (Throwable e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<TaskResult<T>> finished = new CompletableFuture<>();
+        result.whenComplete((value, taskException) -> unlock(lock).whenComplete((ignored, unlockException) -> {
+            if (taskException != null) {
+                if (unlockException != null) {
+                    logger.warn("Can not release lock '{}'", lockName, unwrap(unlockException));
+                }
+                finished.completeExceptionally(unwrap(taskException));
+            } else if (unlockException != null) {
+                finished.completeExceptionally(unwrap(unlockException));
+            } else {
+                logger.debug("Task finished, lock '{}' released", lockName);
+                finished.complete(TaskResult.result(value));
+            }
+        }));
+        return finished;
+    }
+
+    private static CompletionStage<Void> unlock(AsyncSimpleLock lock) {
+        try {
+            return lock.unlockAsync();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+}
@@ -57,28 +57,20 @@ public class DefaultLockingTaskExecutor implements LockingTaskExecutor {
 
     @Override
     public <T> TaskResult<T> executeWithLock(TaskWithResult<T> task, LockConfiguration lockConfig) throws Throwable {
-        Optional<SimpleLock> lock = lockProvider.lock(lockConfig);
+        Optional<SimpleLock> lock = lock(lockConfig);
         String lockName = lockConfig.getName();
 
         if (alreadyLockedBy(lockName)) {
             logger.debug("Already locked '{}'", lockName);
             return TaskResult.result(task.call());
         } else if (lock.isPresent()) {
+            LockContext.ActiveLock activeLock = new LockContext.ActiveLock(lockName, lock.get());
             try {
-                LockAssert.startLock(lockName);
-                LockExtender.startLock(lock.get());
                 logger.debug("Locked '{}', lock will be held at most until {}", lockName, lockConfig.getLockAtMostUntil());
-                return TaskResult.result(task.call());
+                return TaskResult.result(LockContextHolder.lockContext().callWithLock(activeLock, task));
             } finally {
-                LockAssert.endLock();
-                SimpleLock activeLock = LockExtender.endLock();
-                if (activeLock != null) {
-                    activeLock.unlock();
-                } else {
-                    // This should never happen, but I do not know any better way to handle the null case.
-                    logger.warn("No active lock, please report this as a bug.");
-                    lock.get().unlock();
-                }
+                // the lock might have been extended
+                release(activeLock.getLock(), lockConfig);
                 if (logger.isDebugEnabled()) {
                     Instant lockAtLeastUntil = lockConfig.getLockAtLeastUntil();
                     Instant now = ClockProvider.now();
@@ -94,4 +86,18 @@ public class DefaultLockingTaskExecutor implements LockingTaskExecutor {
             return TaskResult.notExecuted();
         }
     }
+
+    /**
+     * Acquires the lock before the task is executed.
+     */
+    protected Optional<SimpleLock> lock(LockConfiguration lockConfig) {
+        return lockProvider.lock(lockConfig);
+    }
+
+    /**
+     * Releases the lock after the task has finished.
+     */
+    protected void release(SimpleLock lock, LockConfiguration lockConfig) {
+        lock.unlock();
+    }
 }
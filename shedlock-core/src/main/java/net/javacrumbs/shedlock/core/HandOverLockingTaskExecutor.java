@@ -0,0 +1,104 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link LockingTaskExecutor} for tasks that are executed again and again on the same node, like tasks scheduled at
+ * fixed rate. When a task finishes before lockAtLeastFor elapses, its lock is shortened to lockAtLeastFor
+ * using {@link SimpleLock#extend(Duration, Duration)} and kept by this node. If the next execution of the task starts
+ * while the kept lock is still valid, it hands the lock over using {@link SimpleLock#handOver(LockConfiguration)},
+ * which is usually one round-trip to the storage instead of lock. Otherwise, the lock is acquired as usual.
+ * <p>
+ * It saves round-trips only if lockAtLeastFor is at least the period of the task. With shorter lockAtLeastFor,
+ * the kept lock expires before the next execution, so the task costs the same as with {@link DefaultLockingTaskExecutor}.
+ * <p>
+ * Other nodes are blocked for lockAtLeastFor, the same as without hand-over. Tasks that finish after lockAtLeastFor
+ * are unlocked. Call {@link #close()} on shutdown to release the kept locks.
+ */
+public class HandOverLockingTaskExecutor extends DefaultLockingTaskExecutor implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(HandOverLockingTaskExecutor.class);
+
+    private final Map<String, KeptLock> heldLocks = new ConcurrentHashMap<>();
+
+    public HandOverLockingTaskExecutor(ExtensibleLockProvider lockProvider) {
+        super(lockProvider);
+    }
+
+    @Override
+    protected Optional<SimpleLock> lock(LockConfiguration lockConfig) {
+        KeptLock heldLock = heldLocks.remove(lockConfig.getName());
+        if (heldLock != null && ClockProvider.now().isBefore(heldLock.lockedUntil)) {
+            Optional<SimpleLock> lock = heldLock.lock.handOver(lockConfig);
+            if (lock.isPresent()) {
+                logger.debug("Lock '{}' handed over", lockConfig.getName());
+                return lock;
+            }
+            // the lock has expired in the meantime, somebody else may hold it now
+            logger.debug("Lock '{}' could not be handed over", lockConfig.getName());
+        }
+        return super.lock(lockConfig);
+    }
+
+    @Override
+    protected void release(SimpleLock lock, LockConfiguration lockConfig) {
+        Duration remainingLockAtLeastFor = Duration.between(ClockProvider.now(), lockConfig.getLockAtLeastUntil());
+        if (remainingLockAtLeastFor.isNegative() || remainingLockAtLeastFor.isZero()) {
+            lock.unlock();
+            return;
+        }
+        // keep the lock only until lockAtLeastUntil, as if it has been unlocked
+        Optional<SimpleLock> keptLock = lock.extend(remainingLockAtLeastFor, Duration.ZERO);
+        if (keptLock.isPresent() && heldLocks.putIfAbsent(lockConfig.getName(), new KeptLock(keptLock.get(), lockConfig.getLockAtLeastUntil())) != null) {
+            // should not happen, the same lock can not be held twice
+            keptLock.get().unlock();
+        }
+    }
+
+    /**
+     * Releases all locks kept for the next execution.
+     */
+    @Override
+    public void close() {
+        for (String lockName : heldLocks.keySet()) {
+            KeptLock heldLock = heldLocks.remove(lockName);
+            if (heldLock != null) {
+                heldLock.lock.unlock();
+            }
+        }
+    }
+
+    private static final class KeptLock {
+        private final SimpleLock lock;
+        /**
+         * The storage does not hand the lock over after this time, so we do not even try.
+         */
+        private final Instant lockedUntil;
+
+        private KeptLock(SimpleLock lock, Instant lockedUntil) {
+            this.lock = lock;
+            this.lockedUntil = lockedUntil;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.core;
+
+import net.javacrumbs.shedlock.core.LockingTaskExecutor.TaskWithResult;
+import net.javacrumbs.shedlock.support.annotation.Nullable;
+
+import java.util.Objects;
+
+/**
+ * Keeps the lock of the task that is currently executed by {@link DefaultLockingTaskExecutor}, so it can be accessed by
+ * {@link LockAssert} and {@link LockExtender}.
+ * <p>
+ * On JVMs that support <code>java.lang.ScopedValue</code> the lock is bound to a scoped value. It is cheap for
+ * virtual threads and it is visible in subtasks forked using <code>StructuredTaskScope</code>. On other JVMs, ThreadLocal is used.
+ * <p>
+ * Custom implementation can be registered using {@link java.util.ServiceLoader}, in such case it is used instead of
+ * the default ones.
+ */
+public interface LockContext {
+    /**
+     * Executes the task with activeLock bound to the context. Nested calls have to restore the original binding.
+     */
+    @Nullable
+    <T> T callWithLock(ActiveLock activeLock, TaskWithResult<T> task) throws Throwable;
+
+    /**
+     * @return lock of the currently executed task or null if there is no such lock
+     */
+    @Nullable
+    ActiveLock getActiveLock();
+
+    /**
+     * Lock of the currently executed task. The lock changes when it's extended.
+     */
+    final class ActiveLock {
+        private final String name;
+        private volatile SimpleLock lock;
+
+        ActiveLock(String name, SimpleLock lock) {
+            this.name = Objects.requireNonNull(name);
+            this.lock = Objects.requireNonNull(lock);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public SimpleLock getLock() {
+            return lock;
+        }
+
+        void setLock(SimpleLock lock) {
+            this.lock = Objects.requireNonNull(lock);
+        }
+    }
+}
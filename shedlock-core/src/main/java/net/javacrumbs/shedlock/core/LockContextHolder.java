@@ -0,0 +1,44 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.core;
+
+import java.util.Iterator;
+import java.util.ServiceLoader;
+
+/**
+ * Selects {@link LockContext} implementation.
+ */
+final class LockContextHolder {
+    private static final LockContext lockContext = createLockContext();
+
+    private LockContextHolder() { }
+
+    static LockContext lockContext() {
+        return lockContext;
+    }
+
+    private static LockContext createLockContext() {
+        Iterator<LockContext> customContexts = ServiceLoader.load(LockContext.class, LockContext.class.getClassLoader()).iterator();
+        if (customContexts.hasNext()) {
+            return customContexts.next();
+        }
+        LockContext scopedValueContext = ScopedValueLockContext.createIfSupported();
+        if (scopedValueContext != null) {
+            return scopedValueContext;
+        }
+        return new ThreadLocalLockContext();
+    }
+}
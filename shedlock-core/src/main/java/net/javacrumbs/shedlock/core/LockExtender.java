@@ -1,44 +1,33 @@
 package net.javacrumbs.shedlock.core;
 
-import net.javacrumbs.shedlock.support.annotation.Nullable;
-
 import java.time.Duration;
 import java.util.Optional;
 
 public final class LockExtender {
-    private static final ThreadLocal<SimpleLock> activeLock = ThreadLocal.withInitial(() -> null);
-
     private LockExtender() { }
 
     /**
-     * Extends active lock. Is based on a thread local variable so it might not work in case of async processing.
+     * Extends active lock. Is based on {@link LockContext}, so it works in the thread that executes the task and, when running on
+     * JVM with ScopedValue support, in subtasks forked using StructuredTaskScope. It might not work in case of other async processing.
      *
      * @throws LockCanNotBeExtendedException when the lock can not be extended due to expired lock
-     * @throws NoActiveLockException         when there is no active lock in the thread local
+     * @throws NoActiveLockException         when there is no active lock in the lock context
      * @throws UnsupportedOperationException when the LockProvider does not support lock extension.
      */
     public static void extendActiveLock(Duration lockAtMostFor, Duration lockAtLeastFor) {
-        SimpleLock lock = activeLock.get();
-        if (lock == null) throw new NoActiveLockException();
-        Optional<SimpleLock> newLock = lock.extend(lockAtMostFor, lockAtLeastFor);
-        if (newLock.isPresent()) {
-            activeLock.set(newLock.get());
-        } else {
-            throw new LockCanNotBeExtendedException();
+        LockContext.ActiveLock activeLock = LockContextHolder.lockContext().getActiveLock();
+        if (activeLock == null) throw new NoActiveLockException();
+        // the lock can be shared by forked subtasks
+        synchronized (activeLock) {
+            Optional<SimpleLock> newLock = activeLock.getLock().extend(lockAtMostFor, lockAtLeastFor);
+            if (newLock.isPresent()) {
+                activeLock.setLock(newLock.get());
+            } else {
+                throw new LockCanNotBeExtendedException();
+            }
         }
     }
 
-    static void startLock(SimpleLock lock) {
-        activeLock.set(lock);
-    }
-
-    @Nullable
-    static SimpleLock endLock() {
-        SimpleLock lock = activeLock.get();
-        activeLock.remove();
-        return lock;
-    }
-
     public static class LockExtensionException extends RuntimeException {
         public LockExtensionException(String message) {
             super(message);
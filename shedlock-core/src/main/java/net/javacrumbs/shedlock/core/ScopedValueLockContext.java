@@ -0,0 +1,101 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.core;
+
+import net.javacrumbs.shedlock.core.LockingTaskExecutor.TaskWithResult;
+import net.javacrumbs.shedlock.support.annotation.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * {@link LockContext} based on <code>java.lang.ScopedValue</code>. ShedLock is compiled for older Java versions,
+ * so ScopedValue is accessed using method handles.
+ */
+final class ScopedValueLockContext implements LockContext {
+    private final Object scopedValue;
+    private final MethodHandle where;
+    private final MethodHandle run;
+    private final MethodHandle isBound;
+    private final MethodHandle get;
+
+    private ScopedValueLockContext(Class<?> scopedValueClass) throws Throwable {
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        Class<?> carrierClass = Class.forName("java.lang.ScopedValue$Carrier");
+        this.scopedValue = lookup.findStatic(scopedValueClass, "newInstance", MethodType.methodType(scopedValueClass)).invoke();
+        this.where = lookup.findStatic(scopedValueClass, "where", MethodType.methodType(carrierClass, scopedValueClass, Object.class));
+        this.run = lookup.findVirtual(carrierClass, "run", MethodType.methodType(void.class, Runnable.class));
+        this.isBound = lookup.findVirtual(scopedValueClass, "isBound", MethodType.methodType(boolean.class));
+        this.get = lookup.findVirtual(scopedValueClass, "get", MethodType.methodType(Object.class));
+    }
+
+    /**
+     * @return the context or null if ScopedValue is not supported by the JVM
+     */
+    @Nullable
+    static LockContext createIfSupported() {
+        try {
+            ScopedValueLockContext lockContext = new ScopedValueLockContext(Class.forName("java.lang.ScopedValue"));
+            // make sure it works, ScopedValue may be a preview feature that is not enabled
+            ActiveLock probe = new ActiveLock("probe", () -> { });
+            if (lockContext.callWithLock(probe, lockContext::getActiveLock) != probe || lockContext.getActiveLock() != null) {
+                return null;
+            }
+            return lockContext;
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+
+    @Override
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> T callWithLock(ActiveLock activeLock, TaskWithResult<T> task) throws Throwable {
+        // Carrier.run(Runnable) has the same signature in all Java versions, so we have to pass the result around
+        Object[] result = new Object[1];
+        Throwable[] exception = new Throwable[1];
+        Runnable runnable = () -> {
+            try {
+                result[0] = task.call();
+            } catch (Throwable e) {
+                exception[0] = e;
+            }
+        };
+        run.invoke(where.invoke(scopedValue, activeLock), runnable);
+        if (exception[0] != null) {
+            throw exception[0];
+        }
+        return (T) result[0];
+    }
+
+    @Override
+    @Nullable
+    public ActiveLock getActiveLock() {
+        try {
+            if ((boolean) isBound.invoke(scopedValue)) {
+                return (ActiveLock) get.invoke(scopedValue);
+            } else {
+                return null;
+            }
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            // Should not happen
+            throw new IllegalStateException(e);
+        }
+    }
+}
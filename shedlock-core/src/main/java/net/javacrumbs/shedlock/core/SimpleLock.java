@@ -40,4 +40,19 @@ public interface SimpleLock {
     default Optional<SimpleLock> extend(Duration lockAtMostFor, Duration lockAtLeastFor) {
         throw new UnsupportedOperationException();
     }
+
+    /**
+     * Hands the lock over to the next execution of the task on this node. The lock is not released, it is
+     * re-acquired as if it has just been locked using the new configuration. After calling handOver, no other operation
+     * can be called on current lock.
+     * <p>
+     * This method is NOT supported by all lock providers. By default, the lock is extended.
+     *
+     * @return a new lock or empty optional if the lock is not held anymore
+     * @throws IllegalStateException         if the lock has already been unlocked or extended
+     * @throws UnsupportedOperationException if the lock extension is not supported by LockProvider.
+     */
+    default Optional<SimpleLock> handOver(LockConfiguration newConfiguration) {
+        return extend(newConfiguration.getLockAtMostFor(), newConfiguration.getLockAtLeastFor());
+    }
 }
@@ -0,0 +1,48 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.core;
+
+import net.javacrumbs.shedlock.core.LockingTaskExecutor.TaskWithResult;
+import net.javacrumbs.shedlock.support.annotation.Nullable;
+
+/**
+ * {@link LockContext} used on JVMs without ScopedValue support.
+ */
+final class ThreadLocalLockContext implements LockContext {
+    private final ThreadLocal<ActiveLock> activeLock = new ThreadLocal<>();
+
+    @Override
+    @Nullable
+    public <T> T callWithLock(ActiveLock lock, TaskWithResult<T> task) throws Throwable {
+        ActiveLock previous = activeLock.get();
+        activeLock.set(lock);
+        try {
+            return task.call();
+        } finally {
+            if (previous == null) {
+                activeLock.remove();
+            } else {
+                activeLock.set(previous);
+            }
+        }
+    }
+
+    @Override
+    @Nullable
+    public ActiveLock getActiveLock() {
+        return activeLock.get();
+    }
+}
@@ -0,0 +1,36 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.core;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * LockProvider that is able to wait until a lock held by somebody else is released. Storages with change notifications
+ * (watches, blocking queries) wake the waiting thread when the lock is released, so there is no need to poll.
+ */
+public interface WaitingLockProvider extends LockProvider {
+
+    /**
+     * Tries to acquire the lock. If the lock is held by somebody else, waits until it's released or expires,
+     * but at most for the given time. lockAtMostFor and lockAtLeastFor are counted from the moment the lock is acquired.
+     *
+     * @param lockConfiguration configuration of the lock
+     * @param wait maximal time to wait for the lock
+     * @return the lock or empty optional if the lock could not be acquired in time. The lock has to be released by the caller.
+     */
+    Optional<SimpleLock> tryLock(LockConfiguration lockConfiguration, Duration wait);
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.support;
+
+import net.javacrumbs.shedlock.core.ExtensibleLockProvider;
+import net.javacrumbs.shedlock.core.LockConfiguration;
+import net.javacrumbs.shedlock.core.SimpleLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.requireNonNull;
+import static net.javacrumbs.shedlock.core.ClockProvider.now;
+
+/**
+ * LockProvider that remembers until when a lock is held by somebody else and does not go to the storage
+ * until then. When a lock attempt fails, the storage reports lock_until of the lock record (see
+ * {@link StorageAccessor#updateRecordWithResult(LockConfiguration)}) and all subsequent attempts return empty
+ * Optional without any round-trip until lock_until minus safetyMargin. Safety margin should cover clock
+ * difference between the nodes.
+ * <p>
+ * <b>Please note</b> that the holder can release the lock before lock_until, typically when the task finishes
+ * before lockAtMostFor. This provider does not know about it, so it does not try to acquire such lock until the
+ * remembered time. The task is still executed on the other nodes, so it should only be used for tasks where it does
+ * not matter which node executes them.
+ * <p>
+ * Wraps StorageBasedLockProvider that implements the actual locking. If the storage does not report
+ * lock_until, it works as the wrapped provider.
+ */
+public class CachingLockProvider implements ExtensibleLockProvider {
+    private static final int MAX_SIZE = 10_000;
+
+    private final StorageBasedLockProvider wrapped;
+    private final Duration safetyMargin;
+    private final Map<String, Instant> lockedUntil = new ConcurrentHashMap<>();
+    private final LongAdder skippedLockAttempts = new LongAdder();
+
+    private static final Logger logger = LoggerFactory.getLogger(CachingLockProvider.class);
+
+    public CachingLockProvider(StorageBasedLockProvider wrapped) {
+        this(wrapped, Duration.ofSeconds(1));
+    }
+
+    public CachingLockProvider(StorageBasedLockProvider wrapped, Duration safetyMargin) {
+        this.wrapped = requireNonNull(wrapped);
+        this.safetyMargin = requireNonNull(safetyMargin);
+        if (safetyMargin.isNegative()) {
+            throw new IllegalArgumentException("safetyMargin can not be negative");
+        }
+    }
+
+    @Override
+    public Optional<SimpleLock> lock(LockConfiguration lockConfiguration) {
+        String name = lockConfiguration.getName();
+        Instant knownLockedUntil = lockedUntil.get(name);
+        if (knownLockedUntil != null) {
+            if (now().isBefore(knownLockedUntil.minus(safetyMargin))) {
+                logger.trace("Lock {} is held until {}, not trying to acquire it", name, knownLockedUntil);
+                skippedLockAttempts.increment();
+                return Optional.empty();
+            }
+            lockedUntil.remove(name, knownLockedUntil);
+        }
+
+        Optional<SimpleLock> lock = wrapped.lock(lockConfiguration, until -> rememberLockedUntil(name, until));
+        if (lock.isPresent()) {
+            lockedUntil.remove(name);
+        }
+        return lock;
+    }
+
+    /**
+     * Forgets all remembered lock_until values.
+     */
+    public void clearCache() {
+        lockedUntil.clear();
+    }
+
+    /**
+     * @return number of lock attempts that were answered without going to the storage
+     */
+    public long getSkippedLockAttempts() {
+        return skippedLockAttempts.sum();
+    }
+
+    private void rememberLockedUntil(String name, Instant until) {
+        if (lockedUntil.size() >= MAX_SIZE) {
+            Instant now = now();
+            lockedUntil.values().removeIf(value -> !value.isAfter(now));
+            if (lockedUntil.size() >= MAX_SIZE) {
+                // too many locks held elsewhere, do not remember this one
+                return;
+            }
+        }
+        lockedUntil.put(name, until);
+    }
+}
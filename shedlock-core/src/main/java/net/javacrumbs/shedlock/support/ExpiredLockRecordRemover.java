@@ -0,0 +1,35 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.support;
+
+import net.javacrumbs.shedlock.support.annotation.NonNull;
+
+import java.time.Instant;
+
+/**
+ * Implemented by lock providers that are able to delete lock records that have not been used for a long time.
+ * Used by {@link ExpiredLockSweeper}.
+ */
+@FunctionalInterface
+public interface ExpiredLockRecordRemover {
+    /**
+     * Deletes at most limit lock records with lock_until before lockUntilBefore. Records that get locked
+     * concurrently must not be deleted.
+     *
+     * @return number of deleted records, if it is lower than limit, there are no more records to delete
+     */
+    int removeExpiredLockRecords(@NonNull Instant lockUntilBefore, int limit);
+}
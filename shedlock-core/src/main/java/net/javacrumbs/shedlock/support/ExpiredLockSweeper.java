@@ -0,0 +1,198 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.support;
+
+import net.javacrumbs.shedlock.core.LockConfiguration;
+import net.javacrumbs.shedlock.core.LockProvider;
+import net.javacrumbs.shedlock.core.SimpleLock;
+import net.javacrumbs.shedlock.support.annotation.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static net.javacrumbs.shedlock.core.ClockProvider.now;
+
+/**
+ * Periodically deletes lock records that have not been locked for longer than the retention period. Useful if
+ * lock names are generated dynamically, the lock storage would grow without bounds otherwise.
+ * <p>
+ * Records are deleted in batches of at most batchSize records with a pause between the batches, at most maxBatchesPerRun
+ * batches in one run. Each run is protected by a lock with name lockName, so only one node deletes the records
+ * at a time. The pauses are executed on the thread of the ScheduledExecutorService.
+ * <p>
+ * <b>The retention has to be longer than lock record cache TTL of the lock providers</b> (one hour by default), some
+ * providers remember that a lock record exists and would not re-create a deleted one. Even then, a lock attempt
+ * that runs concurrently with the deletion of its record may fail, the next attempt after the cache TTL succeeds.
+ */
+public class ExpiredLockSweeper implements AutoCloseable {
+    public static final String DEFAULT_LOCK_NAME = "shedlock-expired-lock-sweeper";
+
+    private final ExpiredLockRecordRemover remover;
+    private final LockProvider lockProvider;
+    private final ScheduledExecutorService executorService;
+    private final Duration retention;
+    private final Duration interval;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Duration pauseBetweenBatches;
+    private final String lockName;
+
+    private final AtomicLong reclaimedRecords = new AtomicLong();
+    private ScheduledFuture<?> future;
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpiredLockSweeper.class);
+
+    /**
+     * Creates sweeper that runs every hour and deletes at most 100 batches of 500 records with 100ms pause between them.
+     *
+     * @param remover      lock provider whose records are deleted
+     * @param lockProvider lock provider used to make sure that only one node deletes the records, can be the same as remover
+     * @param retention    how long records have to be unlocked before they are deleted
+     */
+    public ExpiredLockSweeper(
+        @NonNull ExpiredLockRecordRemover remover,
+        @NonNull LockProvider lockProvider,
+        @NonNull ScheduledExecutorService executorService,
+        @NonNull Duration retention
+    ) {
+        this(remover, lockProvider, executorService, retention, Duration.ofHours(1), 500, 100, Duration.ofMillis(100), DEFAULT_LOCK_NAME);
+    }
+
+    public ExpiredLockSweeper(
+        @NonNull ExpiredLockRecordRemover remover,
+        @NonNull LockProvider lockProvider,
+        @NonNull ScheduledExecutorService executorService,
+        @NonNull Duration retention,
+        @NonNull Duration interval,
+        int batchSize,
+        int maxBatchesPerRun,
+        @NonNull Duration pauseBetweenBatches,
+        @NonNull String lockName
+    ) {
+        this.remover = requireNonNull(remover, "remover can not be null");
+        this.lockProvider = requireNonNull(lockProvider, "lockProvider can not be null");
+        this.executorService = requireNonNull(executorService, "executorService can not be null");
+        this.retention = requireNonNull(retention, "retention can not be null");
+        this.interval = requireNonNull(interval, "interval can not be null");
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.pauseBetweenBatches = requireNonNull(pauseBetweenBatches, "pauseBetweenBatches can not be null");
+        this.lockName = requireNonNull(lockName, "lockName can not be null");
+        if (retention.isNegative() || retention.isZero()) {
+            throw new IllegalArgumentException("retention has to be positive");
+        }
+        if (interval.toMillis() <= 0) {
+            throw new IllegalArgumentException("interval has to be at least 1ms");
+        }
+        if (batchSize <= 0 || maxBatchesPerRun <= 0) {
+            throw new IllegalArgumentException("batchSize and maxBatchesPerRun have to be positive");
+        }
+    }
+
+    /**
+     * Schedules periodic runs, the first one after one interval.
+     */
+    public synchronized void start() {
+        if (future == null) {
+            long intervalMillis = interval.toMillis();
+            future = executorService.scheduleWithFixedDelay(this::runSafely, intervalMillis, intervalMillis, MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops periodic runs. Does not shut down the executor service.
+     */
+    @Override
+    public synchronized void close() {
+        if (future != null) {
+            future.cancel(false);
+            future = null;
+        }
+    }
+
+    /**
+     * @return number of records deleted by this instance since it has been created
+     */
+    public long getReclaimedRecords() {
+        return reclaimedRecords.get();
+    }
+
+    /**
+     * Deletes expired records, if the lock is not held by another node.
+     *
+     * @return number of deleted records, 0 if the lock has not been obtained
+     */
+    public int sweep() {
+        Instant now = now();
+        // lockAtLeastFor prevents other nodes from repeating the run in the same interval
+        LockConfiguration lockConfiguration = new LockConfiguration(now, lockName, interval, interval.dividedBy(2));
+        Optional<SimpleLock> lock = lockProvider.lock(lockConfiguration);
+        if (lock.isEmpty()) {
+            logger.debug("Sweeper lock {} is held by another node", lockName);
+            return 0;
+        }
+        int deleted = 0;
+        try {
+            Instant lockUntilBefore = now.minus(retention);
+            for (int i = 0; i < maxBatchesPerRun; i++) {
+                int deletedInBatch = remover.removeExpiredLockRecords(lockUntilBefore, batchSize);
+                deleted += deletedInBatch;
+                reclaimedRecords.addAndGet(deletedInBatch);
+                if (deletedInBatch < batchSize || !pause(lockConfiguration)) {
+                    break;
+                }
+            }
+        } finally {
+            lock.get().unlock();
+        }
+        logger.info("Deleted {} expired lock records", deleted);
+        return deleted;
+    }
+
+    /**
+     * @return false if the run should stop, either since it has been interrupted or the sweeper lock would expire
+     */
+    private boolean pause(LockConfiguration lockConfiguration) {
+        if (now().plus(pauseBetweenBatches).isAfter(lockConfiguration.getLockAtMostUntil().minus(interval.dividedBy(10)))) {
+            logger.debug("Sweeper lock is about to expire, the rest of the records will be deleted in the next run");
+            return false;
+        }
+        try {
+            Thread.sleep(pauseBetweenBatches.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void runSafely() {
+        try {
+            sweep();
+        } catch (Exception e) {
+            // exception would cancel the periodic task
+            logger.error("Can not delete expired lock records", e);
+        }
+    }
+}
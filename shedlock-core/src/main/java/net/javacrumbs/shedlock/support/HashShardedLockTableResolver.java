@@ -0,0 +1,59 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.support;
+
+import net.javacrumbs.shedlock.support.annotation.NonNull;
+
+import java.util.List;
+
+import static net.javacrumbs.shedlock.support.Utils.fnv1aHash;
+
+/**
+ * Uses jump consistent hash (Lamping, Veach) of 64-bit FNV-1a hash of the lock name.
+ */
+class HashShardedLockTableResolver implements LockTableResolver {
+    private final String[] tableNames;
+
+    HashShardedLockTableResolver(List<String> tableNames) {
+        if (tableNames.isEmpty()) {
+            throw new IllegalArgumentException("At least one table has to be specified");
+        }
+        this.tableNames = tableNames.toArray(new String[0]);
+    }
+
+    @Override
+    @NonNull
+    public String resolveTableName(@NonNull String lockName) {
+        return tableNames[jumpConsistentHash(fnv1aHash(lockName), tableNames.length)];
+    }
+
+    @Override
+    @NonNull
+    public List<String> getTableNames() {
+        return List.of(tableNames);
+    }
+
+    static int jumpConsistentHash(long key, int buckets) {
+        long b = -1;
+        long j = 0;
+        while (j < buckets) {
+            b = j;
+            key = key * 2862933555777941757L + 1;
+            j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) b;
+    }
+}
@@ -5,6 +5,7 @@ import net.javacrumbs.shedlock.core.ExtensibleLockProvider;
 import net.javacrumbs.shedlock.core.LockConfiguration;
 import net.javacrumbs.shedlock.core.LockProvider;
 import net.javacrumbs.shedlock.core.SimpleLock;
+import net.javacrumbs.shedlock.support.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -12,9 +13,7 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.Optional;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
 
-import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static net.javacrumbs.shedlock.core.ClockProvider.now;
 
 /**
@@ -25,22 +24,28 @@ import static net.javacrumbs.shedlock.core.ClockProvider.now;
  * <b>Does not support lockAtMostFor shorter than 30s.</b> The reason is that with short (subsecond) lockAtMostFor time the
  * time when we attmpt to extend the lock is too close to the expiration time and the lock can expire before we are able to extend it.
  *
+ * The extensions are executed by {@link KeepAliveScheduler} which can be shared by several providers.
+ *
  * Wraps ExtensibleLockProvider that implements the actual locking.
  */
 public class KeepAliveLockProvider implements LockProvider {
     private final ExtensibleLockProvider wrapped;
-    private final ScheduledExecutorService executorService;
+    private final KeepAliveScheduler keepAliveScheduler;
     private final Duration minimalLockAtMostFor;
 
     private static final Logger logger = LoggerFactory.getLogger(KeepAliveLockProvider.class);
 
     public KeepAliveLockProvider(ExtensibleLockProvider wrapped, ScheduledExecutorService executorService) {
-        this(wrapped, executorService, Duration.ofSeconds(30));
+        this(wrapped, new KeepAliveScheduler(executorService));
+    }
+
+    public KeepAliveLockProvider(ExtensibleLockProvider wrapped, KeepAliveScheduler keepAliveScheduler) {
+        this(wrapped, keepAliveScheduler, Duration.ofSeconds(30));
     }
 
-    KeepAliveLockProvider(ExtensibleLockProvider wrapped, ScheduledExecutorService executorService, Duration minimalLockAtMostFor) {
+    KeepAliveLockProvider(ExtensibleLockProvider wrapped, KeepAliveScheduler keepAliveScheduler, Duration minimalLockAtMostFor) {
         this.wrapped = wrapped;
-        this.executorService = executorService;
+        this.keepAliveScheduler = keepAliveScheduler;
         this.minimalLockAtMostFor = minimalLockAtMostFor;
     }
 
@@ -50,70 +55,114 @@ public class KeepAliveLockProvider implements LockProvider {
             throw new IllegalArgumentException("Can not use KeepAliveLockProvider with lockAtMostFor shorter than " + minimalLockAtMostFor);
         }
         Optional<SimpleLock> lock = wrapped.lock(lockConfiguration);
-        return lock.map(simpleLock -> new KeepAliveLock(lockConfiguration, simpleLock, executorService));
+        return lock.map(simpleLock -> new KeepAliveLock(lockConfiguration, simpleLock, keepAliveScheduler));
     }
 
-    private static class KeepAliveLock extends AbstractSimpleLock {
+    static class KeepAliveLock extends AbstractSimpleLock {
         private final Duration lockExtensionPeriod;
+        private final KeepAliveScheduler keepAliveScheduler;
+        private final KeepAliveScheduler.Extension extension;
         private SimpleLock lock;
         private Duration remainingLockAtLeastFor;
-        private final ScheduledFuture<?> future;
         private boolean active = true;
+        private boolean extending = false;
         private Instant currentLockAtMostUntil;
+        private Instant previousLockAtMostUntil;
+        private Duration previousRemainingLockAtLeastFor;
 
-        private KeepAliveLock(LockConfiguration lockConfiguration, SimpleLock lock, ScheduledExecutorService executorService) {
+        private KeepAliveLock(LockConfiguration lockConfiguration, SimpleLock lock, KeepAliveScheduler keepAliveScheduler) {
             super(lockConfiguration);
             this.lock = lock;
+            this.keepAliveScheduler = keepAliveScheduler;
             this.lockExtensionPeriod = lockConfiguration.getLockAtMostFor().dividedBy(2);
             this.remainingLockAtLeastFor = lockConfiguration.getLockAtLeastFor();
             this.currentLockAtMostUntil = lockConfiguration.getLockAtMostUntil();
+            this.extension = keepAliveScheduler.schedule(this);
+        }
 
-            long extensionPeriodMs = lockExtensionPeriod.toMillis();
-            this.future = executorService.scheduleAtFixedRate(
-                this::extendForNextPeriod,
-                extensionPeriodMs,
-                extensionPeriodMs,
-                MILLISECONDS
-            );
+        Duration getLockExtensionPeriod() {
+            return lockExtensionPeriod;
         }
 
-        private void extendForNextPeriod() {
-            // We can have a race-condition when we extend the lock but the `lock` field is accessed before we update it.
-            synchronized (this) {
-                if (!active) {
-                    return;
-                }
-                if (currentLockAtMostUntil.isBefore(now())) {
-                    // Failsafe for cases when we are not able to extend the lock and it expires before the extension
-                    // In such case someone else might have already obtained the lock so we can't extend it.
-                    stop();
-                    return;
-                }
-                remainingLockAtLeastFor = remainingLockAtLeastFor.minus(lockExtensionPeriod);
-                if (remainingLockAtLeastFor.isNegative()) {
-                    remainingLockAtLeastFor = Duration.ZERO;
-                }
-                currentLockAtMostUntil = now().plus(lockConfiguration.getLockAtMostFor());
-                Optional<SimpleLock> extendedLock = lock.extend(lockConfiguration.getLockAtMostFor(), remainingLockAtLeastFor);
-                if (extendedLock.isPresent()) {
-                    lock = extendedLock.get();
-                    logger.trace("Lock {} extended for {}", lockConfiguration.getName(), lockConfiguration.getLockAtMostFor());
-                } else {
-                    logger.warn("Can't extend lock {}", lockConfiguration.getName());
-                    stop();
-                }
+        synchronized SimpleLock getLock() {
+            return lock;
+        }
+
+        /**
+         * Called by the scheduler before the lock is extended.
+         *
+         * @return configuration of the extended lock or null if the lock should not be extended anymore
+         */
+        @Nullable
+        synchronized LockConfiguration startExtension() {
+            if (!active) {
+                return null;
+            }
+            if (currentLockAtMostUntil.isBefore(now())) {
+                // Failsafe for cases when we are not able to extend the lock and it expires before the extension
+                // In such case someone else might have already obtained the lock so we can't extend it.
+                active = false;
+                return null;
             }
+            previousLockAtMostUntil = currentLockAtMostUntil;
+            previousRemainingLockAtLeastFor = remainingLockAtLeastFor;
+            remainingLockAtLeastFor = remainingLockAtLeastFor.minus(lockExtensionPeriod);
+            if (remainingLockAtLeastFor.isNegative()) {
+                remainingLockAtLeastFor = Duration.ZERO;
+            }
+            Instant now = now();
+            currentLockAtMostUntil = now.plus(lockConfiguration.getLockAtMostFor());
+            extending = true;
+            return new LockConfiguration(now, lockConfiguration.getName(), lockConfiguration.getLockAtMostFor(), remainingLockAtLeastFor);
         }
 
-        private void stop() {
-            active = false;
-            future.cancel(false);
+        /**
+         * Called by the scheduler after the lock has been extended.
+         *
+         * @return true if the lock should be extended again
+         */
+        @SuppressWarnings("OptionalUsedAsFieldOrParameterType")
+        synchronized boolean finishExtension(Optional<SimpleLock> extendedLock) {
+            extending = false;
+            notifyAll();
+            if (extendedLock.isPresent()) {
+                lock = extendedLock.get();
+                logger.trace("Lock {} extended for {}", lockConfiguration.getName(), lockConfiguration.getLockAtMostFor());
+                return active;
+            } else {
+                logger.warn("Can't extend lock {}", lockConfiguration.getName());
+                active = false;
+                return false;
+            }
+        }
+
+        /**
+         * Called by the scheduler if the extension has thrown an exception, the extension will be retried.
+         */
+        synchronized void extensionFailed() {
+            currentLockAtMostUntil = previousLockAtMostUntil;
+            remainingLockAtLeastFor = previousRemainingLockAtLeastFor;
+            extending = false;
+            notifyAll();
         }
 
         @Override
         protected void doUnlock() {
             synchronized (this) {
-                stop();
+                active = false;
+                keepAliveScheduler.cancel(extension);
+                // the lock can not be unlocked while it is being extended
+                boolean interrupted = false;
+                while (extending) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
                 lock.unlock();
             }
         }
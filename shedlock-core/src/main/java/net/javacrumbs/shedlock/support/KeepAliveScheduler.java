@@ -0,0 +1,310 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.support;
+
+import net.javacrumbs.shedlock.core.LockConfiguration;
+import net.javacrumbs.shedlock.core.SimpleLock;
+import net.javacrumbs.shedlock.support.KeepAliveLockProvider.KeepAliveLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Executes lock extensions for {@link KeepAliveLockProvider}. One scheduler can be shared by several providers.
+ * <p>
+ * Extensions are kept in a hashed timer wheel that is driven by one periodic task on the ScheduledExecutorService,
+ * so the executor queue contains only one task no matter how many locks are kept alive. The task is scheduled
+ * only while there are some locks to keep alive.
+ * <p>
+ * An extension is executed at most one tick (plus jitter) before it is due, so extensions that are due close together
+ * are executed in the same tick. Locks of storage based providers that are extended in the same tick are extended
+ * in one batch per storage using {@link StorageAccessor#extendRecords(Collection)}, other locks are extended one by one.
+ * Jitter spreads extensions of locks that have been acquired at the same time.
+ * <p>
+ * At most maxExtensionsPerTick extensions are executed in one tick, the rest is postponed to the next tick
+ * and reported as overdue. If an extension fails with an exception, it is retried in the next tick.
+ */
+public class KeepAliveScheduler {
+    private static final int WHEEL_SIZE = 512;
+
+    private final ScheduledExecutorService executorService;
+    private final long tickMillis;
+    private final long jitterMillis;
+    private final int maxExtensionsPerTick;
+
+    // accessed only from the tick task
+    @SuppressWarnings("unchecked")
+    private final List<Extension>[] wheel = new List[WHEEL_SIZE];
+    private final Deque<Extension> overdue = new ArrayDeque<>();
+    private long currentTick = 0;
+
+    private final Queue<Extension> newExtensions = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingExtensions = new AtomicInteger();
+    private volatile int overdueExtensions = 0;
+    private ScheduledFuture<?> tickFuture;
+
+    private static final Logger logger = LoggerFactory.getLogger(KeepAliveScheduler.class);
+
+    /**
+     * Creates scheduler with 1s tick, 1s jitter and at most 1000 extensions per tick.
+     */
+    public KeepAliveScheduler(ScheduledExecutorService executorService) {
+        this(executorService, Duration.ofSeconds(1), Duration.ofSeconds(1), 1_000);
+    }
+
+    /**
+     * @param tick                 resolution of the timer wheel, extensions due within one tick are executed together
+     * @param jitter               maximal random time by which an extension is executed earlier
+     * @param maxExtensionsPerTick maximal number of extensions executed in one tick
+     */
+    public KeepAliveScheduler(ScheduledExecutorService executorService, Duration tick, Duration jitter, int maxExtensionsPerTick) {
+        this.executorService = requireNonNull(executorService);
+        this.tickMillis = tick.toMillis();
+        this.jitterMillis = jitter.toMillis();
+        this.maxExtensionsPerTick = maxExtensionsPerTick;
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tick has to be at least 1ms");
+        }
+        if (jitterMillis < 0) {
+            throw new IllegalArgumentException("jitter can not be negative");
+        }
+        if (maxExtensionsPerTick <= 0) {
+            throw new IllegalArgumentException("maxExtensionsPerTick has to be positive");
+        }
+    }
+
+    /**
+     * @return number of locks that are kept alive
+     */
+    public int getPendingExtensions() {
+        return pendingExtensions.get();
+    }
+
+    /**
+     * @return number of extensions that are due, but have been postponed since there were more than maxExtensionsPerTick
+     * extensions in the last tick
+     */
+    public int getOverdueExtensions() {
+        return overdueExtensions;
+    }
+
+    Extension schedule(KeepAliveLock lock) {
+        Extension extension = new Extension(lock, toTicks(lock.getLockExtensionPeriod()));
+        synchronized (this) {
+            newExtensions.add(extension);
+            pendingExtensions.incrementAndGet();
+            if (tickFuture == null) {
+                tickFuture = executorService.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, MILLISECONDS);
+            }
+        }
+        return extension;
+    }
+
+    void cancel(Extension extension) {
+        if (extension.cancelled.compareAndSet(false, true)) {
+            pendingExtensions.decrementAndGet();
+        }
+    }
+
+    private void tick() {
+        try {
+            Extension extension;
+            while ((extension = newExtensions.poll()) != null) {
+                // delay is relative to the time of scheduling, so the extension is executed at most one tick earlier
+                addToWheel(extension, currentTick + extension.delayTicks);
+            }
+            currentTick++;
+            extend(collectDueExtensions());
+        } catch (RuntimeException e) {
+            logger.error("Unexpected exception when extending locks", e);
+        }
+        stopIfIdle();
+    }
+
+    private List<Extension> collectDueExtensions() {
+        List<Extension> due = new ArrayList<>();
+        while (!overdue.isEmpty() && due.size() < maxExtensionsPerTick) {
+            Extension extension = overdue.poll();
+            if (!extension.isCancelled()) {
+                due.add(extension);
+            }
+        }
+
+        int index = bucketIndex(currentTick);
+        List<Extension> bucket = wheel[index];
+        if (bucket != null && !bucket.isEmpty()) {
+            List<Extension> remaining = new ArrayList<>();
+            for (Extension extension : bucket) {
+                if (extension.isCancelled()) {
+                    continue;
+                }
+                if (extension.deadlineTick > currentTick) {
+                    // due in one of the next rounds of the wheel
+                    remaining.add(extension);
+                } else if (due.size() < maxExtensionsPerTick) {
+                    due.add(extension);
+                } else {
+                    overdue.add(extension);
+                }
+            }
+            wheel[index] = remaining;
+        }
+        overdueExtensions = overdue.size();
+        return due;
+    }
+
+    private void extend(List<Extension> due) {
+        Map<StorageAccessor, List<Extension>> batches = new IdentityHashMap<>();
+        for (Extension extension : due) {
+            LockConfiguration newConfiguration = extension.lock.startExtension();
+            if (newConfiguration == null) {
+                cancel(extension);
+                continue;
+            }
+            extension.newConfiguration = newConfiguration;
+            StorageAccessor storageAccessor = StorageBasedLockProvider.storageAccessorOf(extension.lock.getLock());
+            if (storageAccessor != null) {
+                batches.computeIfAbsent(storageAccessor, key -> new ArrayList<>()).add(extension);
+            } else {
+                extendOne(extension);
+            }
+        }
+        batches.forEach((storageAccessor, extensions) -> {
+            if (extensions.size() == 1) {
+                extendOne(extensions.get(0));
+            } else {
+                extendBatch(storageAccessor, extensions);
+            }
+        });
+    }
+
+    private void extendOne(Extension extension) {
+        LockConfiguration newConfiguration = extension.newConfiguration;
+        try {
+            Optional<SimpleLock> extendedLock = extension.lock.getLock().extend(newConfiguration.getLockAtMostFor(), newConfiguration.getLockAtLeastFor());
+            finishExtension(extension, extendedLock);
+        } catch (RuntimeException e) {
+            logger.warn("Exception when extending lock {}, will retry", newConfiguration.getName(), e);
+            retry(extension);
+        }
+    }
+
+    private void extendBatch(StorageAccessor storageAccessor, List<Extension> extensions) {
+        List<LockConfiguration> newConfigurations = new ArrayList<>(extensions.size());
+        for (Extension extension : extensions) {
+            newConfigurations.add(extension.newConfiguration);
+        }
+        List<Optional<SimpleLock>> extendedLocks;
+        try {
+            extendedLocks = StorageBasedLockProvider.extendAll(storageAccessor, newConfigurations);
+        } catch (RuntimeException e) {
+            logger.warn("Exception when extending {} locks, will retry", extensions.size(), e);
+            extensions.forEach(this::retry);
+            return;
+        }
+        for (int i = 0; i < extensions.size(); i++) {
+            finishExtension(extensions.get(i), extendedLocks.get(i));
+        }
+    }
+
+    @SuppressWarnings("OptionalUsedAsFieldOrParameterType")
+    private void finishExtension(Extension extension, Optional<SimpleLock> extendedLock) {
+        extension.newConfiguration = null;
+        if (extension.lock.finishExtension(extendedLock)) {
+            addToWheel(extension, currentTick + toTicks(extension.lock.getLockExtensionPeriod()));
+        } else {
+            cancel(extension);
+        }
+    }
+
+    private void retry(Extension extension) {
+        extension.newConfiguration = null;
+        extension.lock.extensionFailed();
+        addToWheel(extension, currentTick + 1);
+    }
+
+    private void addToWheel(Extension extension, long deadlineTick) {
+        extension.deadlineTick = deadlineTick;
+        int index = bucketIndex(deadlineTick);
+        if (wheel[index] == null) {
+            wheel[index] = new ArrayList<>();
+        }
+        wheel[index].add(extension);
+    }
+
+    private void stopIfIdle() {
+        synchronized (this) {
+            if (pendingExtensions.get() == 0 && newExtensions.isEmpty() && tickFuture != null) {
+                tickFuture.cancel(false);
+                tickFuture = null;
+                // only cancelled extensions are left
+                for (int i = 0; i < WHEEL_SIZE; i++) {
+                    wheel[i] = null;
+                }
+                overdue.clear();
+                overdueExtensions = 0;
+            }
+        }
+    }
+
+    private long toTicks(Duration delay) {
+        long delayMillis = delay.toMillis();
+        if (jitterMillis > 0) {
+            delayMillis -= ThreadLocalRandom.current().nextLong(jitterMillis + 1);
+        }
+        return Math.max(1, delayMillis / tickMillis);
+    }
+
+    private static int bucketIndex(long tick) {
+        return (int) (tick & (WHEEL_SIZE - 1));
+    }
+
+    static final class Extension {
+        private final KeepAliveLock lock;
+        private final long delayTicks;
+        private final AtomicBoolean cancelled = new AtomicBoolean(false);
+        private long deadlineTick;
+        private LockConfiguration newConfiguration;
+
+        private Extension(KeepAliveLock lock, long delayTicks) {
+            this.lock = lock;
+            this.delayTicks = delayTicks;
+        }
+
+        private boolean isCancelled() {
+            return cancelled.get();
+        }
+    }
+}
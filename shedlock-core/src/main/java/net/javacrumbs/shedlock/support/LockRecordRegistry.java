@@ -15,35 +15,120 @@
  */
 package net.javacrumbs.shedlock.support;
 
-import java.util.Collections;
-import java.util.Set;
-import java.util.WeakHashMap;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
 
 /**
  * Some LockProviders have to decide if a new record has to be created or an old one updated.
  * This class helps them keep track of existing lock records, so they know if a lock record exists.
+ * <p>
+ * Records are forgotten after ttl, so we eventually find out if a record has been deleted from the storage.
+ * The number of records is bounded by maxSize, when it is exceeded, expired records are removed first and then
+ * arbitrary ones. Forgetting a record is harmless, the provider just tries to insert it again.
  */
 class LockRecordRegistry {
-    private final Set<String> lockRecords = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+    static final Duration DEFAULT_TTL = Duration.ofHours(1);
+    static final int DEFAULT_MAX_SIZE = 10_000;
+
+    private final Map<String, Long> lockRecords = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final int maxSize;
+    private final LongSupplier nanoTime;
+
+    private final AtomicBoolean evictionRunning = new AtomicBoolean();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    LockRecordRegistry() {
+        this(DEFAULT_TTL, DEFAULT_MAX_SIZE);
+    }
+
+    LockRecordRegistry(Duration ttl, int maxSize) {
+        this(ttl, maxSize, System::nanoTime);
+    }
+
+    LockRecordRegistry(Duration ttl, int maxSize, LongSupplier nanoTime) {
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("ttl has to be positive");
+        }
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize has to be positive");
+        }
+        this.ttlNanos = ttl.toNanos();
+        this.maxSize = maxSize;
+        this.nanoTime = nanoTime;
+    }
 
     public void addLockRecord(String lockName) {
-        lockRecords.add(lockName);
+        lockRecords.put(lockName, nanoTime.getAsLong());
+        if (lockRecords.size() > maxSize) {
+            evict();
+        }
     }
 
     void removeLockRecord(String lockName) {
         lockRecords.remove(lockName);
     }
 
-
     public boolean lockRecordRecentlyCreated(String lockName) {
-        return lockRecords.contains(lockName);
+        Long createdAt = lockRecords.get(lockName);
+        if (createdAt != null && !isExpired(createdAt, nanoTime.getAsLong())) {
+            hits.increment();
+            return true;
+        } else {
+            if (createdAt != null) {
+                lockRecords.remove(lockName, createdAt);
+            }
+            misses.increment();
+            return false;
+        }
     }
 
     int getSize() {
         return lockRecords.size();
     }
 
+    long getHits() {
+        return hits.sum();
+    }
+
+    long getMisses() {
+        return misses.sum();
+    }
+
     public void clear() {
         lockRecords.clear();
     }
+
+    private boolean isExpired(long createdAt, long now) {
+        return now - createdAt >= ttlNanos;
+    }
+
+    /**
+     * Removes expired records and if it does not help, arbitrary records so that there is some space left
+     * and we do not have to evict on every insert. Only one thread evicts, the others do not wait for it,
+     * the registry can thus temporarily grow over maxSize.
+     */
+    private void evict() {
+        if (!evictionRunning.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = nanoTime.getAsLong();
+            lockRecords.values().removeIf(createdAt -> isExpired(createdAt, now));
+            int targetSize = maxSize - maxSize / 10;
+            Iterator<String> iterator = lockRecords.keySet().iterator();
+            while (lockRecords.size() > targetSize && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        } finally {
+            evictionRunning.set(false);
+        }
+    }
 }
@@ -0,0 +1,99 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.support;
+
+import net.javacrumbs.shedlock.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Generates DDL of the lock tables. Either several tables for {@link LockTableResolver#hashSharded(String, int)}
+ * or one table partitioned natively by the database using hash of the lock name. The native partitioning does not
+ * need any {@link LockTableResolver}, the database routes the lock to its partition.
+ */
+public final class LockTableDdl {
+    private LockTableDdl() {
+    }
+
+    public enum Dialect {
+        POSTGRES("TIMESTAMP", "TIMESTAMP"),
+        MYSQL("TIMESTAMP(3)", "TIMESTAMP(3) DEFAULT CURRENT_TIMESTAMP(3)"),
+        ORACLE("TIMESTAMP(3)", "TIMESTAMP(3)"),
+        MS_SQL("datetime2", "datetime2"),
+        DB2("TIMESTAMP", "TIMESTAMP"),
+        H2("TIMESTAMP", "TIMESTAMP"),
+        HSQL("TIMESTAMP", "TIMESTAMP");
+
+        private final String lockUntilType;
+        private final String lockedAtType;
+
+        Dialect(String lockUntilType, String lockedAtType) {
+            this.lockUntilType = lockUntilType;
+            this.lockedAtType = lockedAtType;
+        }
+    }
+
+    /**
+     * @return CREATE TABLE statement of a lock table
+     */
+    public static String createTable(@NonNull Dialect dialect, @NonNull String tableName) {
+        requireNonNull(dialect, "dialect can not be null");
+        requireNonNull(tableName, "tableName can not be null");
+        return "CREATE TABLE " + tableName + "(name VARCHAR(64) NOT NULL, lock_until " + dialect.lockUntilType + " NOT NULL, " +
+            "locked_at " + dialect.lockedAtType + " NOT NULL, locked_by VARCHAR(255) NOT NULL, PRIMARY KEY (name))";
+    }
+
+    /**
+     * @return CREATE TABLE statements of tables used by {@link LockTableResolver#hashSharded(String, int)}
+     */
+    public static List<String> createShardedTables(@NonNull Dialect dialect, @NonNull String tableNamePrefix, int numberOfTables) {
+        List<String> result = new ArrayList<>(numberOfTables);
+        for (int i = 0; i < numberOfTables; i++) {
+            result.add(createTable(dialect, tableNamePrefix + "_" + i));
+        }
+        return result;
+    }
+
+    /**
+     * @return statements creating one lock table natively partitioned by hash of the lock name.
+     * Supported by Postgres, MySQL (MariaDB) and Oracle.
+     */
+    public static List<String> createHashPartitionedTable(@NonNull Dialect dialect, @NonNull String tableName, int numberOfPartitions) {
+        if (numberOfPartitions < 1) {
+            throw new IllegalArgumentException("numberOfPartitions has to be positive");
+        }
+        String createTable = createTable(dialect, tableName);
+        switch (dialect) {
+            case POSTGRES:
+                List<String> result = new ArrayList<>(numberOfPartitions + 1);
+                result.add(createTable + " PARTITION BY HASH (name)");
+                for (int i = 0; i < numberOfPartitions; i++) {
+                    result.add("CREATE TABLE " + tableName + "_" + i + " PARTITION OF " + tableName +
+                        " FOR VALUES WITH (MODULUS " + numberOfPartitions + ", REMAINDER " + i + ")");
+                }
+                return result;
+            case MYSQL:
+                return List.of(createTable + " PARTITION BY KEY(name) PARTITIONS " + numberOfPartitions);
+            case ORACLE:
+                return List.of(createTable + " PARTITION BY HASH(name) PARTITIONS " + numberOfPartitions);
+            default:
+                throw new UnsupportedOperationException("Hash partitioning is not supported for " + dialect + ", use LockTableResolver.hashSharded");
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.support;
+
+import net.javacrumbs.shedlock.support.annotation.NonNull;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Resolves the table that holds the record of a lock. Can be used to spread a big number of lock records
+ * across several tables.
+ */
+@FunctionalInterface
+public interface LockTableResolver {
+    /**
+     * @return name of the table, has to be the same on all the nodes and must not change while the lock is held
+     */
+    @NonNull
+    String resolveTableName(@NonNull String lockName);
+
+    /**
+     * @return all the tables the locks can be stored in, used for maintenance of the lock records
+     * (e.g. {@link ExpiredLockSweeper}). Custom resolvers have to override it to support the maintenance.
+     */
+    @NonNull
+    default List<String> getTableNames() {
+        throw new UnsupportedOperationException("LockTableResolver does not provide list of the tables");
+    }
+
+    /**
+     * All the locks are stored in one table.
+     */
+    static LockTableResolver singleTable(@NonNull String tableName) {
+        requireNonNull(tableName, "tableName can not be null");
+        return new LockTableResolver() {
+            @Override
+            @NonNull
+            public String resolveTableName(@NonNull String lockName) {
+                return tableName;
+            }
+
+            @Override
+            @NonNull
+            public List<String> getTableNames() {
+                return List.of(tableName);
+            }
+        };
+    }
+
+    /**
+     * Spreads the locks across the tables using consistent hash of the lock name.
+     * If a table is added, only the locks moved to the new table change their table. Nevertheless, do not change the
+     * tables while other nodes use the original ones, a lock stored in two different tables is not exclusive.
+     */
+    static LockTableResolver hashSharded(@NonNull List<String> tableNames) {
+        return new HashShardedLockTableResolver(tableNames);
+    }
+
+    /**
+     * Same as {@link #hashSharded(List)} for tables tableNamePrefix_0 to tableNamePrefix_(numberOfTables - 1).
+     */
+    static LockTableResolver hashSharded(@NonNull String tableNamePrefix, int numberOfTables) {
+        requireNonNull(tableNamePrefix, "tableNamePrefix can not be null");
+        return hashSharded(IntStream.range(0, numberOfTables).mapToObj(i -> tableNamePrefix + "_" + i).collect(toList()));
+    }
+}
@@ -16,6 +16,14 @@
 package net.javacrumbs.shedlock.support;
 
 import net.javacrumbs.shedlock.core.LockConfiguration;
+import net.javacrumbs.shedlock.support.annotation.Nullable;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toSet;
 
 public interface StorageAccessor {
     /**
@@ -26,6 +34,26 @@ public interface StorageAccessor {
      */
     boolean insertRecord(LockConfiguration lockConfiguration);
 
+    /**
+     * @return true if the storage is able to create or update a lock record in one operation
+     * using {@link #upsertRecord(LockConfiguration)}
+     */
+    default boolean supportsUpsert() {
+        return false;
+    }
+
+    /**
+     * Inserts the record if it does not exist, or updates it if the existing record is not locked (lock_until &lt;= now).
+     * Used instead of {@link #insertRecord(LockConfiguration)} followed by {@link #updateRecord(LockConfiguration)}
+     * when {@link #supportsUpsert()} returns true.
+     *
+     * @param lockConfiguration LockConfiguration
+     * @return true if inserted or updated
+     */
+    default boolean upsertRecord(LockConfiguration lockConfiguration) {
+        throw new UnsupportedOperationException();
+    }
+
     /**
      * Tries to update the lock record. If there is already a valid lock record (the lock is held by someone else)
      * update should not do anything and this method returns false.
@@ -35,9 +63,92 @@ public interface StorageAccessor {
      */
     boolean updateRecord(LockConfiguration lockConfiguration);
 
+    /**
+     * Same as {@link #updateRecord(LockConfiguration)}, but if the record is locked by somebody else, the result
+     * can contain lock_until of the record. Storages that are able to read it should override this method,
+     * the default implementation does not provide it.
+     *
+     * @param lockConfiguration LockConfiguration
+     * @return result of the update
+     */
+    default UpdateResult updateRecordWithResult(LockConfiguration lockConfiguration) {
+        return updateRecord(lockConfiguration) ? UpdateResult.updated() : UpdateResult.notUpdated(null);
+    }
+
+    /**
+     * Tries to update several lock records at once. Same as {@link #updateRecord(LockConfiguration)} called
+     * for each lock configuration. Storages that support it should override it and update the records in one round-trip.
+     *
+     * @param lockConfigurations LockConfigurations with unique lock names
+     * @return names of updated lock records
+     */
+    default Set<String> updateRecords(Collection<LockConfiguration> lockConfigurations) {
+        return lockConfigurations.stream()
+            .filter(this::updateRecord)
+            .map(LockConfiguration::getName)
+            .collect(toSet());
+    }
+
     void unlock(LockConfiguration lockConfiguration);
 
     default boolean extend(LockConfiguration lockConfiguration) {
         throw new UnsupportedOperationException();
     }
+
+    /**
+     * Extends several locks at once. Same as {@link #extend(LockConfiguration)} called for each lock configuration.
+     * Storages that support it should override it and extend the locks in one round-trip.
+     *
+     * @param lockConfigurations LockConfigurations with unique lock names
+     * @return names of extended locks
+     */
+    default Set<String> extendRecords(Collection<LockConfiguration> lockConfigurations) {
+        return lockConfigurations.stream()
+            .filter(this::extend)
+            .map(LockConfiguration::getName)
+            .collect(toSet());
+    }
+
+    /**
+     * Hands a lock held by this node over to the next execution of the task. Sets lock_until and locked_at
+     * according to the new configuration if the lock is still held by us (locked_by matches and lock_until &gt; now).
+     * The lock is not released in the meantime, so it replaces unlock followed by lock. Extends the lock by default.
+     *
+     * @return true if the lock has been handed over
+     */
+    default boolean handOver(LockConfiguration lockConfiguration) {
+        return extend(lockConfiguration);
+    }
+
+    final class UpdateResult {
+        private static final UpdateResult UPDATED = new UpdateResult(true, null);
+
+        private final boolean updated;
+        @Nullable
+        private final Instant lockedUntil;
+
+        private UpdateResult(boolean updated, @Nullable Instant lockedUntil) {
+            this.updated = updated;
+            this.lockedUntil = lockedUntil;
+        }
+
+        public boolean isUpdated() {
+            return updated;
+        }
+
+        /**
+         * @return lock_until of a record locked by somebody else, if known
+         */
+        public Optional<Instant> getLockedUntil() {
+            return Optional.ofNullable(lockedUntil);
+        }
+
+        public static UpdateResult updated() {
+            return UPDATED;
+        }
+
+        public static UpdateResult notUpdated(@Nullable Instant lockedUntil) {
+            return new UpdateResult(false, lockedUntil);
+        }
+    }
 }
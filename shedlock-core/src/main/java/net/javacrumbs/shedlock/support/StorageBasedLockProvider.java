@@ -16,11 +16,22 @@
 package net.javacrumbs.shedlock.support;
 
 import net.javacrumbs.shedlock.core.AbstractSimpleLock;
+import net.javacrumbs.shedlock.core.BatchLockProvider;
 import net.javacrumbs.shedlock.core.ExtensibleLockProvider;
 import net.javacrumbs.shedlock.core.LockConfiguration;
 import net.javacrumbs.shedlock.core.SimpleLock;
+import net.javacrumbs.shedlock.support.annotation.Nullable;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Distributed lock using abstract storage
@@ -41,13 +52,28 @@ import java.util.Optional;
  * When unlocking, lock_until is set to now.
  * </li>
  * </ol>
+ * If the storage supports it ({@link StorageAccessor#supportsUpsert()}), the first two steps are done in one
+ * statement when the lock record is not known to exist.
+ * <p>
+ * When several locks are requested at once using {@link #lockAll(Collection)}, lock records that are already
+ * known to exist are updated using {@link StorageAccessor#updateRecords(Collection)}.
  */
-public class StorageBasedLockProvider implements ExtensibleLockProvider {
+public class StorageBasedLockProvider implements ExtensibleLockProvider, BatchLockProvider {
     private final StorageAccessor storageAccessor;
-    private final LockRecordRegistry lockRecordRegistry = new LockRecordRegistry();
+    private final LockRecordRegistry lockRecordRegistry;
 
     protected StorageBasedLockProvider(StorageAccessor storageAccessor) {
         this.storageAccessor = storageAccessor;
+        this.lockRecordRegistry = new LockRecordRegistry();
+    }
+
+    /**
+     * @param lockRecordCacheTtl how long we remember that a lock record exists
+     * @param lockRecordCacheMaxSize maximal number of lock records we remember
+     */
+    protected StorageBasedLockProvider(StorageAccessor storageAccessor, Duration lockRecordCacheTtl, int lockRecordCacheMaxSize) {
+        this.storageAccessor = storageAccessor;
+        this.lockRecordRegistry = new LockRecordRegistry(lockRecordCacheTtl, lockRecordCacheMaxSize);
     }
 
     /**
@@ -57,6 +83,20 @@ public class StorageBasedLockProvider implements ExtensibleLockProvider {
         lockRecordRegistry.clear();
     }
 
+    /**
+     * @return number of lock attempts that skipped the insert, since the lock record was known to exist
+     */
+    public long getLockRecordCacheHits() {
+        return lockRecordRegistry.getHits();
+    }
+
+    /**
+     * @return number of lock attempts that had to try to insert the lock record
+     */
+    public long getLockRecordCacheMisses() {
+        return lockRecordRegistry.getMisses();
+    }
+
     @Override
     public Optional<SimpleLock> lock(LockConfiguration lockConfiguration) {
         boolean lockObtained = doLock(lockConfiguration);
@@ -67,13 +107,79 @@ public class StorageBasedLockProvider implements ExtensibleLockProvider {
         }
     }
 
+    @Override
+    public Map<String, Optional<SimpleLock>> lockAll(Collection<LockConfiguration> lockConfigurations) {
+        Map<String, Optional<SimpleLock>> result = new LinkedHashMap<>();
+        List<LockConfiguration> newRecords = new ArrayList<>();
+        List<LockConfiguration> existingRecords = new ArrayList<>();
+        for (LockConfiguration lockConfiguration : lockConfigurations) {
+            String name = lockConfiguration.getName();
+            if (result.put(name, Optional.empty()) != null) {
+                throw new IllegalArgumentException("Duplicate lock name '" + name + "'");
+            }
+            if (lockRecordRegistry.lockRecordRecentlyCreated(name)) {
+                existingRecords.add(lockConfiguration);
+            } else {
+                newRecords.add(lockConfiguration);
+            }
+        }
+
+        try {
+            // records we do not know about yet may have to be inserted, it happens only once per lock name
+            for (LockConfiguration lockConfiguration : newRecords) {
+                if (doLock(lockConfiguration, true, null)) {
+                    result.put(lockConfiguration.getName(), Optional.of(new StorageLock(lockConfiguration, storageAccessor)));
+                }
+            }
+
+            if (!existingRecords.isEmpty()) {
+                Set<String> updated = storageAccessor.updateRecords(existingRecords);
+                for (LockConfiguration lockConfiguration : existingRecords) {
+                    if (updated.contains(lockConfiguration.getName())) {
+                        result.put(lockConfiguration.getName(), Optional.of(new StorageLock(lockConfiguration, storageAccessor)));
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            // do not keep locks nobody knows about
+            result.values().forEach(lock -> lock.ifPresent(SimpleLock::unlock));
+            throw e;
+        }
+        return result;
+    }
+
+    /**
+     * Same as {@link #lock(LockConfiguration)}, but if the lock is held by somebody else and the storage
+     * reports until when, the time is passed to lockedUntilConsumer.
+     */
+    Optional<SimpleLock> lock(LockConfiguration lockConfiguration, Consumer<Instant> lockedUntilConsumer) {
+        String name = lockConfiguration.getName();
+        boolean lockObtained = doLock(lockConfiguration, !lockRecordRegistry.lockRecordRecentlyCreated(name), lockedUntilConsumer);
+        if (lockObtained) {
+            return Optional.of(new StorageLock(lockConfiguration, storageAccessor));
+        } else {
+            return Optional.empty();
+        }
+    }
+
     /**
      * Sets lockUntil according to LockConfiguration if current lockUntil &lt;= now
      */
     protected boolean doLock(LockConfiguration lockConfiguration) {
+        return doLock(lockConfiguration, !lockRecordRegistry.lockRecordRecentlyCreated(lockConfiguration.getName()), null);
+    }
+
+    private boolean doLock(LockConfiguration lockConfiguration, boolean tryToCreateLockRecord, @Nullable Consumer<Instant> lockedUntilConsumer) {
         String name = lockConfiguration.getName();
 
-        boolean tryToCreateLockRecord = !lockRecordRegistry.lockRecordRecentlyCreated(name);
+        if (tryToCreateLockRecord && lockedUntilConsumer == null && storageAccessor.supportsUpsert()) {
+            // insert or update in one round-trip, the record exists afterwards in both cases,
+            // if upsert throws an exception (the DB may not be ready yet), the record is not cached and we try again next time
+            boolean lockObtained = storageAccessor.upsertRecord(lockConfiguration);
+            lockRecordRegistry.addLockRecord(name);
+            return lockObtained;
+        }
+
         if (tryToCreateLockRecord) {
             // create record in case it does not exist yet
             if (storageAccessor.insertRecord(lockConfiguration)) {
@@ -87,7 +193,13 @@ public class StorageBasedLockProvider implements ExtensibleLockProvider {
 
         // let's try to update the record, if successful, we have the lock
         try {
-            return storageAccessor.updateRecord(lockConfiguration);
+            if (lockedUntilConsumer == null) {
+                return storageAccessor.updateRecord(lockConfiguration);
+            } else {
+                StorageAccessor.UpdateResult result = storageAccessor.updateRecordWithResult(lockConfiguration);
+                result.getLockedUntil().ifPresent(lockedUntilConsumer);
+                return result.isUpdated();
+            }
         } catch (Exception e) {
             // There are some users that start the app before they have the DB ready.
             // If they use JDBC, insertRecord returns false, the record is stored in the recordRegistry
@@ -100,6 +212,56 @@ public class StorageBasedLockProvider implements ExtensibleLockProvider {
         }
     }
 
+    /**
+     * For subclasses that acquire locks by their own means, for example without blocking.
+     *
+     * @return true if the lock record is known to exist and does not have to be inserted
+     */
+    protected boolean lockRecordRecentlyCreated(String name) {
+        return lockRecordRegistry.lockRecordRecentlyCreated(name);
+    }
+
+    /**
+     * Remembers that the lock record exists, see {@link #lockRecordRecentlyCreated(String)}.
+     */
+    protected void addLockRecord(String name) {
+        lockRecordRegistry.addLockRecord(name);
+    }
+
+    /**
+     * Forgets the lock record, the next lock attempt will try to insert it again.
+     */
+    protected void removeLockRecord(String name) {
+        lockRecordRegistry.removeLockRecord(name);
+    }
+
+    /**
+     * @return storage of the lock if it has been created by this class, null otherwise
+     */
+    @Nullable
+    static StorageAccessor storageAccessorOf(SimpleLock lock) {
+        return lock instanceof StorageLock ? ((StorageLock) lock).storageAccessor : null;
+    }
+
+    /**
+     * Extends several locks held in the same storage at once. Used by {@link KeepAliveScheduler}. Unlike
+     * {@link SimpleLock#extend(Duration, Duration)}, the original locks are not invalidated, the caller must not use them afterwards.
+     *
+     * @return extended locks in the same order as the configurations, empty Optional if the lock could not be extended
+     */
+    static List<Optional<SimpleLock>> extendAll(StorageAccessor storageAccessor, List<LockConfiguration> newConfigurations) {
+        Set<String> extended = storageAccessor.extendRecords(newConfigurations);
+        List<Optional<SimpleLock>> result = new ArrayList<>(newConfigurations.size());
+        for (LockConfiguration newConfiguration : newConfigurations) {
+            if (extended.contains(newConfiguration.getName())) {
+                result.add(Optional.of(new StorageLock(newConfiguration, storageAccessor)));
+            } else {
+                result.add(Optional.empty());
+            }
+        }
+        return result;
+    }
+
     private static class StorageLock extends AbstractSimpleLock {
         private final StorageAccessor storageAccessor;
 
@@ -121,6 +283,15 @@ public class StorageBasedLockProvider implements ExtensibleLockProvider {
                 return Optional.empty();
             }
         }
+
+        @Override
+        protected Optional<SimpleLock> doHandOver(LockConfiguration newConfig) {
+            if (storageAccessor.handOver(newConfig)) {
+                return Optional.of(new StorageLock(newConfig, storageAccessor));
+            } else {
+                return Optional.empty();
+            }
+        }
     }
 
 }
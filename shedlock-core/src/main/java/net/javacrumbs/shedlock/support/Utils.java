@@ -16,6 +16,7 @@
 package net.javacrumbs.shedlock.support;
 
 import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
 import java.net.UnknownHostException;
 import java.time.Instant;
 import java.time.OffsetDateTime;
@@ -71,6 +72,19 @@ public final class Utils {
         return formatter.format(utc);
     }
 
+    /**
+     * 64-bit FNV-1a hash of UTF-8 bytes of the value. Unlike {@link String#hashCode()}, it is not part of any JVM
+     * contract, so it can be used for values shared by all the nodes.
+     */
+    public static long fnv1aHash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= (b & 0xff);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
     private static String initHostname() {
         try {
             return InetAddress.getLocalHost().getHostName();
@@ -0,0 +1,112 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.core;
+
+import net.javacrumbs.shedlock.core.LockingTaskExecutor.TaskResult;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static net.javacrumbs.shedlock.core.ClockProvider.now;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DefaultAsyncLockingTaskExecutorTest {
+    private final AsyncLockProvider lockProvider = mock(AsyncLockProvider.class);
+    private final DefaultAsyncLockingTaskExecutor executor = new DefaultAsyncLockingTaskExecutor(lockProvider);
+    private final LockConfiguration lockConfig = new LockConfiguration(now(), "test", Duration.ofSeconds(100), Duration.ZERO);
+    private final TestLock lock = new TestLock(lockConfig);
+
+    @Test
+    void shouldReleaseLockWhenTaskCompletes() throws Exception {
+        when(lockProvider.lockAsync(lockConfig)).thenReturn(completedFuture(Optional.of(lock)));
+        CompletableFuture<String> task = new CompletableFuture<>();
+
+        CompletableFuture<TaskResult<String>> result = executor.executeWithLock(() -> task, lockConfig).toCompletableFuture();
+        assertThat(result).isNotDone();
+        assertThat(lock.unlocked).isFalse();
+
+        task.complete("result");
+        assertThat(lock.unlocked).isTrue();
+        assertThat(result.get().wasExecuted()).isTrue();
+        assertThat(result.get().getResult()).isEqualTo("result");
+    }
+
+    @Test
+    void shouldNotExecuteTaskIfLocked() throws Exception {
+        when(lockProvider.lockAsync(lockConfig)).thenReturn(completedFuture(Optional.empty()));
+
+        TaskResult<String> result = executor.<String>executeWithLock(() -> {
+            throw new AssertionError("Should not be executed");
+        }, lockConfig).toCompletableFuture().get();
+
+        assertThat(result.wasExecuted()).isFalse();
+    }
+
+    @Test
+    void shouldReleaseLockIfTaskFails() {
+        when(lockProvider.lockAsync(lockConfig)).thenReturn(completedFuture(Optional.of(lock)));
+
+        CompletionStage<TaskResult<String>> result = executor.executeWithLock(
+            () -> CompletableFuture.failedFuture(new IllegalStateException("test")),
+            lockConfig
+        );
+
+        assertThat(lock.unlocked).isTrue();
+        assertThatThrownBy(() -> result.toCompletableFuture().get())
+            .isInstanceOf(ExecutionException.class)
+            .hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void shouldReleaseLockIfTaskThrowsException() {
+        when(lockProvider.lockAsync(lockConfig)).thenReturn(completedFuture(Optional.of(lock)));
+
+        CompletionStage<TaskResult<String>> result = executor.executeWithLock(() -> {
+            throw new IllegalStateException("test");
+        }, lockConfig);
+
+        assertThat(lock.unlocked).isTrue();
+        assertThatThrownBy(() -> result.toCompletableFuture().get()).hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void lockShouldNotBeUnlockedTwice() {
+        lock.unlockAsync();
+        assertThatThrownBy(() -> lock.unlockAsync().toCompletableFuture().get()).hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    private static class TestLock extends AbstractAsyncSimpleLock {
+        private volatile boolean unlocked = false;
+
+        private TestLock(LockConfiguration lockConfiguration) {
+            super(lockConfiguration);
+        }
+
+        @Override
+        protected CompletionStage<Void> doUnlockAsync() {
+            unlocked = true;
+            return completedFuture(null);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static net.javacrumbs.shedlock.core.ClockProvider.now;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HandOverLockingTaskExecutorTest {
+    private final ExtensibleLockProvider lockProvider = mock(ExtensibleLockProvider.class);
+    private final HandOverLockingTaskExecutor executor = new HandOverLockingTaskExecutor(lockProvider);
+    private final LockConfiguration lockConfig = new LockConfiguration(now(), "test", Duration.ofSeconds(100), Duration.ofSeconds(10));
+
+    @Test
+    void shouldHandOverLockToNextExecution() {
+        SimpleLock firstLock = mock(SimpleLock.class);
+        SimpleLock keptLock = mock(SimpleLock.class);
+        SimpleLock secondLock = mock(SimpleLock.class);
+        when(lockProvider.lock(lockConfig)).thenReturn(Optional.of(firstLock));
+        when(firstLock.extend(any(), eq(Duration.ZERO))).thenReturn(Optional.of(keptLock));
+        when(keptLock.handOver(lockConfig)).thenReturn(Optional.of(secondLock));
+        when(secondLock.extend(any(), eq(Duration.ZERO))).thenReturn(Optional.empty());
+
+        executor.executeWithLock((Runnable) () -> {}, lockConfig);
+        verify(firstLock, never()).unlock();
+        verify(firstLock).extend(argThat(duration -> duration.compareTo(Duration.ofSeconds(10)) <= 0), eq(Duration.ZERO));
+
+        executor.executeWithLock((Runnable) () -> {}, lockConfig);
+        verify(lockProvider, times(1)).lock(any());
+        verify(keptLock, never()).unlock();
+    }
+
+    @Test
+    void shouldReleaseKeptLocksOnClose() {
+        SimpleLock firstLock = mock(SimpleLock.class);
+        SimpleLock keptLock = mock(SimpleLock.class);
+        when(lockProvider.lock(lockConfig)).thenReturn(Optional.of(firstLock));
+        when(firstLock.extend(any(), eq(Duration.ZERO))).thenReturn(Optional.of(keptLock));
+
+        executor.executeWithLock((Runnable) () -> {}, lockConfig);
+        executor.close();
+        verify(keptLock).unlock();
+    }
+
+    @Test
+    void shouldUnlockIfLockAtLeastForHasElapsed() {
+        LockConfiguration noLockAtLeastFor = new LockConfiguration(now(), "test", Duration.ofSeconds(100), Duration.ZERO);
+        SimpleLock firstLock = mock(SimpleLock.class);
+        SimpleLock secondLock = mock(SimpleLock.class);
+        when(lockProvider.lock(noLockAtLeastFor)).thenReturn(Optional.of(firstLock), Optional.of(secondLock));
+
+        executor.executeWithLock((Runnable) () -> {}, noLockAtLeastFor);
+        verify(firstLock).unlock();
+        verify(firstLock, never()).extend(any(), any());
+
+        executor.executeWithLock((Runnable) () -> {}, noLockAtLeastFor);
+        verify(lockProvider, times(2)).lock(noLockAtLeastFor);
+    }
+
+    @Test
+    void shouldLockAgainIfHandOverFails() {
+        SimpleLock firstLock = mock(SimpleLock.class);
+        SimpleLock keptLock = mock(SimpleLock.class);
+        SimpleLock secondLock = mock(SimpleLock.class);
+        when(lockProvider.lock(lockConfig)).thenReturn(Optional.of(firstLock), Optional.of(secondLock));
+        when(firstLock.extend(any(), eq(Duration.ZERO))).thenReturn(Optional.of(keptLock));
+        when(keptLock.handOver(lockConfig)).thenReturn(Optional.empty());
+
+        executor.executeWithLock((Runnable) () -> {}, lockConfig);
+        executor.executeWithLock((Runnable) () -> {}, lockConfig);
+
+        verify(lockProvider, times(2)).lock(lockConfig);
+        verify(keptLock, never()).unlock();
+    }
+
+    @Test
+    void shouldNotHandOverExpiredLock() throws InterruptedException {
+        LockConfiguration shortLockAtLeastFor = new LockConfiguration(now(), "test", Duration.ofSeconds(100), Duration.ofMillis(50));
+        SimpleLock firstLock = mock(SimpleLock.class);
+        SimpleLock keptLock = mock(SimpleLock.class);
+        SimpleLock secondLock = mock(SimpleLock.class);
+        when(lockProvider.lock(shortLockAtLeastFor)).thenReturn(Optional.of(firstLock), Optional.of(secondLock));
+        when(firstLock.extend(any(), eq(Duration.ZERO))).thenReturn(Optional.of(keptLock));
+
+        executor.executeWithLock((Runnable) () -> {}, shortLockAtLeastFor);
+        Thread.sleep(100);
+        executor.executeWithLock((Runnable) () -> {}, shortLockAtLeastFor);
+
+        verify(keptLock, never()).handOver(any());
+        verify(lockProvider, times(2)).lock(shortLockAtLeastFor);
+    }
+}
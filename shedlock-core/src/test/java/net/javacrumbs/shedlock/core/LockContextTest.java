@@ -0,0 +1,71 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.core;
+
+import net.javacrumbs.shedlock.core.LockContext.ActiveLock;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assumptions.assumeThat;
+import static org.mockito.Mockito.mock;
+
+class LockContextTest {
+    private final ActiveLock lock1 = new ActiveLock("lock1", mock(SimpleLock.class));
+    private final ActiveLock lock2 = new ActiveLock("lock2", mock(SimpleLock.class));
+
+    @Test
+    void threadLocalContextShouldRestorePreviousLock() throws Throwable {
+        shouldRestorePreviousLock(new ThreadLocalLockContext());
+    }
+
+    @Test
+    void scopedValueContextShouldRestorePreviousLock() throws Throwable {
+        LockContext lockContext = ScopedValueLockContext.createIfSupported();
+        assumeThat(lockContext).isNotNull();
+        shouldRestorePreviousLock(lockContext);
+    }
+
+    @Test
+    void scopedValueContextShouldNotBeCreatedIfNotSupported() {
+        assumeThat(Runtime.version().feature()).isLessThan(21);
+        assertThat(ScopedValueLockContext.createIfSupported()).isNull();
+    }
+
+    @Test
+    void shouldPropagateException() {
+        LockContext lockContext = LockContextHolder.lockContext();
+        assertThatThrownBy(() -> lockContext.callWithLock(lock1, () -> {
+            throw new Exception("test");
+        })).hasMessage("test");
+        assertThat(lockContext.getActiveLock()).isNull();
+    }
+
+    private void shouldRestorePreviousLock(LockContext lockContext) throws Throwable {
+        assertThat(lockContext.getActiveLock()).isNull();
+        String result = lockContext.callWithLock(lock1, () -> {
+            assertThat(lockContext.getActiveLock()).isSameAs(lock1);
+            lockContext.callWithLock(lock2, () -> {
+                assertThat(lockContext.getActiveLock()).isSameAs(lock2);
+                return null;
+            });
+            assertThat(lockContext.getActiveLock()).isSameAs(lock1);
+            return "result";
+        });
+        assertThat(result).isEqualTo("result");
+        assertThat(lockContext.getActiveLock()).isNull();
+    }
+}
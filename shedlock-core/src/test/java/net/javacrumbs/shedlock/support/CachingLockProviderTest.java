@@ -0,0 +1,90 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.support;
+
+import net.javacrumbs.shedlock.core.LockConfiguration;
+import net.javacrumbs.shedlock.core.SimpleLock;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+import static net.javacrumbs.shedlock.core.ClockProvider.now;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CachingLockProviderTest {
+    private static final LockConfiguration LOCK_CONFIGURATION = new LockConfiguration(now(), "name", Duration.of(5, ChronoUnit.MINUTES), Duration.ZERO);
+
+    private final StorageAccessor storageAccessor = mock(StorageAccessor.class);
+
+    private final CachingLockProvider lockProvider = new CachingLockProvider(new StorageBasedLockProvider(storageAccessor));
+
+    @Test
+    void shouldNotGoToStorageWhileLockIsHeldElsewhere() {
+        when(storageAccessor.updateRecordWithResult(LOCK_CONFIGURATION))
+            .thenReturn(StorageAccessor.UpdateResult.notUpdated(now().plus(1, ChronoUnit.MINUTES)));
+
+        assertThat(lockProvider.lock(LOCK_CONFIGURATION)).isEmpty();
+        assertThat(lockProvider.lock(LOCK_CONFIGURATION)).isEmpty();
+        assertThat(lockProvider.lock(LOCK_CONFIGURATION)).isEmpty();
+
+        verify(storageAccessor, times(1)).updateRecordWithResult(LOCK_CONFIGURATION);
+        assertThat(lockProvider.getSkippedLockAttempts()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldTryAgainWhenLockedUntilIsWithinSafetyMargin() {
+        when(storageAccessor.updateRecordWithResult(LOCK_CONFIGURATION))
+            .thenReturn(StorageAccessor.UpdateResult.notUpdated(now().plusMillis(500)));
+
+        assertThat(lockProvider.lock(LOCK_CONFIGURATION)).isEmpty();
+        assertThat(lockProvider.lock(LOCK_CONFIGURATION)).isEmpty();
+
+        verify(storageAccessor, times(2)).updateRecordWithResult(LOCK_CONFIGURATION);
+        assertThat(lockProvider.getSkippedLockAttempts()).isZero();
+    }
+
+    @Test
+    void shouldWorkAsWrappedProviderIfLockedUntilIsNotReported() {
+        when(storageAccessor.updateRecordWithResult(LOCK_CONFIGURATION))
+            .thenReturn(StorageAccessor.UpdateResult.notUpdated(null))
+            .thenReturn(StorageAccessor.UpdateResult.updated());
+
+        assertThat(lockProvider.lock(LOCK_CONFIGURATION)).isEmpty();
+        Optional<SimpleLock> lock = lockProvider.lock(LOCK_CONFIGURATION);
+        assertThat(lock).isPresent();
+        lock.get().unlock();
+
+        verify(storageAccessor).unlock(LOCK_CONFIGURATION);
+        assertThat(lockProvider.getSkippedLockAttempts()).isZero();
+    }
+
+    @Test
+    void clearCacheShouldForgetLockedUntil() {
+        when(storageAccessor.updateRecordWithResult(LOCK_CONFIGURATION))
+            .thenReturn(StorageAccessor.UpdateResult.notUpdated(now().plus(1, ChronoUnit.MINUTES)))
+            .thenReturn(StorageAccessor.UpdateResult.updated());
+
+        assertThat(lockProvider.lock(LOCK_CONFIGURATION)).isEmpty();
+        lockProvider.clearCache();
+        assertThat(lockProvider.lock(LOCK_CONFIGURATION)).isPresent();
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.support;
+
+import net.javacrumbs.shedlock.core.LockConfiguration;
+import net.javacrumbs.shedlock.core.LockProvider;
+import net.javacrumbs.shedlock.core.SimpleLock;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static net.javacrumbs.shedlock.core.ClockProvider.now;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ExpiredLockSweeperTest {
+    private final ExpiredLockRecordRemover remover = mock(ExpiredLockRecordRemover.class);
+    private final LockProvider lockProvider = mock(LockProvider.class);
+    private final SimpleLock lock = mock(SimpleLock.class);
+
+    private final ExpiredLockSweeper sweeper = new ExpiredLockSweeper(remover, lockProvider, mock(ScheduledExecutorService.class),
+        Duration.ofDays(1), Duration.ofMinutes(1), 10, 3, Duration.ofMillis(1), ExpiredLockSweeper.DEFAULT_LOCK_NAME);
+
+    @Test
+    void shouldDeleteInBatchesUntilNothingIsLeft() {
+        when(lockProvider.lock(any())).thenReturn(Optional.of(lock));
+        when(remover.removeExpiredLockRecords(any(), anyInt())).thenReturn(10, 4);
+
+        Instant start = now();
+        assertThat(sweeper.sweep()).isEqualTo(14);
+        assertThat(sweeper.getReclaimedRecords()).isEqualTo(14);
+
+        verify(remover, times(2)).removeExpiredLockRecords(argThat(time -> !time.isAfter(now().minus(Duration.ofDays(1)))
+            && !time.isBefore(start.minus(Duration.ofDays(1)))), anyInt());
+        verify(lockProvider).lock(argThat((LockConfiguration configuration) -> configuration.getName().equals(ExpiredLockSweeper.DEFAULT_LOCK_NAME)));
+        verify(lock).unlock();
+    }
+
+    @Test
+    void shouldStopAfterMaxBatches() {
+        when(lockProvider.lock(any())).thenReturn(Optional.of(lock));
+        when(remover.removeExpiredLockRecords(any(), anyInt())).thenReturn(10);
+
+        assertThat(sweeper.sweep()).isEqualTo(30);
+        verify(remover, times(3)).removeExpiredLockRecords(any(), anyInt());
+        verify(lock).unlock();
+    }
+
+    @Test
+    void shouldNotDeleteIfLockIsHeldByAnotherNode() {
+        when(lockProvider.lock(any())).thenReturn(Optional.empty());
+
+        assertThat(sweeper.sweep()).isZero();
+        verify(remover, never()).removeExpiredLockRecords(any(), anyInt());
+    }
+
+    @Test
+    void shouldUnlockIfDeleteFails() {
+        when(lockProvider.lock(any())).thenReturn(Optional.of(lock));
+        when(remover.removeExpiredLockRecords(any(), anyInt())).thenThrow(new LockException("test"));
+
+        assertThatThrownBy(sweeper::sweep).isInstanceOf(LockException.class);
+        verify(lock).unlock();
+    }
+}
@@ -26,7 +26,7 @@ import static org.mockito.Mockito.when;
 class KeepAliveLockProviderTest {
     private final ExtensibleLockProvider wrappedProvider = mock(ExtensibleLockProvider.class);
     private final DeterministicScheduler scheduler = new DeterministicScheduler();
-    private final KeepAliveLockProvider provider = new KeepAliveLockProvider(wrappedProvider, scheduler, ofSeconds(1));
+    private final KeepAliveLockProvider provider = new KeepAliveLockProvider(wrappedProvider, new KeepAliveScheduler(scheduler, ofMillis(100), ZERO, 1_000), ofSeconds(1));
     private final LockConfiguration lockConfiguration = new LockConfiguration(now(), "lock", ofSeconds(3), ofSeconds(2));
     private final SimpleLock originalLock = mock(SimpleLock.class);
 
@@ -0,0 +1,135 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.support;
+
+import net.javacrumbs.shedlock.core.LockConfiguration;
+import net.javacrumbs.shedlock.core.SimpleLock;
+import org.jmock.lib.concurrent.DeterministicScheduler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.Set;
+
+import static java.time.Duration.ZERO;
+import static java.time.Duration.ofMillis;
+import static java.time.Duration.ofSeconds;
+import static java.time.Instant.now;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class KeepAliveSchedulerTest {
+    private final LockConfiguration lockConfiguration1 = new LockConfiguration(now(), "lock1", ofSeconds(30), ZERO);
+    private final LockConfiguration lockConfiguration2 = new LockConfiguration(now(), "lock2", ofSeconds(30), ZERO);
+
+    private final StorageAccessor storageAccessor = mock(StorageAccessor.class);
+    private final StorageBasedLockProvider wrappedProvider = new StorageBasedLockProvider(storageAccessor);
+    private final DeterministicScheduler scheduler = new DeterministicScheduler();
+    private KeepAliveScheduler keepAliveScheduler;
+
+    @BeforeEach
+    void setUpMock() {
+        when(storageAccessor.insertRecord(any())).thenReturn(true);
+    }
+
+    @Test
+    void shouldExtendLocksInBatch() {
+        KeepAliveLockProvider provider = createProvider(1_000);
+        when(storageAccessor.extendRecords(anyCollection())).thenReturn(Set.of("lock1", "lock2"));
+
+        SimpleLock lock1 = provider.lock(lockConfiguration1).orElseThrow();
+        SimpleLock lock2 = provider.lock(lockConfiguration2).orElseThrow();
+        tickMs(15_000);
+
+        verify(storageAccessor, times(1)).extendRecords(anyCollection());
+        verify(storageAccessor, never()).extend(any());
+        assertThat(keepAliveScheduler.getPendingExtensions()).isEqualTo(2);
+
+        lock1.unlock();
+        lock2.unlock();
+        assertThat(keepAliveScheduler.getPendingExtensions()).isZero();
+        tickMs(100);
+        assertThat(scheduler.isIdle()).isTrue();
+    }
+
+    @Test
+    void shouldPostponeExtensionsOverLimit() {
+        KeepAliveLockProvider provider = createProvider(1);
+        when(storageAccessor.extend(any())).thenReturn(true);
+
+        SimpleLock lock1 = provider.lock(lockConfiguration1).orElseThrow();
+        SimpleLock lock2 = provider.lock(lockConfiguration2).orElseThrow();
+        tickMs(15_000);
+
+        verify(storageAccessor, times(1)).extend(any());
+        assertThat(keepAliveScheduler.getOverdueExtensions()).isEqualTo(1);
+
+        tickMs(100);
+        verify(storageAccessor, times(2)).extend(any());
+        assertThat(keepAliveScheduler.getOverdueExtensions()).isZero();
+
+        lock1.unlock();
+        lock2.unlock();
+    }
+
+    @Test
+    void shouldRetryIfExtensionFails() {
+        KeepAliveLockProvider provider = createProvider(1_000);
+        when(storageAccessor.extend(any()))
+            .thenThrow(new LockException("test"))
+            .thenReturn(true);
+
+        SimpleLock lock = provider.lock(lockConfiguration1).orElseThrow();
+        tickMs(15_000);
+        verify(storageAccessor, times(1)).extend(any());
+
+        tickMs(100);
+        verify(storageAccessor, times(2)).extend(any());
+        assertThat(keepAliveScheduler.getPendingExtensions()).isEqualTo(1);
+
+        lock.unlock();
+        verify(storageAccessor).unlock(any());
+    }
+
+    @Test
+    void shouldStopKeepingAliveLocksThatCanNotBeExtended() {
+        KeepAliveLockProvider provider = createProvider(1_000);
+        when(storageAccessor.extendRecords(anyCollection())).thenReturn(Set.of("lock2"));
+
+        provider.lock(lockConfiguration1).orElseThrow();
+        SimpleLock lock2 = provider.lock(lockConfiguration2).orElseThrow();
+        tickMs(15_000);
+
+        assertThat(keepAliveScheduler.getPendingExtensions()).isEqualTo(1);
+        lock2.unlock();
+    }
+
+    private KeepAliveLockProvider createProvider(int maxExtensionsPerTick) {
+        keepAliveScheduler = new KeepAliveScheduler(scheduler, ofMillis(100), ZERO, maxExtensionsPerTick);
+        return new KeepAliveLockProvider(wrappedProvider, keepAliveScheduler, ofSeconds(1));
+    }
+
+    private void tickMs(int i) {
+        scheduler.tick(i, MILLISECONDS);
+    }
+}
@@ -17,7 +17,9 @@ package net.javacrumbs.shedlock.support;
 
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -26,12 +28,51 @@ class LockRecordRegistryTest {
     private final LockRecordRegistry lockRecordRegistry = new LockRecordRegistry();
 
     @Test
-    void unusedKeysShouldBeGarbageCollected() {
+    void sizeShouldBeBounded() {
         int records = 1_000_000;
         for (int i = 0; i < records; i++) {
             lockRecordRegistry.addLockRecord(UUID.randomUUID().toString());
         }
-        assertThat(lockRecordRegistry.getSize()).isLessThan(records);
+        assertThat(lockRecordRegistry.getSize()).isLessThanOrEqualTo(LockRecordRegistry.DEFAULT_MAX_SIZE);
+    }
+
+    @Test
+    void recordsShouldExpire() {
+        AtomicLong nanoTime = new AtomicLong();
+        LockRecordRegistry registry = new LockRecordRegistry(Duration.ofMinutes(1), 10, nanoTime::get);
+        registry.addLockRecord(NAME);
+
+        nanoTime.addAndGet(Duration.ofSeconds(59).toNanos());
+        assertThat(registry.lockRecordRecentlyCreated(NAME)).isTrue();
+
+        nanoTime.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertThat(registry.lockRecordRecentlyCreated(NAME)).isFalse();
+        assertThat(registry.getSize()).isZero();
+    }
+
+    @Test
+    void expiredRecordsShouldBeEvictedFirst() {
+        AtomicLong nanoTime = new AtomicLong();
+        LockRecordRegistry registry = new LockRecordRegistry(Duration.ofMinutes(1), 2, nanoTime::get);
+        registry.addLockRecord("old");
+        nanoTime.addAndGet(Duration.ofMinutes(1).toNanos());
+        registry.addLockRecord("new1");
+        registry.addLockRecord("new2");
+
+        assertThat(registry.getSize()).isEqualTo(2);
+        assertThat(registry.lockRecordRecentlyCreated("new1")).isTrue();
+        assertThat(registry.lockRecordRecentlyCreated("new2")).isTrue();
+    }
+
+    @Test
+    void shouldCountHitsAndMisses() {
+        assertThat(lockRecordRegistry.lockRecordRecentlyCreated(NAME)).isFalse();
+        lockRecordRegistry.addLockRecord(NAME);
+        assertThat(lockRecordRegistry.lockRecordRecentlyCreated(NAME)).isTrue();
+        assertThat(lockRecordRegistry.lockRecordRecentlyCreated(NAME)).isTrue();
+
+        assertThat(lockRecordRegistry.getHits()).isEqualTo(2);
+        assertThat(lockRecordRegistry.getMisses()).isEqualTo(1);
     }
 
     @Test
@@ -0,0 +1,92 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LockTableResolverTest {
+
+    @Test
+    void singleTableShouldAlwaysReturnTheTable() {
+        LockTableResolver resolver = LockTableResolver.singleTable("shedlock");
+        assertThat(resolver.resolveTableName("job-1")).isEqualTo("shedlock");
+        assertThat(resolver.resolveTableName("job-2")).isEqualTo("shedlock");
+    }
+
+    @Test
+    void hashShardedShouldBeStable() {
+        LockTableResolver resolver = LockTableResolver.hashSharded("shedlock", 8);
+        LockTableResolver other = LockTableResolver.hashSharded(List.of("shedlock_0", "shedlock_1", "shedlock_2", "shedlock_3",
+            "shedlock_4", "shedlock_5", "shedlock_6", "shedlock_7"));
+        for (int i = 0; i < 1000; i++) {
+            String name = "job-" + i;
+            assertThat(resolver.resolveTableName(name)).isEqualTo(resolver.resolveTableName(name)).isEqualTo(other.resolveTableName(name));
+        }
+        // must not change between versions, otherwise nodes running different versions would not be exclusive
+        assertThat(resolver.resolveTableName("job-1")).isEqualTo("shedlock_7");
+        assertThat(resolver.resolveTableName("job-2")).isEqualTo("shedlock_7");
+    }
+
+    @Test
+    void hashShardedShouldSpreadLocks() {
+        int tables = 8;
+        int names = 80_000;
+        LockTableResolver resolver = LockTableResolver.hashSharded("shedlock", tables);
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < names; i++) {
+            counts.merge(resolver.resolveTableName("job-" + i), 1, Integer::sum);
+        }
+        assertThat(counts).hasSize(tables);
+        assertThat(counts.values()).allSatisfy(count -> assertThat(count).isBetween(names / tables * 9 / 10, names / tables * 11 / 10));
+    }
+
+    @Test
+    void addingTableShouldMoveOnlyLocksToTheNewTable() {
+        LockTableResolver resolver = LockTableResolver.hashSharded("shedlock", 4);
+        LockTableResolver extended = LockTableResolver.hashSharded("shedlock", 5);
+        for (int i = 0; i < 10_000; i++) {
+            String name = "job-" + i;
+            String newTable = extended.resolveTableName(name);
+            if (!newTable.equals("shedlock_4")) {
+                assertThat(newTable).isEqualTo(resolver.resolveTableName(name));
+            }
+        }
+    }
+
+    @Test
+    void shouldRequireTables() {
+        assertThatThrownBy(() -> LockTableResolver.hashSharded(List.of())).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldGeneratePartitionedTableDdl() {
+        assertThat(LockTableDdl.createHashPartitionedTable(LockTableDdl.Dialect.POSTGRES, "shedlock", 2)).containsExactly(
+            "CREATE TABLE shedlock(name VARCHAR(64) NOT NULL, lock_until TIMESTAMP NOT NULL, locked_at TIMESTAMP NOT NULL, locked_by VARCHAR(255) NOT NULL, PRIMARY KEY (name)) PARTITION BY HASH (name)",
+            "CREATE TABLE shedlock_0 PARTITION OF shedlock FOR VALUES WITH (MODULUS 2, REMAINDER 0)",
+            "CREATE TABLE shedlock_1 PARTITION OF shedlock FOR VALUES WITH (MODULUS 2, REMAINDER 1)"
+        );
+        assertThat(LockTableDdl.createShardedTables(LockTableDdl.Dialect.MYSQL, "shedlock", 3)).hasSize(3);
+        assertThatThrownBy(() -> LockTableDdl.createHashPartitionedTable(LockTableDdl.Dialect.H2, "shedlock", 2))
+            .isInstanceOf(UnsupportedOperationException.class);
+    }
+}
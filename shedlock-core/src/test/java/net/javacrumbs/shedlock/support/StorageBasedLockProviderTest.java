@@ -16,10 +16,15 @@
 package net.javacrumbs.shedlock.support;
 
 import net.javacrumbs.shedlock.core.LockConfiguration;
+import net.javacrumbs.shedlock.core.SimpleLock;
 import org.junit.jupiter.api.Test;
 
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 import static net.javacrumbs.shedlock.core.ClockProvider.now;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -33,6 +38,7 @@ import static org.mockito.Mockito.when;
 
 class StorageBasedLockProviderTest {
     private static final LockConfiguration LOCK_CONFIGURATION = new LockConfiguration(now(),"name", Duration.of(5, ChronoUnit.MINUTES), Duration.ZERO);
+    private static final LockConfiguration LOCK_CONFIGURATION2 = new LockConfiguration(now(),"name2", Duration.of(5, ChronoUnit.MINUTES), Duration.ZERO);
     private static final LockException LOCK_EXCEPTION = new LockException("Test");
 
     private final StorageAccessor storageAccessor = mock(StorageAccessor.class);
@@ -68,6 +74,33 @@ class StorageBasedLockProviderTest {
         verify(storageAccessor).updateRecord(LOCK_CONFIGURATION);
     }
 
+    @Test
+    void newRecordShouldBeUpsertedIfSupported() {
+        when(storageAccessor.supportsUpsert()).thenReturn(true);
+        when(storageAccessor.upsertRecord(LOCK_CONFIGURATION)).thenReturn(false);
+        assertThat(lockProvider.lock(LOCK_CONFIGURATION)).isEmpty();
+        verify(storageAccessor, never()).insertRecord(LOCK_CONFIGURATION);
+        verify(storageAccessor, never()).updateRecord(LOCK_CONFIGURATION);
+
+        // Should update directly without upsert
+        reset(storageAccessor);
+        when(storageAccessor.supportsUpsert()).thenReturn(true);
+        when(storageAccessor.updateRecord(LOCK_CONFIGURATION)).thenReturn(true);
+        assertThat(lockProvider.lock(LOCK_CONFIGURATION)).isNotEmpty();
+        verify(storageAccessor, never()).upsertRecord(LOCK_CONFIGURATION);
+        verify(storageAccessor).updateRecord(LOCK_CONFIGURATION);
+    }
+
+    @Test
+    void shouldNotCacheRecordIfUpsertFailed() {
+        when(storageAccessor.supportsUpsert()).thenReturn(true);
+        when(storageAccessor.upsertRecord(LOCK_CONFIGURATION)).thenThrow(LOCK_EXCEPTION);
+        assertThatThrownBy(() -> lockProvider.lock(LOCK_CONFIGURATION)).isSameAs(LOCK_EXCEPTION);
+        assertThatThrownBy(() -> lockProvider.lock(LOCK_CONFIGURATION)).isSameAs(LOCK_EXCEPTION);
+        verify(storageAccessor, times(2)).upsertRecord(LOCK_CONFIGURATION);
+        verify(storageAccessor, never()).updateRecord(LOCK_CONFIGURATION);
+    }
+
     @Test
     void doNotReturnLockIfUpdatedZeroRows() {
         when(storageAccessor.insertRecord(LOCK_CONFIGURATION)).thenReturn(false);
@@ -96,4 +129,44 @@ class StorageBasedLockProviderTest {
         assertThatThrownBy(() -> lockProvider.lock(LOCK_CONFIGURATION)).isSameAs(LOCK_EXCEPTION);
         verify(storageAccessor, times(2)).insertRecord(LOCK_CONFIGURATION);
     }
+
+    @Test
+    void lockAllShouldUpdateExistingRecordsInBatch() {
+        when(storageAccessor.insertRecord(LOCK_CONFIGURATION)).thenReturn(true);
+        assertThat(lockProvider.lock(LOCK_CONFIGURATION)).isNotEmpty();
+
+        when(storageAccessor.insertRecord(LOCK_CONFIGURATION2)).thenReturn(false);
+        when(storageAccessor.updateRecord(LOCK_CONFIGURATION2)).thenReturn(false);
+        when(storageAccessor.updateRecords(List.of(LOCK_CONFIGURATION))).thenReturn(Set.of("name"));
+
+        Map<String, Optional<SimpleLock>> locks = lockProvider.lockAll(List.of(LOCK_CONFIGURATION, LOCK_CONFIGURATION2));
+        assertThat(locks).containsOnlyKeys("name", "name2");
+        assertThat(locks.get("name")).isNotEmpty();
+        assertThat(locks.get("name2")).isEmpty();
+        verify(storageAccessor).updateRecords(List.of(LOCK_CONFIGURATION));
+
+        // both records are known now
+        reset(storageAccessor);
+        when(storageAccessor.updateRecords(List.of(LOCK_CONFIGURATION, LOCK_CONFIGURATION2))).thenReturn(Set.of("name2"));
+        locks = lockProvider.lockAll(List.of(LOCK_CONFIGURATION, LOCK_CONFIGURATION2));
+        assertThat(locks.get("name")).isEmpty();
+        assertThat(locks.get("name2")).isNotEmpty();
+        verify(storageAccessor, never()).insertRecord(LOCK_CONFIGURATION2);
+        verify(storageAccessor, never()).updateRecord(LOCK_CONFIGURATION2);
+    }
+
+    @Test
+    void lockAllShouldReleaseAcquiredLocksOnException() {
+        when(storageAccessor.insertRecord(LOCK_CONFIGURATION)).thenReturn(true);
+        when(storageAccessor.insertRecord(LOCK_CONFIGURATION2)).thenThrow(LOCK_EXCEPTION);
+
+        assertThatThrownBy(() -> lockProvider.lockAll(List.of(LOCK_CONFIGURATION, LOCK_CONFIGURATION2))).isSameAs(LOCK_EXCEPTION);
+        verify(storageAccessor).unlock(LOCK_CONFIGURATION);
+    }
+
+    @Test
+    void lockAllShouldRejectDuplicateNames() {
+        assertThatThrownBy(() -> lockProvider.lockAll(List.of(LOCK_CONFIGURATION, LOCK_CONFIGURATION)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
 }
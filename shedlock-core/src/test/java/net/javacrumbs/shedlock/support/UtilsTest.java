@@ -19,6 +19,7 @@ import org.junit.jupiter.api.Test;
 
 import java.time.Instant;
 
+import static net.javacrumbs.shedlock.support.Utils.fnv1aHash;
 import static net.javacrumbs.shedlock.support.Utils.toIsoString;
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -31,4 +32,12 @@ class UtilsTest {
         assertThat(toIsoString(Instant.parse("2018-12-07T12:30:37.81Z"))).isEqualTo("2018-12-07T12:30:37.810Z");
         assertThat(toIsoString(Instant.parse("2018-12-07T12:30:37.811Z"))).isEqualTo("2018-12-07T12:30:37.811Z");
     }
+
+    @Test
+    void hashShouldBeStable() {
+        // the same value has to be used by all the nodes, regardless of JVM or version
+        assertThat(fnv1aHash("")).isEqualTo(0xcbf29ce484222325L);
+        assertThat(fnv1aHash("a")).isEqualTo(0xaf63dc4c8601ec8cL);
+        assertThat(fnv1aHash("lock-1")).isNotEqualTo(fnv1aHash("lock-2"));
+    }
 }
@@ -0,0 +1,86 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.test.support;
+
+import net.javacrumbs.shedlock.core.AsyncLockProvider;
+import net.javacrumbs.shedlock.core.AsyncSimpleLock;
+import net.javacrumbs.shedlock.core.LockProvider;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks of {@link AsyncLockProvider}. Skipped if the tested lock provider does not implement it.
+ */
+public abstract class AbstractAsyncLockProviderIntegrationTest extends AbstractExtensibleLockProviderIntegrationTest {
+    private final Duration originalLockDuration = Duration.ofSeconds(2);
+
+    @Test
+    public void shouldLockAndUnlockAsync() throws Exception {
+        AsyncLockProvider lockProvider = getAsyncLockProvider();
+        Optional<AsyncSimpleLock> lock = get(lockProvider.lockAsync(lockConfig(LOCK_NAME1)));
+        assertThat(lock).isNotEmpty();
+        assertLocked(LOCK_NAME1);
+        assertThat(get(lockProvider.lockAsync(lockConfig(LOCK_NAME1)))).isEmpty();
+
+        get(lock.get().unlockAsync());
+        assertUnlocked(LOCK_NAME1);
+    }
+
+    @Test
+    public void shouldLockAsyncTwiceInARow() throws Exception {
+        AsyncLockProvider lockProvider = getAsyncLockProvider();
+        Optional<AsyncSimpleLock> lock1 = get(lockProvider.lockAsync(lockConfig(LOCK_NAME1)));
+        assertThat(lock1).isNotEmpty();
+        get(lock1.get().unlockAsync());
+
+        Optional<AsyncSimpleLock> lock2 = get(lockProvider.lockAsync(lockConfig(LOCK_NAME1)));
+        assertThat(lock2).isNotEmpty();
+        assertLocked(LOCK_NAME1);
+        get(lock2.get().unlockAsync());
+        assertUnlocked(LOCK_NAME1);
+    }
+
+    @Test
+    public void shouldExtendAsync() throws Exception {
+        Optional<AsyncSimpleLock> lock = get(getAsyncLockProvider().lockAsync(lockConfig(LOCK_NAME1, originalLockDuration, Duration.ZERO)));
+        assertThat(lock).isNotEmpty();
+
+        Optional<AsyncSimpleLock> extended = get(lock.get().extendAsync(Duration.ofSeconds(30), Duration.ZERO));
+        assertThat(extended).isNotEmpty();
+
+        // wait for the original lock to be released
+        sleepFor(originalLockDuration);
+        assertLocked(LOCK_NAME1);
+        get(extended.get().unlockAsync());
+        assertUnlocked(LOCK_NAME1);
+    }
+
+    protected AsyncLockProvider getAsyncLockProvider() {
+        LockProvider lockProvider = getLockProvider();
+        assumeTrue(lockProvider instanceof AsyncLockProvider, "Lock provider does not support async locking");
+        return (AsyncLockProvider) lockProvider;
+    }
+
+    private static <T> T get(CompletionStage<T> stage) throws Exception {
+        return stage.toCompletableFuture().get();
+    }
+}
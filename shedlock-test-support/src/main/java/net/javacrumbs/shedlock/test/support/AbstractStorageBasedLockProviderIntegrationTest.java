@@ -20,11 +20,13 @@ import net.javacrumbs.shedlock.core.SimpleLock;
 import net.javacrumbs.shedlock.support.StorageBasedLockProvider;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
-public abstract class AbstractStorageBasedLockProviderIntegrationTest extends AbstractExtensibleLockProviderIntegrationTest {
+public abstract class AbstractStorageBasedLockProviderIntegrationTest extends AbstractAsyncLockProviderIntegrationTest {
 
     @Override
     protected abstract StorageBasedLockProvider getLockProvider();
@@ -45,4 +47,32 @@ public abstract class AbstractStorageBasedLockProviderIntegrationTest extends Ab
 
         lock.get().unlock();
     }
+
+    @Test
+    public void shouldLockAllInBatch() {
+        StorageBasedLockProvider provider = getLockProvider();
+        String lockName2 = LOCK_NAME1 + "-2";
+
+        Optional<SimpleLock> lock = provider.lock(lockConfig(LOCK_NAME1));
+        assertThat(lock).isPresent();
+
+        Map<String, Optional<SimpleLock>> locks = provider.lockAll(List.of(lockConfig(LOCK_NAME1), lockConfig(lockName2)));
+        assertThat(locks.get(LOCK_NAME1)).isEmpty();
+        assertThat(locks.get(lockName2)).isPresent();
+        assertLocked(lockName2);
+
+        lock.get().unlock();
+        locks.get(lockName2).get().unlock();
+
+        // both records exist, so they are updated in one batch
+        locks = provider.lockAll(List.of(lockConfig(LOCK_NAME1), lockConfig(lockName2)));
+        assertThat(locks.get(LOCK_NAME1)).isPresent();
+        assertThat(locks.get(lockName2)).isPresent();
+        assertLocked(LOCK_NAME1);
+        assertLocked(lockName2);
+
+        locks.values().forEach(l -> l.get().unlock());
+        assertUnlocked(LOCK_NAME1);
+        assertUnlocked(lockName2);
+    }
 }
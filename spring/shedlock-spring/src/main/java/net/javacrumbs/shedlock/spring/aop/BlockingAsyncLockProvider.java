@@ -0,0 +1,49 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.spring.aop;
+
+import net.javacrumbs.shedlock.core.AsyncLockProvider;
+import net.javacrumbs.shedlock.core.AsyncSimpleLock;
+import net.javacrumbs.shedlock.core.LockConfiguration;
+import net.javacrumbs.shedlock.core.LockProvider;
+import net.javacrumbs.shedlock.core.SimpleLock;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
+/**
+ * Adapts blocking {@link LockProvider} to {@link AsyncLockProvider}. Lock and unlock are executed using the executor.
+ */
+class BlockingAsyncLockProvider implements AsyncLockProvider {
+    private final LockProvider lockProvider;
+    private final Executor executor;
+
+    BlockingAsyncLockProvider(LockProvider lockProvider, Executor executor) {
+        this.lockProvider = lockProvider;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletionStage<Optional<AsyncSimpleLock>> lockAsync(LockConfiguration lockConfiguration) {
+        return CompletableFuture.supplyAsync(() -> lockProvider.lock(lockConfiguration).map(this::adapt), executor);
+    }
+
+    private AsyncSimpleLock adapt(SimpleLock lock) {
+        return () -> CompletableFuture.runAsync(lock::unlock, executor);
+    }
+}
@@ -18,6 +18,7 @@ package net.javacrumbs.shedlock.spring.aop;
 import net.javacrumbs.shedlock.core.DefaultLockingTaskExecutor;
 import net.javacrumbs.shedlock.core.LockProvider;
 import net.javacrumbs.shedlock.spring.ExtendedLockConfigurationExtractor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -31,11 +32,14 @@ class MethodProxyLockConfiguration extends AbstractLockConfiguration {
     @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
     MethodProxyScheduledLockAdvisor proxyScheduledLockAopBeanPostProcessor(
         @Lazy LockProvider lockProvider,
-        @Lazy ExtendedLockConfigurationExtractor lockConfigurationExtractor
+        @Lazy ExtendedLockConfigurationExtractor lockConfigurationExtractor,
+        ObjectProvider<LockProvider> lockProviderObjectProvider
     ) {
+        // @Lazy proxy hides the real type of the LockProvider, asynchronous locking has to check it
         MethodProxyScheduledLockAdvisor advisor = new MethodProxyScheduledLockAdvisor(
             lockConfigurationExtractor,
-            new DefaultLockingTaskExecutor(lockProvider)
+            new DefaultLockingTaskExecutor(lockProvider),
+            lockProviderObjectProvider::getObject
         );
         advisor.setOrder(getOrder());
         return advisor;
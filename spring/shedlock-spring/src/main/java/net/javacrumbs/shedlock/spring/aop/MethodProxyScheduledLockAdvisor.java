@@ -15,7 +15,10 @@
  */
 package net.javacrumbs.shedlock.spring.aop;
 
+import net.javacrumbs.shedlock.core.AsyncLockProvider;
+import net.javacrumbs.shedlock.core.DefaultAsyncLockingTaskExecutor;
 import net.javacrumbs.shedlock.core.LockConfiguration;
+import net.javacrumbs.shedlock.core.LockProvider;
 import net.javacrumbs.shedlock.core.LockingTaskExecutor;
 import net.javacrumbs.shedlock.core.LockingTaskExecutor.TaskResult;
 import net.javacrumbs.shedlock.spring.ExtendedLockConfigurationExtractor;
@@ -28,17 +31,25 @@ import org.springframework.aop.Pointcut;
 import org.springframework.aop.support.AbstractPointcutAdvisor;
 import org.springframework.aop.support.ComposablePointcut;
 import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.util.ClassUtils;
 
 import java.lang.annotation.Annotation;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
 
 class MethodProxyScheduledLockAdvisor extends AbstractPointcutAdvisor {
     private final Pointcut pointcut = new ComposablePointcut(methodPointcutFor(SchedulerLock.class));
 
     private final Advice advice;
 
-    MethodProxyScheduledLockAdvisor(ExtendedLockConfigurationExtractor lockConfigurationExtractor, LockingTaskExecutor lockingTaskExecutor) {
-        this.advice = new LockingInterceptor(lockConfigurationExtractor, lockingTaskExecutor);
+    MethodProxyScheduledLockAdvisor(
+        ExtendedLockConfigurationExtractor lockConfigurationExtractor,
+        LockingTaskExecutor lockingTaskExecutor,
+        Supplier<LockProvider> lockProvider
+    ) {
+        this.advice = new LockingInterceptor(lockConfigurationExtractor, lockingTaskExecutor, lockProvider);
     }
 
         private static AnnotationMatchingPointcut methodPointcutFor(Class<? extends Annotation> methodAnnotationType) {
@@ -62,13 +73,28 @@ class MethodProxyScheduledLockAdvisor extends AbstractPointcutAdvisor {
         return advice;
     }
 
+    /**
+     * Methods returning CompletableFuture, CompletionStage, Mono or Flux are locked until the returned value completes.
+     * Mono and Flux are locked when subscribed to. If the LockProvider does not implement {@link AsyncLockProvider},
+     * blocking lock operations are executed on Reactor bounded elastic scheduler, if Reactor is present.
+     */
     private static class LockingInterceptor implements MethodInterceptor {
+        private static final boolean REACTOR_PRESENT = ClassUtils.isPresent("reactor.core.publisher.Mono", LockingInterceptor.class.getClassLoader());
+
         private final ExtendedLockConfigurationExtractor lockConfigurationExtractor;
         private final LockingTaskExecutor lockingTaskExecutor;
+        private final Supplier<LockProvider> lockProvider;
+        @Nullable
+        private volatile AsyncLockProvider asyncLockProvider;
 
-        LockingInterceptor(ExtendedLockConfigurationExtractor lockConfigurationExtractor, LockingTaskExecutor lockingTaskExecutor) {
+        LockingInterceptor(
+            ExtendedLockConfigurationExtractor lockConfigurationExtractor,
+            LockingTaskExecutor lockingTaskExecutor,
+            Supplier<LockProvider> lockProvider
+        ) {
             this.lockConfigurationExtractor = lockConfigurationExtractor;
             this.lockingTaskExecutor = lockingTaskExecutor;
+            this.lockProvider = lockProvider;
         }
 
         @Override
@@ -80,6 +106,13 @@ class MethodProxyScheduledLockAdvisor extends AbstractPointcutAdvisor {
             }
 
             LockConfiguration lockConfiguration = lockConfigurationExtractor.getLockConfiguration(invocation.getThis(), invocation.getMethod()).get();
+            if (REACTOR_PRESENT && ReactorLockingSupport.isReactiveType(returnType)) {
+                return ReactorLockingSupport.executeWithLock(invocation, asyncLockProvider(), lockConfiguration);
+            }
+            if (CompletionStage.class.equals(returnType) || CompletableFuture.class.equals(returnType)) {
+                return executeAsync(invocation, lockConfiguration);
+            }
+
             TaskResult<Object> result = lockingTaskExecutor.executeWithLock(invocation::proceed, lockConfiguration);
 
             if (Optional.class.equals(returnType)) {
@@ -89,6 +122,30 @@ class MethodProxyScheduledLockAdvisor extends AbstractPointcutAdvisor {
             }
         }
 
+        @SuppressWarnings("unchecked")
+        private CompletableFuture<Object> executeAsync(MethodInvocation invocation, LockConfiguration lockConfiguration) {
+            return new DefaultAsyncLockingTaskExecutor(asyncLockProvider())
+                .executeWithLock(() -> (CompletionStage<Object>) invocation.proceed(), lockConfiguration)
+                .thenApply(TaskResult::getResult)
+                .toCompletableFuture();
+        }
+
+        private AsyncLockProvider asyncLockProvider() {
+            AsyncLockProvider result = asyncLockProvider;
+            if (result == null) {
+                LockProvider provider = lockProvider.get();
+                if (provider instanceof AsyncLockProvider) {
+                    result = (AsyncLockProvider) provider;
+                } else if (REACTOR_PRESENT) {
+                    result = new BlockingAsyncLockProvider(provider, ReactorLockingSupport.BLOCKING_EXECUTOR);
+                } else {
+                    result = new BlockingAsyncLockProvider(provider, Runnable::run);
+                }
+                asyncLockProvider = result;
+            }
+            return result;
+        }
+
         @Nullable
         private static Object toOptional(TaskResult<Object> result) {
             if (result.wasExecuted()) {
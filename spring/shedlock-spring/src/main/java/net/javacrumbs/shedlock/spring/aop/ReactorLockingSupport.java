@@ -0,0 +1,96 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.shedlock.spring.aop;
+
+import net.javacrumbs.shedlock.core.AsyncLockProvider;
+import net.javacrumbs.shedlock.core.AsyncSimpleLock;
+import net.javacrumbs.shedlock.core.ClockProvider;
+import net.javacrumbs.shedlock.core.LockConfiguration;
+import org.aopalliance.intercept.MethodInvocation;
+import org.reactivestreams.Publisher;
+import org.springframework.aop.ProxyMethodInvocation;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Executor;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Locks methods returning Mono or Flux. The lock is acquired when the publisher is subscribed to and released
+ * on completion, error or cancellation. Separate class, so we do not need Project Reactor on the classpath.
+ * <p>
+ * The method is invoked on each subscription, so every subscription (e.g. retry or repeat) proceeds with its own clone
+ * of the invocation. Otherwise, the interceptor chain would be already consumed and following advisors would be skipped.
+ */
+class ReactorLockingSupport {
+    static final Executor BLOCKING_EXECUTOR = task -> Schedulers.boundedElastic().schedule(task);
+
+    private ReactorLockingSupport() {
+    }
+
+    static boolean isReactiveType(Class<?> returnType) {
+        return Mono.class.equals(returnType) || Flux.class.equals(returnType);
+    }
+
+    static Publisher<?> executeWithLock(MethodInvocation invocation, AsyncLockProvider lockProvider, LockConfiguration lockConfiguration) {
+        // lockAtMostFor and lockAtLeastFor are counted from the subscription
+        Mono<AsyncSimpleLock> lock = Mono.defer(() -> Mono.fromCompletionStage(lockProvider.lockAsync(startingNow(lockConfiguration))))
+            .flatMap(Mono::justOrEmpty);
+        if (Mono.class.equals(invocation.getMethod().getReturnType())) {
+            return Mono.usingWhen(
+                lock,
+                ignored -> Mono.from(proceed(invocableClone(invocation))),
+                ReactorLockingSupport::unlock,
+                (it, error) -> unlock(it),
+                ReactorLockingSupport::unlock
+            );
+        } else {
+            return Flux.usingWhen(
+                lock,
+                ignored -> proceed(invocableClone(invocation)),
+                ReactorLockingSupport::unlock,
+                (it, error) -> unlock(it),
+                ReactorLockingSupport::unlock
+            );
+        }
+    }
+
+    private static LockConfiguration startingNow(LockConfiguration lockConfiguration) {
+        return new LockConfiguration(ClockProvider.now(), lockConfiguration.getName(),
+            lockConfiguration.getLockAtMostFor(), lockConfiguration.getLockAtLeastFor());
+    }
+
+    private static MethodInvocation invocableClone(MethodInvocation invocation) {
+        if (invocation instanceof ProxyMethodInvocation) {
+            return ((ProxyMethodInvocation) invocation).invocableClone();
+        }
+        return invocation;
+    }
+
+    private static Publisher<?> proceed(MethodInvocation invocation) {
+        try {
+            return requireNonNull((Publisher<?>) invocation.proceed(), "Locked method returned null instead of a Publisher");
+        } catch (Throwable e) {
+            return Mono.error(e);
+        }
+    }
+
+    private static Mono<Void> unlock(AsyncSimpleLock lock) {
+        return Mono.fromCompletionStage(lock::unlockAsync);
+    }
+}
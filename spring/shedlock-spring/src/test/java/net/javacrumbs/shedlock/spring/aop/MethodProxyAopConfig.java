@@ -19,21 +19,30 @@ package net.javacrumbs.shedlock.spring.aop;
 import net.javacrumbs.shedlock.core.LockProvider;
 import net.javacrumbs.shedlock.spring.annotation.EnableSchedulerLock;
 import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.NameMatchMethodPointcutAdvisor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.PropertySource;
+import org.springframework.context.annotation.Role;
 import org.springframework.scheduling.annotation.EnableScheduling;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.io.IOException;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static net.javacrumbs.shedlock.core.LockAssert.assertLocked;
 import static org.mockito.Mockito.mock;
+import static org.springframework.beans.factory.config.BeanDefinition.ROLE_INFRASTRUCTURE;
 
 @Configuration
 @EnableScheduling
-@EnableSchedulerLock(defaultLockAtMostFor = "${default.lock_at_most_for}", defaultLockAtLeastFor = "${default.lock_at_least_for}")
+@EnableSchedulerLock(defaultLockAtMostFor = "${default.lock_at_most_for}", defaultLockAtLeastFor = "${default.lock_at_least_for}", order = 100)
 @PropertySource("test.properties")
 public class MethodProxyAopConfig {
 
@@ -42,6 +51,21 @@ public class MethodProxyAopConfig {
         return mock(LockProvider.class);
     }
 
+    /**
+     * Advice applied after the lock advice
+     */
+    @Bean
+    @Role(ROLE_INFRASTRUCTURE)
+    public Advisor innerAdvisor() {
+        NameMatchMethodPointcutAdvisor advisor = new NameMatchMethodPointcutAdvisor((MethodInterceptor) invocation -> {
+            TestBean.innerAdviceCalls.incrementAndGet();
+            return invocation.proceed();
+        });
+        advisor.setMappedName("returnsFailingFlux");
+        advisor.setOrder(200);
+        return advisor;
+    }
+
     @Bean
     public TestBean testBean() {
         return new TestBean();
@@ -53,16 +77,30 @@ public class MethodProxyAopConfig {
     }
 
     static class TestBean {
+        static final AtomicInteger innerAdviceCalls = new AtomicInteger();
         private final AtomicBoolean called = new AtomicBoolean(false);
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile CompletableFuture<String> future = new CompletableFuture<>();
 
         void reset() {
             called.set(false);
+            calls.set(0);
+            innerAdviceCalls.set(0);
+            future = new CompletableFuture<>();
+        }
+
+        CompletableFuture<String> getFuture() {
+            return future;
         }
 
         boolean wasMethodCalled() {
             return called.get();
         }
 
+        int getCalls() {
+            return calls.get();
+        }
+
         public void noAnnotation() {
             called.set(true);
         }
@@ -112,6 +150,37 @@ public class MethodProxyAopConfig {
             return Optional.of("result");
         }
 
+        @SchedulerLock(name = "returnsCompletableFuture")
+        public CompletableFuture<String> returnsCompletableFuture() {
+            called.set(true);
+            return future;
+        }
+
+        @SchedulerLock(name = "returnsMono")
+        public Mono<String> returnsMono() {
+            called.set(true);
+            return Mono.fromFuture(future);
+        }
+
+        @SchedulerLock(name = "returnsFlux")
+        public Flux<String> returnsFlux() {
+            called.set(true);
+            return Flux.just("a", "b");
+        }
+
+        @SchedulerLock(name = "returnsFailingFlux")
+        public Flux<String> returnsFailingFlux() {
+            called.set(true);
+            calls.incrementAndGet();
+            return Flux.error(new IOException());
+        }
+
+        @SchedulerLock(name = "returnsNeverEndingFlux")
+        public Flux<String> returnsNeverEndingFlux() {
+            called.set(true);
+            return Flux.never();
+        }
+
         @SchedulerLock(name = "${property.value}", lockAtLeastFor = "1s")
         public void spel() {
             called.set(true);
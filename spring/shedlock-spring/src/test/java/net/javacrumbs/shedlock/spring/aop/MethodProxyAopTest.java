@@ -27,15 +27,23 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static net.javacrumbs.shedlock.spring.TestUtils.hasParams;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
@@ -131,6 +139,86 @@ public class MethodProxyAopTest {
         assertThat(testBean.returnsOptionalValue()).isEmpty();
     }
 
+    @Test
+    public void shouldKeepLockUntilCompletableFutureCompletes() throws Exception {
+        CompletableFuture<String> result = testBean.returnsCompletableFuture();
+        verify(lockProvider, timeout(1_000)).lock(hasParams("returnsCompletableFuture", 30_000, 100));
+        await().until(testBean::wasMethodCalled);
+        verify(simpleLock, never()).unlock();
+
+        testBean.getFuture().complete("result");
+        assertThat(result.get()).isEqualTo("result");
+        verify(simpleLock).unlock();
+    }
+
+    @Test
+    public void shouldNotCallMethodReturningCompletableFutureIfLocked() throws Exception {
+        when(lockProvider.lock(any())).thenReturn(Optional.empty());
+        assertThat(testBean.returnsCompletableFuture().get()).isNull();
+        assertThat(testBean.wasMethodCalled()).isFalse();
+    }
+
+    @Test
+    public void shouldLockMonoOnSubscription() {
+        Mono<String> mono = testBean.returnsMono();
+        verifyNoInteractions(lockProvider);
+        assertThat(testBean.wasMethodCalled()).isFalse();
+
+        CompletableFuture<String> result = mono.toFuture();
+        verify(lockProvider, timeout(1_000)).lock(hasParams("returnsMono", 30_000, 100));
+        await().until(testBean::wasMethodCalled);
+        verify(simpleLock, never()).unlock();
+
+        testBean.getFuture().complete("result");
+        assertThat(result.join()).isEqualTo("result");
+        verify(simpleLock).unlock();
+    }
+
+    @Test
+    public void shouldReleaseLockOnMonoError() {
+        CompletableFuture<String> result = testBean.returnsMono().toFuture();
+        await().until(testBean::wasMethodCalled);
+
+        testBean.getFuture().completeExceptionally(new IOException());
+        assertThatThrownBy(result::join).hasCauseInstanceOf(IOException.class);
+        verify(simpleLock).unlock();
+    }
+
+    @Test
+    public void shouldReturnEmptyMonoIfLocked() {
+        when(lockProvider.lock(any())).thenReturn(Optional.empty());
+        assertThat(testBean.returnsMono().blockOptional(Duration.ofSeconds(1))).isEmpty();
+        assertThat(testBean.wasMethodCalled()).isFalse();
+    }
+
+    @Test
+    public void shouldLockFlux() {
+        assertThat(testBean.returnsFlux().collectList().block(Duration.ofSeconds(1))).containsExactly("a", "b");
+        verify(lockProvider).lock(hasParams("returnsFlux", 30_000, 100));
+        verify(simpleLock).unlock();
+    }
+
+    @Test
+    public void shouldApplyOtherAdviceOnEachSubscription() {
+        assertThatThrownBy(() -> testBean.returnsFailingFlux().retry(2).blockLast(Duration.ofSeconds(1)))
+            .hasCauseInstanceOf(IOException.class);
+
+        assertThat(testBean.getCalls()).isEqualTo(3);
+        assertThat(TestBean.innerAdviceCalls).hasValue(3);
+        verify(lockProvider, times(3)).lock(hasParams("returnsFailingFlux", 30_000, 100));
+        verify(simpleLock, times(3)).unlock();
+    }
+
+    @Test
+    public void shouldReleaseLockOnFluxCancellation() {
+        Disposable subscription = testBean.returnsNeverEndingFlux().subscribe();
+        await().until(testBean::wasMethodCalled);
+        verify(simpleLock, never()).unlock();
+
+        subscription.dispose();
+        verify(simpleLock, timeout(1_000)).unlock();
+    }
+
     @Test
     public void shouldReadSpringProperty() {
         testBean.spel();